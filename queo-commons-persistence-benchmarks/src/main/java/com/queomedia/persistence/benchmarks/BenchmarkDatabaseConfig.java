@@ -0,0 +1,80 @@
+package com.queomedia.persistence.benchmarks;
+
+import java.util.Properties;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.queomedia.base.test.hibernate.manytoonelazy.CompositeEntityDao;
+import com.queomedia.base.test.hibernate.manytoonelazy.CompositeEntityStatelessDao;
+import com.queomedia.persistence.GeneralLoaderDao;
+import com.queomedia.persistence.hibernate.entitymanager.GeneralHibernateLoaderDaoImpl;
+
+/**
+ * Spring configuration for the dao benchmarks: the H2 persistence unit of the test-demo module, in an in-process
+ * (in memory) H2 database, with a connection pool.
+ *
+ * <p>
+ * The transactions are controlled by the {@link TransactionTemplate}, so no AspectJ weaving is needed.
+ * </p>
+ */
+@Configuration
+public class BenchmarkDatabaseConfig {
+
+    /** The name of the persistence unit, defined in the persistence.xml of the test-demo module. */
+    private static final String PERSISTENCE_UNIT_NAME = "testH2DbPersistenceUnit";
+
+    @Bean(destroyMethod = "dispose")
+    public JdbcConnectionPool dataSource() {
+        return JdbcConnectionPool.create("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    @Bean
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(final DataSource dataSource) {
+        Properties jpaProperties = new Properties();
+        jpaProperties.setProperty("hibernate.show_sql", "false");
+        jpaProperties.setProperty("hibernate.hbm2ddl.auto", "create");
+
+        LocalContainerEntityManagerFactoryBean entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactory.setPersistenceUnitName(PERSISTENCE_UNIT_NAME);
+        entityManagerFactory.setDataSource(dataSource);
+        entityManagerFactory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactory.setJpaProperties(jpaProperties);
+        return entityManagerFactory;
+    }
+
+    @Bean
+    public PlatformTransactionManager transactionManager(final EntityManagerFactory entityManagerFactory) {
+        return new JpaTransactionManager(entityManagerFactory);
+    }
+
+    @Bean
+    public TransactionTemplate transactionTemplate(final PlatformTransactionManager transactionManager) {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    @Bean
+    public CompositeEntityDao compositeEntityDao() {
+        return new CompositeEntityDao();
+    }
+
+    @Bean
+    public CompositeEntityStatelessDao compositeEntityStatelessDao() {
+        return new CompositeEntityStatelessDao();
+    }
+
+    @Bean
+    public GeneralLoaderDao generalLoaderDao() {
+        return new GeneralHibernateLoaderDaoImpl();
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.queomedia.persistence.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the benchmarks, this is the main class of the {@code benchmarks.jar}.
+ *
+ * <p>
+ * It accepts the JMH run options (the benchmark regexp, {@code -f}, {@code -wi}, {@code -i}, ...),
+ * but the results are written as json to {@value #DEFAULT_RESULT_FILE} if no other result format ({@code -rf})
+ * or result file ({@code -rff}) is given, so they can be archived by the build server and compared between
+ * the builds.
+ * </p>
+ *
+ * Example: run only the json benchmarks, with one fork:
+ * <pre>
+ * java -jar target/benchmarks.jar JsonRoundTripBenchmark -f 1
+ * </pre>
+ *
+ * Add {@code -prof gc} to measure the allocations per operation too ({@code gc.alloc.rate.norm}):
+ * <pre>
+ * java -jar target/benchmarks.jar DaoLookupBenchmark -prof gc
+ * </pre>
+ */
+public final class BenchmarkMain {
+
+    /** The default result file. */
+    public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    /**
+     * Util classes need no constructor.
+     */
+    private BenchmarkMain() {
+        super();
+    }
+
+    /**
+     * Run the benchmarks.
+     *
+     * @param args the JMH command line arguments
+     * @throws RunnerException if the benchmarks fail
+     * @throws CommandLineOptionException if the arguments are invalid
+     */
+    public static void main(final String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+        if (!commandLineOptions.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLineOptions.getResult().hasValue()) {
+            options.result(DEFAULT_RESULT_FILE);
+        }
+        new Runner(options.build()).run();
+    }
+
+}
@@ -0,0 +1,200 @@
+package com.queomedia.persistence.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Hibernate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.queomedia.base.test.hibernate.manytoonelazy.CompositeEntity;
+import com.queomedia.persistence.BusinessEntity;
+import com.queomedia.persistence.BusinessId;
+
+/**
+ * {@link BusinessEntity#equals(Object)} (class check without proxy resolution for non proxies) compared with the
+ * former implementation, that resolved both sides by {@link Hibernate#getClass(Object)} for every comparison, and the
+ * effect on {@link HashSet} lookups.
+ *
+ * <p>
+ * The setup verifies that both implementations return the same results for the benchmark data.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BusinessEntityEqualsBenchmark {
+
+    /** The number of entities in the set. */
+    @Param({ "1000" })
+    private int size;
+
+    /** The entity. */
+    private CompositeEntity entity;
+
+    /** An other instance with the same business id. */
+    private CompositeEntity equalEntity;
+
+    /** An entity with an other business id. */
+    private CompositeEntity otherEntity;
+
+    /** The entities, all contained in {@link #entitySet}. */
+    private List<CompositeEntity> entities;
+
+    /** Equal copies of {@link #entities}, not the same instances. */
+    private List<CompositeEntity> lookups;
+
+    /** The set. */
+    private Set<CompositeEntity> entitySet;
+
+    /**
+     * Create the entities.
+     */
+    @Setup
+    public void setUp() {
+        this.entity = new CompositeEntity(new BusinessId<CompositeEntity>(4711));
+        this.equalEntity = new CompositeEntity(new BusinessId<CompositeEntity>(4711));
+        this.otherEntity = new CompositeEntity(new BusinessId<CompositeEntity>(4712));
+
+        this.entities = new ArrayList<CompositeEntity>(this.size);
+        this.lookups = new ArrayList<CompositeEntity>(this.size);
+        for (int i = 0; i < this.size; i++) {
+            this.entities.add(new CompositeEntity(new BusinessId<CompositeEntity>(1000L + i)));
+            this.lookups.add(new CompositeEntity(new BusinessId<CompositeEntity>(1000L + i)));
+        }
+        this.entitySet = new HashSet<CompositeEntity>(this.entities);
+
+        if (this.entity.equals(this.equalEntity) != legacyEquals(this.entity, this.equalEntity)
+                || this.entity.equals(this.otherEntity) != legacyEquals(this.entity, this.otherEntity)
+                || this.entity.equals(this.entity.getBusinessId()) != legacyEquals(this.entity,
+                        this.entity.getBusinessId())) {
+            throw new IllegalStateException("equals and legacyEquals have different semantics");
+        }
+    }
+
+    /**
+     * The former implementation of {@link BusinessEntity#equals(Object)}.
+     *
+     * @param entity the entity
+     * @param obj the other object
+     * @return true, if equal
+     */
+    static boolean legacyEquals(final BusinessEntity<?> entity, final Object obj) {
+        if (entity == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (Hibernate.getClass(entity) != Hibernate.getClass(obj)) {
+            return false;
+        }
+        final BusinessEntity<?> other = (BusinessEntity<?>) obj;
+        if (entity.getBusinessId() == null) {
+            if (other.getBusinessId() != null) {
+                return false;
+            }
+        } else if (!entity.getBusinessId().equals(other.getBusinessId())) {
+            return false;
+        }
+        return true;
+    }
+
+    @Benchmark
+    public boolean equalsEqual() {
+        return this.entity.equals(this.equalEntity);
+    }
+
+    @Benchmark
+    public boolean legacyEqualsEqual() {
+        return legacyEquals(this.entity, this.equalEntity);
+    }
+
+    @Benchmark
+    public boolean equalsNotEqual() {
+        return this.entity.equals(this.otherEntity);
+    }
+
+    @Benchmark
+    public boolean legacyEqualsNotEqual() {
+        return legacyEquals(this.entity, this.otherEntity);
+    }
+
+    @Benchmark
+    public int hashCodeOf() {
+        return this.entity.hashCode();
+    }
+
+    /**
+     * Look up all (equal but not same) entities in the hash set.
+     *
+     * @return the number of found entities
+     */
+    @Benchmark
+    public int hashSetContains() {
+        int found = 0;
+        for (CompositeEntity lookup : this.lookups) {
+            if (this.entitySet.contains(lookup)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Look up every tenth entity by a linear search that uses the former equals.
+     * This is the baseline for {@link #listContains()}, both show the cost of the equals alone.
+     *
+     * @return the number of found entities
+     */
+    @Benchmark
+    public int legacyListContains() {
+        int found = 0;
+        for (int i = 0; i < this.lookups.size(); i += 10) {
+            CompositeEntity lookup = this.lookups.get(i);
+            for (CompositeEntity candidate : this.entities) {
+                if (legacyEquals(candidate, lookup)) {
+                    found++;
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Look up every tenth entity by a linear search that uses equals.
+     *
+     * @return the number of found entities
+     */
+    @Benchmark
+    public int listContains() {
+        int found = 0;
+        for (int i = 0; i < this.lookups.size(); i += 10) {
+            CompositeEntity lookup = this.lookups.get(i);
+            for (CompositeEntity candidate : this.entities) {
+                if (candidate.equals(lookup)) {
+                    found++;
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.queomedia.persistence.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.queomedia.persistence.BusinessId;
+
+/**
+ * The basic operations of {@link BusinessId}: {@code equals}, {@code hashCode}, {@code compareTo} and the creation
+ * by {@link BusinessId#valueOf(long)} (interning pool) compared with the constructor.
+ *
+ * <p>
+ * Run it with {@code -prof gc} to see the allocation rate of the creation benchmarks.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BusinessIdBenchmark {
+
+    /** The number of different values used by the creation benchmarks, less than the default pool capacity. */
+    private static final int VALUE_COUNT = 512;
+
+    /** The business id values. */
+    private long[] values;
+
+    /** The position of the next value. */
+    private int next;
+
+    /** A business id. */
+    private BusinessId<Object> businessId;
+
+    /** An other instance, but equal to {@link #businessId}. */
+    private BusinessId<Object> equalBusinessId;
+
+    /** An business id that is not equal to {@link #businessId}. */
+    private BusinessId<Object> otherBusinessId;
+
+    /**
+     * Create the business ids.
+     */
+    @Setup
+    public void setUp() {
+        this.values = new long[VALUE_COUNT];
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            this.values[i] = 4711_0000_0000L + i * 7919L;
+        }
+        this.businessId = new BusinessId<Object>(4711);
+        this.equalBusinessId = new BusinessId<Object>(4711);
+        this.otherBusinessId = new BusinessId<Object>(4712);
+    }
+
+    /**
+     * The next value, cycling through {@link #values}.
+     *
+     * @return the value
+     */
+    private long nextValue() {
+        long value = this.values[this.next];
+        this.next = (this.next + 1) % VALUE_COUNT;
+        return value;
+    }
+
+    @Benchmark
+    public boolean equalsEqual() {
+        return this.businessId.equals(this.equalBusinessId);
+    }
+
+    @Benchmark
+    public boolean equalsNotEqual() {
+        return this.businessId.equals(this.otherBusinessId);
+    }
+
+    @Benchmark
+    public int hashCodeOf() {
+        return this.businessId.hashCode();
+    }
+
+    @Benchmark
+    public int compareTo() {
+        return this.businessId.compareTo(this.otherBusinessId);
+    }
+
+    /**
+     * Creation by constructor, allocates a new instance every time.
+     *
+     * @param blackhole the blackhole
+     */
+    @Benchmark
+    public void createByConstructor(final Blackhole blackhole) {
+        blackhole.consume(new BusinessId<Object>(nextValue()));
+    }
+
+    /**
+     * Creation by the interning pool, returns the shared instances.
+     *
+     * @param blackhole the blackhole
+     */
+    @Benchmark
+    public void createByValueOf(final Blackhole blackhole) {
+        blackhole.consume(BusinessId.valueOf(nextValue()));
+    }
+
+    /**
+     * Parsing, like it is done by the json deserializers.
+     *
+     * @param blackhole the blackhole
+     */
+    @Benchmark
+    public void parse(final Blackhole blackhole) {
+        blackhole.consume(BusinessId.parse("47110815"));
+    }
+
+}
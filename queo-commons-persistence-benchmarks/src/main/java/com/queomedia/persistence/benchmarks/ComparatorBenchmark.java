@@ -0,0 +1,117 @@
+package com.queomedia.persistence.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.queomedia.persistence.BusinessEntity;
+import com.queomedia.persistence.BusinessId;
+import com.queomedia.persistence.domain.TitleComparatorIgnoreCase;
+import com.queomedia.persistence.domain.TitleComparatorStrict;
+import com.queomedia.persistence.domain.Titled;
+import com.queomedia.persistence.util.BusinessIdComparator;
+
+/**
+ * Sorting with {@link BusinessIdComparator}, {@link TitleComparatorStrict} and {@link TitleComparatorIgnoreCase}.
+ *
+ * <p>
+ * Every invocation sorts a fresh copy of the unsorted list, so the (linear) copy is part of the measured time.
+ * The titles contain many duplicates (in different case), so the business id tie breaker is used too.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ComparatorBenchmark {
+
+    /** The number of elements to sort. */
+    @Param({ "100", "10000" })
+    private int size;
+
+    /** The unsorted business ids. */
+    private List<BusinessId<TitledEntity>> businessIds;
+
+    /** The unsorted entities. */
+    private List<TitledEntity> entities;
+
+    /**
+     * Create the unsorted lists, with a fixed seed so every run sorts the same data.
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(4711);
+        this.businessIds = new ArrayList<BusinessId<TitledEntity>>(this.size);
+        this.entities = new ArrayList<TitledEntity>(this.size);
+        for (int i = 0; i < this.size; i++) {
+            BusinessId<TitledEntity> businessId = new BusinessId<TitledEntity>(random.nextLong());
+            String title = "Title " + random.nextInt(this.size / 4 + 1);
+            this.businessIds.add(businessId);
+            this.entities.add(new TitledEntity(businessId, random.nextBoolean() ? title : title.toUpperCase()));
+        }
+    }
+
+    @Benchmark
+    public List<BusinessId<TitledEntity>> sortByBusinessId() {
+        List<BusinessId<TitledEntity>> sorted = new ArrayList<BusinessId<TitledEntity>>(this.businessIds);
+        Collections.sort(sorted, BusinessIdComparator.getInstance());
+        return sorted;
+    }
+
+    @Benchmark
+    public List<TitledEntity> sortByTitleStrict() {
+        List<TitledEntity> sorted = new ArrayList<TitledEntity>(this.entities);
+        Collections.sort(sorted, TitleComparatorStrict.getInstance());
+        return sorted;
+    }
+
+    @Benchmark
+    public List<TitledEntity> sortByTitleIgnoreCase() {
+        List<TitledEntity> sorted = new ArrayList<TitledEntity>(this.entities);
+        Collections.sort(sorted, TitleComparatorIgnoreCase.getInstance());
+        return sorted;
+    }
+
+    /**
+     * A business entity with title, not persistent.
+     */
+    @SuppressWarnings("serial")
+    public static class TitledEntity extends BusinessEntity<TitledEntity> implements Titled {
+
+        /** The title. */
+        private final String title;
+
+        /**
+         * Instantiates a new titled entity.
+         *
+         * @param businessId the business id
+         * @param title the title
+         */
+        public TitledEntity(final BusinessId<TitledEntity> businessId, final String title) {
+            super(businessId);
+            this.title = title;
+        }
+
+        @Override
+        public String getTitle() {
+            return this.title;
+        }
+    }
+
+}
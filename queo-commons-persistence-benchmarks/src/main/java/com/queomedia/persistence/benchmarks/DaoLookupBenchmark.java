@@ -0,0 +1,240 @@
+package com.queomedia.persistence.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.queomedia.base.test.hibernate.manytoonelazy.CompositeEntity;
+import com.queomedia.base.test.hibernate.manytoonelazy.CompositeEntityDao;
+import com.queomedia.base.test.hibernate.manytoonelazy.CompositeEntityStatelessDao;
+import com.queomedia.persistence.BusinessId;
+import com.queomedia.persistence.BusinessIdList;
+import com.queomedia.persistence.GeneralLoaderDao;
+import com.queomedia.persistence.util.ResultUtil;
+
+/**
+ * Business id lookups of the daos against an in-process H2 database (see {@link BenchmarkDatabaseConfig}).
+ *
+ * <p>
+ * All invocations of one iteration run in one surrounding (read only) transaction and session, so the measured
+ * time is the lookup and not the transaction handling. The persistence context is cleared after every invocation,
+ * so the entities are not served from the persistence context of a previous invocation.
+ * The single lookups cycle through all stored business ids.
+ * </p>
+ *
+ * <p>
+ * {@link #getByBusinessIdCriteria()} is the baseline for {@link #getByBusinessId()}: it builds the criteria query
+ * for every lookup, like the dao did before the query was cached. Run the benchmark with the GC profiler to
+ * compare the allocations per lookup too ({@code gc.alloc.rate.norm}):
+ * </p>
+ * <pre>
+ * java -jar target/benchmarks.jar DaoLookupBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DaoLookupBenchmark {
+
+    /** The number of stored entities. */
+    @Param({ "10000" })
+    private int entityCount;
+
+    /** The number of business ids loaded at once by the batch lookups. */
+    @Param({ "100" })
+    private int batchSize;
+
+    /** The spring context. */
+    private AnnotationConfigApplicationContext applicationContext;
+
+    /** The transaction manager. */
+    private PlatformTransactionManager transactionManager;
+
+    /** The surrounding read only transaction of the current iteration. */
+    private TransactionStatus iterationTransaction;
+
+    /** The (shared) entity manager, bound to the surrounding transaction. */
+    private EntityManager entityManager;
+
+    /** The dao. */
+    private CompositeEntityDao compositeEntityDao;
+
+    /** The stateless dao. */
+    private CompositeEntityStatelessDao compositeEntityStatelessDao;
+
+    /** The general loader dao. */
+    private GeneralLoaderDao generalLoaderDao;
+
+    /** The business ids of the stored entities. */
+    private List<BusinessId<CompositeEntity>> businessIds;
+
+    /** The first {@link #batchSize} business ids. */
+    private List<BusinessId<CompositeEntity>> batchBusinessIds;
+
+    /** The position of the next business id, not synchronized because the state is thread scoped. */
+    private int next;
+
+    /**
+     * Start the spring context and store the entities.
+     */
+    @Setup
+    public void setUp() {
+        this.applicationContext = new AnnotationConfigApplicationContext(BenchmarkDatabaseConfig.class);
+        this.compositeEntityDao = this.applicationContext.getBean(CompositeEntityDao.class);
+        this.compositeEntityStatelessDao = this.applicationContext.getBean(CompositeEntityStatelessDao.class);
+        this.generalLoaderDao = this.applicationContext.getBean(GeneralLoaderDao.class);
+
+        this.entityManager = SharedEntityManagerCreator
+                .createSharedEntityManager(this.applicationContext.getBean(EntityManagerFactory.class));
+
+        TransactionTemplate transaction = this.applicationContext.getBean(TransactionTemplate.class);
+        this.transactionManager = transaction.getTransactionManager();
+
+        List<CompositeEntity> entities = new ArrayList<CompositeEntity>(this.entityCount);
+        this.businessIds = new ArrayList<BusinessId<CompositeEntity>>(this.entityCount);
+        for (int i = 0; i < this.entityCount; i++) {
+            BusinessId<CompositeEntity> businessId = new BusinessId<CompositeEntity>(4711_0000L + i * 31L);
+            entities.add(new CompositeEntity(businessId));
+            this.businessIds.add(businessId);
+        }
+        transaction.execute(status -> this.compositeEntityDao.makePersistentInBatches(entities, 500));
+        this.batchBusinessIds = new ArrayList<BusinessId<CompositeEntity>>(this.businessIds.subList(0,
+                Math.min(this.batchSize, this.entityCount)));
+    }
+
+    /**
+     * Begin the surrounding read only transaction of the iteration.
+     */
+    @Setup(Level.Iteration)
+    public void beginTransaction() {
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+        definition.setReadOnly(true);
+        this.iterationTransaction = this.transactionManager.getTransaction(definition);
+    }
+
+    /**
+     * End the surrounding transaction of the iteration.
+     */
+    @TearDown(Level.Iteration)
+    public void endTransaction() {
+        this.transactionManager.commit(this.iterationTransaction);
+    }
+
+    /**
+     * Close the spring context, this drops the in memory database.
+     */
+    @TearDown
+    public void tearDown() {
+        this.applicationContext.close();
+    }
+
+    /**
+     * The next business id, cycling through all stored ones.
+     *
+     * @return the business id
+     */
+    private BusinessId<CompositeEntity> nextBusinessId() {
+        BusinessId<CompositeEntity> businessId = this.businessIds.get(this.next);
+        this.next = (this.next + 1) % this.businessIds.size();
+        return businessId;
+    }
+
+    /**
+     * Run the lookup and clear the persistence context afterwards, so the next invocation can not be served from it.
+     *
+     * @param <T> the result type
+     * @param lookup the lookup
+     * @return the result of the lookup
+     */
+    private <T> T lookup(final Supplier<T> lookup) {
+        T result = lookup.get();
+        this.entityManager.clear();
+        return result;
+    }
+
+    @Benchmark
+    public CompositeEntity getByBusinessId() {
+        BusinessId<CompositeEntity> businessId = nextBusinessId();
+        return lookup(() -> this.compositeEntityDao.getByBusinessId(businessId));
+    }
+
+    /**
+     * Baseline for {@link #getByBusinessId()}: build the criteria query for every lookup.
+     *
+     * @return the entity
+     */
+    @Benchmark
+    public CompositeEntity getByBusinessIdCriteria() {
+        BusinessId<CompositeEntity> businessId = nextBusinessId();
+        return lookup(() -> {
+            CriteriaBuilder builder = this.entityManager.getCriteriaBuilder();
+            CriteriaQuery<CompositeEntity> selectByBidQuery = builder.createQuery(CompositeEntity.class);
+            Root<CompositeEntity> root = selectByBidQuery.from(CompositeEntity.class);
+            selectByBidQuery.where(builder.equal(root.get("businessId"), businessId));
+            selectByBidQuery.select(root);
+
+            return ResultUtil.requiredOneResult(this.entityManager.createQuery(selectByBidQuery).getResultList(),
+                    "businessId=" + businessId);
+        });
+    }
+
+    @Benchmark
+    public CompositeEntity findByBusinessIdOrNull() {
+        BusinessId<CompositeEntity> businessId = nextBusinessId();
+        return lookup(() -> this.compositeEntityDao.findByBusinessIdOrNull(businessId));
+    }
+
+    @Benchmark
+    public CompositeEntity generalLoaderDaoGetByBusinessId() {
+        BusinessId<CompositeEntity> businessId = nextBusinessId();
+        return lookup(() -> this.generalLoaderDao.getByBusinessId(businessId, CompositeEntity.class));
+    }
+
+    @Benchmark
+    public CompositeEntity statelessGetByBusinessId() {
+        BusinessId<CompositeEntity> businessId = nextBusinessId();
+        return lookup(() -> this.compositeEntityStatelessDao.getByBusinessId(businessId));
+    }
+
+    @Benchmark
+    public List<CompositeEntity> getByBusinessIdList() {
+        return lookup(() -> this.compositeEntityDao.getByBusinessId(this.batchBusinessIds));
+    }
+
+    @Benchmark
+    public List<CompositeEntity> getByBusinessIdsPrimitive() {
+        BusinessIdList<CompositeEntity> businessIdList = BusinessIdList.of(this.batchBusinessIds);
+        return lookup(() -> this.compositeEntityDao.getByBusinessIds(businessIdList));
+    }
+
+}
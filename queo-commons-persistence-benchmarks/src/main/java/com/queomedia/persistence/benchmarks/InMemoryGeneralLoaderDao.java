@@ -0,0 +1,127 @@
+package com.queomedia.persistence.benchmarks;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Sort;
+
+import com.queomedia.commons.checks.Check;
+import com.queomedia.commons.exceptions.NotFoundRuntimeException;
+import com.queomedia.persistence.BusinessEntity;
+import com.queomedia.persistence.BusinessId;
+import com.queomedia.persistence.GeneralLoaderDao;
+
+/**
+ * A {@link GeneralLoaderDao} that returns the entities from a map, so the json benchmarks measure the
+ * (de)serialization and not the database.
+ * The sort parameters are ignored.
+ */
+class InMemoryGeneralLoaderDao implements GeneralLoaderDao {
+
+    /** The entities by business id. */
+    private final Map<BusinessId<?>, BusinessEntity<?>> entities = new HashMap<BusinessId<?>, BusinessEntity<?>>();
+
+    /**
+     * Instantiates a new in memory general loader dao.
+     *
+     * @param entities the entities that can be loaded
+     */
+    InMemoryGeneralLoaderDao(final Collection<? extends BusinessEntity<?>> entities) {
+        Check.notNullArgument(entities, "entities");
+
+        for (BusinessEntity<?> entity : entities) {
+            this.entities.put(entity.getBusinessId(), entity);
+        }
+    }
+
+    @Override
+    @Deprecated
+    public <Clazz extends BusinessEntity<? extends Serializable>> Clazz getObject(final BusinessId<Clazz> businessId,
+            final Class<Clazz> entityClass) throws NotFoundRuntimeException {
+        return getByBusinessId(businessId, entityClass);
+    }
+
+    @Override
+    @Deprecated
+    public <Clazz extends BusinessEntity<? extends Serializable>> Clazz findObject(final BusinessId<Clazz> businessId,
+            final Class<Clazz> entityClass) {
+        return findByBusinessId(businessId, entityClass);
+    }
+
+    @Override
+    public <Clazz extends BusinessEntity<? extends Serializable>> Clazz getByBusinessId(
+            final BusinessId<Clazz> businessId, final Class<Clazz> entityClass) throws NotFoundRuntimeException {
+        Clazz entity = findByBusinessId(businessId, entityClass);
+        if (entity == null) {
+            throw new NotFoundRuntimeException("no " + entityClass.getName() + " with " + businessId);
+        }
+        return entity;
+    }
+
+    @Override
+    public <Clazz extends BusinessEntity<? extends Serializable>> Clazz findByBusinessId(
+            final BusinessId<Clazz> businessId, final Class<Clazz> entityClass) {
+        Check.notNullArgument(businessId, "businessId");
+        Check.notNullArgument(entityClass, "entityClass");
+
+        BusinessEntity<?> entity = this.entities.get(businessId);
+        return entityClass.isInstance(entity) ? entityClass.cast(entity) : null;
+    }
+
+    @Override
+    public <Clazz extends BusinessEntity<? extends Serializable>> List<Clazz> getByBusinessIds(
+            final Collection<BusinessId<Clazz>> businessIds, final Class<Clazz> entityClass)
+            throws NotFoundRuntimeException {
+        Check.notNullArgument(businessIds, "businessIds");
+
+        List<Clazz> result = new ArrayList<Clazz>(businessIds.size());
+        for (BusinessId<Clazz> businessId : businessIds) {
+            result.add(getByBusinessId(businessId, entityClass));
+        }
+        return result;
+    }
+
+    @Override
+    public <Clazz extends BusinessEntity<? extends Serializable>> Map<BusinessId<Clazz>, Clazz> findByBusinessIds(
+            final Collection<BusinessId<Clazz>> businessIds, final Class<Clazz> entityClass) {
+        Check.notNullArgument(businessIds, "businessIds");
+
+        Map<BusinessId<Clazz>, Clazz> result = new HashMap<BusinessId<Clazz>, Clazz>(businessIds.size() * 2);
+        for (BusinessId<Clazz> businessId : businessIds) {
+            Clazz entity = findByBusinessId(businessId, entityClass);
+            if (entity != null) {
+                result.put(businessId, entity);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public <Clazz> List<Clazz> findAll(final Class<Clazz> entityClass) {
+        Check.notNullArgument(entityClass, "entityClass");
+
+        List<Clazz> result = new ArrayList<Clazz>();
+        for (BusinessEntity<?> entity : this.entities.values()) {
+            if (entityClass.isInstance(entity)) {
+                result.add(entityClass.cast(entity));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public <Clazz> List<Clazz> findAll(final Class<Clazz> entityClass, final Sort sort) {
+        return findAll(entityClass);
+    }
+
+    @Override
+    public <Clazz> Stream<Clazz> findAllStream(final Class<Clazz> entityClass, final Sort sort, final int fetchSize) {
+        return findAll(entityClass).stream();
+    }
+
+}
@@ -0,0 +1,173 @@
+package com.queomedia.persistence.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.queomedia.base.test.hibernate.manytoonelazy.CompositeEntity;
+import com.queomedia.persistence.BusinessId;
+import com.queomedia.persistence.extra.json.BusinessEntityJsonSerialization;
+import com.queomedia.persistence.extra.json.BusinessEntityModule;
+import com.queomedia.persistence.extra.json.BusinessEntitySerializationMode;
+import com.queomedia.persistence.extra.json.BusinessIdModule;
+import com.queomedia.persistence.extra.json.SwitchingBusinessEntityModule;
+
+/**
+ * Jackson serialization and deserialization with {@link BusinessIdModule}, {@link BusinessEntityModule} and
+ * {@link SwitchingBusinessEntityModule}.
+ *
+ * <p>
+ * The entities are loaded by an {@link InMemoryGeneralLoaderDao}, so only the json handling is measured.
+ * The object mappers are build once (like in an application), so the serializer and deserializer caches are warm.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonRoundTripBenchmark {
+
+    /** The number of business ids/entities in the payload. */
+    @Param({ "100" })
+    private int size;
+
+    /** Writer with {@link BusinessIdModule}. */
+    private ObjectWriter businessIdWriter;
+
+    /** Reader with {@link BusinessIdModule}. */
+    private ObjectReader businessIdReader;
+
+    /** Writer with {@link BusinessEntityModule}. */
+    private ObjectWriter businessEntityWriter;
+
+    /** Reader with {@link BusinessEntityModule}. */
+    private ObjectReader businessEntityReader;
+
+    /** Writer with {@link SwitchingBusinessEntityModule}. */
+    private ObjectWriter switchingWriter;
+
+    /** Reader with {@link SwitchingBusinessEntityModule}. */
+    private ObjectReader switchingReader;
+
+    /** The business id payload. */
+    private BusinessIdPayload businessIdPayload;
+
+    /** The entity payload. */
+    private EntityPayload entityPayload;
+
+    /** The json of {@link #businessIdPayload}. */
+    private String businessIdJson;
+
+    /** The json of {@link #entityPayload}. */
+    private String entityJson;
+
+    /**
+     * Build the object mappers and the payloads.
+     *
+     * @throws IOException should not happen
+     */
+    @Setup
+    public void setUp() throws IOException {
+        List<CompositeEntity> entities = new ArrayList<CompositeEntity>(this.size);
+        List<BusinessId<CompositeEntity>> businessIds = new ArrayList<BusinessId<CompositeEntity>>(this.size);
+        for (int i = 0; i < this.size; i++) {
+            CompositeEntity entity = new CompositeEntity(new BusinessId<CompositeEntity>(4711_0000L + i));
+            entities.add(entity);
+            businessIds.add(entity.getBusinessId());
+        }
+        InMemoryGeneralLoaderDao generalLoaderDao = new InMemoryGeneralLoaderDao(entities);
+
+        ObjectMapper businessIdMapper = new ObjectMapper().registerModule(new BusinessIdModule());
+        this.businessIdWriter = businessIdMapper.writerFor(BusinessIdPayload.class);
+        this.businessIdReader = businessIdMapper.readerFor(BusinessIdPayload.class);
+
+        ObjectMapper businessEntityMapper = new ObjectMapper()
+                .registerModule(new BusinessEntityModule(generalLoaderDao));
+        this.businessEntityWriter = businessEntityMapper.writerFor(EntityPayload.class);
+        this.businessEntityReader = businessEntityMapper.readerFor(EntityPayload.class);
+
+        ObjectMapper switchingMapper = new ObjectMapper().registerModule(new SwitchingBusinessEntityModule(
+                generalLoaderDao, BusinessEntitySerializationMode.BUSINESS_ID, true, true));
+        this.switchingWriter = switchingMapper.writerFor(EntityPayload.class);
+        this.switchingReader = switchingMapper.readerFor(EntityPayload.class);
+
+        this.businessIdPayload = new BusinessIdPayload();
+        this.businessIdPayload.businessIds = businessIds;
+        this.entityPayload = new EntityPayload();
+        this.entityPayload.entities = entities;
+
+        this.businessIdJson = this.businessIdWriter.writeValueAsString(this.businessIdPayload);
+        this.entityJson = this.businessEntityWriter.writeValueAsString(this.entityPayload);
+        if (!this.entityJson.equals(this.switchingWriter.writeValueAsString(this.entityPayload))) {
+            throw new IllegalStateException("both modules must write the same json for the entity payload");
+        }
+    }
+
+    @Benchmark
+    public String serializeBusinessIds() throws IOException {
+        return this.businessIdWriter.writeValueAsString(this.businessIdPayload);
+    }
+
+    @Benchmark
+    public BusinessIdPayload deserializeBusinessIds() throws IOException {
+        return this.businessIdReader.readValue(this.businessIdJson);
+    }
+
+    @Benchmark
+    public String serializeBusinessEntities() throws IOException {
+        return this.businessEntityWriter.writeValueAsString(this.entityPayload);
+    }
+
+    @Benchmark
+    public EntityPayload deserializeBusinessEntities() throws IOException {
+        return this.businessEntityReader.readValue(this.entityJson);
+    }
+
+    @Benchmark
+    public String serializeSwitching() throws IOException {
+        return this.switchingWriter.writeValueAsString(this.entityPayload);
+    }
+
+    @Benchmark
+    public EntityPayload deserializeSwitching() throws IOException {
+        return this.switchingReader.readValue(this.entityJson);
+    }
+
+    /**
+     * Payload with business ids.
+     */
+    public static class BusinessIdPayload {
+
+        /** The business ids. */
+        public List<BusinessId<CompositeEntity>> businessIds;
+    }
+
+    /**
+     * Payload with entity references, they are written as business ids by both entity modules.
+     */
+    public static class EntityPayload {
+
+        /** The entities. */
+        @BusinessEntityJsonSerialization(BusinessEntitySerializationMode.BUSINESS_ID)
+        public List<CompositeEntity> entities;
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.queomedia.persistence.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.queomedia.persistence.impl.SnowflakeUniqueIdGenerator;
+import com.queomedia.persistence.impl.ThreadLocalRandomUniqueIdGenerator;
+import com.queomedia.persistence.impl.UniqueIdGenerator;
+
+/**
+ * Throughput of {@link UniqueIdGenerator#getUID()} of the different generators, with one and with many threads
+ * that share one generator instance (like the singleton generator in a spring context).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UniqueIdGeneratorBenchmark {
+
+    /** The generator under test. */
+    @Param({ "UniqueIdGenerator", "ThreadLocalRandomUniqueIdGenerator", "SnowflakeUniqueIdGenerator" })
+    private String generatorType;
+
+    /** The shared generator. */
+    private UniqueIdGenerator generator;
+
+    /**
+     * Create the generator.
+     */
+    @Setup
+    public void setUp() {
+        switch (this.generatorType) {
+        case "UniqueIdGenerator":
+            this.generator = new UniqueIdGenerator();
+            break;
+        case "ThreadLocalRandomUniqueIdGenerator":
+            this.generator = new ThreadLocalRandomUniqueIdGenerator();
+            break;
+        case "SnowflakeUniqueIdGenerator":
+            this.generator = new SnowflakeUniqueIdGenerator(1);
+            break;
+        default:
+            throw new IllegalArgumentException("unknown generator type " + this.generatorType);
+        }
+    }
+
+    /**
+     * One thread.
+     *
+     * @return the id
+     */
+    @Benchmark
+    @Threads(1)
+    public long getUidSingleThread() {
+        return this.generator.getUID();
+    }
+
+    /**
+     * Eight threads that contend on the same generator.
+     *
+     * @return the id
+     */
+    @Benchmark
+    @Threads(8)
+    public long getUidContended() {
+        return this.generator.getUID();
+    }
+
+}
@@ -0,0 +1,9 @@
+/**
+ * JMH benchmarks for the hot paths of queo-commons-persistence.
+ *
+ * <p>
+ * Build the module ({@code mvn package}) and run {@code java -jar target/benchmarks.jar}, see {@link BenchmarkMain}.
+ * The benchmarks are not run by the normal build.
+ * </p>
+ */
+package com.queomedia.persistence.benchmarks;
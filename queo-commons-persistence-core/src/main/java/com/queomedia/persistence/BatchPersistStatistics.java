@@ -0,0 +1,99 @@
+package com.queomedia.persistence;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistics of a batched persist run, see {@link GenericEntityDao#makePersistentInBatches(Iterable, int)}.
+ */
+public final class BatchPersistStatistics {
+
+    /** The number of persisted entities. */
+    private final long entityCount;
+
+    /** The number of flush (and clear) cycles. */
+    private final long batchCount;
+
+    /** The batch size. */
+    private final int batchSize;
+
+    /** The elapsed time in nanoseconds. */
+    private final long elapsedNanos;
+
+    /** Are the inserts sent with JDBC statement batching. */
+    private final boolean jdbcBatched;
+
+    /**
+     * Instantiates a new batch persist statistics.
+     *
+     * @param entityCount the number of persisted entities
+     * @param batchCount the number of flush (and clear) cycles
+     * @param batchSize the batch size
+     * @param elapsedNanos the elapsed time in nanoseconds
+     * @param jdbcBatched are the inserts sent with JDBC statement batching (false for identity ids)
+     */
+    public BatchPersistStatistics(final long entityCount, final long batchCount, final int batchSize,
+            final long elapsedNanos, final boolean jdbcBatched) {
+        this.entityCount = entityCount;
+        this.batchCount = batchCount;
+        this.batchSize = batchSize;
+        this.elapsedNanos = elapsedNanos;
+        this.jdbcBatched = jdbcBatched;
+    }
+
+    public long getEntityCount() {
+        return this.entityCount;
+    }
+
+    /**
+     * The number of flush (and clear) cycles, including the final flush of the last (incomplete) batch.
+     *
+     * @return the batch count
+     */
+    public long getBatchCount() {
+        return this.batchCount;
+    }
+
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.elapsedNanos);
+    }
+
+    /**
+     * Are the inserts sent with JDBC statement batching.
+     * This is false if the entity has an identity (auto increment) id: Hibernate must execute every insert
+     * on its own to get the generated id, so only the flush and clear cycles are batched.
+     *
+     * @return true, if the inserts are JDBC batched
+     */
+    public boolean isJdbcBatched() {
+        return this.jdbcBatched;
+    }
+
+    /**
+     * The throughput.
+     *
+     * @return the persisted entities per second, 0 if no time elapsed
+     */
+    public double getEntitiesPerSecond() {
+        if (this.elapsedNanos <= 0) {
+            return 0;
+        }
+        return this.entityCount * (double) TimeUnit.SECONDS.toNanos(1) / this.elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchPersistStatistics [entityCount=" + this.entityCount + ", batchCount=" + this.batchCount
+                + ", batchSize=" + this.batchSize + ", elapsedMillis=" + this.getElapsedMillis()
+                + ", entitiesPerSecond=" + Math.round(this.getEntitiesPerSecond()) + ", jdbcBatched=" + this.jdbcBatched
+                + "]";
+    }
+
+}
@@ -13,6 +13,7 @@ import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
 
 import org.hibernate.Hibernate;
+import org.hibernate.proxy.HibernateProxy;
 import org.springframework.data.domain.Persistable;
 
 import com.queomedia.commons.checks.Check;
@@ -53,12 +54,14 @@ public abstract class BusinessEntity<T extends Serializable> implements Serializ
 
     /**
      * The Constructor.
+     * A shared business id (see {@link BusinessId#valueOf(long)}) is copied, because Hibernate writes into the
+     * business id of a managed entity (for example on merge).
      * 
      * @param businessId the business id
      */
     public BusinessEntity(final BusinessId<T> businessId) {
         Check.notNullArgument(businessId, "businessId");
-        this.businessId = businessId;
+        this.businessId = businessId.unshared();
     }
 
     /**
@@ -83,7 +86,7 @@ public abstract class BusinessEntity<T extends Serializable> implements Serializ
     }
     
     protected void setBusinessId(BusinessId<T> businessId) {
-        this.businessId = businessId;
+        this.businessId = businessId != null ? businessId.unshared() : null;
     }
     
     public long getBusinessIdValue() {
@@ -113,7 +116,7 @@ public abstract class BusinessEntity<T extends Serializable> implements Serializ
         if (obj == null) {
             return false;
         }
-        if (Hibernate.getClass(this) != Hibernate.getClass(obj)) {
+        if (!haveSamePersistentClass(this, obj)) {
             return false;
         }
         final BusinessEntity<?> other = (BusinessEntity<?>) obj;
@@ -127,6 +130,34 @@ public abstract class BusinessEntity<T extends Serializable> implements Serializ
         return true;
     }
 
+    /**
+     * Check if both objects are of the same (persistent) class, like
+     * {@code Hibernate.getClass(first) == Hibernate.getClass(second)}.
+     *
+     * <p>
+     * The concrete classes are compared first: if they are the same and no hibernate proxy is involved
+     * (then both are no proxies), there is no need to resolve the proxies.
+     * Only if one of the objects is a {@link HibernateProxy}, the class of its implementation is used, this
+     * may initialize the proxy.
+     * </p>
+     *
+     * @param first the first object, not null
+     * @param second the second object, not null
+     * @return true, if both have the same persistent class
+     */
+    private static boolean haveSamePersistentClass(final Object first, final Object second) {
+        Class<?> firstClass = first.getClass();
+        Class<?> secondClass = second.getClass();
+        if (firstClass == secondClass) {
+            /* two proxies of the same proxy class may still have implementations of different subclasses */
+            return !(first instanceof HibernateProxy) || (Hibernate.getClass(first) == Hibernate.getClass(second));
+        }
+        if (!(first instanceof HibernateProxy) && !(second instanceof HibernateProxy)) {
+            return false;
+        }
+        return Hibernate.getClass(first) == Hibernate.getClass(second);
+    }
+
     /**
      * Constructs a <code>String</code> with all attributes
      * in name = value format.
@@ -5,8 +5,6 @@ import java.io.Serializable;
 import javax.persistence.Column;
 import javax.persistence.Embeddable;
 
-import org.hibernate.Hibernate;
-
 /**
  * A business ID for a specific class.
  * 
@@ -28,6 +26,12 @@ public class BusinessId<T> implements Serializable, Cloneable, Comparable<Busine
     @Column(nullable = false, unique = true, name = "businessId")
     private long businessId;
 
+    /**
+     * Is this instance shared by the interning pool ({@link #valueOf(long)}), then it must not be modified.
+     * Not persistent and not serialized: a loaded or deserialized instance is never shared.
+     */
+    private transient boolean shared;
+
     /**
      * Used by Hibernate.
      * @deprecated only for reflection api's usage. dont't use it directly or ralph hurts you.
@@ -60,9 +64,48 @@ public class BusinessId<T> implements Serializable, Cloneable, Comparable<Busine
      * @param businessId the business id
      */
     protected void setBusinessId(final long businessId) {
+        checkNotShared();
         this.businessId = businessId;
     }
 
+    /**
+     * Is this instance shared by the interning pool, see {@link #valueOf(long)}.
+     *
+     * @return true, if shared
+     */
+    boolean isShared() {
+        return this.shared;
+    }
+
+    /**
+     * Mark this instance as shared by the interning pool.
+     */
+    void markShared() {
+        this.shared = true;
+    }
+
+    /**
+     * Return an instance that can be owned (and modified by Hibernate): this instance if it is not shared,
+     * else a (not shared) copy.
+     *
+     * @return the business id, never a shared instance
+     */
+    BusinessId<T> unshared() {
+        return this.shared ? this.clone() : this;
+    }
+
+    /**
+     * Check that this instance is not shared by the interning pool.
+     *
+     * @throws UnsupportedOperationException if this instance is shared
+     */
+    private void checkNotShared() throws UnsupportedOperationException {
+        if (this.shared) {
+            throw new UnsupportedOperationException(
+                    "the business id " + this.businessId + " is a shared instance (BusinessId.valueOf) and immutable");
+        }
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -76,10 +119,8 @@ public class BusinessId<T> implements Serializable, Cloneable, Comparable<Busine
         if (this == obj) {
             return true;
         }
-        if (obj == null) {
-            return false;
-        }
-        if (Hibernate.getClass(this) != Hibernate.getClass(obj)) {
+        /* a business id is an embeddable, it is never a hibernate proxy, so there is no need to unwrap it */
+        if ((obj == null) || (this.getClass() != obj.getClass())) {
             return false;
         }
         final BusinessId<?> other = (BusinessId<?>) obj;
@@ -107,21 +148,24 @@ public class BusinessId<T> implements Serializable, Cloneable, Comparable<Busine
     /** 
      * Set the internal business ID from an String
      * @param internal the new value
+     * @throws UnsupportedOperationException if this instance is shared, see {@link #valueOf(long)}
      * @deprecated Used only for flex remoting, because flex does not support 64 bit longs.
      */
     @Deprecated
-    public void setInternalLongAsString(String internal) {
+    public void setInternalLongAsString(String internal) throws UnsupportedOperationException {
+        checkNotShared();
         this.businessId = Long.parseLong(internal);
     }
 
     /**
-     * Creates a clone of this class.
+     * Creates a clone of this class, the clone is never a shared instance.
      */
     @SuppressWarnings("unchecked")
     public BusinessId<T> clone() {
         try {
             BusinessId<T> clone = (BusinessId<T>) super.clone();
             clone.businessId = this.businessId;
+            clone.shared = false;
             return clone;
         } catch (CloneNotSupportedException e) {
             throw new RuntimeException("this should never happen", e);
@@ -138,13 +182,35 @@ public class BusinessId<T> implements Serializable, Cloneable, Comparable<Busine
     
     /**
      * Pare an business id from an string.
+     * The business id is obtained by {@link #valueOf(long)}, so it may be a shared instance.
      * @param <T> the concrete type
      * @param bidString the string to parse
      * @return the business id
      * @throws NumberFormatException if the bidString is no valid long or is null.
      */
     public static <T> BusinessId<T> parse(String bidString) throws NumberFormatException {
-        return new BusinessId<T>(Long.parseLong(bidString));        
+        return valueOf(Long.parseLong(bidString));
+    }
+
+    /**
+     * Return a business id for the value, repeated calls for the same value return the same (shared) instance
+     * as long as it is not replaced in the bounded interning pool.
+     * This avoids short-living objects in hot paths (like json parsing), and the equals check of shared instances
+     * is a simple identity check.
+     * 
+     * <p>
+     * The returned instance is immutable: the deprecated setters throw an {@link UnsupportedOperationException},
+     * and a {@link BusinessEntity} stores a copy of it, so Hibernate (for example merge) never writes into it.
+     * The pool size is configured by the system property
+     * {@code com.queomedia.persistence.BusinessIdPool.capacity} (default 1024, {@code 0} disables the pool).
+     * </p>
+     * 
+     * @param <T> the concrete type
+     * @param businessId the business id value
+     * @return the business id
+     */
+    public static <T> BusinessId<T> valueOf(final long businessId) {
+        return BusinessIdPool.valueOf(businessId);
     }
 
     @Override
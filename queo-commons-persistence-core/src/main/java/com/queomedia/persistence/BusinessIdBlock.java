@@ -0,0 +1,113 @@
+package com.queomedia.persistence;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.stream.LongStream;
+
+import com.queomedia.commons.checks.Check;
+
+/**
+ * A block of pre-allocated business id values, obtained by {@link BusinessIdGenerator#reserveBusinessIds(int)}.
+ *
+ * <p>
+ * The block is backed by a plain {@code long[]}, so reserving thousands of ids costs one array and not one
+ * {@link BusinessId} object and one generator invocation per id. The block is intended to be used by a single
+ * thread (for example one batch loader worker), therefore it is NOT synchronized.
+ * </p>
+ */
+public final class BusinessIdBlock {
+
+    /** The reserved business id values. */
+    private final long[] values;
+
+    /** The index of the next not handed out value. */
+    private int position;
+
+    /**
+     * Instantiates a new business id block.
+     * The block takes the ownership of the given array, so it must not be modified afterwards.
+     *
+     * @param values the reserved business id values
+     */
+    public BusinessIdBlock(final long[] values) {
+        Check.notNullArgument(values, "values");
+
+        this.values = values;
+        this.position = 0;
+    }
+
+    /**
+     * The total number of ids in this block.
+     *
+     * @return the number of ids
+     */
+    public int size() {
+        return this.values.length;
+    }
+
+    /**
+     * The number of ids that are not handed out so far.
+     *
+     * @return the number of remaining ids
+     */
+    public int remaining() {
+        return this.values.length - this.position;
+    }
+
+    /**
+     * Check if there is at least one more id in this block.
+     *
+     * @return true, if there is a remaining id
+     */
+    public boolean hasNext() {
+        return this.position < this.values.length;
+    }
+
+    /**
+     * Hand out the next business id value.
+     *
+     * @return the business id value
+     * @throws NoSuchElementException if the block is exhausted
+     */
+    public long nextValue() throws NoSuchElementException {
+        if (!hasNext()) {
+            throw new NoSuchElementException("business id block of size " + this.values.length + " is exhausted");
+        }
+        return this.values[this.position++];
+    }
+
+    /**
+     * Hand out the next business id.
+     *
+     * @param <T> the business class type
+     * @return the business id
+     * @throws NoSuchElementException if the block is exhausted
+     */
+    public <T> BusinessId<T> next() throws NoSuchElementException {
+        return new BusinessId<T>(nextValue());
+    }
+
+    /**
+     * Return all (handed out and remaining) values of this block as stream.
+     *
+     * @return the values
+     */
+    public LongStream stream() {
+        return Arrays.stream(this.values);
+    }
+
+    /**
+     * Return a copy of all (handed out and remaining) values of this block.
+     *
+     * @return the values
+     */
+    public long[] toArray() {
+        return this.values.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "BusinessIdBlock [size=" + this.values.length + ", remaining=" + remaining() + "]";
+    }
+
+}
@@ -8,4 +8,25 @@ public interface BusinessIdGenerator {
      * @return a new business id
      */
     <T extends BusinessEntity<T>> BusinessId<T> generateBusinessId();
+
+    /**
+     * Reserve a block of {@code count} new business ids at once.
+     *
+     * The default implementation invokes {@link #generateBusinessId()} {@code count} times,
+     * implementations should override it with a more efficient way.
+     *
+     * @param count the number of business ids to reserve, must not be negative
+     * @return the block of reserved business ids
+     */
+    default BusinessIdBlock reserveBusinessIds(final int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative, but was " + count);
+        }
+
+        long[] values = new long[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = generateBusinessId().getBusinessId();
+        }
+        return new BusinessIdBlock(values);
+    }
 }
@@ -0,0 +1,261 @@
+package com.queomedia.persistence;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.queomedia.commons.checks.Check;
+
+/**
+ * An immutable, ordered list of business ids, backed by a primitive {@code long[]} instead of one
+ * {@link BusinessId} object per element.
+ *
+ * <p>
+ * The position of a business id ({@link #indexOf(long)}) is looked up in an open-addressing hash index
+ * (linear probing, primitive arrays), that is build on the first lookup. So it can be used to bring query results
+ * into the order of the requested business ids without a {@code HashMap<BusinessId, T>}, see
+ * {@link com.queomedia.persistence.util.ResultUtil#orderByBusinessIds(Collection, BusinessIdList)}.
+ * </p>
+ *
+ * @param <T> the type of the business entity
+ * @see BusinessIdSet
+ */
+public final class BusinessIdList<T> implements Iterable<BusinessId<T>> {
+
+    /** The empty list. */
+    private static final BusinessIdList<?> EMPTY = new BusinessIdList<Object>(new long[0]);
+
+    /** The business id values, in list order. */
+    private final long[] values;
+
+    /** The open-addressing index, lazy initialized. */
+    private Index index;
+
+    /**
+     * Instantiates a new business id list, the array is NOT copied.
+     *
+     * @param values the values
+     */
+    private BusinessIdList(final long[] values) {
+        this.values = values;
+    }
+
+    /**
+     * The empty list.
+     *
+     * @param <T> the type of the business entity
+     * @return the empty list
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> BusinessIdList<T> empty() {
+        return (BusinessIdList<T>) EMPTY;
+    }
+
+    /**
+     * Create the list of the business id values.
+     *
+     * @param <T> the type of the business entity
+     * @param values the business id values
+     * @return the list
+     */
+    public static <T> BusinessIdList<T> of(final long... values) {
+        Check.notNullArgument(values, "values");
+
+        return new BusinessIdList<T>(values.clone());
+    }
+
+    /**
+     * Create the list of the business ids.
+     *
+     * @param <T> the type of the business entity
+     * @param businessIds the business ids
+     * @return the list
+     */
+    public static <T> BusinessIdList<T> of(final Collection<BusinessId<T>> businessIds) {
+        Check.notNullArgument(businessIds, "businessIds");
+
+        long[] values = new long[businessIds.size()];
+        int i = 0;
+        for (BusinessId<T> businessId : businessIds) {
+            values[i++] = businessId.getBusinessId();
+        }
+        return new BusinessIdList<T>(values);
+    }
+
+    public int size() {
+        return this.values.length;
+    }
+
+    public boolean isEmpty() {
+        return this.values.length == 0;
+    }
+
+    /**
+     * The business id value at the position.
+     *
+     * @param index the position
+     * @return the business id value
+     */
+    public long getLong(final int index) {
+        return this.values[index];
+    }
+
+    /**
+     * The business id at the position (see {@link BusinessId#valueOf(long)}).
+     *
+     * @param index the position
+     * @return the business id
+     */
+    public BusinessId<T> get(final int index) {
+        return BusinessId.valueOf(this.values[index]);
+    }
+
+    /**
+     * The (first) position of the business id value.
+     *
+     * @param businessId the business id value
+     * @return the position or -1 if the list does not contain the business id
+     */
+    public int indexOf(final long businessId) {
+        if (this.values.length == 0) {
+            return -1;
+        }
+        Index currentIndex = this.index;
+        if (currentIndex == null) {
+            currentIndex = new Index(this.values);
+            this.index = currentIndex;
+        }
+        return currentIndex.indexOf(businessId);
+    }
+
+    /**
+     * Check if the list contains the business id value.
+     *
+     * @param businessId the business id value
+     * @return true, if successful
+     */
+    public boolean contains(final long businessId) {
+        return indexOf(businessId) >= 0;
+    }
+
+    /**
+     * A copy of the business id values.
+     *
+     * @return the values in list order
+     */
+    public long[] toLongArray() {
+        return this.values.clone();
+    }
+
+    /**
+     * The distinct business ids of this list as set.
+     *
+     * @return the set
+     */
+    public BusinessIdSet<T> toSet() {
+        return BusinessIdSet.of(this.values);
+    }
+
+    /**
+     * Open-addressing hash index (linear probing, load factor of at most 0.5): business id value to position.
+     * The index is immutable (final fields), so it can be shared between threads without synchronization,
+     * a concurrent build by two threads is harmless.
+     */
+    private static final class Index {
+
+        /** The keys. */
+        private final long[] keys;
+
+        /** The positions +1, so 0 marks an empty slot. */
+        private final int[] positions;
+
+        /**
+         * Build the index.
+         *
+         * @param values the values
+         */
+        Index(final long[] values) {
+            int capacity = Integer.highestOneBit(Math.max(2, values.length * 2 - 1)) << 1;
+            this.keys = new long[capacity];
+            this.positions = new int[capacity];
+            int mask = capacity - 1;
+
+            for (int i = 0; i < values.length; i++) {
+                long value = values[i];
+                int slot = LongHashing.mix(value) & mask;
+                while ((this.positions[slot] != 0) && (this.keys[slot] != value)) {
+                    slot = (slot + 1) & mask;
+                }
+                /* keep the first position of duplicates */
+                if (this.positions[slot] == 0) {
+                    this.keys[slot] = value;
+                    this.positions[slot] = i + 1;
+                }
+            }
+        }
+
+        /**
+         * The (first) position of the value.
+         *
+         * @param value the value
+         * @return the position or -1
+         */
+        int indexOf(final long value) {
+            int mask = this.keys.length - 1;
+            for (int slot = LongHashing.mix(value) & mask;; slot = (slot + 1) & mask) {
+                int position = this.positions[slot];
+                if (position == 0) {
+                    return -1;
+                }
+                if (this.keys[slot] == value) {
+                    return position - 1;
+                }
+            }
+        }
+    }
+
+    @Override
+    public Iterator<BusinessId<T>> iterator() {
+        return new Iterator<BusinessId<T>>() {
+
+            /** The next position. */
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return this.next < BusinessIdList.this.values.length;
+            }
+
+            @Override
+            public BusinessId<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(this.next++);
+            }
+        };
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.values);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof BusinessIdList)) {
+            return false;
+        }
+        return Arrays.equals(this.values, ((BusinessIdList<?>) obj).values);
+    }
+
+    @Override
+    public String toString() {
+        return "BusinessIdList " + Arrays.toString(this.values);
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.queomedia.persistence;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Opt-in marker for {@link BusinessEntity}s: register the {@code businessId} as Hibernate natural id of the entity.
+ *
+ * <p>
+ * The business id is unique and never changes, so it is effectively a natural id. If an entity is annotated,
+ * the {@code BusinessIdNaturalIdIntegrator} (queo-commons-persistence-entitymanager) registers the
+ * {@code businessId} as (immutable) natural id, and the business id lookups of the DAOs are resolved by
+ * Hibernate's natural id resolution: first the persistence context, then the second-level natural id cache
+ * (if the entity is annotated with {@link org.hibernate.annotations.NaturalIdCache} too), and only then SQL.
+ * </p>
+ *
+ * <p>
+ * The annotation must be placed at the root entity of an entity hierarchy.
+ * </p>
+ *
+ * <pre>
+ * &#64;Entity
+ * &#64;BusinessIdNaturalId
+ * &#64;NaturalIdCache
+ * public class Customer extends BusinessEntity&lt;Customer&gt; {...}
+ * </pre>
+ */
+@Documented
+@Retention(RUNTIME)
+@Target(TYPE)
+public @interface BusinessIdNaturalId {
+
+}
@@ -0,0 +1,91 @@
+package com.queomedia.persistence;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free interning pool for {@link BusinessId}s, used by {@link BusinessId#valueOf(long)}.
+ *
+ * <p>
+ * The pool is a direct mapped cache: every value has exactly one slot (by its hash), a new value simply replaces
+ * the old instance in its slot. So the pool never grows, needs no locks and no eviction bookkeeping, and a hit
+ * is allocation-free.
+ * Pooled instances are marked as shared, so that they can not be modified.
+ * </p>
+ *
+ * <p>
+ * The capacity is configured by the system property {@value #CAPACITY_PROPERTY} (rounded up to a power of two,
+ * default {@value #DEFAULT_CAPACITY}), {@code 0} disables the pool, then every lookup creates a new instance.
+ * </p>
+ */
+final class BusinessIdPool {
+
+    /** The name of the system property for the capacity. */
+    static final String CAPACITY_PROPERTY = "com.queomedia.persistence.BusinessIdPool.capacity";
+
+    /** The default capacity. */
+    static final int DEFAULT_CAPACITY = 1024;
+
+    /** The pool slots, null if the pool is disabled. */
+    private static final AtomicReferenceArray<BusinessId<?>> SLOTS = createSlots(
+            Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY));
+
+    /**
+     * Util classes need no constructor.
+     */
+    private BusinessIdPool() {
+        super();
+    }
+
+    /**
+     * Create the slots.
+     *
+     * @param capacity the requested capacity
+     * @return the slots, with a power of two length, or null if the capacity is not positive
+     */
+    private static AtomicReferenceArray<BusinessId<?>> createSlots(final int capacity) {
+        if (capacity <= 0) {
+            return null;
+        }
+        int powerOfTwo = Integer.highestOneBit(Math.min(capacity, 1 << 30));
+        if (powerOfTwo < capacity) {
+            powerOfTwo = powerOfTwo << 1;
+        }
+        return new AtomicReferenceArray<>(powerOfTwo);
+    }
+
+    /**
+     * Return the pooled business id for the value, or create (and pool) a new one.
+     *
+     * @param <T> the type of the business entity
+     * @param value the business id value
+     * @return the business id
+     */
+    @SuppressWarnings("unchecked")
+    static <T> BusinessId<T> valueOf(final long value) {
+        if (SLOTS == null) {
+            return new BusinessId<T>(value);
+        }
+
+        int slot = LongHashing.mix(value) & (SLOTS.length() - 1);
+        BusinessId<?> pooled = SLOTS.get(slot);
+        if ((pooled != null) && (pooled.getBusinessId() == value)) {
+            return (BusinessId<T>) pooled;
+        }
+
+        BusinessId<T> created = new BusinessId<T>(value);
+        created.markShared();
+        /* a lost update by a concurrent thread only costs a later miss */
+        SLOTS.lazySet(slot, created);
+        return created;
+    }
+
+    /**
+     * The number of slots.
+     *
+     * @return the capacity, 0 if the pool is disabled
+     */
+    static int capacity() {
+        return SLOTS == null ? 0 : SLOTS.length();
+    }
+
+}
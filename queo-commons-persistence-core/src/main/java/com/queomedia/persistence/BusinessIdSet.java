@@ -0,0 +1,205 @@
+package com.queomedia.persistence;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.queomedia.commons.checks.Check;
+
+/**
+ * An immutable set of business ids, backed by a sorted primitive {@code long[]} without duplicates,
+ * instead of one {@link BusinessId} object per element.
+ *
+ * <p>
+ * The lookup ({@link #contains(long)}) is a binary search, the iteration order is ascending.
+ * {@link BusinessId} objects are only obtained on demand (iteration, {@link #get(int)}).
+ * </p>
+ *
+ * @param <T> the type of the business entity
+ * @see BusinessIdList
+ */
+public final class BusinessIdSet<T> implements Iterable<BusinessId<T>> {
+
+    /** The empty set. */
+    private static final BusinessIdSet<?> EMPTY = new BusinessIdSet<Object>(new long[0]);
+
+    /** The business id values, sorted ascending, no duplicates. */
+    private final long[] values;
+
+    /**
+     * Instantiates a new business id set, the array is NOT copied and must be sorted and distinct.
+     *
+     * @param values the values
+     */
+    private BusinessIdSet(final long[] values) {
+        this.values = values;
+    }
+
+    /**
+     * The empty set.
+     *
+     * @param <T> the type of the business entity
+     * @return the empty set
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> BusinessIdSet<T> empty() {
+        return (BusinessIdSet<T>) EMPTY;
+    }
+
+    /**
+     * Create the set of the business id values.
+     *
+     * @param <T> the type of the business entity
+     * @param values the business id values, in any order, duplicates are removed
+     * @return the set
+     */
+    public static <T> BusinessIdSet<T> of(final long... values) {
+        Check.notNullArgument(values, "values");
+
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return new BusinessIdSet<T>(distinct(sorted));
+    }
+
+    /**
+     * Create the set of the business ids.
+     *
+     * @param <T> the type of the business entity
+     * @param businessIds the business ids
+     * @return the set
+     */
+    public static <T> BusinessIdSet<T> of(final Collection<BusinessId<T>> businessIds) {
+        Check.notNullArgument(businessIds, "businessIds");
+
+        long[] sorted = new long[businessIds.size()];
+        int i = 0;
+        for (BusinessId<T> businessId : businessIds) {
+            sorted[i++] = businessId.getBusinessId();
+        }
+        Arrays.sort(sorted);
+        return new BusinessIdSet<T>(distinct(sorted));
+    }
+
+    /**
+     * Remove the duplicates of the sorted array.
+     *
+     * @param sorted the sorted array, is modified
+     * @return the distinct values, maybe the same array
+     */
+    private static long[] distinct(final long[] sorted) {
+        if (sorted.length == 0) {
+            return sorted;
+        }
+        int size = 1;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] != sorted[size - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    public int size() {
+        return this.values.length;
+    }
+
+    public boolean isEmpty() {
+        return this.values.length == 0;
+    }
+
+    /**
+     * Check if the set contains the business id value.
+     *
+     * @param businessId the business id value
+     * @return true, if successful
+     */
+    public boolean contains(final long businessId) {
+        return Arrays.binarySearch(this.values, businessId) >= 0;
+    }
+
+    /**
+     * Check if the set contains the business id.
+     *
+     * @param businessId the business id
+     * @return true, if successful
+     */
+    public boolean contains(final BusinessId<?> businessId) {
+        Check.notNullArgument(businessId, "businessId");
+
+        return contains(businessId.getBusinessId());
+    }
+
+    /**
+     * The business id value at the (ascending) position.
+     *
+     * @param index the position
+     * @return the business id value
+     */
+    public long getLong(final int index) {
+        return this.values[index];
+    }
+
+    /**
+     * The business id at the (ascending) position (see {@link BusinessId#valueOf(long)}).
+     *
+     * @param index the position
+     * @return the business id
+     */
+    public BusinessId<T> get(final int index) {
+        return BusinessId.valueOf(this.values[index]);
+    }
+
+    /**
+     * A copy of the business id values.
+     *
+     * @return the values, sorted ascending
+     */
+    public long[] toLongArray() {
+        return this.values.clone();
+    }
+
+    @Override
+    public Iterator<BusinessId<T>> iterator() {
+        return new Iterator<BusinessId<T>>() {
+
+            /** The next position. */
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return this.next < BusinessIdSet.this.values.length;
+            }
+
+            @Override
+            public BusinessId<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(this.next++);
+            }
+        };
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.values);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof BusinessIdSet)) {
+            return false;
+        }
+        return Arrays.equals(this.values, ((BusinessIdSet<?>) obj).values);
+    }
+
+    @Override
+    public String toString() {
+        return "BusinessIdSet " + Arrays.toString(this.values);
+    }
+
+}
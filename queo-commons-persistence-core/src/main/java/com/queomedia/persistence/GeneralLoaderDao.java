@@ -1,7 +1,10 @@
 package com.queomedia.persistence;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import org.springframework.data.domain.Sort;
 
@@ -60,6 +63,32 @@ public interface GeneralLoaderDao {
      */
     <Clazz extends BusinessEntity<? extends Serializable>> Clazz findByBusinessId(BusinessId<Clazz> businessId,
             Class<Clazz> entityClass);
+
+    /**
+     * Load the Business entities of an specific type by there business ids.
+     * The entities are loaded with (a few) {@code IN}-queries instead of one query per business id.
+     *
+     * @param <Clazz> the concrete business type
+     * @param businessIds the business ids
+     * @param entityClass the class of the business object
+     * @return the business objects in the same order as the {@code businessIds}
+     * @throws NotFoundRuntimeException if there is no entity for at least one business id.
+     */
+    <Clazz extends BusinessEntity<? extends Serializable>> List<Clazz> getByBusinessIds(
+            Collection<BusinessId<Clazz>> businessIds, Class<Clazz> entityClass) throws NotFoundRuntimeException;
+
+    /**
+     * Load the Business entities of an specific type by there business ids.
+     * The entities are loaded with (a few) {@code IN}-queries instead of one query per business id.
+     *
+     * @param <Clazz> the concrete business type
+     * @param businessIds the business ids
+     * @param entityClass the class of the business object
+     * @return map of the business id to the business object, in the same order as the {@code businessIds};
+     *         business ids without entity are not contained
+     */
+    <Clazz extends BusinessEntity<? extends Serializable>> Map<BusinessId<Clazz>, Clazz> findByBusinessIds(
+            Collection<BusinessId<Clazz>> businessIds, Class<Clazz> entityClass);
     
     
     /**
@@ -82,5 +111,27 @@ public interface GeneralLoaderDao {
      * @return the all business entities sorted
      */
     <Clazz> List<Clazz> findAll(Class<Clazz> entityClass, Sort sort);
-    
+
+    /**
+     * Stream all entities of an specific type, backed by a forward only database cursor,
+     * instead of loading them into one list.
+     *
+     * <p>
+     * To keep the memory usage flat, every {@code fetchSize} entities, all entities that were loaded since the
+     * stream was opened (the streamed entities, their associations, and entities loaded by the consumer) are
+     * evicted from the session, so they become detached and changes to them are NOT written to the database.
+     * The session is not cleared: entities that were loaded before the stream was opened stay attached,
+     * and changes to them are written as usual.
+     * The stream must be consumed within the transaction and must be closed (try-with-resources).
+     * </p>
+     *
+     * @param <Clazz> the class of the business object
+     * @param entityClass the entity class
+     * @param sort the used sorting, use {@link Sort#unsorted()} for no sorting
+     * @param fetchSize the number of entities fetched at once, and the number of entities after that the loaded
+     *        entities are evicted, must be positive
+     * @return the stream of all entities, must be closed
+     */
+    <Clazz> Stream<Clazz> findAllStream(Class<Clazz> entityClass, Sort sort, int fetchSize);
+
 }
@@ -6,6 +6,7 @@ package com.queomedia.persistence;
 import java.util.List;
 
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Sort;
 
 import com.queomedia.commons.exceptions.NotFoundRuntimeException;
 
@@ -39,6 +40,16 @@ public interface GenericAbstractBusinessDao<KeyType extends BusinessEntity<?>, T
      */
     List<T> getByBusinessId(final List<BusinessId<KeyType>> businessId)
             throws NotFoundRuntimeException;
+
+    /**
+     * Get the business classes by its business id's, given as primitive list.
+     *
+     * @param businessIds the business ids
+     * @return the business classes in the order of the business ids
+     * @throws org.springframework.dao.EmptyResultDataAccessException if business ids are given, but no one is found
+     * @throws org.springframework.dao.IncorrectResultSizeDataAccessException if not all business ids are found
+     */
+    List<T> getByBusinessIds(BusinessIdList<KeyType> businessIds);
     
     /**
      * Find the object by its business id.
@@ -50,4 +61,60 @@ public interface GenericAbstractBusinessDao<KeyType extends BusinessEntity<?>, T
      */
     T findByBusinessIdOrNull(final BusinessId<KeyType> businessId)
             throws IncorrectResultSizeDataAccessException;
+
+    /**
+     * Find the page of entities after the entity with the given business id - keyset (seek) pagination.
+     *
+     * <p>
+     * In contrast to offset pagination every page costs the same, because the page is selected by an
+     * (indexed) position and not by skipping rows. The business id is used as tiebreaker for the sort order.
+     * The sort properties must not be null.
+     * If the sort is not only by business id, then the last entity of the previous page must still exist.
+     * </p>
+     *
+     * @param lastBusinessId the business id of the last entity of the previous page
+     *        ({@link KeysetPage#getLastBusinessId()}), or null for the first page
+     * @param size the page size, must be positive
+     * @param sort the sort order, use {@link Sort#unsorted()} to sort by business id only
+     * @return the page
+     * @throws NotFoundRuntimeException if the sort is not only by business id and there is no entity with the
+     *         given last business id (anymore)
+     */
+    KeysetPage<T> findPageAfter(BusinessId<KeyType> lastBusinessId, int size, Sort sort)
+            throws NotFoundRuntimeException;
+
+    /**
+     * Find the business ids of all entities, without loading the entities.
+     *
+     * @return the business ids, as primitive set
+     */
+    BusinessIdSet<KeyType> findAllBusinessIds();
+
+    /**
+     * Find all entities as projection (DTO), only the columns needed by the projection are selected
+     * and no entity is loaded.
+     *
+     * <p>
+     * The projection type must have exactly one constructor annotated with {@link ProjectionProperties},
+     * its values are the (dot separated) entity property paths of the constructor parameters, for example
+     * {@code @ProjectionProperties({"businessId", "name", "owner.name"})}.
+     * </p>
+     *
+     * @param <P> the projection type
+     * @param projectionType the projection type
+     * @param sort the sort order, use {@link Sort#unsorted()} for no sorting
+     * @return the projections
+     */
+    <P> List<P> findProjection(Class<P> projectionType, Sort sort);
+
+    /**
+     * Get the entity with the given business id as projection (DTO), see {@link #findProjection(Class, Sort)}.
+     *
+     * @param <P> the projection type
+     * @param businessId the business id
+     * @param projectionType the projection type
+     * @return the projection
+     * @throws NotFoundRuntimeException the business id is not found
+     */
+    <P> P getByBusinessId(BusinessId<KeyType> businessId, Class<P> projectionType) throws NotFoundRuntimeException;
 }
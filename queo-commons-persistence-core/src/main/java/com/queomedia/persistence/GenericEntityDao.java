@@ -2,6 +2,7 @@ package com.queomedia.persistence;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.data.domain.Sort;
 
@@ -38,6 +39,26 @@ public interface GenericEntityDao<T> {
      */
     List<T> findAll(Sort sort);
 
+    /**
+     * Stream all entities of this type, backed by a forward only database cursor,
+     * instead of loading them into one list.
+     *
+     * <p>
+     * To keep the memory usage flat, every {@code fetchSize} entities, all entities that were loaded since the
+     * stream was opened (the streamed entities, their associations, and entities loaded by the consumer) are
+     * evicted from the session, so they become detached and changes to them are NOT written to the database.
+     * The session is not cleared: entities that were loaded before the stream was opened stay attached,
+     * and changes to them are written as usual.
+     * The stream must be consumed within the transaction and must be closed (try-with-resources).
+     * </p>
+     *
+     * @param sort the used sorting, use {@link Sort#unsorted()} for no sorting
+     * @param fetchSize the number of entities fetched at once, and the number of entities after that the loaded
+     *        entities are evicted, must be positive
+     * @return the stream of all entities, must be closed
+     */
+    Stream<T> findAllStream(Sort sort, int fetchSize);
+
     /**
      * Find by example.
      * 
@@ -73,6 +94,33 @@ public interface GenericEntityDao<T> {
      */
     void makePersistent(Collection<? extends T> entities);
 
+    /**
+     * Make all entities persistent in batches (bulk insert mode).
+     *
+     * <p>
+     * The entities are send to the database with JDBC statement batching of {@code batchSize} statements.
+     * After every {@code batchSize} entities, the session is flushed and cleared, so the memory usage stays flat,
+     * even for millions of entities if the {@code entities} are created lazy (for example while reading a file).
+     * Therefore all entities of the session (not only the persisted ones) become detached!
+     * </p>
+     *
+     * <p>
+     * To get the most out of the batching, the persistence unit should enable {@code hibernate.order_inserts} and
+     * {@code hibernate.order_updates}.
+     * Attention: Hibernate can not batch inserts of entities with an identity (auto increment) id generator,
+     * because it must execute every insert on its own to get the generated id. This is the case for every
+     * {@link BusinessEntity} on MySQL and H2 (its id is {@code GenerationType.AUTO}, that is mapped to identity).
+     * For such entities only the flush and clear cycles are batched, see {@link BatchPersistStatistics#isJdbcBatched()}.
+     * Real JDBC batching requires an assigned id or a sequence or table id generator.
+     * </p>
+     *
+     * @param entities the entities
+     * @param batchSize the number of entities after that the session is flushed and cleared, and the JDBC batch
+     *        size, must be positive
+     * @return the statistics of this run
+     */
+    BatchPersistStatistics makePersistentInBatches(Iterable<? extends T> entities, int batchSize);
+
     /**
      * Make entity transient.
      * 
@@ -83,12 +131,23 @@ public interface GenericEntityDao<T> {
     /**
      * Make the entities transient.
      * 
+     * <p>
+     * If the entities have no cascades, collections, remove callbacks or delete listeners, they are deleted by
+     * set based {@code DELETE ... WHERE id IN (...)} statements and evicted from the session and the second-level
+     * cache, else they are deleted one by one.
+     * </p>
+     * 
      * @param entities the entities
      */
     void makeTransient(final Collection<? extends T> entities);
 
     /**
      * Make all transient.
+     * 
+     * <p>
+     * If the entities have no cascades, collections, remove callbacks or delete listeners, they are deleted by
+     * one set based {@code DELETE} statement without loading them, else they are loaded and deleted one by one.
+     * </p>
      */
     void makeAllTransient();
     
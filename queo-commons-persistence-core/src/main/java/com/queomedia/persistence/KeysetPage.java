@@ -0,0 +1,157 @@
+package com.queomedia.persistence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+
+import com.queomedia.commons.checks.Check;
+
+/**
+ * A page of a keyset (seek) pagination: the page does not know its number or offset, but the business id of
+ * its last element. The next page is the page of elements "after" this business id (in respect to the sort order).
+ *
+ * <p>
+ * The position is exchanged with (REST) clients as {@link #getContinuationToken() continuation token}:
+ * the token of a page is the business id (value) of its last element, and
+ * {@link #parseContinuationToken(String)} is the way back.
+ * The client should treat the token as opaque string.
+ * </p>
+ *
+ * @param <T> the element type
+ * @see com.queomedia.persistence.util.KeysetPredicates
+ */
+public final class KeysetPage<T> {
+
+    /** The elements of this page. */
+    private final List<T> content;
+
+    /** The requested page size. */
+    private final int size;
+
+    /** The sort order. */
+    private final Sort sort;
+
+    /** Is there a next page. */
+    private final boolean hasNext;
+
+    /** The business id of the last element, null if the page is empty. */
+    private final BusinessId<?> lastBusinessId;
+
+    /**
+     * Instantiates a new keyset page.
+     *
+     * @param content the elements of this page
+     * @param size the requested page size
+     * @param sort the sort order
+     * @param hasNext is there a next page
+     * @param lastBusinessId the business id of the last element, null if the page is empty
+     */
+    public KeysetPage(final List<T> content, final int size, final Sort sort, final boolean hasNext,
+            final BusinessId<?> lastBusinessId) {
+        Check.notNullArgument(content, "content");
+        Check.notNullArgument(sort, "sort");
+
+        this.content = Collections.unmodifiableList(new ArrayList<>(content));
+        this.size = size;
+        this.sort = sort;
+        this.hasNext = hasNext;
+        this.lastBusinessId = lastBusinessId;
+    }
+
+    /**
+     * Build the page from an query result that was limited to {@code size + 1} rows.
+     * The additional row is only used to determine if there is a next page.
+     *
+     * @param <T> the element type
+     * @param rows the query result with at most {@code size + 1} rows
+     * @param size the requested page size
+     * @param sort the sort order
+     * @return the page
+     */
+    public static <T extends BusinessIdOwner<?>> KeysetPage<T> fromRows(final List<T> rows, final int size,
+            final Sort sort) {
+        Check.notNullArgument(rows, "rows");
+        Check.notNullArgument(sort, "sort");
+
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        BusinessId<?> lastBusinessId = content.isEmpty() ? null : content.get(content.size() - 1).getBusinessId();
+        return new KeysetPage<>(content, size, sort, hasNext, lastBusinessId);
+    }
+
+    /**
+     * Parse the continuation token of an page.
+     *
+     * @param <T> the business id type
+     * @param continuationToken the continuation token, or null (or empty) for the first page
+     * @return the business id of the last element of the previous page, or null for the first page
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static <T> BusinessId<T> parseContinuationToken(final String continuationToken)
+            throws IllegalArgumentException {
+        if ((continuationToken == null) || continuationToken.isEmpty()) {
+            return null;
+        }
+        try {
+            return BusinessId.valueOf(Long.parseLong(continuationToken));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("malformed continuation token `" + continuationToken + "`", e);
+        }
+    }
+
+    public List<T> getContent() {
+        return this.content;
+    }
+
+    /**
+     * The requested page size (the content size can be smaller).
+     *
+     * @return the size
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    public Sort getSort() {
+        return this.sort;
+    }
+
+    /**
+     * Is there a next page.
+     *
+     * @return true, if there is a next page
+     */
+    public boolean hasNext() {
+        return this.hasNext;
+    }
+
+    /**
+     * The business id of the last element of this page - the keyset of the next page.
+     *
+     * @return the business id, or null if the page is empty
+     */
+    public BusinessId<?> getLastBusinessId() {
+        return this.lastBusinessId;
+    }
+
+    /**
+     * The continuation token to request the next page.
+     *
+     * @return the token or null if there is no next page
+     */
+    public String getContinuationToken() {
+        if (!this.hasNext || (this.lastBusinessId == null)) {
+            return null;
+        }
+        return Long.toString(this.lastBusinessId.getBusinessId());
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetPage [size=" + this.size + ", contentSize=" + this.content.size() + ", sort=" + this.sort
+                + ", hasNext=" + this.hasNext + ", lastBusinessId=" + this.lastBusinessId + "]";
+    }
+
+}
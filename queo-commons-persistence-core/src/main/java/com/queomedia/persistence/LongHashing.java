@@ -0,0 +1,31 @@
+package com.queomedia.persistence;
+
+/**
+ * Hash function for the primitive {@code long} keyed structures ({@link BusinessIdList}, {@link BusinessIdPool}).
+ */
+final class LongHashing {
+
+    /**
+     * Util classes need no constructor.
+     */
+    private LongHashing() {
+        super();
+    }
+
+    /**
+     * Spread the bits of the value (finalizer of MurmurHash3), because business ids are often sequential.
+     *
+     * @param value the value
+     * @return the hash
+     */
+    static int mix(final long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+}
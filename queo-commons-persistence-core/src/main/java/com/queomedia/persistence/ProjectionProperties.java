@@ -0,0 +1,40 @@
+package com.queomedia.persistence;
+
+import static java.lang.annotation.ElementType.CONSTRUCTOR;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the constructor of a projection (DTO) type that is used by
+ * {@link GenericAbstractBusinessDao#findProjection(Class, org.springframework.data.domain.Sort)}.
+ *
+ * <p>
+ * The values are the (dot separated) entity property paths of the constructor parameters, in the order of the
+ * parameters. A dedicated annotation is used (instead of {@link java.beans.ConstructorProperties}) because other
+ * frameworks, for example Jackson, interpret {@code @ConstructorProperties} as the names of the (JSON) properties,
+ * but the entity property paths are not the property names of the projection.
+ * </p>
+ *
+ * <pre>
+ * public class CustomerView {
+ *
+ *     &#64;ProjectionProperties({ "businessId", "name", "owner.name" })
+ *     public CustomerView(BusinessId&lt;Customer&gt; businessId, String name, String ownerName) {...}
+ * }
+ * </pre>
+ */
+@Documented
+@Retention(RUNTIME)
+@Target(CONSTRUCTOR)
+public @interface ProjectionProperties {
+
+    /**
+     * The entity property paths of the constructor parameters.
+     *
+     * @return the property paths
+     */
+    String[] value();
+}
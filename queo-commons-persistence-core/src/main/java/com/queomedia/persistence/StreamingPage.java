@@ -0,0 +1,137 @@
+package com.queomedia.persistence;
+
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Pageable;
+
+import com.queomedia.commons.checks.Check;
+
+/**
+ * A page whose content is a {@link Stream} (for example a database cursor from
+ * {@link GenericEntityDao#findAllStream(org.springframework.data.domain.Sort, int)}) instead of a list,
+ * so that huge pages (exports) can be written without holding all elements in memory.
+ *
+ * <p>
+ * The total number of elements is optional: it is computed lazily (on the first {@link #getTotalElements()}
+ * invocation) by the given supplier (for example a count query), or it is not available at all.
+ * </p>
+ *
+ * <p>
+ * The content can be consumed only once, and the page must be closed (try-with-resources) to close the stream
+ * (and its cursor). A database stream must be consumed within the transaction.
+ * The page is not thread safe.
+ * </p>
+ *
+ * @param <T> the element type
+ */
+public final class StreamingPage<T> implements AutoCloseable {
+
+    /** The elements of this page. */
+    private final Stream<T> content;
+
+    /** The position and size of this page, or {@link Pageable#unpaged()}. */
+    private final Pageable pageable;
+
+    /** Computes the total number of elements, null if the total number is not available. */
+    private final LongSupplier totalElementsSupplier;
+
+    /** The computed total number of elements, null if not computed yet. */
+    private Long totalElements;
+
+    /** Is the content already requested. */
+    private boolean contentConsumed;
+
+    /**
+     * Instantiates a new streaming page without total number of elements.
+     *
+     * @param content the elements of this page
+     * @param pageable the position and size of this page, or {@link Pageable#unpaged()}
+     */
+    public StreamingPage(final Stream<T> content, final Pageable pageable) {
+        this(content, pageable, null);
+    }
+
+    /**
+     * Instantiates a new streaming page.
+     *
+     * @param content the elements of this page
+     * @param pageable the position and size of this page, or {@link Pageable#unpaged()}
+     * @param totalElementsSupplier computes the total number of elements when it is requested,
+     *        null if the total number is not available
+     */
+    public StreamingPage(final Stream<T> content, final Pageable pageable, final LongSupplier totalElementsSupplier) {
+        Check.notNullArgument(content, "content");
+        Check.notNullArgument(pageable, "pageable");
+
+        this.content = content;
+        this.pageable = pageable;
+        this.totalElementsSupplier = totalElementsSupplier;
+    }
+
+    /**
+     * The elements of this page, they can be consumed only once.
+     *
+     * @return the content stream
+     * @throws IllegalStateException if the content is already requested
+     */
+    public Stream<T> getContent() throws IllegalStateException {
+        if (this.contentConsumed) {
+            throw new IllegalStateException("the content of a streaming page can be consumed only once");
+        }
+        this.contentConsumed = true;
+        return this.content;
+    }
+
+    public Pageable getPageable() {
+        return this.pageable;
+    }
+
+    /**
+     * Is the total number of elements available.
+     *
+     * @return true, if available
+     */
+    public boolean hasTotalElements() {
+        return this.totalElementsSupplier != null;
+    }
+
+    /**
+     * The total number of elements (of all pages), it is computed on the first invocation.
+     *
+     * @return the total number of elements
+     * @throws IllegalStateException if the total number of elements is not available
+     */
+    public long getTotalElements() throws IllegalStateException {
+        if (this.totalElementsSupplier == null) {
+            throw new IllegalStateException("the total number of elements is not available");
+        }
+        if (this.totalElements == null) {
+            this.totalElements = this.totalElementsSupplier.getAsLong();
+        }
+        return this.totalElements;
+    }
+
+    /**
+     * The total number of pages.
+     *
+     * @return the total number of pages, 1 for an unpaged page
+     * @throws IllegalStateException if the total number of elements is not available
+     */
+    public int getTotalPages() throws IllegalStateException {
+        long total = getTotalElements();
+        if (this.pageable.isUnpaged() || this.pageable.getPageSize() == 0) {
+            return 1;
+        }
+        return (int) Math.ceil((double) total / this.pageable.getPageSize());
+    }
+
+    /**
+     * Close the content stream.
+     */
+    @Override
+    public void close() {
+        this.content.close();
+    }
+
+}
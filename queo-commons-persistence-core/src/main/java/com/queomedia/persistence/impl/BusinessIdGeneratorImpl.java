@@ -3,6 +3,7 @@ package com.queomedia.persistence.impl;
 import com.queomedia.commons.checks.Check;
 import com.queomedia.persistence.BusinessEntity;
 import com.queomedia.persistence.BusinessId;
+import com.queomedia.persistence.BusinessIdBlock;
 import com.queomedia.persistence.BusinessIdGenerator;
 
 
@@ -27,5 +28,12 @@ public class BusinessIdGeneratorImpl implements BusinessIdGenerator {
         return new BusinessId<T>(this.uidGenerator.getUID());
     }
 
+    @Override
+    public BusinessIdBlock reserveBusinessIds(final int count) {
+        Check.notNegativeArgument(count, "count");
+
+        return new BusinessIdBlock(this.uidGenerator.getUIDs(count));
+    }
+
     
 }
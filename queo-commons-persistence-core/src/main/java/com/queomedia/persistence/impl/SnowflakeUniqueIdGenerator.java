@@ -0,0 +1,258 @@
+package com.queomedia.persistence.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free generator for unique IDs in Snowflake style.
+ *
+ * <p>
+ * In contrast to {@link UniqueIdGenerator} the IDs are not random. Each ID is build from (high to low bits):
+ * </p>
+ * <ul>
+ *   <li>1 bit: always 0 - so the IDs are positive,</li>
+ *   <li>41 bits: milliseconds since {@link #EPOCH} (enough for ~69 years),</li>
+ *   <li>10 bits: the node id - must be unique within the cluster,</li>
+ *   <li>4 bits: the stripe of the invoking thread,</li>
+ *   <li>8 bits: a sequence number within the millisecond and stripe.</li>
+ * </ul>
+ *
+ * <p>
+ * Every thread is bound to one of {@value #STRIPE_COUNT} stripes (round robin), and every stripe has its own state.
+ * So threads do not contend on one shared random seed or counter. There are only 4 bits for the stripe in the id,
+ * so this is not a per-thread sequence: with more than {@value #STRIPE_COUNT} threads, several threads share
+ * one stripe and contend on its compare-and-set (but only with the threads of the same stripe).
+ * The stripe states are padded to separate cache lines, so the stripes do not false-share.
+ * Within a stripe the IDs are strict monotonic,
+ * therefore the IDs are guaranteed unique within one node (if the node id is unique, they are unique within the
+ * cluster too). If the sequence of a stripe is exhausted within one millisecond, or if the clock goes backwards,
+ * the stripe continues with the next (logical) millisecond instead of blocking.
+ * </p>
+ *
+ * <p>
+ * The generator never waits for the clock. Instead, a stripe may run ahead of the clock, but only up to
+ * {@code maxAheadMillis} (default {@value #DEFAULT_MAX_AHEAD_MILLIS} ms). If an id would exceed it, then
+ * {@link #getUID()} and {@link #getUIDs(int)} fail fast with an {@link IllegalStateException}, and no id is
+ * reserved. That happens if the clock is stepped back further than that (for example by NTP), or if a stripe has
+ * to provide more than {@code 256 * maxAheadMillis} ids in a burst.
+ * </p>
+ *
+ * <p>
+ * Because the timestamp is in the high bits, the IDs are roughly time ordered, so new values are appended
+ * at the end of the businessId unique index.
+ * </p>
+ *
+ * Use it together with {@link BusinessIdGeneratorImpl}:
+ * <pre>
+ * new BusinessIdGeneratorImpl(new SnowflakeUniqueIdGenerator(nodeId));
+ * </pre>
+ */
+public class SnowflakeUniqueIdGenerator extends UniqueIdGenerator {
+
+    /** Custom epoch: 2020-01-01T00:00:00Z in milliseconds. */
+    public static final long EPOCH = 1577836800000L;
+
+    /** Number of bits for the sequence. */
+    static final int SEQUENCE_BITS = 8;
+
+    /** Number of bits for the stripe. */
+    static final int STRIPE_BITS = 4;
+
+    /** Number of bits for the node id. */
+    static final int NODE_ID_BITS = 10;
+
+    /** The highest allowed node id. */
+    public static final int MAX_NODE_ID = (1 << NODE_ID_BITS) - 1;
+
+    /** Number of stripes. */
+    static final int STRIPE_COUNT = 1 << STRIPE_BITS;
+
+    /** The default of how many milliseconds a stripe may run ahead of the clock. */
+    public static final long DEFAULT_MAX_AHEAD_MILLIS = 10000;
+
+    /** The number of ids of one stripe and millisecond. */
+    static final int UIDS_PER_MILLISECOND = 1 << SEQUENCE_BITS;
+
+    /** Mask to extract the sequence. */
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    /** Shift for the stripe. */
+    private static final int STRIPE_SHIFT = SEQUENCE_BITS;
+
+    /** Shift for the node id. */
+    private static final int NODE_ID_SHIFT = SEQUENCE_BITS + STRIPE_BITS;
+
+    /**
+     * Distance (in longs) between two stripe states in {@link #stripeStates}: 16 longs are 128 bytes,
+     * so each state is on its own cache line (even with adjacent cache line prefetch).
+     */
+    private static final int STRIPE_PADDING = 16;
+
+    /** Shift for the timestamp. */
+    private static final int TIMESTAMP_SHIFT = SEQUENCE_BITS + STRIPE_BITS + NODE_ID_BITS;
+
+    /** Used to assign the stripes round robin to new threads. */
+    private static final AtomicInteger NEXT_STRIPE = new AtomicInteger();
+
+    /** The stripe of the current thread. */
+    private static final ThreadLocal<Integer> THREAD_STRIPE = ThreadLocal
+            .withInitial(() -> NEXT_STRIPE.getAndIncrement() & (STRIPE_COUNT - 1));
+
+    /** The node id, already shifted to its position. */
+    private final long shiftedNodeId;
+
+    /** How many milliseconds a stripe may run ahead of the clock. */
+    private final long maxAheadMillis;
+
+    /**
+     * The state of each stripe: the last used {@code (timestamp << SEQUENCE_BITS) | sequence}.
+     * So incrementing the state means increment the sequence, with overflow into the next millisecond.
+     * The state of stripe {@code i} is at index {@code i * STRIPE_PADDING}, the other elements are padding.
+     */
+    private final AtomicLongArray stripeStates;
+
+    /**
+     * Instantiates a new snowflake unique id generator, whose stripes may run
+     * {@value #DEFAULT_MAX_AHEAD_MILLIS} ms ahead of the clock.
+     *
+     * @param nodeId the node id, must be between 0 and {@link #MAX_NODE_ID} and unique within the cluster
+     */
+    public SnowflakeUniqueIdGenerator(final int nodeId) {
+        this(nodeId, DEFAULT_MAX_AHEAD_MILLIS);
+    }
+
+    /**
+     * Instantiates a new snowflake unique id generator.
+     *
+     * @param nodeId the node id, must be between 0 and {@link #MAX_NODE_ID} and unique within the cluster
+     * @param maxAheadMillis how many milliseconds a stripe may run ahead of the clock (because of a clock step
+     *        backwards or a burst), must not be negative
+     */
+    public SnowflakeUniqueIdGenerator(final int nodeId, final long maxAheadMillis) {
+        super();
+        if ((nodeId < 0) || (nodeId > MAX_NODE_ID)) {
+            throw new IllegalArgumentException(
+                    "nodeId must be between 0 and " + MAX_NODE_ID + " but was " + nodeId);
+        }
+        if (maxAheadMillis < 0) {
+            throw new IllegalArgumentException("maxAheadMillis must not be negative, but was " + maxAheadMillis);
+        }
+
+        this.shiftedNodeId = ((long) nodeId) << NODE_ID_SHIFT;
+        this.maxAheadMillis = maxAheadMillis;
+        this.stripeStates = new AtomicLongArray(STRIPE_COUNT * STRIPE_PADDING);
+    }
+
+    /**
+     * Generate a unique id.
+     * @return unique id
+     * @throws IllegalStateException if the stripe would run more than {@code maxAheadMillis} ahead of the clock
+     */
+    @Override
+    public long getUID() throws IllegalStateException {
+        int stripe = THREAD_STRIPE.get();
+        return toUid(reserveStates(stripe * STRIPE_PADDING, 1), stripe);
+    }
+
+    /**
+     * Generate {@code count} unique ids at once.
+     *
+     * <p>
+     * All ids are reserved with one atomic operation, starting at the current state of the stripe.
+     * A block of more than {@value #UIDS_PER_MILLISECOND} ids moves the stripe ahead of the clock
+     * (one millisecond per {@value #UIDS_PER_MILLISECOND} ids), that is allowed up to {@code maxAheadMillis}.
+     * </p>
+     *
+     * @param count the number of ids, must not be negative
+     * @return the unique ids, in ascending order
+     * @throws IllegalStateException if the stripe would run more than {@code maxAheadMillis} ahead of the clock
+     */
+    @Override
+    public long[] getUIDs(final int count) throws IllegalStateException {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative, but was " + count);
+        }
+        long[] uids = new long[count];
+        if (count == 0) {
+            return uids;
+        }
+
+        int stripe = THREAD_STRIPE.get();
+        long firstState = reserveStates(stripe * STRIPE_PADDING, count) - count + 1;
+        for (int i = 0; i < count; i++) {
+            uids[i] = toUid(firstState + i, stripe);
+        }
+        return uids;
+    }
+
+    /**
+     * Reserve {@code count} states of a stripe, following the current state of the stripe, or the begin of the
+     * current millisecond if the clock has moved on.
+     * It never waits for the clock, but fails if the stripe would run more than {@link #maxAheadMillis} ahead of it.
+     *
+     * @param index the index of the state of the stripe
+     * @param count the number of states to reserve, at least 1
+     * @return the last reserved state, the reserved states are {@code (result - count, result]}
+     * @throws IllegalStateException if the stripe would run too far ahead of the clock, then nothing is reserved
+     */
+    private long reserveStates(final int index, final int count) throws IllegalStateException {
+        long timestamp = currentTimeMillis() - EPOCH;
+        long timeState = timestamp << SEQUENCE_BITS;
+        while (true) {
+            long last = this.stripeStates.get(index);
+            long next = Math.max(last, timeState - 1) + count;
+            long ahead = (next >>> SEQUENCE_BITS) - timestamp;
+            if (ahead > this.maxAheadMillis) {
+                throw new IllegalStateException("can not reserve " + count + " ids: the stripe would run " + ahead
+                        + " ms ahead of the clock, but only " + this.maxAheadMillis
+                        + " ms are allowed (the clock went backwards, or too many ids were requested)");
+            }
+            if (this.stripeStates.compareAndSet(index, last, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Build the id from the stripe state and the stripe.
+     *
+     * @param state the stripe state {@code (timestamp << SEQUENCE_BITS) | sequence}
+     * @param stripe the stripe
+     * @return the id
+     */
+    private long toUid(final long state, final int stripe) {
+        long timestamp = state >>> SEQUENCE_BITS;
+        long sequence = state & SEQUENCE_MASK;
+        return (timestamp << TIMESTAMP_SHIFT) | this.shiftedNodeId | (((long) stripe) << STRIPE_SHIFT) | sequence;
+    }
+
+    /**
+     * The current time in milliseconds, extracted for tests.
+     *
+     * @return the current time in milliseconds
+     */
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Extract the timestamp (milliseconds since 1970) from an id that was created by this generator.
+     *
+     * @param uid the id
+     * @return the timestamp in milliseconds since 1970
+     */
+    public static long extractTimestamp(final long uid) {
+        return (uid >>> TIMESTAMP_SHIFT) + EPOCH;
+    }
+
+    /**
+     * Extract the node id from an id that was created by this generator.
+     *
+     * @param uid the id
+     * @return the node id
+     */
+    public static int extractNodeId(final long uid) {
+        return (int) ((uid >>> NODE_ID_SHIFT) & MAX_NODE_ID);
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.queomedia.persistence.impl;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A generator to generate unique IDs, that use the same id format like {@link UniqueIdGenerator}
+ * ({@link #format(long, long)}), but draws the randomness from {@link ThreadLocalRandom}.
+ *
+ * <p>
+ * The {@link java.util.Random} of {@link UniqueIdGenerator} is shared by all threads, so every id generation
+ * contends on its seed. This generator has no shared state, so it scales with many threads
+ * (for example bulk imports). The generated ids are compatible with the ids from {@link UniqueIdGenerator}.
+ * </p>
+ *
+ * Use it together with {@link BusinessIdGeneratorImpl}:
+ * <pre>
+ * new BusinessIdGeneratorImpl(new ThreadLocalRandomUniqueIdGenerator());
+ * </pre>
+ */
+public class ThreadLocalRandomUniqueIdGenerator extends UniqueIdGenerator {
+
+    /**
+     * Instantiates a new thread local random unique id generator.
+     */
+    public ThreadLocalRandomUniqueIdGenerator() {
+        super();
+    }
+
+    @Override
+    protected long nextRandom() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+
+}
@@ -45,7 +45,35 @@ public class UniqueIdGenerator {
      * @return unique id
      */
     public long getUID() {
-        return format(System.currentTimeMillis(), this.random.nextLong());
+        return format(System.currentTimeMillis(), nextRandom());
+    }
+
+    /**
+     * Generate {@code count} unique ids at once.
+     *
+     * @param count the number of ids, must not be negative
+     * @return the unique ids
+     */
+    public long[] getUIDs(final int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative, but was " + count);
+        }
+
+        long[] uids = new long[count];
+        for (int i = 0; i < count; i++) {
+            uids[i] = getUID();
+        }
+        return uids;
+    }
+
+    /**
+     * The random part of the next unique id.
+     * Subclasses can override this to use an other random source, without changing the id format.
+     *
+     * @return a random long
+     */
+    protected long nextRandom() {
+        return this.random.nextLong();
     }
 
 }
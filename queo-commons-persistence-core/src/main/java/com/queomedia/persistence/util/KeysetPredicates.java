@@ -0,0 +1,205 @@
+package com.queomedia.persistence.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.criteria.AbstractQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+
+import com.queomedia.commons.checks.Check;
+import com.queomedia.persistence.BusinessId;
+
+/**
+ * Build the criteria api parts of an keyset (seek) pagination, see {@link com.queomedia.persistence.KeysetPage}.
+ *
+ * <p>
+ * Instead of an offset, the next page is selected by the sort values of the last element of the previous page.
+ * The (unique and indexed) business id is used as tiebreaker, so every element has a unique position.
+ * The sort values of the last element are not transferred, instead they are selected by subqueries
+ * for the business id of the last element - so the business id is the only keyset state.
+ * </p>
+ *
+ * <p>
+ * Therefore the last element must still exist when the next page is requested: if it is deleted, then the
+ * subqueries select nothing and the page would be silently empty. So the caller must check it with
+ * {@link #requiresLastElement(Sort)} and {@link #isLastElement(Root, CriteriaBuilder, BusinessId)} before,
+ * and fail if it is missing. If the sort values of the last element are changed in between, then the next page
+ * starts at its new position, so elements can be skipped or repeated.
+ * </p>
+ *
+ * <p>
+ * Restrictions: the sort properties must not be null, and the sort must not ignore the case.
+ * </p>
+ */
+public final class KeysetPredicates {
+
+    /** The name of the business id property of an business entity (and of its value in the business id). */
+    public static final String BUSINESS_ID = "businessId";
+
+    /**
+     * Util classes need no constructor.
+     */
+    private KeysetPredicates() {
+        super();
+    }
+
+    /**
+     * The sort order used for the query: the given order with the business id as tiebreaker.
+     * The tiebreaker has the direction of the last order (or ascending if unsorted).
+     * If the sort already contains the business id, then the orders after the business id are removed,
+     * because the business id is unique.
+     *
+     * @param sort the requested sort
+     * @return the sort with business id tiebreaker
+     */
+    public static Sort keysetSort(final Sort sort) {
+        Check.notNullArgument(sort, "sort");
+
+        List<Sort.Order> orders = new ArrayList<>();
+        Direction tiebreakerDirection = Direction.ASC;
+        for (Sort.Order order : sort) {
+            if (order.isIgnoreCase()) {
+                throw new IllegalArgumentException("keyset pagination does not support ignore case orders, but got "
+                        + order);
+            }
+            orders.add(order);
+            if (BUSINESS_ID.equals(order.getProperty())) {
+                return Sort.by(orders);
+            }
+            tiebreakerDirection = order.getDirection();
+        }
+        orders.add(new Sort.Order(tiebreakerDirection, BUSINESS_ID));
+        return Sort.by(orders);
+    }
+
+    /**
+     * Check if the predicate of {@link #after(Root, AbstractQuery, CriteriaBuilder, Class, Sort, BusinessId)}
+     * requires the last element to exist: that is the case if the sort values are selected by subqueries,
+     * i.e. if the sort is not only by business id.
+     *
+     * @param keysetSort the sort, with business id tiebreaker - see {@link #keysetSort(Sort)}
+     * @return true, if the last element must exist
+     */
+    public static boolean requiresLastElement(final Sort keysetSort) {
+        Check.notNullArgument(keysetSort, "keysetSort");
+
+        for (Sort.Order order : keysetSort) {
+            if (!BUSINESS_ID.equals(order.getProperty())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Build the predicate that select the last element (to check that it exists).
+     *
+     * @param <T> the entity type
+     * @param root the root of the query
+     * @param builder the criteria builder
+     * @param lastBusinessId the business id of the last element of the previous page
+     * @return the predicate
+     */
+    public static <T> Predicate isLastElement(final Root<T> root, final CriteriaBuilder builder,
+            final BusinessId<?> lastBusinessId) {
+        Check.notNullArgument(root, "root");
+        Check.notNullArgument(builder, "builder");
+        Check.notNullArgument(lastBusinessId, "lastBusinessId");
+
+        return builder.equal(root.get(BUSINESS_ID).get(BUSINESS_ID), lastBusinessId.getBusinessId());
+    }
+
+    /**
+     * Build the predicate that select all elements after the element with the given business id.
+     *
+     * For a keyset sort {@code (a ASC, b DESC, businessId DESC)} this is:
+     * {@code a > a' OR (a = a' AND b < b') OR (a = a' AND b = b' AND businessId < businessId')},
+     * where {@code a'} and {@code b'} are selected by subqueries for the last business id.
+     *
+     * @param <T> the entity type
+     * @param root the root of the query
+     * @param query the query (used to create the subqueries)
+     * @param builder the criteria builder
+     * @param entityClass the entity class
+     * @param keysetSort the sort, with business id tiebreaker - see {@link #keysetSort(Sort)}
+     * @param lastBusinessId the business id of the last element of the previous page
+     * @return the predicate
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public static <T> Predicate after(final Root<T> root, final AbstractQuery<?> query, final CriteriaBuilder builder,
+            final Class<T> entityClass, final Sort keysetSort, final BusinessId<?> lastBusinessId) {
+        Check.notNullArgument(root, "root");
+        Check.notNullArgument(query, "query");
+        Check.notNullArgument(builder, "builder");
+        Check.notNullArgument(entityClass, "entityClass");
+        Check.notNullArgument(keysetSort, "keysetSort");
+        Check.notNullArgument(lastBusinessId, "lastBusinessId");
+
+        List<Predicate> alternatives = new ArrayList<>();
+        List<Predicate> equalPrefix = new ArrayList<>();
+        for (Sort.Order order : keysetSort) {
+            Expression<Comparable> value;
+            Expression<Comparable> lastValue;
+            if (BUSINESS_ID.equals(order.getProperty())) {
+                value = (Expression) root.get(BUSINESS_ID).get(BUSINESS_ID);
+                lastValue = (Expression) builder.literal(lastBusinessId.getBusinessId());
+            } else {
+                value = (Expression) path(root, order.getProperty());
+                lastValue = lastValue(query, builder, entityClass, order.getProperty(), lastBusinessId);
+            }
+
+            List<Predicate> alternative = new ArrayList<>(equalPrefix);
+            alternative.add(order.isAscending() ? builder.greaterThan(value, lastValue)
+                    : builder.lessThan(value, lastValue));
+            alternatives.add(builder.and(alternative.toArray(new Predicate[alternative.size()])));
+
+            equalPrefix.add(builder.equal(value, lastValue));
+        }
+        return builder.or(alternatives.toArray(new Predicate[alternatives.size()]));
+    }
+
+    /**
+     * Subquery that select the property value of the entity with the given business id.
+     *
+     * @param <T> the entity type
+     * @param query the query
+     * @param builder the criteria builder
+     * @param entityClass the entity class
+     * @param property the property (path)
+     * @param lastBusinessId the business id
+     * @return the subquery
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static <T> Subquery<Comparable> lastValue(final AbstractQuery<?> query, final CriteriaBuilder builder,
+            final Class<T> entityClass, final String property, final BusinessId<?> lastBusinessId) {
+        Subquery<Comparable> subquery = query.subquery(Comparable.class);
+        Root<T> lastRoot = subquery.from(entityClass);
+        subquery.select((Expression) path(lastRoot, property));
+        subquery.where(builder.equal(lastRoot.get(BUSINESS_ID).get(BUSINESS_ID), lastBusinessId.getBusinessId()));
+        return subquery;
+    }
+
+    /**
+     * Resolve an (dot separated) property path.
+     *
+     * @param root the root
+     * @param property the property path
+     * @return the path
+     */
+    private static Path<?> path(final Root<?> root, final String property) {
+        Path<?> path = root;
+        for (String segment : property.split("\\.")) {
+            path = path.get(segment);
+        }
+        return path;
+    }
+
+}
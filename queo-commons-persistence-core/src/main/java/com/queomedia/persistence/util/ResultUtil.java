@@ -1,11 +1,16 @@
 package com.queomedia.persistence.util;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
 
 import com.queomedia.commons.checks.Check;
 import com.queomedia.commons.exceptions.NotFoundRuntimeException;
+import com.queomedia.persistence.BusinessIdList;
+import com.queomedia.persistence.BusinessIdOwner;
 
 /**
  * Until methods to handle query results.
@@ -71,4 +76,68 @@ public final class ResultUtil {
         return oneOrZeroElementResultSet.iterator().next();
     }
 
+    /**
+     * Bring the (query) result into the order of the requested business ids.
+     * The positions are looked up in the primitive index of the {@link BusinessIdList},
+     * so neither a map nor boxed keys are needed.
+     *
+     * @param <T> the entity type
+     * @param entities the found entities, in any order
+     * @param businessIds the requested business ids
+     * @return the entities in the order of the business ids
+     * @throws EmptyResultDataAccessException if business ids are requested but no entity is found
+     * @throws IncorrectResultSizeDataAccessException if not every business id is found exactly once
+     */
+    public static <T extends BusinessIdOwner<?>> List<T> orderByBusinessIds(final Collection<T> entities,
+            final BusinessIdList<?> businessIds)
+            throws EmptyResultDataAccessException, IncorrectResultSizeDataAccessException {
+        Check.notNullArgument(entities, "entities");
+        Check.notNullArgument(businessIds, "businessIds");
+
+        int bidCount = businessIds.size();
+        Object[] ordered = new Object[bidCount];
+        int foundCount = 0;
+        for (T entity : entities) {
+            int position = businessIds.indexOf(entity.getBusinessId().getBusinessId());
+            if ((position >= 0) && (ordered[position] == null)) {
+                ordered[position] = entity;
+                foundCount++;
+            }
+        }
+
+        if ((foundCount == 0) && (bidCount > 0)) {
+            throw new EmptyResultDataAccessException(bidCount);
+        }
+        if (foundCount != bidCount) {
+            throw new IncorrectResultSizeDataAccessException(bidCount, foundCount);
+        }
+
+        List<T> result = new ArrayList<T>(bidCount);
+        for (Object entity : ordered) {
+            @SuppressWarnings("unchecked")
+            T typedEntity = (T) entity;
+            result.add(typedEntity);
+        }
+        return result;
+    }
+
+    /**
+     * Collect the business ids of the entities in a primitive list (without {@link com.queomedia.persistence.BusinessId}
+     * copies).
+     *
+     * @param <T> the entity type
+     * @param entities the entities
+     * @return the business ids, in the order of the entities
+     */
+    public static <T> BusinessIdList<T> businessIds(final Collection<? extends BusinessIdOwner<?>> entities) {
+        Check.notNullArgument(entities, "entities");
+
+        long[] values = new long[entities.size()];
+        int i = 0;
+        for (BusinessIdOwner<?> entity : entities) {
+            values[i++] = entity.getBusinessId().getBusinessId();
+        }
+        return BusinessIdList.of(values);
+    }
+
 }
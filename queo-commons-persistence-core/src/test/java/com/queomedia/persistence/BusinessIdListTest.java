@@ -0,0 +1,64 @@
+package com.queomedia.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class BusinessIdListTest {
+
+    @Test
+    public void testIndexOf() {
+        BusinessIdList<Object> list = BusinessIdList.of(30, 10, 20, 10);
+
+        assertEquals(0, list.indexOf(30));
+        assertEquals(1, list.indexOf(10));
+        assertEquals(2, list.indexOf(20));
+        assertEquals(-1, list.indexOf(40));
+    }
+
+    @Test
+    public void testIndexOf_large() {
+        long[] values = new long[10000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1000000L + i * 7;
+        }
+        BusinessIdList<Object> list = BusinessIdList.of(values);
+
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(i, list.indexOf(values[i]));
+        }
+        assertFalse(list.contains(1000001L));
+    }
+
+    @Test
+    public void testIndexOf_empty() {
+        assertEquals(-1, BusinessIdList.empty().indexOf(1));
+    }
+
+    @Test
+    public void testOfCollectionAndIterator() {
+        List<BusinessId<Object>> businessIds = Arrays.asList(new BusinessId<Object>(3), new BusinessId<Object>(1));
+        BusinessIdList<Object> list = BusinessIdList.of(businessIds);
+
+        List<BusinessId<Object>> iterated = new ArrayList<>();
+        list.forEach(iterated::add);
+
+        assertEquals(businessIds, iterated);
+        assertEquals(BusinessIdList.of(3, 1), list);
+    }
+
+    @Test
+    public void testToSet() {
+        BusinessIdSet<Object> set = BusinessIdList.of(3, 1, 3).toSet();
+
+        assertEquals(BusinessIdSet.of(1, 3), set);
+        assertTrue(set.contains(3));
+    }
+
+}
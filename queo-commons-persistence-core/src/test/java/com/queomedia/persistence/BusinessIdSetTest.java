@@ -0,0 +1,32 @@
+package com.queomedia.persistence;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class BusinessIdSetTest {
+
+    @Test
+    public void testOf_sortedAndDistinct() {
+        BusinessIdSet<Object> set = BusinessIdSet.of(5, 1, 3, 1, 5);
+
+        assertEquals(3, set.size());
+        assertArrayEquals(new long[] { 1, 3, 5 }, set.toLongArray());
+    }
+
+    @Test
+    public void testContains() {
+        BusinessIdSet<Object> set = BusinessIdSet.of(Arrays.asList(new BusinessId<Object>(2), new BusinessId<Object>(4)));
+
+        assertTrue(set.contains(2));
+        assertTrue(set.contains(new BusinessId<Object>(4)));
+        assertFalse(set.contains(3));
+        assertFalse(BusinessIdSet.empty().contains(3));
+    }
+
+}
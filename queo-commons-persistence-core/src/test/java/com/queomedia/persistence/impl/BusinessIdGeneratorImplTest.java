@@ -1,11 +1,15 @@
 package com.queomedia.persistence.impl;
 
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 
+import java.util.Arrays;
+
 import org.junit.Test;
 
 import com.queomedia.persistence.BusinessId;
+import com.queomedia.persistence.BusinessIdBlock;
 
 public class BusinessIdGeneratorImplTest {
 
@@ -21,4 +25,34 @@ public class BusinessIdGeneratorImplTest {
         
     }
 
+    @Test
+    public void testReserveBusinessIds() {
+        BusinessIdGeneratorImpl classUnderTest = new BusinessIdGeneratorImpl(new UniqueIdGenerator());
+
+        /** call method under test */
+        BusinessIdBlock block = classUnderTest.reserveBusinessIds(100);
+
+        assertEquals(100, block.size());
+        assertEquals(100, block.stream().distinct().count());
+
+        BusinessId<BusinesseEntityTestImpl> first = block.next();
+        assertEquals(block.toArray()[0], first.getBusinessId());
+        assertEquals(99, block.remaining());
+    }
+
+    @Test
+    public void testReserveBusinessIds_snowflake() {
+        BusinessIdGeneratorImpl classUnderTest = new BusinessIdGeneratorImpl(new SnowflakeUniqueIdGenerator(1));
+
+        /** call method under test */
+        long[] values = classUnderTest.reserveBusinessIds(1000).toArray();
+        long next = classUnderTest.generateBusinessId().getBusinessId();
+
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        assertEquals("snowflake ids of one block are ascending", Arrays.toString(sorted), Arrays.toString(values));
+        assertEquals(1000, Arrays.stream(values).distinct().count());
+        assertFalse(Arrays.stream(values).anyMatch(value -> value >= next));
+    }
+
 }
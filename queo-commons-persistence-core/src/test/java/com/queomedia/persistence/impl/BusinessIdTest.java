@@ -28,4 +28,69 @@ public class BusinessIdTest {
         Assert.assertEquals(BusinessId.BUSINESS_ID_STRING_LENGTH, minBid.getAsString().length());        
         Assert.assertTrue(BusinessId.BUSINESS_ID_STRING_LENGTH >= zeroBid.getAsString().length());
     }
+
+    @Test
+    public void valueOfTest() {
+        BusinessId<BusinesseEntityTestImpl> bid1 = BusinessId.valueOf(4711);
+        BusinessId<BusinesseEntityTestImpl> bid2 = BusinessId.valueOf(4711);
+
+        Assert.assertEquals(4711, bid1.getBusinessId());
+        Assert.assertSame(bid1, bid2);
+        Assert.assertEquals(new BusinessId<BusinesseEntityTestImpl>(4711), bid1);
+    }
+
+    @Test
+    public void valueOfCollisionTest() {
+        /* more values than the pool can hold, must still always return the right value */
+        for (long value = 0; value < 10000; value++) {
+            Assert.assertEquals(value, BusinessId.valueOf(value).getBusinessId());
+        }
+    }
+
+    /** A shared instance of the pool must not be modified. */
+    @Test(expected = UnsupportedOperationException.class)
+    @SuppressWarnings("deprecation")
+    public void valueOfImmutableTest() {
+        BusinessId.<BusinesseEntityTestImpl> valueOf(4714).setInternalLongAsString("4715");
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void valueOfCloneMutableTest() {
+        BusinessId<BusinesseEntityTestImpl> clone = BusinessId.<BusinesseEntityTestImpl> valueOf(4716).clone();
+        clone.setInternalLongAsString("4717");
+
+        Assert.assertEquals(4717, clone.getBusinessId());
+        Assert.assertEquals(4716, BusinessId.valueOf(4716).getBusinessId());
+    }
+
+    /** An entity never holds a shared instance, because Hibernate writes into it (merge). */
+    @Test
+    public void valueOfEntityCopyTest() {
+        BusinessId<BusinesseEntityTestImpl> bid = BusinessId.valueOf(4718);
+        BusinesseEntityTestImpl entity = new BusinesseEntityTestImpl("content", bid);
+
+        Assert.assertNotSame(bid, entity.getBusinessId());
+        Assert.assertEquals(bid, entity.getBusinessId());
+    }
+
+    @Test
+    public void parseTest() {
+        BusinessId<BusinesseEntityTestImpl> bid = BusinessId.parse("4712");
+
+        Assert.assertEquals(4712, bid.getBusinessId());
+        Assert.assertSame(bid, BusinessId.parse("4712"));
+    }
+
+    @Test
+    public void equalsTest() {
+        BusinessId<BusinesseEntityTestImpl> bid = new BusinessId<BusinesseEntityTestImpl>(4713);
+
+        Assert.assertTrue(bid.equals(new BusinessId<BusinesseEntityTestImpl>(4713)));
+        Assert.assertFalse(bid.equals(new BusinessId<BusinesseEntityTestImpl>(4714)));
+        Assert.assertFalse(bid.equals(null));
+        Assert.assertFalse(bid.equals(new BusinessId<BusinesseEntityTestImpl>(4713) {
+            private static final long serialVersionUID = 1L;
+        }));
+    }
 }
@@ -0,0 +1,256 @@
+package com.queomedia.persistence.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class SnowflakeUniqueIdGeneratorTest {
+
+    /** Number of concurrent threads. */
+    private static final int THREADS = 64;
+
+    /** Number of ids generated by each thread. */
+    private static final int IDS_PER_THREAD = 20000;
+
+    @Test
+    public void testGetUID_monotonic() {
+        SnowflakeUniqueIdGenerator classUnderTest = new SnowflakeUniqueIdGenerator(1);
+
+        long last = classUnderTest.getUID();
+        for (int i = 0; i < 10000; i++) {
+            /** call method under test */
+            long current = classUnderTest.getUID();
+
+            assertTrue("ids must increase within one thread", current > last);
+            last = current;
+        }
+    }
+
+    @Test
+    public void testGetUID_layout() {
+        final long now = SnowflakeUniqueIdGenerator.EPOCH + 123456789L;
+        SnowflakeUniqueIdGenerator classUnderTest = new SnowflakeUniqueIdGenerator(42) {
+            @Override
+            protected long currentTimeMillis() {
+                return now;
+            }
+        };
+
+        /** call method under test */
+        long uid = classUnderTest.getUID();
+
+        assertTrue(uid > 0);
+        assertEquals(now, SnowflakeUniqueIdGenerator.extractTimestamp(uid));
+        assertEquals(42, SnowflakeUniqueIdGenerator.extractNodeId(uid));
+    }
+
+    /** Even if the clock stands still (or runs backwards), ids must stay unique and increase. */
+    @Test
+    public void testGetUID_sequenceOverflow() {
+        SnowflakeUniqueIdGenerator classUnderTest = new SnowflakeUniqueIdGenerator(0) {
+            @Override
+            protected long currentTimeMillis() {
+                return SnowflakeUniqueIdGenerator.EPOCH;
+            }
+        };
+
+        long last = classUnderTest.getUID();
+        for (int i = 0; i < 5000; i++) {
+            long current = classUnderTest.getUID();
+            assertTrue(current > last);
+            last = current;
+        }
+    }
+
+    /**
+     * A bulk reservation is taken from the stripe state: it must not wait for the clock, even if the clock
+     * stands still.
+     */
+    @Test
+    public void testGetUIDs_frozenClock() {
+        SnowflakeUniqueIdGenerator classUnderTest = new SnowflakeUniqueIdGenerator(3, 5000) {
+            @Override
+            protected long currentTimeMillis() {
+                return SnowflakeUniqueIdGenerator.EPOCH;
+            }
+        };
+
+        /** call method under test */
+        long[] uids = classUnderTest.getUIDs(1000000);
+
+        assertEquals(1000000, uids.length);
+        for (int i = 1; i < uids.length; i++) {
+            assertTrue("ids must increase", uids[i] > uids[i - 1]);
+        }
+        assertEquals(SnowflakeUniqueIdGenerator.EPOCH + (1000000 / SnowflakeUniqueIdGenerator.UIDS_PER_MILLISECOND),
+                SnowflakeUniqueIdGenerator.extractTimestamp(uids[uids.length - 1]));
+    }
+
+    /** A burst of single ids moves the stripe ahead of the clock, a following bulk reservation must not stall. */
+    @Test
+    public void testGetUIDs_afterGetUIDBurst() {
+        SnowflakeUniqueIdGenerator classUnderTest = new SnowflakeUniqueIdGenerator(3) {
+            @Override
+            protected long currentTimeMillis() {
+                return SnowflakeUniqueIdGenerator.EPOCH;
+            }
+        };
+        long last = 0;
+        for (int i = 0; i < 20 * SnowflakeUniqueIdGenerator.UIDS_PER_MILLISECOND; i++) {
+            last = classUnderTest.getUID();
+        }
+
+        /** call method under test */
+        long[] uids = classUnderTest.getUIDs(1000);
+
+        assertTrue(uids[0] > last);
+        assertTrue(uids[uids.length - 1] > uids[0]);
+    }
+
+    /** A clock step backwards within the bound: ids continue to increase. */
+    @Test
+    public void testGetUID_clockRegressionWithinBound() {
+        final AtomicLong clock = new AtomicLong(SnowflakeUniqueIdGenerator.EPOCH + 100000);
+        SnowflakeUniqueIdGenerator classUnderTest = new SnowflakeUniqueIdGenerator(3, 1000) {
+            @Override
+            protected long currentTimeMillis() {
+                return clock.get();
+            }
+        };
+        long before = classUnderTest.getUID();
+
+        clock.addAndGet(-1000);
+        /** call method under test */
+        long single = classUnderTest.getUID();
+        long[] bulk = classUnderTest.getUIDs(10);
+
+        assertTrue(single > before);
+        assertTrue(bulk[0] > single);
+    }
+
+    /** A clock step backwards beyond the bound: fail fast instead of waiting for the clock. */
+    @Test
+    public void testGetUID_clockRegressionBeyondBound() {
+        final AtomicLong clock = new AtomicLong(SnowflakeUniqueIdGenerator.EPOCH + 100000);
+        SnowflakeUniqueIdGenerator classUnderTest = new SnowflakeUniqueIdGenerator(3, 1000) {
+            @Override
+            protected long currentTimeMillis() {
+                return clock.get();
+            }
+        };
+        long before = classUnderTest.getUID();
+
+        clock.addAndGet(-1001);
+        try {
+            /** call method under test */
+            classUnderTest.getUID();
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            /* expected */
+        }
+        try {
+            /** call method under test */
+            classUnderTest.getUIDs(10);
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            /* expected */
+        }
+
+        /* nothing was reserved: when the clock is back, the stripe continues */
+        clock.addAndGet(1001);
+        long after = classUnderTest.getUID();
+        assertEquals(before + 1, after);
+    }
+
+    /** A bulk reservation that would run the stripe too far ahead of the clock fails and reserves nothing. */
+    @Test
+    public void testGetUIDs_beyondBound() {
+        SnowflakeUniqueIdGenerator classUnderTest = new SnowflakeUniqueIdGenerator(3, 10) {
+            @Override
+            protected long currentTimeMillis() {
+                return SnowflakeUniqueIdGenerator.EPOCH;
+            }
+        };
+        long before = classUnderTest.getUID();
+
+        try {
+            /** call method under test */
+            classUnderTest.getUIDs(11 * SnowflakeUniqueIdGenerator.UIDS_PER_MILLISECOND);
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            /* expected */
+        }
+
+        assertEquals(before + 1, classUnderTest.getUID());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_invalidNodeId() {
+        new SnowflakeUniqueIdGenerator(SnowflakeUniqueIdGenerator.MAX_NODE_ID + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_negativeMaxAheadMillis() {
+        new SnowflakeUniqueIdGenerator(1, -1);
+    }
+
+    /**
+     * Generate ids with 64 concurrent threads and check that there is no collision.
+     */
+    @Test
+    public void testGetUID_concurrentNoCollision() throws Exception {
+        SnowflakeUniqueIdGenerator classUnderTest = new SnowflakeUniqueIdGenerator(7);
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(new Callable<long[]>() {
+                    @Override
+                    public long[] call() throws Exception {
+                        start.await();
+                        long[] ids = new long[IDS_PER_THREAD];
+                        for (int i = 0; i < IDS_PER_THREAD; i++) {
+                            ids[i] = classUnderTest.getUID();
+                        }
+                        return ids;
+                    }
+                }));
+            }
+            start.countDown();
+
+            long[] all = new long[THREADS * IDS_PER_THREAD];
+            int pos = 0;
+            for (Future<long[]> future : futures) {
+                long[] ids = future.get();
+                System.arraycopy(ids, 0, all, pos, ids.length);
+                pos += ids.length;
+            }
+
+            Arrays.sort(all);
+            for (int i = 1; i < all.length; i++) {
+                if (all[i - 1] == all[i]) {
+                    throw new AssertionError("collision for id " + all[i]);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+package com.queomedia.persistence.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.queomedia.persistence.BusinessId;
+
+public class ThreadLocalRandomUniqueIdGeneratorTest {
+
+    /** Number of concurrent threads. */
+    private static final int THREADS = 8;
+
+    /**
+     * Number of ids generated by each thread.
+     * The ids of one millisecond differ only in 32 random bits, so the number is kept small enough that a
+     * random collision is very unlikely (less than 0.2% even if all ids are created in the same millisecond).
+     */
+    private static final int IDS_PER_THREAD = 500;
+
+    @Test
+    public void testGetUID() {
+        ThreadLocalRandomUniqueIdGenerator classUnderTest = new ThreadLocalRandomUniqueIdGenerator();
+
+        /** call method under test */
+        long uid1 = classUnderTest.getUID();
+        long uid2 = classUnderTest.getUID();
+
+        assertFalse(uid1 == uid2);
+    }
+
+    /** The format must be the same like the one from {@link UniqueIdGenerator}. */
+    @Test
+    public void testGetUID_sameFormat() {
+        final long time = 1234567890123L;
+        final long rand = 987654321987654321L;
+
+        UniqueIdGenerator reference = new UniqueIdGenerator();
+        ThreadLocalRandomUniqueIdGenerator classUnderTest = new ThreadLocalRandomUniqueIdGenerator();
+
+        assertEquals(reference.format(time, rand), classUnderTest.format(time, rand));
+    }
+
+    /**
+     * Generate ids with concurrent threads: every thread has its own random, all ids must be distinct
+     * and must have the format of the {@link UniqueIdGenerator} ids.
+     */
+    @Test
+    public void testGetUID_concurrent() throws Exception {
+        ThreadLocalRandomUniqueIdGenerator classUnderTest = new ThreadLocalRandomUniqueIdGenerator();
+        CountDownLatch start = new CountDownLatch(1);
+
+        long before = System.currentTimeMillis();
+        long referenceUid = new UniqueIdGenerator().getUID();
+        long[] all = new long[THREADS * IDS_PER_THREAD];
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(new Callable<long[]>() {
+                    @Override
+                    public long[] call() throws Exception {
+                        start.await();
+                        long[] ids = new long[IDS_PER_THREAD];
+                        for (int i = 0; i < IDS_PER_THREAD; i++) {
+                            ids[i] = classUnderTest.getUID();
+                        }
+                        return ids;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int pos = 0;
+            for (Future<long[]> future : futures) {
+                long[] ids = future.get();
+                System.arraycopy(ids, 0, all, pos, ids.length);
+                pos += ids.length;
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        long after = System.currentTimeMillis();
+
+        assertValidUid(referenceUid, before, after);
+        for (long uid : all) {
+            assertValidUid(uid, before, after);
+        }
+        long[] sorted = all.clone();
+        Arrays.sort(sorted);
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i - 1] == sorted[i]) {
+                throw new AssertionError("collision for id " + sorted[i]);
+            }
+        }
+    }
+
+    /**
+     * Assert that the id is parsed to the same business id, and that its time part matches the format of
+     * {@link UniqueIdGenerator#format(long, long)} for a time within the given range.
+     *
+     * @param uid the id
+     * @param from the earliest time the id may be created
+     * @param to the latest time the id may be created
+     */
+    private static void assertValidUid(final long uid, final long from, final long to) {
+        assertEquals(uid, BusinessId.parse(Long.toString(uid)).getBusinessId());
+
+        /* the random part is a (sign extended) int, that is added to the time part */
+        long timePart = uid - (int) uid;
+        boolean matches = false;
+        for (long time = from; time <= to; time++) {
+            if (timePart == ((time ^ time >>> 32) << 32)) {
+                matches = true;
+                break;
+            }
+        }
+        assertTrue("the time part of " + uid + " does not match a time between " + from + " and " + to, matches);
+    }
+
+}
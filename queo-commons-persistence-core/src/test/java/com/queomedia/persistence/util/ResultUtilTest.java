@@ -1,5 +1,6 @@
 package com.queomedia.persistence.util;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 
@@ -7,9 +8,13 @@ import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Test;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
 
 import com.queomedia.commons.exceptions.NotFoundRuntimeException;
+import com.queomedia.persistence.BusinessId;
+import com.queomedia.persistence.BusinessIdList;
+import com.queomedia.persistence.impl.BusinesseEntityTestImpl;
 
 public class ResultUtilTest {
 
@@ -67,4 +72,36 @@ public class ResultUtilTest {
         ResultUtil.requiredOneResult(emptyElementCollection, "");
     }
 
+    @Test
+    public void testOrderByBusinessIds() {
+        BusinesseEntityTestImpl entity1 = new BusinesseEntityTestImpl("", new BusinessId<BusinesseEntityTestImpl>(1));
+        BusinesseEntityTestImpl entity2 = new BusinesseEntityTestImpl("", new BusinessId<BusinesseEntityTestImpl>(2));
+        BusinesseEntityTestImpl entity3 = new BusinesseEntityTestImpl("", new BusinessId<BusinesseEntityTestImpl>(3));
+
+        List<BusinesseEntityTestImpl> result = ResultUtil.orderByBusinessIds(Arrays.asList(entity1, entity2, entity3),
+                BusinessIdList.of(3, 1, 2));
+
+        assertEquals(Arrays.asList(entity3, entity1, entity2), result);
+    }
+
+    @Test(expected = EmptyResultDataAccessException.class)
+    public void testOrderByBusinessIdsNothingFound() {
+        ResultUtil.orderByBusinessIds(Arrays.<BusinesseEntityTestImpl> asList(), BusinessIdList.of(1));
+    }
+
+    @Test(expected = IncorrectResultSizeDataAccessException.class)
+    public void testOrderByBusinessIdsMissing() {
+        BusinesseEntityTestImpl entity1 = new BusinesseEntityTestImpl("", new BusinessId<BusinesseEntityTestImpl>(1));
+
+        ResultUtil.orderByBusinessIds(Arrays.asList(entity1), BusinessIdList.of(1, 2));
+    }
+
+    @Test
+    public void testBusinessIds() {
+        BusinesseEntityTestImpl entity1 = new BusinesseEntityTestImpl("", new BusinessId<BusinesseEntityTestImpl>(1));
+        BusinesseEntityTestImpl entity2 = new BusinesseEntityTestImpl("", new BusinessId<BusinesseEntityTestImpl>(2));
+
+        assertEquals(BusinessIdList.of(2, 1), ResultUtil.businessIds(Arrays.asList(entity2, entity1)));
+    }
+
 }
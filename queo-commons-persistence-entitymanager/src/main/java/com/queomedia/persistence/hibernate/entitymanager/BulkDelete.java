@@ -0,0 +1,249 @@
+package com.queomedia.persistence.hibernate.entitymanager;
+
+import java.io.Serializable;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.hibernate.Session;
+import org.hibernate.StaleStateException;
+import org.hibernate.annotations.SQLDelete;
+import org.hibernate.annotations.SQLDeleteAll;
+import org.hibernate.annotations.Where;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerGroup;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.jpa.event.spi.CallbackRegistry;
+import org.hibernate.jpa.event.spi.CallbackType;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+
+import com.queomedia.commons.checks.Check;
+
+/**
+ * Delete entities with set based (bulk) {@code DELETE} statements instead of deleting them one by one.
+ *
+ * <p>
+ * A bulk delete bypasses the persistence context: no cascades are applied, no lifecycle callbacks
+ * ({@code @PreRemove}, {@code @PostRemove}) and no delete event listeners (for example Envers) are invoked.
+ * A bulk delete does not check the optimistic lock version either, so a concurrent modification would be
+ * deleted silently.
+ * Therefore the bulk delete is only allowed ({@link #isBulkDeletable(Session, Class)}) for entities without
+ * cascades, without collections (whose join table rows would not be removed), without version, without remove
+ * callbacks and if no delete listeners are registered. Bean validation listeners are ignored, because the default validation
+ * groups do not validate on delete.
+ * Entities with custom delete SQL ({@code @SQLDelete}, {@code @SQLDeleteAll}, for example a soft delete) or with a
+ * {@code @Where} restriction are not bulk deleted either, because the {@code DELETE} statement would remove their rows.
+ * </p>
+ *
+ * <p>
+ * The session is flushed before the delete. After the delete, the deleted entities are evicted from the session
+ * and from the second-level cache. If not every entity row is deleted (because it was deleted concurrently), then the
+ * delete fails with the same exception like the one by one delete does on flush.
+ * </p>
+ */
+final class BulkDelete {
+
+    /** The package of the bean validation event listener, that is ignored. */
+    private static final String BEAN_VALIDATION_LISTENER_PACKAGE = "org.hibernate.cfg.beanvalidation";
+
+    /** The annotations that replace or restrict the delete statement of an entity. */
+    private static final List<Class<? extends Annotation>> CUSTOM_DELETE_ANNOTATIONS = List.of(SQLDelete.class,
+            SQLDeleteAll.class,
+            Where.class);
+
+    /** Whether the bulk delete is allowed, by entity class. */
+    private final ConcurrentMap<Class<?>, Boolean> bulkDeletables = new ConcurrentHashMap<>();
+
+    /**
+     * Check if the entities of the class can be deleted by a bulk delete, without skipping cascades, callbacks or
+     * listeners.
+     *
+     * @param session the session
+     * @param entityClass the entity class
+     * @return true, if bulk delete is allowed
+     */
+    boolean isBulkDeletable(final Session session, final Class<?> entityClass) {
+        Check.notNullArgument(session, "session");
+        Check.notNullArgument(entityClass, "entityClass");
+
+        return this.bulkDeletables.computeIfAbsent(entityClass,
+                clazz -> isBulkDeletable((SessionFactoryImplementor) session.getSessionFactory(), clazz));
+    }
+
+    /**
+     * Check if the entities of the class can be deleted by a bulk delete.
+     *
+     * @param sessionFactory the session factory
+     * @param entityClass the entity class
+     * @return true, if bulk delete is allowed
+     */
+    private static boolean isBulkDeletable(final SessionFactoryImplementor sessionFactory,
+            final Class<?> entityClass) {
+        EntityPersister persister = sessionFactory.getMetamodel().entityPersister(entityClass);
+        if (persister.hasCascades() || persister.hasCollections() || !persister.isMutable()
+                || persister.isVersioned()) {
+            return false;
+        }
+        if (hasCustomDelete(persister, entityClass)) {
+            return false;
+        }
+
+        CallbackRegistry callbackRegistry = sessionFactory.getEventEngine().getCallbackRegistry();
+        if (callbackRegistry.hasRegisteredCallbacks(entityClass, CallbackType.PRE_REMOVE)
+                || callbackRegistry.hasRegisteredCallbacks(entityClass, CallbackType.POST_REMOVE)) {
+            return false;
+        }
+
+        EventListenerRegistry listenerRegistry = sessionFactory.getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        return !hasListeners(listenerRegistry.getEventListenerGroup(EventType.PRE_DELETE))
+                && !hasListeners(listenerRegistry.getEventListenerGroup(EventType.POST_DELETE))
+                && !hasListeners(listenerRegistry.getEventListenerGroup(EventType.POST_COMMIT_DELETE));
+    }
+
+    /**
+     * Check if the delete of the entity is customized by a {@code @SQLDelete}, {@code @SQLDeleteAll} or
+     * {@code @Where} annotation (at the class or a super class), or by a where restriction of the persister.
+     *
+     * @param persister the entity persister
+     * @param entityClass the entity class
+     * @return true, if the delete is customized
+     */
+    private static boolean hasCustomDelete(final EntityPersister persister, final Class<?> entityClass) {
+        if ((persister instanceof AbstractEntityPersister) && ((AbstractEntityPersister) persister).hasWhere()) {
+            return true;
+        }
+        for (Class<?> current = entityClass; current != null && current != Object.class; current = current
+                .getSuperclass()) {
+            for (Class<? extends Annotation> annotation : CUSTOM_DELETE_ANNOTATIONS) {
+                if (current.isAnnotationPresent(annotation)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if the group contains other listeners than bean validation.
+     *
+     * @param group the listener group
+     * @return true, if there are relevant listeners
+     */
+    private static boolean hasListeners(final EventListenerGroup<?> group) {
+        for (Object listener : group.listeners()) {
+            if (!listener.getClass().getName().startsWith(BEAN_VALIDATION_LISTENER_PACKAGE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Delete the entities by {@code DELETE ... WHERE id IN (...)} statements, in chunks of at most
+     * {@link InListChunker#MAX_IN_LIST_SIZE} ids.
+     * Must only be used if {@link #isBulkDeletable(Session, Class)} is true.
+     *
+     * @param session the session
+     * @param entityClass the entity class
+     * @param entities the entities to delete, transient ones (without id) are ignored
+     * @return the number of deleted rows
+     * @throws javax.persistence.OptimisticLockException if a row of the entities does not exist anymore
+     */
+    int deleteAll(final Session session, final Class<?> entityClass, final Collection<?> entities) {
+        Check.notNullArgument(session, "session");
+        Check.notNullArgument(entityClass, "entityClass");
+        Check.notNullArgument(entities, "entities");
+
+        if (entities.isEmpty()) {
+            return 0;
+        }
+        session.flush();
+
+        /* an entity that is contained twice is deleted once */
+        Set<Serializable> ids = new LinkedHashSet<>(entities.size());
+        for (Object entity : entities) {
+            Serializable id = (Serializable) session.getEntityManagerFactory().getPersistenceUnitUtil()
+                    .getIdentifier(entity);
+            /* a transient entity has no row that can be deleted */
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+
+        EntityPersister persister = persister(session, entityClass);
+        String deleteStatement = "DELETE FROM " + persister.getEntityName() + " e WHERE e."
+                + persister.getIdentifierPropertyName() + " IN (:ids)";
+        int deleted = 0;
+        for (List<Serializable> chunk : InListChunker.chunk(new ArrayList<>(ids), InListChunker.MAX_IN_LIST_SIZE)) {
+            deleted += session.createQuery(deleteStatement).setParameter("ids", chunk).executeUpdate();
+        }
+
+        for (Object entity : entities) {
+            if (session.contains(entity)) {
+                session.evict(entity);
+            }
+        }
+        for (Serializable id : ids) {
+            session.getSessionFactory().getCache().evictEntityData(entityClass, id);
+        }
+
+        if (deleted != ids.size()) {
+            /* the same exception that the flush of the one by one delete throws */
+            throw ((SessionImplementor) session).getExceptionConverter()
+                    .convert(new StaleStateException("Bulk delete returned unexpected row count: actual row count: "
+                            + deleted + "; expected: " + ids.size()));
+        }
+        return deleted;
+    }
+
+    /**
+     * Delete all entities of the class by one {@code DELETE} statement.
+     * Must only be used if {@link #isBulkDeletable(Session, Class)} is true.
+     *
+     * @param session the session
+     * @param entityClass the entity class
+     * @return the number of deleted rows
+     */
+    int deleteAll(final Session session, final Class<?> entityClass) {
+        Check.notNullArgument(session, "session");
+        Check.notNullArgument(entityClass, "entityClass");
+
+        session.flush();
+
+        int deleted = session.createQuery("DELETE FROM " + persister(session, entityClass).getEntityName())
+                .executeUpdate();
+
+        List<Object> attached = new ArrayList<>();
+        for (Object entity : ((SessionImplementor) session).getPersistenceContext().getEntitiesByKey().values()) {
+            if (entityClass.isInstance(entity)) {
+                attached.add(entity);
+            }
+        }
+        for (Object entity : attached) {
+            session.evict(entity);
+        }
+        session.getSessionFactory().getCache().evictEntityData(entityClass);
+        return deleted;
+    }
+
+    /**
+     * The entity persister of the class.
+     *
+     * @param session the session
+     * @param entityClass the entity class
+     * @return the persister
+     */
+    private static EntityPersister persister(final Session session, final Class<?> entityClass) {
+        return ((SessionFactoryImplementor) session.getSessionFactory()).getMetamodel().entityPersister(entityClass);
+    }
+
+}
@@ -0,0 +1,200 @@
+package com.queomedia.persistence.hibernate.entitymanager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.Session;
+
+import com.queomedia.commons.checks.Check;
+import com.queomedia.persistence.BusinessId;
+
+/**
+ * Session scoped identity map: {@code (entityClass, businessId) -> entity}.
+ *
+ * <p>
+ * Hibernate's persistence context knows the entities only by there (hibernate) id, so a lookup by business id
+ * always needs a query, even if the entity is already loaded. This map remembers the entities already found by
+ * there business id within one session.
+ * </p>
+ *
+ * <p>
+ * There is one map per session. It is held by a {@link org.hibernate.SessionEventListener} that is attached to the
+ * session (and registered as session property, to find it again), so there is no global registry of sessions:
+ * the map is garbage collected together with its session, and it is cleared when the session ends.
+ * A remembered entity is only returned if it is still contained in the session, so a cleared session or an
+ * removed entity is never returned.
+ * To release the memory, the map should be cleared together with the session, see {@link #clear(Session)}.
+ * </p>
+ *
+ * <p>
+ * A session is used by one thread only, so the map of a session is not synchronized.
+ * </p>
+ */
+final class BusinessIdIdentityMap {
+
+    /** The name of the session property that refers to the {@link IdentityMapListener} of the session. */
+    private static final String SESSION_PROPERTY = BusinessIdIdentityMap.class.getName();
+
+    /**
+     * Util classes need no constructor.
+     */
+    private BusinessIdIdentityMap() {
+        super();
+    }
+
+    /**
+     * Return the remembered entity.
+     *
+     * @param <T> the entity type
+     * @param session the session
+     * @param entityClass the entity class
+     * @param businessId the business id
+     * @return the entity or null if there is no entity remembered or it is not longer contained in the session
+     */
+    static <T> T get(final Session session, final Class<T> entityClass, final BusinessId<?> businessId) {
+        Check.notNullArgument(session, "session");
+        Check.notNullArgument(entityClass, "entityClass");
+        Check.notNullArgument(businessId, "businessId");
+
+        Map<Key, Object> identityMap = identityMap(session);
+        if (identityMap == null) {
+            return null;
+        }
+
+        Key key = new Key(entityClass, businessId.getBusinessId());
+        Object entity = identityMap.get(key);
+        if (entity == null) {
+            return null;
+        }
+        if (!session.contains(entity)) {
+            identityMap.remove(key);
+            return null;
+        }
+        return entityClass.cast(entity);
+    }
+
+    /**
+     * Remember the entity.
+     *
+     * @param session the session where the entity is attached to
+     * @param entityClass the entity class (used for lookup)
+     * @param businessId the business id
+     * @param entity the entity
+     */
+    static void put(final Session session, final Class<?> entityClass, final BusinessId<?> businessId,
+            final Object entity) {
+        Check.notNullArgument(session, "session");
+        Check.notNullArgument(entityClass, "entityClass");
+        Check.notNullArgument(businessId, "businessId");
+        Check.notNullArgument(entity, "entity");
+
+        Map<Key, Object> identityMap = identityMap(session);
+        if (identityMap == null) {
+            IdentityMapListener listener = new IdentityMapListener();
+            session.addEventListeners(listener);
+            session.setProperty(SESSION_PROPERTY, listener);
+            identityMap = listener.identityMap();
+        }
+        identityMap.put(new Key(entityClass, businessId.getBusinessId()), entity);
+    }
+
+    /**
+     * Forget all entities of the session.
+     *
+     * @param session the session
+     */
+    static void clear(final Session session) {
+        Check.notNullArgument(session, "session");
+
+        Map<Key, Object> identityMap = identityMap(session);
+        if (identityMap != null) {
+            identityMap.clear();
+        }
+    }
+
+    /**
+     * The identity map of the session.
+     *
+     * @param session the session
+     * @return the identity map, or null if the session has no identity map yet
+     */
+    private static Map<Key, Object> identityMap(final Session session) {
+        Object listener = session.getProperties().get(SESSION_PROPERTY);
+        if (listener instanceof IdentityMapListener) {
+            return ((IdentityMapListener) listener).identityMap();
+        }
+        return null;
+    }
+
+    /** The key of the identity map. */
+    private static final class Key {
+
+        /** The entity class. */
+        private final Class<?> entityClass;
+
+        /** The business id value. */
+        private final long businessId;
+
+        /**
+         * Instantiates a new key.
+         *
+         * @param entityClass the entity class
+         * @param businessId the business id value
+         */
+        Key(final Class<?> entityClass, final long businessId) {
+            this.entityClass = entityClass;
+            this.businessId = businessId;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.entityClass.hashCode() + Long.hashCode(this.businessId);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return (this.businessId == other.businessId) && (this.entityClass == other.entityClass);
+        }
+    }
+
+    /** Holds the identity map of one session, and clears it when the session ends. */
+    private static final class IdentityMapListener extends BaseSessionEventListener {
+
+        /** The Constant serialVersionUID. */
+        private static final long serialVersionUID = 5946310733174372839L;
+
+        /**
+         * The remembered entities, not serialized with the session.
+         * Created lazily, because it is null after the session was deserialized.
+         */
+        private transient Map<Key, Object> identityMap;
+
+        /**
+         * The remembered entities.
+         *
+         * @return the identity map, created if it does not exist yet
+         */
+        Map<Key, Object> identityMap() {
+            if (this.identityMap == null) {
+                this.identityMap = new HashMap<>();
+            }
+            return this.identityMap;
+        }
+
+        @Override
+        public void end() {
+            if (this.identityMap != null) {
+                this.identityMap.clear();
+            }
+        }
+    }
+
+}
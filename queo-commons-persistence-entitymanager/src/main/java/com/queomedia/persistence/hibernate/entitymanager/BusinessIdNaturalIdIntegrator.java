@@ -0,0 +1,85 @@
+package com.queomedia.persistence.hibernate.entitymanager;
+
+import org.hibernate.MappingException;
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.mapping.Property;
+import org.hibernate.mapping.RootClass;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.queomedia.commons.checks.Check;
+import com.queomedia.persistence.BusinessEntity;
+import com.queomedia.persistence.BusinessIdNaturalId;
+
+/**
+ * Register the {@code businessId} of all entities annotated with {@link BusinessIdNaturalId} as (immutable)
+ * Hibernate natural id.
+ *
+ * <p>
+ * The integrator is registered by {@code META-INF/services/org.hibernate.integrator.spi.Integrator}, so it is
+ * active whenever this jar is in the class path. Entities without {@link BusinessIdNaturalId} are not modified.
+ * </p>
+ *
+ * <p>
+ * Hibernate invokes the integrators before the entity persisters are build, so the modified mapping is used by
+ * the persisters.
+ * </p>
+ */
+public class BusinessIdNaturalIdIntegrator implements Integrator {
+
+    /** Logger for this class. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(BusinessIdNaturalIdIntegrator.class);
+
+    /** The name of the business id property. */
+    static final String BUSINESS_ID_PROPERTY = "businessId";
+
+    @Override
+    public void integrate(final Metadata metadata, final SessionFactoryImplementor sessionFactory,
+            final SessionFactoryServiceRegistry serviceRegistry) {
+        Check.notNullArgument(metadata, "metadata");
+
+        for (PersistentClass persistentClass : metadata.getEntityBindings()) {
+            Class<?> mappedClass = persistentClass.getMappedClass();
+            if ((mappedClass != null) && mappedClass.isAnnotationPresent(BusinessIdNaturalId.class)) {
+                registerBusinessIdAsNaturalId(persistentClass);
+            }
+        }
+    }
+
+    /**
+     * Register the business id of the entity as natural id.
+     *
+     * @param persistentClass the entity mapping
+     */
+    private static void registerBusinessIdAsNaturalId(final PersistentClass persistentClass) {
+        if (!BusinessEntity.class.isAssignableFrom(persistentClass.getMappedClass())) {
+            throw new MappingException("@" + BusinessIdNaturalId.class.getSimpleName() + " is only supported for "
+                    + BusinessEntity.class.getSimpleName() + "s, but entity " + persistentClass.getEntityName()
+                    + " is not a " + BusinessEntity.class.getSimpleName());
+        }
+        if (!(persistentClass instanceof RootClass)) {
+            throw new MappingException("@" + BusinessIdNaturalId.class.getSimpleName()
+                    + " must be placed at the root entity of the hierarchy, but entity "
+                    + persistentClass.getEntityName() + " is a subclass");
+        }
+
+        Property businessIdProperty = persistentClass.getProperty(BUSINESS_ID_PROPERTY);
+        businessIdProperty.setNaturalIdentifier(true);
+        businessIdProperty.setUpdateable(false);
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("registered businessId as natural id of entity {}", persistentClass.getEntityName());
+        }
+    }
+
+    @Override
+    public void disintegrate(final SessionFactoryImplementor sessionFactory,
+            final SessionFactoryServiceRegistry serviceRegistry) {
+        //nothing to clean up
+    }
+
+}
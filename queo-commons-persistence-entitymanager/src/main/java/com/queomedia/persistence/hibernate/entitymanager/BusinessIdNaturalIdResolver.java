@@ -0,0 +1,88 @@
+package com.queomedia.persistence.hibernate.entitymanager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+
+import com.queomedia.commons.checks.Check;
+import com.queomedia.persistence.BusinessId;
+
+/**
+ * Resolve entities by its business id via Hibernate's natural id resolution (persistence context, second-level
+ * natural id cache, SQL) - if the business id is the natural id of the entity, see
+ * {@link com.queomedia.persistence.BusinessIdNaturalId}.
+ */
+final class BusinessIdNaturalIdResolver {
+
+    /** Whether the business id is the natural id, by entity class. */
+    private final ConcurrentMap<Class<?>, Boolean> businessIdNaturalIds = new ConcurrentHashMap<>();
+
+    /**
+     * Check if the business id is the (only) natural id of the entity class, and the session is open.
+     *
+     * <p>
+     * Outside of a transaction the shared entity manager unwraps to a new and already closed session,
+     * that can not resolve natural ids. Then the caller must use a query instead.
+     * </p>
+     *
+     * @param session the session
+     * @param entityClass the entity class
+     * @return true, if the entity can be resolved by {@link #load(Session, Class, BusinessId)}
+     */
+    boolean isBusinessIdNaturalId(final Session session, final Class<?> entityClass) {
+        Check.notNullArgument(session, "session");
+        Check.notNullArgument(entityClass, "entityClass");
+
+        if (!session.isOpen()) {
+            return false;
+        }
+        return this.businessIdNaturalIds.computeIfAbsent(entityClass,
+                clazz -> isBusinessIdNaturalId(
+                        ((SessionFactoryImplementor) session.getSessionFactory()).getMetamodel()
+                                .entityPersister(clazz)));
+    }
+
+    /**
+     * Check if the business id is the (only) natural id of the persister.
+     *
+     * @param persister the entity persister
+     * @return true, if the business id is the natural id
+     */
+    private static boolean isBusinessIdNaturalId(final EntityPersister persister) {
+        if (!persister.hasNaturalIdentifier()) {
+            return false;
+        }
+        int[] naturalIdProperties = persister.getNaturalIdentifierProperties();
+        return (naturalIdProperties.length == 1) && BusinessIdNaturalIdIntegrator.BUSINESS_ID_PROPERTY
+                .equals(persister.getPropertyNames()[naturalIdProperties[0]]);
+    }
+
+    /**
+     * Load the entity by its business id via natural id resolution.
+     * Must only be used if {@link #isBusinessIdNaturalId(Session, Class)} is true.
+     *
+     * @param <T> the entity type
+     * @param session the session
+     * @param entityClass the entity class
+     * @param businessId the business id
+     * @return the found entity as list of zero or one element - like a query result
+     */
+    <T> List<T> load(final Session session, final Class<T> entityClass, final BusinessId<?> businessId) {
+        Check.notNullArgument(session, "session");
+        Check.notNullArgument(entityClass, "entityClass");
+        Check.notNullArgument(businessId, "businessId");
+
+        T entity = session.bySimpleNaturalId(entityClass).load(businessId);
+        if (entity == null) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(entity);
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.queomedia.persistence.hibernate.entitymanager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+
+import com.queomedia.commons.checks.Check;
+import com.queomedia.persistence.BusinessId;
+
+/**
+ * Cache for the (JPQL) query that select an entity by its business id - one query per entity class.
+ *
+ * <p>
+ * Building a {@link javax.persistence.criteria.CriteriaQuery} for every lookup means: create the criteria tree,
+ * render it to JPQL and let Hibernate parse it again. The cached query string is parameterized on the business id
+ * value, so it is build only once per entity class, and Hibernate will find its translation in the query plan cache.
+ * </p>
+ */
+final class BusinessIdQueryCache {
+
+    /** The name of the query parameter for the business id value. */
+    static final String BUSINESS_ID_PARAMETER = "businessId";
+
+    /** The select by business id JPQL queries by entity class. */
+    private final ConcurrentMap<Class<?>, String> selectByBusinessIdQueries = new ConcurrentHashMap<>();
+
+    /**
+     * Create the (typed) query that select the entities of the given class by its business id.
+     *
+     * @param <T> the entity type
+     * @param entityManager the entity manager
+     * @param entityClass the entity class
+     * @param businessId the business id
+     * @return the query with bound business id parameter
+     */
+    <T> TypedQuery<T> selectByBusinessId(final EntityManager entityManager, final Class<T> entityClass,
+            final BusinessId<?> businessId) {
+        Check.notNullArgument(entityManager, "entityManager");
+        Check.notNullArgument(entityClass, "entityClass");
+        Check.notNullArgument(businessId, "businessId");
+
+        String query = this.selectByBusinessIdQueries.computeIfAbsent(entityClass,
+                clazz -> buildSelectByBusinessIdQuery(entityManager, clazz));
+
+        return entityManager.createQuery(query, entityClass)
+                .setParameter(BUSINESS_ID_PARAMETER, businessId.getBusinessId());
+    }
+
+    /**
+     * Build the select by business id JPQL query.
+     *
+     * @param entityManager the entity manager
+     * @param entityClass the entity class
+     * @return the JPQL query
+     */
+    private static String buildSelectByBusinessIdQuery(final EntityManager entityManager,
+            final Class<?> entityClass) {
+        String entityName = entityManager.getMetamodel().entity(entityClass).getName();
+        return "SELECT e FROM " + entityName + " e WHERE e.businessId.businessId = :" + BUSINESS_ID_PARAMETER;
+    }
+
+    /**
+     * The number of cached queries.
+     *
+     * @return the number of cached queries
+     */
+    int size() {
+        return this.selectByBusinessIdQueries.size();
+    }
+
+}
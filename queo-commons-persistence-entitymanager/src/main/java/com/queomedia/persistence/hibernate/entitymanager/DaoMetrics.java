@@ -0,0 +1,149 @@
+package com.queomedia.persistence.hibernate.entitymanager;
+
+import com.queomedia.commons.checks.Check;
+
+/**
+ * Receiver of the metrics of the DAO operations ({@link GenericHibernateDaoImpl},
+ * {@link GenericHibernateAbstractBusinessDaoImpl} and {@link GeneralHibernateLoaderDaoImpl}):
+ * the duration of every operation, the size of the results and the size of the {@code IN}-lists.
+ *
+ * <p>
+ * The DAOs use {@link #DISABLED} by default, then they only check {@link #isEnabled()} and neither read the clock
+ * nor invoke any other method. An implementation for a concrete metrics library (for example Micrometer) is set by
+ * {@code setDaoMetrics}, that must be done while the DAO is configured, before it is used.
+ * </p>
+ *
+ * <p>
+ * Every operation is recorded, also if it fails (throws an exception), the outcome distinguishes them.
+ * The result sizes are only recorded for successful operations.
+ * An operation that is implemented by other DAO operations is recorded only once.
+ * The single entity lookups that executed SQL are additionally reported by {@link #recordSingleLoadQuery}.
+ * The implementations must be thread safe.
+ * </p>
+ */
+public interface DaoMetrics {
+
+    /** The disabled metrics, that records nothing. */
+    DaoMetrics DISABLED = new DaoMetrics() {
+
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void recordOperation(final Class<?> entityClass, final String operation, final boolean successful,
+                final long durationNanos) {
+        }
+
+        @Override
+        public void recordResultSize(final Class<?> entityClass, final String operation, final int resultSize) {
+        }
+
+        @Override
+        public void recordInListSize(final Class<?> entityClass, final int inListSize) {
+        }
+    };
+
+    /**
+     * Check if the metrics are recorded.
+     * If false, the DAOs do not invoke any other method.
+     *
+     * @return true, if enabled
+     */
+    boolean isEnabled();
+
+    /**
+     * Record the duration and the outcome of an operation.
+     *
+     * @param entityClass the entity class
+     * @param operation the name of the DAO operation (method), for example {@code getByBusinessId}
+     * @param successful true if the operation completed normally, false if it threw an exception
+     * @param durationNanos the duration in nanoseconds
+     */
+    void recordOperation(Class<?> entityClass, String operation, boolean successful, long durationNanos);
+
+    /**
+     * Record the number of entities returned (or processed) by an operation.
+     *
+     * @param entityClass the entity class
+     * @param operation the name of the DAO operation (method)
+     * @param resultSize the number of entities
+     */
+    void recordResultSize(Class<?> entityClass, String operation, int resultSize);
+
+    /**
+     * Record the number of values of one executed {@code IN}-list query.
+     *
+     * @param entityClass the entity class
+     * @param inListSize the number of values in the {@code IN}-list, including the padding
+     */
+    void recordInListSize(Class<?> entityClass, int inListSize);
+
+    /**
+     * Record that a single entity lookup ({@code getByBusinessId}, {@code findByBusinessId},
+     * {@code findByBusinessIdOrNull}, {@code findByPrimaryKey}, {@code getProjectionByBusinessId}) executed SQL.
+     * Lookups served without SQL (by the session, the business id identity map or a cache) are not recorded.
+     * It is invoked after {@link #recordOperation(Class, String, boolean, long)} of the same lookup.
+     *
+     * @param entityClass the entity class
+     * @param operation the name of the DAO operation (method)
+     * @param successful true if the operation completed normally, false if it threw an exception
+     */
+    default void recordSingleLoadQuery(final Class<?> entityClass, final String operation,
+            final boolean successful) {
+    }
+
+    /**
+     * Combine two dao metrics, both receive all records.
+     *
+     * @param first the first dao metrics
+     * @param second the second dao metrics
+     * @return the combined dao metrics, or one of them if the other is disabled
+     */
+    static DaoMetrics combine(final DaoMetrics first, final DaoMetrics second) {
+        Check.notNullArgument(first, "first");
+        Check.notNullArgument(second, "second");
+
+        if (!first.isEnabled()) {
+            return second;
+        }
+        if (!second.isEnabled()) {
+            return first;
+        }
+        return new DaoMetrics() {
+
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public void recordOperation(final Class<?> entityClass, final String operation,
+                    final boolean successful, final long durationNanos) {
+                first.recordOperation(entityClass, operation, successful, durationNanos);
+                second.recordOperation(entityClass, operation, successful, durationNanos);
+            }
+
+            @Override
+            public void recordResultSize(final Class<?> entityClass, final String operation, final int resultSize) {
+                first.recordResultSize(entityClass, operation, resultSize);
+                second.recordResultSize(entityClass, operation, resultSize);
+            }
+
+            @Override
+            public void recordInListSize(final Class<?> entityClass, final int inListSize) {
+                first.recordInListSize(entityClass, inListSize);
+                second.recordInListSize(entityClass, inListSize);
+            }
+
+            @Override
+            public void recordSingleLoadQuery(final Class<?> entityClass, final String operation,
+                    final boolean successful) {
+                first.recordSingleLoadQuery(entityClass, operation, successful);
+                second.recordSingleLoadQuery(entityClass, operation, successful);
+            }
+        };
+    }
+
+}
@@ -1,9 +1,19 @@
 package com.queomedia.persistence.hibernate.entitymanager;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -12,6 +22,7 @@ import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
 
 import org.hibernate.Criteria;
+import org.hibernate.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Sort;
@@ -33,6 +44,100 @@ public class GeneralHibernateLoaderDaoImpl implements GeneralLoaderDao {
     @PersistenceContext
     private EntityManager entityManager;
 
+    /** The cached select by business id queries. */
+    private final BusinessIdQueryCache businessIdQueryCache = new BusinessIdQueryCache();
+
+    /** Resolve the entities via their natural id, if the business id is the natural id. */
+    private final BusinessIdNaturalIdResolver businessIdNaturalIdResolver = new BusinessIdNaturalIdResolver();
+
+    /** Number of business id lookups served by the session scoped identity map. */
+    private final LongAdder identityMapHits = new LongAdder();
+
+    /** Number of business id lookups not served by the session scoped identity map. */
+    private final LongAdder identityMapMisses = new LongAdder();
+
+    /** The receiver of the operation metrics, disabled by default. */
+    private DaoMetrics daoMetrics = DaoMetrics.DISABLED;
+
+    /**
+     * Set the receiver of the operation metrics. Must be set before the DAO is used.
+     *
+     * @param daoMetrics the dao metrics, {@link DaoMetrics#DISABLED} to record nothing
+     */
+    public void setDaoMetrics(final DaoMetrics daoMetrics) {
+        Check.notNullArgument(daoMetrics, "daoMetrics");
+
+        this.daoMetrics = daoMetrics;
+    }
+
+    /**
+     * Start the measurement of an operation.
+     *
+     * @return the start time in nanoseconds, or 0 if the metrics are disabled
+     */
+    private long startOperation() {
+        return this.daoMetrics.isEnabled() ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Record the duration and the outcome of an operation, if the metrics are enabled.
+     * Must be invoked in a {@code finally} block, so that failed operations are recorded too.
+     *
+     * @param entityClass the entity class
+     * @param operation the operation name
+     * @param start the start time from {@link #startOperation()}
+     * @param successful true if the operation completed normally
+     */
+    private void recordOperation(final Class<?> entityClass, final String operation, final long start,
+            final boolean successful) {
+        if (this.daoMetrics.isEnabled()) {
+            this.daoMetrics.recordOperation(entityClass, operation, successful, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Start the observation of a single entity lookup, see {@link #recordSingleLoad(Class, String, long, boolean)}.
+     *
+     * @return the number of JDBC statements executed by the session so far, or
+     *         {@link JdbcStatementCounter#UNKNOWN} if the metrics are disabled or the session is not open
+     */
+    private long startSingleLoad() {
+        if (!this.daoMetrics.isEnabled()) {
+            return JdbcStatementCounter.UNKNOWN;
+        }
+        return JdbcStatementCounter.executedStatements(this.entityManager.unwrap(Session.class));
+    }
+
+    /**
+     * Record the single entity lookup if it executed SQL and the metrics are enabled.
+     * Must be invoked in a {@code finally} block, after {@link #recordOperation(Class, String, long, boolean)}.
+     *
+     * @param entityClass the entity class
+     * @param operation the operation name
+     * @param executedStatements the count from {@link #startSingleLoad()}
+     * @param successful true if the operation completed normally
+     */
+    private void recordSingleLoad(final Class<?> entityClass, final String operation, final long executedStatements,
+            final boolean successful) {
+        if (this.daoMetrics.isEnabled() && JdbcStatementCounter
+                .hasExecutedStatements(this.entityManager.unwrap(Session.class), executedStatements)) {
+            this.daoMetrics.recordSingleLoadQuery(entityClass, operation, successful);
+        }
+    }
+
+    /**
+     * Record the result size of a successful operation, if the metrics are enabled.
+     *
+     * @param entityClass the entity class
+     * @param operation the operation name
+     * @param resultSize the number of returned entities
+     */
+    private void recordResultSize(final Class<?> entityClass, final String operation, final int resultSize) {
+        if (this.daoMetrics.isEnabled()) {
+            this.daoMetrics.recordResultSize(entityClass, operation, resultSize);
+        }
+    }
+
     @Override
     @Deprecated
     public <T extends BusinessEntity<? extends Serializable>> T findObject(final BusinessId<T> businessId,
@@ -55,8 +160,20 @@ public class GeneralHibernateLoaderDaoImpl implements GeneralLoaderDao {
         Check.notNullArgument(businessId, "businessId");
         Check.notNullArgument(entityClass, "entityClass");
 
-        String messageIfNotFound = "businessId=" + businessId + ", entityClass=" + entityClass.getName();
-        return ResultUtil.requiredOneResult(loadEntitiesByBusinessId(businessId, entityClass), messageIfNotFound);
+        long start = startOperation();
+        long executedStatements = startSingleLoad();
+        boolean successful = false;
+        try {
+            List<Clazz> found = loadEntitiesByBusinessId(businessId, entityClass);
+
+            String messageIfNotFound = "businessId=" + businessId + ", entityClass=" + entityClass.getName();
+            Clazz result = ResultUtil.requiredOneResult(found, messageIfNotFound);
+            successful = true;
+            return result;
+        } finally {
+            recordOperation(entityClass, "getByBusinessId", start, successful);
+            recordSingleLoad(entityClass, "getByBusinessId", executedStatements, successful);
+        }
     }
 
     @Override
@@ -65,7 +182,77 @@ public class GeneralHibernateLoaderDaoImpl implements GeneralLoaderDao {
         Check.notNullArgument(businessId, "businessId");
         Check.notNullArgument(entityClass, "entityClass");
 
-        return ResultUtil.requiredOneOrNoResult(loadEntitiesByBusinessId(businessId, entityClass));
+        long start = startOperation();
+        long executedStatements = startSingleLoad();
+        boolean successful = false;
+        try {
+            Clazz result = ResultUtil.requiredOneOrNoResult(loadEntitiesByBusinessId(businessId, entityClass));
+            successful = true;
+            return result;
+        } finally {
+            recordOperation(entityClass, "findByBusinessId", start, successful);
+            recordSingleLoad(entityClass, "findByBusinessId", executedStatements, successful);
+        }
+    }
+
+    @Override
+    public <Clazz extends BusinessEntity<? extends Serializable>> List<Clazz> getByBusinessIds(
+            final Collection<BusinessId<Clazz>> businessIds, final Class<Clazz> entityClass)
+            throws NotFoundRuntimeException {
+        Check.notNullArgument(businessIds, "businessIds");
+        Check.notNullArgument(entityClass, "entityClass");
+
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            Map<BusinessId<Clazz>, Clazz> found = loadEntitiesByBusinessIds(businessIds, entityClass);
+            recordResultSize(entityClass, "getByBusinessIds", found.size());
+
+            List<Clazz> result = new ArrayList<>(businessIds.size());
+            List<BusinessId<Clazz>> notFound = new ArrayList<>();
+            for (BusinessId<Clazz> businessId : businessIds) {
+                Clazz entity = found.get(businessId);
+                if (entity == null) {
+                    notFound.add(businessId);
+                }
+                result.add(entity);
+            }
+
+            if (!notFound.isEmpty()) {
+                throw new NotFoundRuntimeException(
+                        "businessIds=" + notFound + ", entityClass=" + entityClass.getName());
+            }
+            successful = true;
+            return result;
+        } finally {
+            recordOperation(entityClass, "getByBusinessIds", start, successful);
+        }
+    }
+
+    @Override
+    public <Clazz extends BusinessEntity<? extends Serializable>> Map<BusinessId<Clazz>, Clazz> findByBusinessIds(
+            final Collection<BusinessId<Clazz>> businessIds, final Class<Clazz> entityClass) {
+        Check.notNullArgument(businessIds, "businessIds");
+        Check.notNullArgument(entityClass, "entityClass");
+
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            Map<BusinessId<Clazz>, Clazz> found = loadEntitiesByBusinessIds(businessIds, entityClass);
+            recordResultSize(entityClass, "findByBusinessIds", found.size());
+
+            Map<BusinessId<Clazz>, Clazz> result = new LinkedHashMap<>();
+            for (BusinessId<Clazz> businessId : businessIds) {
+                Clazz entity = found.get(businessId);
+                if (entity != null) {
+                    result.put(businessId, entity);
+                }
+            }
+            successful = true;
+            return result;
+        } finally {
+            recordOperation(entityClass, "findByBusinessIds", start, successful);
+        }
     }
 
     /**
@@ -93,6 +280,14 @@ public class GeneralHibernateLoaderDaoImpl implements GeneralLoaderDao {
      * Load all entities of the class by its business id.
      * The result is not checked!
      *
+     * <p>
+     * Entities already found in the current session are returned from the {@link BusinessIdIdentityMap}
+     * without any SQL.
+     * If the business id is the natural id of the entity ({@link com.queomedia.persistence.BusinessIdNaturalId}),
+     * then the entity is resolved by the session and the second-level natural id cache before SQL is used,
+     * else the query is used that is build only once per entity class, see {@link BusinessIdQueryCache}.
+     * </p>
+     *
      * @param <T> the generic type
      * @param businessId the business id
      * @param entityClass the entity class
@@ -101,14 +296,119 @@ public class GeneralHibernateLoaderDaoImpl implements GeneralLoaderDao {
     private <T extends BusinessEntity<? extends Serializable>> List<T> loadEntitiesByBusinessId(
             final BusinessId<T> businessId, final Class<T> entityClass) {
 
+        Session session = currentSession();
+        if (session == null) {
+            this.identityMapMisses.increment();
+            return this.businessIdQueryCache.selectByBusinessId(this.entityManager, entityClass, businessId)
+                    .getResultList();
+        }
+
+        T remembered = BusinessIdIdentityMap.get(session, entityClass, businessId);
+        if (remembered != null) {
+            this.identityMapHits.increment();
+            return Collections.singletonList(remembered);
+        }
+        this.identityMapMisses.increment();
+
+        List<T> found;
+        if (this.businessIdNaturalIdResolver.isBusinessIdNaturalId(session, entityClass)) {
+            found = this.businessIdNaturalIdResolver.load(session, entityClass, businessId);
+        } else {
+            found = this.businessIdQueryCache.selectByBusinessId(this.entityManager, entityClass, businessId)
+                    .getResultList();
+        }
+        if (found.size() == 1) {
+            BusinessIdIdentityMap.put(session, entityClass, businessId, found.get(0));
+        }
+        return found;
+    }
+
+    /**
+     * The session of the current transaction.
+     *
+     * @return the session, or null if there is no open session (the shared entity manager returns a new
+     *         and already closed session when it is unwrapped outside of an transaction)
+     */
+    private Session currentSession() {
+        Session session = this.entityManager.unwrap(Session.class);
+        if (!session.isOpen()) {
+            return null;
+        }
+        return session;
+    }
+
+    /**
+     * Load all entities of the class by its business ids.
+     * Entities already found in the current session are taken from the {@link BusinessIdIdentityMap},
+     * the other (distinct) business ids are split in (padded) chunks of at most {@link InListChunker#MAX_IN_LIST_SIZE},
+     * and each chunk is loaded with one {@code IN}-query.
+     *
+     * @param <T> the generic type
+     * @param businessIds the business ids
+     * @param entityClass the entity class
+     * @return the found entities by there business id (unordered)
+     */
+    private <T extends BusinessEntity<? extends Serializable>> Map<BusinessId<T>, T> loadEntitiesByBusinessIds(
+            final Collection<BusinessId<T>> businessIds, final Class<T> entityClass) {
+
+        Set<BusinessId<T>> distinctBusinessIds = new LinkedHashSet<>(businessIds);
+        Map<BusinessId<T>, T> found = new HashMap<>(distinctBusinessIds.size() * 4 / 3 + 1);
+
+        /* entities already found in this session */
+        Session session = currentSession();
+        List<BusinessId<T>> toLoad = new ArrayList<>(distinctBusinessIds.size());
+        for (BusinessId<T> businessId : distinctBusinessIds) {
+            T remembered = session != null ? BusinessIdIdentityMap.get(session, entityClass, businessId) : null;
+            if (remembered != null) {
+                this.identityMapHits.increment();
+                found.put(businessId, remembered);
+            } else {
+                this.identityMapMisses.increment();
+                toLoad.add(businessId);
+            }
+        }
+        if (toLoad.isEmpty()) {
+            return found;
+        }
+
         CriteriaBuilder builder = getCriteriaBuilder();
+        for (List<BusinessId<T>> chunk : InListChunker.paddedChunks(toLoad)) {
+            CriteriaQuery<T> selectByBidsQuery = builder.createQuery(entityClass);
+            Root<T> root = selectByBidsQuery.from(entityClass);
+            selectByBidsQuery.where(root.get("businessId").in(chunk));
+            selectByBidsQuery.select(root);
 
-        CriteriaQuery<T> selectByBidQuery = builder.createQuery(entityClass);
-        Root<T> root = selectByBidQuery.from(entityClass);
-        selectByBidQuery.where(builder.equal(root.get("businessId"), businessId));
-        selectByBidQuery.select(root);
+            if (this.daoMetrics.isEnabled()) {
+                this.daoMetrics.recordInListSize(entityClass, chunk.size());
+            }
+            for (T entity : this.entityManager.createQuery(selectByBidsQuery).getResultList()) {
+                @SuppressWarnings("unchecked")
+                BusinessId<T> businessId = (BusinessId<T>) entity.getBusinessId();
+                found.put(businessId, entity);
+                if (session != null) {
+                    BusinessIdIdentityMap.put(session, entityClass, businessId, entity);
+                }
+            }
+        }
+        return found;
+    }
 
-        return this.entityManager.createQuery(selectByBidQuery).getResultList();
+    /**
+     * The number of business id lookups that are served by the session scoped identity map, without SQL.
+     *
+     * @return the number of hits
+     */
+    public long getIdentityMapHitCount() {
+        return this.identityMapHits.sum();
+    }
+
+    /**
+     * The number of business id lookups that are not served by the session scoped identity map.
+     *
+     * @return the number of misses
+     */
+    public long getIdentityMapMissCount() {
+        return this.identityMapMisses.sum();
     }
 
     @Override
@@ -131,17 +431,42 @@ public class GeneralHibernateLoaderDaoImpl implements GeneralLoaderDao {
                     + topStackTraceElements(Thread.currentThread().getStackTrace(), 1, 8));
         }
 
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            CriteriaBuilder builder = getCriteriaBuilder();
+
+            CriteriaQuery<T> selectAllQuery = builder.createQuery(entityClass);
+            Root<T> root = selectAllQuery.from(entityClass);
+            selectAllQuery.select(root);
+
+            if (sort != null) { //remove this if-check and execute this statement always, as soon as it is required: sort  != null, 
+                selectAllQuery.orderBy(QueryUtils.toOrders(sort, root, builder));
+            }
+
+            List<T> result = this.entityManager.createQuery(selectAllQuery).getResultList();
+            recordResultSize(entityClass, "findAll", result.size());
+            successful = true;
+            return result;
+        } finally {
+            recordOperation(entityClass, "findAll", start, successful);
+        }
+    }
+
+    @Override
+    public <T> Stream<T> findAllStream(final Class<T> entityClass, final Sort sort, final int fetchSize) {
+        Check.notNullArgument(entityClass, "entityClass");
+        Check.notNullArgument(sort, "sort");
+
         CriteriaBuilder builder = getCriteriaBuilder();
 
         CriteriaQuery<T> selectAllQuery = builder.createQuery(entityClass);
         Root<T> root = selectAllQuery.from(entityClass);
         selectAllQuery.select(root);
+        selectAllQuery.orderBy(QueryUtils.toOrders(sort, root, builder));
 
-        if (sort != null) { //remove this if-check and execute this statement always, as soon as it is required: sort  != null, 
-            selectAllQuery.orderBy(QueryUtils.toOrders(sort, root, builder));
-        }
-
-        return this.entityManager.createQuery(selectAllQuery).getResultList();
+        Session session = this.entityManager.unwrap(Session.class);
+        return ScrollableResultsStream.stream(session, session.createQuery(selectAllQuery), fetchSize);
     }
 
     /**
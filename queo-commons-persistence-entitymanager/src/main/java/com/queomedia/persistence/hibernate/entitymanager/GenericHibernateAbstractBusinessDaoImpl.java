@@ -1,16 +1,19 @@
 package com.queomedia.persistence.hibernate.entitymanager;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
 
+import org.hibernate.Session;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,7 +21,11 @@ import com.queomedia.commons.checks.Check;
 import com.queomedia.commons.exceptions.NotFoundRuntimeException;
 import com.queomedia.persistence.BusinessEntity;
 import com.queomedia.persistence.BusinessId;
+import com.queomedia.persistence.BusinessIdList;
+import com.queomedia.persistence.BusinessIdSet;
 import com.queomedia.persistence.GenericAbstractBusinessDao;
+import com.queomedia.persistence.KeysetPage;
+import com.queomedia.persistence.util.KeysetPredicates;
 import com.queomedia.persistence.util.ResultUtil;
 
 /**
@@ -34,24 +41,39 @@ public abstract class GenericHibernateAbstractBusinessDaoImpl<KeyType extends Bu
     */
     private static final Logger LOGGER = LoggerFactory.getLogger(GenericHibernateAbstractBusinessDaoImpl.class);
 
+    /** The cached select by business id query. */
+    private final BusinessIdQueryCache businessIdQueryCache = new BusinessIdQueryCache();
+
+    /** Resolve the entity via its natural id, if the business id is the natural id. */
+    private final BusinessIdNaturalIdResolver businessIdNaturalIdResolver = new BusinessIdNaturalIdResolver();
+
     @Override
     public T getByBusinessId(final BusinessId<KeyType> businessId) throws NotFoundRuntimeException {
         Check.notNullArgument(businessId, "businessId");
 
-        CriteriaBuilder builder = getCriteriaBuilder();
+        long start = startOperation();
+        long executedStatements = startSingleLoad();
+        boolean successful = false;
+        try {
+            T result = ResultUtil.requiredOneResult(loadByBusinessId(businessId), "businessId=" + businessId);
+            successful = true;
+            return result;
+        } finally {
+            recordOperation("getByBusinessId", start, successful);
+            recordSingleLoad("getByBusinessId", executedStatements, successful);
+        }
+    }
 
-        CriteriaQuery<T> selectByBidQuery = builder.createQuery(this.getPersistentClass());
-        Root<T> root = selectByBidQuery.from(this.getPersistentClass());
-        selectByBidQuery.where(builder.equal(root.get("businessId"), businessId));
-        selectByBidQuery.select(root);
+    @Override
+    public List<T> getByBusinessId(final List<BusinessId<KeyType>> businessIds)
+            throws EmptyResultDataAccessException, IncorrectResultSizeDataAccessException {
+        Check.notNullArgument(businessIds, "businessIds");
 
-        return ResultUtil.requiredOneResult(this.getEntityManager().createQuery(selectByBidQuery).getResultList(),
-                "businessId=" + businessId);
+        return getByBusinessIds(BusinessIdList.of(businessIds));
     }
 
-    @SuppressWarnings("unchecked")
     @Override
-    public List<T> getByBusinessId(final List<BusinessId<KeyType>> businessIds)
+    public List<T> getByBusinessIds(final BusinessIdList<KeyType> businessIds)
             throws EmptyResultDataAccessException, IncorrectResultSizeDataAccessException {
         Check.notNullArgument(businessIds, "businessIds");
         int bidCount = businessIds.size();
@@ -60,60 +82,226 @@ public abstract class GenericHibernateAbstractBusinessDaoImpl<KeyType extends Bu
         if (bidCount == 0) {
             if (GenericHibernateAbstractBusinessDaoImpl.LOGGER.isDebugEnabled()) {
                 GenericHibernateAbstractBusinessDaoImpl.LOGGER
-                        .debug("findByBusinessId(List<BusinessId<KeyType>>) - serarch for a empty list of businessIds"); //$NON-NLS-1$
+                        .debug("getByBusinessIds(BusinessIdList<KeyType>) - serarch for a empty list of businessIds"); //$NON-NLS-1$
             }
             return new ArrayList<T>();
         }
 
-        /* load */
-        CriteriaBuilder builder = getCriteriaBuilder();
+        /* load - chunked, because of IN-list limits; the values are only boxed for the query parameters */
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            List<Long> businessIdValues = new ArrayList<Long>(bidCount);
+            for (int i = 0; i < bidCount; i++) {
+                businessIdValues.add(businessIds.getLong(i));
+            }
+            List<T> found = loadChunks(InListChunker.paddedChunks(businessIdValues));
+            recordResultSize("getByBusinessIds", found.size());
+
+            /* bring the found entities in the same order as the ids - without a map */
+            List<T> result = ResultUtil.orderByBusinessIds(found, businessIds);
+            successful = true;
+            return result;
+        } finally {
+            recordOperation("getByBusinessIds", start, successful);
+        }
+    }
+
+    /**
+     * Load the entities for all chunks of business ids, one after the other in the current session.
+     *
+     * @param chunks the chunks of business id values
+     * @return the found entities of all chunks
+     */
+    private List<T> loadChunks(final List<List<Long>> chunks) {
+        List<T> found = new ArrayList<T>();
+        for (List<Long> chunk : chunks) {
+            found.addAll(loadChunk(this.getEntityManager(), chunk));
+        }
+        return found;
+    }
+
+    /**
+     * Load the entities for one chunk of business ids with one {@code IN}-query.
+     *
+     * @param entityManager the entity manager (session) used to execute the query
+     * @param chunk the business id values
+     * @return the found entities
+     */
+    private List<T> loadChunk(final EntityManager entityManager, final List<Long> chunk) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
         CriteriaQuery<T> selectByBidQuery = builder.createQuery(this.getPersistentClass());
         Root<T> root = selectByBidQuery.from(this.getPersistentClass());
 
-        selectByBidQuery.where(root.get("businessId").in(businessIds));
+        selectByBidQuery.where(root.get("businessId").get("businessId").in(chunk));
         selectByBidQuery.select(root);
 
-        List<T> found = this.getEntityManager().createQuery(selectByBidQuery).getResultList();
-        int foundSize = found.size();
+        if (this.getDaoMetrics().isEnabled()) {
+            this.getDaoMetrics().recordInListSize(this.getPersistentClass(), chunk.size());
+        }
+        return entityManager.createQuery(selectByBidQuery).getResultList();
+    }
+
+    @Override
+    public T findByBusinessIdOrNull(final BusinessId<KeyType> businessId)
+            throws IncorrectResultSizeDataAccessException {
+        Check.notNullArgument(businessId, "businessId");
+
+        long start = startOperation();
+        long executedStatements = startSingleLoad();
+        boolean successful = false;
+        try {
+            T result = ResultUtil.requiredOneOrNoResult(loadByBusinessId(businessId));
+            successful = true;
+            return result;
+        } finally {
+            recordOperation("findByBusinessIdOrNull", start, successful);
+            recordSingleLoad("findByBusinessIdOrNull", executedStatements, successful);
+        }
+    }
 
-        /* check size */
-        if (foundSize == 0) {
-            throw new EmptyResultDataAccessException(bidCount);
+    /**
+     * Load the entity by its business id.
+     * If the business id is the natural id of the entity ({@link com.queomedia.persistence.BusinessIdNaturalId}),
+     * then the entity is resolved by the session and the second-level natural id cache before SQL is used,
+     * else it is loaded by {@link #selectByBusinessId(BusinessId)}.
+     *
+     * @param businessId the business id
+     * @return the found entities - zero or one if the business id is unique
+     */
+    private List<T> loadByBusinessId(final BusinessId<KeyType> businessId) {
+        Session session = this.getEntityManager().getSession();
+        if (this.businessIdNaturalIdResolver.isBusinessIdNaturalId(session, this.getPersistentClass())) {
+            return this.businessIdNaturalIdResolver.load(session, this.getPersistentClass(), businessId);
         }
-        if (foundSize != bidCount) {
-            throw new IncorrectResultSizeDataAccessException(bidCount, foundSize);
+        return selectByBusinessId(businessId).getResultList();
+    }
+
+    @Override
+    public KeysetPage<T> findPageAfter(final BusinessId<KeyType> lastBusinessId, final int size, final Sort sort) {
+        Check.notNullArgument(sort, "sort");
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive, but was " + size);
         }
 
-        /* copy the founded objects in a map to access them via there key */
-        Map<BusinessId<T>, T> map = new HashMap<BusinessId<T>, T>(foundSize);
-        for (int i = 0; i < foundSize; i++) {
-            T entity = found.get(i);
-            map.put((BusinessId<T>) entity.getBusinessId(), entity);
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            Sort keysetSort = KeysetPredicates.keysetSort(sort);
+            if ((lastBusinessId != null) && KeysetPredicates.requiresLastElement(keysetSort)
+                    && loadByBusinessId(lastBusinessId).isEmpty()) {
+                throw new NotFoundRuntimeException("the last element of the previous page does not exist (anymore): "
+                        + "businessId=" + lastBusinessId);
+            }
+
+            CriteriaBuilder builder = getCriteriaBuilder();
+            CriteriaQuery<T> selectPageQuery = builder.createQuery(this.getPersistentClass());
+            Root<T> root = selectPageQuery.from(this.getPersistentClass());
+            selectPageQuery.select(root);
+            if (lastBusinessId != null) {
+                selectPageQuery.where(KeysetPredicates
+                        .after(root, selectPageQuery, builder, this.getPersistentClass(), keysetSort, lastBusinessId));
+            }
+            selectPageQuery.orderBy(QueryUtils.toOrders(keysetSort, root, builder));
+
+            /* one more than requested, to determine if there is a next page */
+            List<T> rows = this.getEntityManager().createQuery(selectPageQuery)
+                    .setMaxResults(size + 1)
+                    .getResultList();
+            recordResultSize("findPageAfter", rows.size());
+            KeysetPage<T> page = KeysetPage.fromRows(rows, size, sort);
+            successful = true;
+            return page;
+        } finally {
+            recordOperation("findPageAfter", start, successful);
         }
+    }
 
-        List<T> result = new ArrayList<T>(found.size());
+    @Override
+    public BusinessIdSet<KeyType> findAllBusinessIds() {
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            CriteriaBuilder builder = getCriteriaBuilder();
+            CriteriaQuery<Long> selectBusinessIdsQuery = builder.createQuery(Long.class);
+            Root<T> root = selectBusinessIdsQuery.from(this.getPersistentClass());
+            selectBusinessIdsQuery.select(root.get("businessId").<Long> get("businessId"));
 
-        /* bing the founded entities in the same order as the id's */
-        for (int i = 0; i < bidCount; i++) {
-            result.add(map.get(businessIds.get(i)));
+            List<Long> businessIdValues = this.getEntityManager().createQuery(selectBusinessIdsQuery).getResultList();
+            recordResultSize("findAllBusinessIds", businessIdValues.size());
+            long[] values = new long[businessIdValues.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = businessIdValues.get(i);
+            }
+            BusinessIdSet<KeyType> result = BusinessIdSet.of(values);
+            successful = true;
+            return result;
+        } finally {
+            recordOperation("findAllBusinessIds", start, successful);
         }
+    }
+
+    @Override
+    public <P> List<P> findProjection(final Class<P> projectionType, final Sort sort) {
+        Check.notNullArgument(projectionType, "projectionType");
+        Check.notNullArgument(sort, "sort");
 
-        return result;
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            CriteriaBuilder builder = getCriteriaBuilder();
+            CriteriaQuery<P> selectProjectionQuery = builder.createQuery(projectionType);
+            Root<T> root = selectProjectionQuery.from(this.getPersistentClass());
+            selectProjectionQuery.select(ProjectionConstructor.construct(builder, root, projectionType));
+            selectProjectionQuery.orderBy(QueryUtils.toOrders(sort, root, builder));
+
+            List<P> result = this.getEntityManager().createQuery(selectProjectionQuery).getResultList();
+            recordResultSize("findProjection", result.size());
+            successful = true;
+            return result;
+        } finally {
+            recordOperation("findProjection", start, successful);
+        }
     }
 
     @Override
-    public T findByBusinessIdOrNull(final BusinessId<KeyType> businessId)
-            throws IncorrectResultSizeDataAccessException {
+    public <P> P getByBusinessId(final BusinessId<KeyType> businessId, final Class<P> projectionType)
+            throws NotFoundRuntimeException {
         Check.notNullArgument(businessId, "businessId");
+        Check.notNullArgument(projectionType, "projectionType");
 
-        CriteriaBuilder builder = getCriteriaBuilder();
+        long start = startOperation();
+        long executedStatements = startSingleLoad();
+        boolean successful = false;
+        try {
+            CriteriaBuilder builder = getCriteriaBuilder();
+            CriteriaQuery<P> selectProjectionQuery = builder.createQuery(projectionType);
+            Root<T> root = selectProjectionQuery.from(this.getPersistentClass());
+            selectProjectionQuery.select(ProjectionConstructor.construct(builder, root, projectionType));
+            selectProjectionQuery.where(builder.equal(root.get("businessId").get("businessId"),
+                    businessId.getBusinessId()));
 
-        CriteriaQuery<T> selectByBidQuery = builder.createQuery(this.getPersistentClass());
-        Root<T> root = selectByBidQuery.from(this.getPersistentClass());
-        selectByBidQuery.where(builder.equal(root.get("businessId"), businessId));
-        selectByBidQuery.select(root);
+            List<P> found = this.getEntityManager().createQuery(selectProjectionQuery).getResultList();
+            P result = ResultUtil.requiredOneResult(found, "businessId=" + businessId);
+            successful = true;
+            return result;
+        } finally {
+            recordOperation("getProjectionByBusinessId", start, successful);
+            recordSingleLoad("getProjectionByBusinessId", executedStatements, successful);
+        }
+    }
 
-        return ResultUtil.requiredOneOrNoResult(this.getEntityManager().createQuery(selectByBidQuery).getResultList());
+    /**
+     * Create the query that select the entity by its business id.
+     * The query is build only once and is then reused, see {@link BusinessIdQueryCache}.
+     *
+     * @param businessId the business id
+     * @return the query
+     */
+    protected TypedQuery<T> selectByBusinessId(final BusinessId<KeyType> businessId) {
+        return this.businessIdQueryCache.selectByBusinessId(this.getEntityManager(),
+                this.getPersistentClass(),
+                businessId);
     }
 
 }
@@ -4,6 +4,7 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import javax.persistence.LockModeType;
 import javax.persistence.PersistenceContext;
@@ -18,7 +19,10 @@ import org.hibernate.Session;
 import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.Example;
 import org.hibernate.criterion.Projections;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.PostInsertIdentifierGenerator;
 import org.hibernate.jpa.HibernateEntityManager;
+import org.hibernate.persister.entity.EntityPersister;
 import org.hibernate.transform.ResultTransformer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +30,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.query.QueryUtils;
 
 import com.queomedia.commons.checks.Check;
+import com.queomedia.persistence.BatchPersistStatistics;
 import com.queomedia.persistence.GenericEntityDao;
 
 /**
@@ -48,6 +53,12 @@ public class GenericHibernateDaoImpl<T> implements GenericEntityDao<T> {
     @PersistenceContext
     private HibernateEntityManager entityManager;
 
+    /** The bulk delete support, caches if the bulk delete is allowed for the persistent class. */
+    private final BulkDelete bulkDelete = new BulkDelete();
+
+    /** The receiver of the operation metrics, disabled by default. */
+    private DaoMetrics daoMetrics = DaoMetrics.DISABLED;
+
     /**
      * Gets the entity manager.
      *
@@ -77,6 +88,89 @@ public class GenericHibernateDaoImpl<T> implements GenericEntityDao<T> {
         return this.persistentClass;
     }
 
+    /**
+     * Set the receiver of the operation metrics. Must be set before the DAO is used.
+     *
+     * @param daoMetrics the dao metrics, {@link DaoMetrics#DISABLED} to record nothing
+     */
+    public void setDaoMetrics(final DaoMetrics daoMetrics) {
+        Check.notNullArgument(daoMetrics, "daoMetrics");
+
+        this.daoMetrics = daoMetrics;
+    }
+
+    /**
+     * Gets the receiver of the operation metrics.
+     *
+     * @return the dao metrics
+     */
+    protected DaoMetrics getDaoMetrics() {
+        return this.daoMetrics;
+    }
+
+    /**
+     * Start the measurement of an operation, see {@link #recordOperation(String, long, boolean)}.
+     *
+     * @return the start time in nanoseconds, or 0 if the metrics are disabled
+     */
+    protected long startOperation() {
+        return this.daoMetrics.isEnabled() ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Record the duration and the outcome of an operation, if the metrics are enabled.
+     * Must be invoked in a {@code finally} block, so that failed operations are recorded too.
+     *
+     * @param operation the operation name
+     * @param start the start time from {@link #startOperation()}
+     * @param successful true if the operation completed normally
+     */
+    protected void recordOperation(final String operation, final long start, final boolean successful) {
+        if (this.daoMetrics.isEnabled()) {
+            this.daoMetrics.recordOperation(this.persistentClass, operation, successful, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Start the observation of a single entity lookup, see {@link #recordSingleLoad(String, long, boolean)}.
+     *
+     * @return the number of JDBC statements executed by the session so far, or
+     *         {@link JdbcStatementCounter#UNKNOWN} if the metrics are disabled or the session is not open
+     */
+    protected long startSingleLoad() {
+        if (!this.daoMetrics.isEnabled()) {
+            return JdbcStatementCounter.UNKNOWN;
+        }
+        return JdbcStatementCounter.executedStatements(this.entityManager.getSession());
+    }
+
+    /**
+     * Record the single entity lookup if it executed SQL and the metrics are enabled.
+     * Must be invoked in a {@code finally} block, after {@link #recordOperation(String, long, boolean)}.
+     *
+     * @param operation the operation name
+     * @param executedStatements the count from {@link #startSingleLoad()}
+     * @param successful true if the operation completed normally
+     */
+    protected void recordSingleLoad(final String operation, final long executedStatements, final boolean successful) {
+        if (this.daoMetrics.isEnabled()
+                && JdbcStatementCounter.hasExecutedStatements(this.entityManager.getSession(), executedStatements)) {
+            this.daoMetrics.recordSingleLoadQuery(this.persistentClass, operation, successful);
+        }
+    }
+
+    /**
+     * Record the result size of a successful operation, if the metrics are enabled.
+     *
+     * @param operation the operation name
+     * @param resultSize the number of returned (or processed) entities
+     */
+    protected void recordResultSize(final String operation, final int resultSize) {
+        if (this.daoMetrics.isEnabled()) {
+            this.daoMetrics.recordResultSize(this.persistentClass, operation, resultSize);
+        }
+    }
+
     /*
      * @see com.queomedia.fff.db.GenericDAO#findAll()
      */
@@ -86,6 +180,25 @@ public class GenericHibernateDaoImpl<T> implements GenericEntityDao<T> {
 
     @Override
     public List<T> findAll(final Sort sort) {
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            List<T> result = selectAll(sort);
+            recordResultSize("findAll", result.size());
+            successful = true;
+            return result;
+        } finally {
+            recordOperation("findAll", start, successful);
+        }
+    }
+
+    /**
+     * Select all entities, without recording metrics.
+     *
+     * @param sort the sort order, null for no sorting
+     * @return the entities
+     */
+    private List<T> selectAll(final Sort sort) {
         CriteriaBuilder builder = this.getCriteriaBuilder();
 
         CriteriaQuery<T> selectAllQuery = builder.createQuery(this.persistentClass);
@@ -99,20 +212,44 @@ public class GenericHibernateDaoImpl<T> implements GenericEntityDao<T> {
         return this.entityManager.createQuery(selectAllQuery).getResultList();
     }
 
+    @Override
+    public Stream<T> findAllStream(final Sort sort, final int fetchSize) {
+        Check.notNullArgument(sort, "sort");
+
+        CriteriaBuilder builder = this.getCriteriaBuilder();
+
+        CriteriaQuery<T> selectAllQuery = builder.createQuery(this.persistentClass);
+        Root<T> root = selectAllQuery.from(this.persistentClass);
+        selectAllQuery.select(root);
+        selectAllQuery.orderBy(QueryUtils.toOrders(sort, root, builder));
+
+        Session session = this.entityManager.getSession();
+        return ScrollableResultsStream.stream(session, session.createQuery(selectAllQuery), fetchSize);
+    }
+
     /*
      * @see com.queomedia.fff.db.GenericDAO#findByExample(java.lang.Object, java.langString[])
      */
     @SuppressWarnings("unchecked")
     public List<T> findByExample(final T exampleInstance, final String[] excludeProperty) {
         Check.notNullArgument(exampleInstance, "exampleInstance");
-        Example example = Example.create(exampleInstance);
-        for (String exclude : excludeProperty) {
-            example.excludeProperty(exclude);
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            Example example = Example.create(exampleInstance);
+            for (String exclude : excludeProperty) {
+                example.excludeProperty(exclude);
+            }
+
+            Criteria criteria = getCriteriaAPI();
+            criteria.add(example);
+            List<T> result = criteria.list();
+            recordResultSize("findByExample", result.size());
+            successful = true;
+            return result;
+        } finally {
+            recordOperation("findByExample", start, successful);
         }
-
-        Criteria criteria = getCriteriaAPI();
-        criteria.add(example);
-        return criteria.list();
     }
 
     /*
@@ -134,10 +271,21 @@ public class GenericHibernateDaoImpl<T> implements GenericEntityDao<T> {
     public T findByPrimaryKey(final Long id, final boolean lock) {
         Check.notNullArgument(id, "id");
 
-        if (lock) {            
-            return (T) this.entityManager.find(this.getPersistentClass(), id, LockModeType.PESSIMISTIC_WRITE);
-        } else {
-            return (T) this.entityManager.find(this.getPersistentClass(), id);
+        long start = startOperation();
+        long executedStatements = startSingleLoad();
+        boolean successful = false;
+        try {
+            T result;
+            if (lock) {
+                result = this.entityManager.find(this.getPersistentClass(), id, LockModeType.PESSIMISTIC_WRITE);
+            } else {
+                result = this.entityManager.find(this.getPersistentClass(), id);
+            }
+            successful = true;
+            return result;
+        } finally {
+            recordOperation("findByPrimaryKey", start, successful);
+            recordSingleLoad("findByPrimaryKey", executedStatements, successful);
         }
     }
 
@@ -157,8 +305,15 @@ public class GenericHibernateDaoImpl<T> implements GenericEntityDao<T> {
             GenericHibernateDaoImpl.LOGGER
                     .debug("makePersistent(T) - entity=" + entity + ", T=" + this.persistentClass.getSimpleName()); //$NON-NLS-1$
         }
-        entityManager.getSession().saveOrUpdate(entity);
-        return entity;
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            entityManager.getSession().saveOrUpdate(entity);
+            successful = true;
+            return entity;
+        } finally {
+            recordOperation("makePersistent", start, successful);
+        }
     }
 
     @Override
@@ -171,25 +326,141 @@ public class GenericHibernateDaoImpl<T> implements GenericEntityDao<T> {
             return;
         }
 
-        for (T entity : entities) {
-            entityManager.getSession().saveOrUpdate(entity);
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            for (T entity : entities) {
+                entityManager.getSession().saveOrUpdate(entity);
+            }
+            recordResultSize("makePersistent", entities.size());
+            successful = true;
+        } finally {
+            recordOperation("makePersistent", start, successful);
         }
     }
 
+    @Override
+    public BatchPersistStatistics makePersistentInBatches(final Iterable<? extends T> entities,
+            final int batchSize) {
+        Check.notNullArgument(entities, "entities");
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive, but was " + batchSize);
+        }
+
+        long start = System.nanoTime();
+        boolean successful = false;
+        try {
+            Session session = entityManager.getSession();
+            /* flush the pending changes with the normal batch size, they must not be lost by the clear */
+            session.flush();
+
+            Integer previousJdbcBatchSize = session.getJdbcBatchSize();
+            session.setJdbcBatchSize(batchSize);
+            long entityCount = 0;
+            long batchCount = 0;
+            try {
+                for (T entity : entities) {
+                    session.saveOrUpdate(entity);
+                    entityCount++;
+                    if (entityCount % batchSize == 0) {
+                        session.flush();
+                        session.clear();
+                        BusinessIdIdentityMap.clear(session);
+                        batchCount++;
+                    }
+                }
+                if (entityCount % batchSize != 0) {
+                    session.flush();
+                    session.clear();
+                    BusinessIdIdentityMap.clear(session);
+                    batchCount++;
+                }
+            } finally {
+                session.setJdbcBatchSize(previousJdbcBatchSize);
+            }
+
+            BatchPersistStatistics statistics = new BatchPersistStatistics(entityCount,
+                    batchCount,
+                    batchSize,
+                    System.nanoTime() - start,
+                    isJdbcBatchable(session));
+            recordResultSize("makePersistentInBatches", (int) Math.min(entityCount, Integer.MAX_VALUE));
+            if (GenericHibernateDaoImpl.LOGGER.isDebugEnabled()) {
+                GenericHibernateDaoImpl.LOGGER.debug("makePersistentInBatches(Iterable<T>, int) - T="
+                        + this.persistentClass.getSimpleName() + ", " + statistics); //$NON-NLS-1$
+            }
+            successful = true;
+            return statistics;
+        } finally {
+            recordOperation("makePersistentInBatches", start, successful);
+        }
+    }
+
+    /**
+     * Check if the inserts of the entities can be JDBC batched: that is not the case for an identity (or other
+     * post insert) id generator, because Hibernate must execute every insert on its own to get the id.
+     *
+     * @param session the session
+     * @return true, if the inserts can be batched
+     */
+    private boolean isJdbcBatchable(final Session session) {
+        EntityPersister persister = ((SessionFactoryImplementor) session.getSessionFactory()).getMetamodel()
+                .entityPersister(this.persistentClass);
+        return !(persister.getIdentifierGenerator() instanceof PostInsertIdentifierGenerator);
+    }
+
     public void makeTransient(final T entity) {
-        entityManager.getSession().delete(entity);
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            entityManager.getSession().delete(entity);
+            successful = true;
+        } finally {
+            recordOperation("makeTransient", start, successful);
+        }
     }
 
     public void makeTransient(final Collection<? extends T> entities) {
-        for (T entity : entities) {
-            entityManager.getSession().delete(entity);
+        Check.notNullArgument(entities, "entities");
+
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            Session session = entityManager.getSession();
+            if ((entities.size() > 1) && this.bulkDelete.isBulkDeletable(session, this.persistentClass)) {
+                this.bulkDelete.deleteAll(session, this.persistentClass, entities);
+            } else {
+                for (T entity : entities) {
+                    session.delete(entity);
+                }
+            }
+            recordResultSize("makeTransient", entities.size());
+            successful = true;
+        } finally {
+            recordOperation("makeTransient", start, successful);
         }
     }
 
     public void makeAllTransient() {
-        List<T> all = this.findAll();
-        for (T item : all) {
-            this.makeTransient(item);
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            Session session = entityManager.getSession();
+            int deleted;
+            if (this.bulkDelete.isBulkDeletable(session, this.persistentClass)) {
+                deleted = this.bulkDelete.deleteAll(session, this.persistentClass);
+            } else {
+                /* not via findAll and makeTransient, they would record their own metrics */
+                List<T> all = selectAll(null);
+                for (T item : all) {
+                    session.delete(item);
+                }
+                deleted = all.size();
+            }
+            recordResultSize("makeAllTransient", deleted);
+            successful = true;
+        } finally {
+            recordOperation("makeAllTransient", start, successful);
         }
     }
 
@@ -200,6 +471,7 @@ public class GenericHibernateDaoImpl<T> implements GenericEntityDao<T> {
 
     public void clear() {
         entityManager.clear();
+        BusinessIdIdentityMap.clear(entityManager.getSession());
     }
     
     /**
@@ -268,6 +540,7 @@ public class GenericHibernateDaoImpl<T> implements GenericEntityDao<T> {
         Session session = entityManager.getSession();
         session.flush();
         session.clear();
+        BusinessIdIdentityMap.clear(session);
     }
 
     @Override
@@ -304,12 +577,20 @@ public class GenericHibernateDaoImpl<T> implements GenericEntityDao<T> {
      * @return the number of entities stored in the database.
      */
     public long count() {
-        CriteriaBuilder criteriaBuilder = this.getCriteriaBuilder();
-        
-        CriteriaQuery<Long> countQuery = criteriaBuilder.createQuery(Long.class);
-        countQuery.select(criteriaBuilder.count(countQuery.from(this.persistentClass)));
-        
-        return this.entityManager.createQuery(countQuery).getSingleResult();
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            CriteriaBuilder criteriaBuilder = this.getCriteriaBuilder();
+
+            CriteriaQuery<Long> countQuery = criteriaBuilder.createQuery(Long.class);
+            countQuery.select(criteriaBuilder.count(countQuery.from(this.persistentClass)));
+
+            long count = this.entityManager.createQuery(countQuery).getSingleResult();
+            successful = true;
+            return count;
+        } finally {
+            recordOperation("count", start, successful);
+        }
     }
 
     /**
@@ -323,7 +604,15 @@ public class GenericHibernateDaoImpl<T> implements GenericEntityDao<T> {
 
     @Override
     public T merge(final T entity) {
-        return entityManager.merge(entity);
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            T merged = entityManager.merge(entity);
+            successful = true;
+            return merged;
+        } finally {
+            recordOperation("merge", start, successful);
+        }
     }
 
     public javax.persistence.Query createHQLQuery(String query) {
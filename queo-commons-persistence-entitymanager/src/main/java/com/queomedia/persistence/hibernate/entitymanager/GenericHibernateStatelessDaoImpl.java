@@ -0,0 +1,560 @@
+package com.queomedia.persistence.hibernate.entitymanager;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.ConnectionReleaseMode;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.jpa.HibernateEntityManager;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Sort;
+
+import com.queomedia.commons.checks.Check;
+import com.queomedia.commons.exceptions.NotFoundRuntimeException;
+import com.queomedia.persistence.BusinessEntity;
+import com.queomedia.persistence.BusinessId;
+import com.queomedia.persistence.BusinessIdList;
+import com.queomedia.persistence.util.ResultUtil;
+
+/**
+ * Base implementation for an DAO that works with Hibernate's {@link StatelessSession} - for ETL-style bulk
+ * workloads, where the overhead of the persistence context (first-level cache, dirty checking, cascades)
+ * dominates the CPU time.
+ *
+ * <p>
+ * The stateless sessions are opened on the JDBC connection of the current (entity manager) session, within a
+ * {@link Session#doReturningWork(org.hibernate.jdbc.ReturningWork) JDBC work} of that session, so they take
+ * part in the current (Spring managed) transaction. One stateless session is used for a whole call chain:
+ * all DAO operations that are invoked within {@link #doInStatelessSession(Function)} (by the same thread)
+ * reuse its stateless session, instead of opening one per operation.
+ * The entities returned by this DAO are always detached:
+ * </p>
+ * <ul>
+ *   <li>changes are only written by an explicit {@link #update(BusinessEntity)},</li>
+ *   <li>lazy associations can not be initialized,</li>
+ *   <li>no cascades, no interceptors and no (JPA) lifecycle callbacks are applied,</li>
+ *   <li>the entities are not known by the current (stateful) session; if the same entities are used
+ *       there too, the session must be flushed before and cleared after the stateless operations.</li>
+ * </ul>
+ *
+ * <p>
+ * The business id lookups have the same semantics as in {@link GenericHibernateAbstractBusinessDaoImpl},
+ * and the operations are reported to the {@link DaoMetrics} like there.
+ * </p>
+ *
+ * @param <T> the concrete type where this DAO is used for
+ */
+public abstract class GenericHibernateStatelessDaoImpl<T extends BusinessEntity<?>> {
+
+    /** The pattern of an sort property path, that can be used in a JPQL order by clause. */
+    private static final Pattern PROPERTY_PATH = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)*");
+
+    /** The class type where this DAO is for. */
+    private final Class<T> persistentClass;
+
+    /** The entity manage injects by the container. */
+    @PersistenceContext
+    private HibernateEntityManager entityManager;
+
+    /** The stateless session of the current call chain (of the current thread), null outside of a call chain. */
+    private final ThreadLocal<StatelessSession> currentStatelessSession = new ThreadLocal<>();
+
+    /** The receiver of the operation metrics, disabled by default. */
+    private DaoMetrics daoMetrics = DaoMetrics.DISABLED;
+
+    /**
+     * Instantiates a new generic hibernate stateless dao impl.
+     */
+    @SuppressWarnings("unchecked")
+    public GenericHibernateStatelessDaoImpl() {
+        Type[] generics = ((ParameterizedType) this.getClass().getGenericSuperclass()).getActualTypeArguments();
+
+        if (generics.length == 1) {
+            this.persistentClass = (Class<T>) generics[0];
+        } else {
+            throw new RuntimeException("dont kown which type is the right");
+        }
+    }
+
+    public Class<T> getPersistentClass() {
+        return this.persistentClass;
+    }
+
+    /**
+     * Gets the entity manager.
+     *
+     * @return the entity manager
+     */
+    protected HibernateEntityManager getEntityManager() {
+        return this.entityManager;
+    }
+
+    /**
+     * Set the receiver of the operation metrics. Must be set before the DAO is used.
+     *
+     * @param daoMetrics the dao metrics, {@link DaoMetrics#DISABLED} to record nothing
+     */
+    public void setDaoMetrics(final DaoMetrics daoMetrics) {
+        Check.notNullArgument(daoMetrics, "daoMetrics");
+
+        this.daoMetrics = daoMetrics;
+    }
+
+    /**
+     * Gets the receiver of the operation metrics.
+     *
+     * @return the dao metrics
+     */
+    protected DaoMetrics getDaoMetrics() {
+        return this.daoMetrics;
+    }
+
+    /**
+     * Start the measurement of an operation, see {@link #recordOperation(String, long, boolean)}.
+     *
+     * @return the start time in nanoseconds, or 0 if the metrics are disabled
+     */
+    protected long startOperation() {
+        return this.daoMetrics.isEnabled() ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Record the duration and the outcome of an operation, if the metrics are enabled.
+     * Must be invoked in a {@code finally} block, so that failed operations are recorded too.
+     *
+     * @param operation the operation name
+     * @param start the start time from {@link #startOperation()}
+     * @param successful true if the operation completed normally
+     */
+    protected void recordOperation(final String operation, final long start, final boolean successful) {
+        if (this.daoMetrics.isEnabled()) {
+            this.daoMetrics.recordOperation(this.persistentClass, operation, successful, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Record a single entity lookup, if the metrics are enabled.
+     * A stateless session has no persistence context, so every lookup executes SQL.
+     * Must be invoked in a {@code finally} block, after {@link #recordOperation(String, long, boolean)}.
+     *
+     * @param operation the operation name
+     * @param successful true if the operation completed normally
+     */
+    protected void recordSingleLoad(final String operation, final boolean successful) {
+        if (this.daoMetrics.isEnabled()) {
+            this.daoMetrics.recordSingleLoadQuery(this.persistentClass, operation, successful);
+        }
+    }
+
+    /**
+     * Record the result size of a successful operation, if the metrics are enabled.
+     *
+     * @param operation the operation name
+     * @param resultSize the number of returned (or processed) entities
+     */
+    protected void recordResultSize(final String operation, final int resultSize) {
+        if (this.daoMetrics.isEnabled()) {
+            this.daoMetrics.recordResultSize(this.persistentClass, operation, resultSize);
+        }
+    }
+
+    /**
+     * Run the work in the stateless session of the current call chain.
+     *
+     * <p>
+     * If there is no call chain yet, then a new stateless session is opened on the JDBC connection of the
+     * current session - within a JDBC work of that session, so the connection is never used outside of it -
+     * and it is closed (but not the connection) after the work.
+     * All DAO operations that are invoked within the work (by the same thread) reuse this stateless session.
+     * </p>
+     *
+     * @param <R> the result type
+     * @param work the work
+     * @return the result of the work
+     */
+    public <R> R doInStatelessSession(final Function<StatelessSession, R> work) {
+        Check.notNullArgument(work, "work");
+
+        StatelessSession current = this.currentStatelessSession.get();
+        if (current != null) {
+            return work.apply(current);
+        }
+
+        Session session = this.entityManager.getSession();
+        return session.doReturningWork(connection -> {
+            StatelessSession statelessSession = session.getSessionFactory()
+                    .withStatelessOptions()
+                    .connection(connection)
+                    .openStatelessSession();
+            this.currentStatelessSession.set(statelessSession);
+            try {
+                return work.apply(statelessSession);
+            } finally {
+                this.currentStatelessSession.remove();
+                statelessSession.close();
+            }
+        });
+    }
+
+    /**
+     * Insert the new entity.
+     *
+     * @param entity the entity
+     * @return the entity
+     */
+    public T insert(final T entity) {
+        Check.notNullArgument(entity, "entity");
+
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            this.doInStatelessSession(statelessSession -> statelessSession.insert(entity));
+            successful = true;
+            return entity;
+        } finally {
+            recordOperation("insert", start, successful);
+        }
+    }
+
+    /**
+     * Insert the new entities, all within one stateless session.
+     *
+     * @param entities the entities
+     * @return the number of inserted entities
+     */
+    public long insert(final Iterable<? extends T> entities) {
+        Check.notNullArgument(entities, "entities");
+
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            long inserted = this.doInStatelessSession(statelessSession -> {
+                long count = 0;
+                for (T entity : entities) {
+                    statelessSession.insert(entity);
+                    count++;
+                }
+                return count;
+            });
+            recordResultSize("insert", (int) Math.min(inserted, Integer.MAX_VALUE));
+            successful = true;
+            return inserted;
+        } finally {
+            recordOperation("insert", start, successful);
+        }
+    }
+
+    /**
+     * Update the (detached) entity.
+     *
+     * @param entity the entity
+     */
+    public void update(final T entity) {
+        Check.notNullArgument(entity, "entity");
+
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            this.doInStatelessSession(statelessSession -> {
+                statelessSession.update(entity);
+                return null;
+            });
+            successful = true;
+        } finally {
+            recordOperation("update", start, successful);
+        }
+    }
+
+    /**
+     * Update the (detached) entities, all within one stateless session.
+     *
+     * @param entities the entities
+     */
+    public void update(final Collection<? extends T> entities) {
+        Check.notNullArgument(entities, "entities");
+
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            this.doInStatelessSession(statelessSession -> {
+                for (T entity : entities) {
+                    statelessSession.update(entity);
+                }
+                return null;
+            });
+            recordResultSize("update", entities.size());
+            successful = true;
+        } finally {
+            recordOperation("update", start, successful);
+        }
+    }
+
+    /**
+     * Delete the entity.
+     *
+     * @param entity the entity
+     */
+    public void delete(final T entity) {
+        Check.notNullArgument(entity, "entity");
+
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            this.doInStatelessSession(statelessSession -> {
+                statelessSession.delete(entity);
+                return null;
+            });
+            successful = true;
+        } finally {
+            recordOperation("delete", start, successful);
+        }
+    }
+
+    /**
+     * Delete the entities, all within one stateless session.
+     *
+     * @param entities the entities
+     */
+    public void delete(final Collection<? extends T> entities) {
+        Check.notNullArgument(entities, "entities");
+
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            this.doInStatelessSession(statelessSession -> {
+                for (T entity : entities) {
+                    statelessSession.delete(entity);
+                }
+                return null;
+            });
+            recordResultSize("delete", entities.size());
+            successful = true;
+        } finally {
+            recordOperation("delete", start, successful);
+        }
+    }
+
+    /**
+     * Load an entity by its business id.
+     *
+     * @param businessId the business id
+     * @return the entity, never null
+     * @throws NotFoundRuntimeException if there is no entity with this business id
+     */
+    public T getByBusinessId(final BusinessId<T> businessId) throws NotFoundRuntimeException {
+        Check.notNullArgument(businessId, "businessId");
+
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            T result = ResultUtil.requiredOneResult(loadByBusinessId(businessId), "businessId=" + businessId);
+            successful = true;
+            return result;
+        } finally {
+            recordOperation("getByBusinessId", start, successful);
+            recordSingleLoad("getByBusinessId", successful);
+        }
+    }
+
+    /**
+     * Find an entity by its business id.
+     *
+     * @param businessId the business id
+     * @return the entity or null if there is no entity with this business id
+     * @throws IncorrectResultSizeDataAccessException if there is more than one entity with this business id
+     */
+    public T findByBusinessIdOrNull(final BusinessId<T> businessId) throws IncorrectResultSizeDataAccessException {
+        Check.notNullArgument(businessId, "businessId");
+
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            T result = ResultUtil.requiredOneOrNoResult(loadByBusinessId(businessId));
+            successful = true;
+            return result;
+        } finally {
+            recordOperation("findByBusinessIdOrNull", start, successful);
+            recordSingleLoad("findByBusinessIdOrNull", successful);
+        }
+    }
+
+    /**
+     * Load the entities by there business ids.
+     *
+     * @param businessIds the business ids
+     * @return the entities in the same order as the business ids
+     * @throws EmptyResultDataAccessException if no entity is found
+     * @throws IncorrectResultSizeDataAccessException if not all entities are found
+     */
+    public List<T> getByBusinessId(final List<BusinessId<T>> businessIds)
+            throws EmptyResultDataAccessException, IncorrectResultSizeDataAccessException {
+        Check.notNullArgument(businessIds, "businessIds");
+
+        return getByBusinessIds(BusinessIdList.of(businessIds));
+    }
+
+    /**
+     * Load the entities by there business ids, given as primitive list (without
+     * {@link com.queomedia.persistence.BusinessId} copies).
+     *
+     * @param businessIds the business ids
+     * @return the entities in the same order as the business ids
+     * @throws EmptyResultDataAccessException if no entity is found
+     * @throws IncorrectResultSizeDataAccessException if not all entities are found
+     */
+    public List<T> getByBusinessIds(final BusinessIdList<T> businessIds)
+            throws EmptyResultDataAccessException, IncorrectResultSizeDataAccessException {
+        Check.notNullArgument(businessIds, "businessIds");
+        int bidCount = businessIds.size();
+
+        if (bidCount == 0) {
+            return new ArrayList<T>();
+        }
+
+        /* load - chunked, because of IN-list limits; the values are only boxed for the query parameters */
+        long start = startOperation();
+        boolean successful = false;
+        try {
+            List<Long> businessIdValues = new ArrayList<Long>(bidCount);
+            for (int i = 0; i < bidCount; i++) {
+                businessIdValues.add(businessIds.getLong(i));
+            }
+            String query = "SELECT e FROM " + this.entityName()
+                    + " e WHERE e.businessId.businessId IN (:businessIds)";
+            List<T> found = this.doInStatelessSession(statelessSession -> {
+                List<T> result = new ArrayList<T>();
+                for (List<Long> chunk : InListChunker.paddedChunks(businessIdValues)) {
+                    if (this.daoMetrics.isEnabled()) {
+                        this.daoMetrics.recordInListSize(this.persistentClass, chunk.size());
+                    }
+                    result.addAll(statelessSession.createQuery(query, this.persistentClass)
+                            .setParameterList("businessIds", chunk)
+                            .list());
+                }
+                return result;
+            });
+            recordResultSize("getByBusinessIds", found.size());
+
+            /* bring the found entities in the same order as the ids - without a map */
+            List<T> result = ResultUtil.orderByBusinessIds(found, businessIds);
+            successful = true;
+            return result;
+        } finally {
+            recordOperation("getByBusinessIds", start, successful);
+        }
+    }
+
+    /**
+     * Stream all entities of this type, backed by a forward only database cursor of a stateless session.
+     * There is no persistence context that grows, so the memory usage is flat without any clearing.
+     * The stream must be consumed within the transaction and must be closed (try-with-resources), this closes
+     * the cursor and the stateless session.
+     *
+     * <p>
+     * The cursor is used after this method returns, so (outside of a {@link #doInStatelessSession(Function)} call
+     * chain) the stateless session is opened directly on the connection of the current session. Therefore the
+     * current session must hold its connection until the end of the transaction: the connection handling mode
+     * must not release the connection after every statement.
+     * Within a call chain the stream uses the stateless session of the call chain, so it must be consumed
+     * within the call chain.
+     * </p>
+     *
+     * @param sort the used sorting, use {@link Sort#unsorted()} for no sorting
+     * @param fetchSize the number of entities fetched from the database at once, must be positive
+     * @return the stream of all entities, must be closed
+     * @throws IllegalStateException if the current session releases its connection after every statement
+     */
+    public Stream<T> findAllStream(final Sort sort, final int fetchSize) throws IllegalStateException {
+        Check.notNullArgument(sort, "sort");
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("fetchSize must be positive, but was " + fetchSize);
+        }
+
+        String query = "SELECT e FROM " + this.entityName() + " e" + orderByClause(sort);
+        StatelessSession current = this.currentStatelessSession.get();
+        if (current != null) {
+            return current.createQuery(query, this.persistentClass)
+                    .setFetchSize(fetchSize)
+                    .setReadOnly(true)
+                    .stream();
+        }
+
+        SharedSessionContractImplementor session = (SharedSessionContractImplementor) this.entityManager.getSession();
+        if (session.getJdbcCoordinator().getLogicalConnection().getConnectionHandlingMode()
+                .getReleaseMode() == ConnectionReleaseMode.AFTER_STATEMENT) {
+            throw new IllegalStateException("the stateless stream requires a session that holds its connection "
+                    + "until the end of the transaction, but the connection is released after every statement");
+        }
+        StatelessSession statelessSession = this.entityManager.getSession()
+                .getSessionFactory()
+                .withStatelessOptions()
+                .connection(session.connection())
+                .openStatelessSession();
+        try {
+            return statelessSession.createQuery(query, this.persistentClass)
+                    .setFetchSize(fetchSize)
+                    .setReadOnly(true)
+                    .stream()
+                    .onClose(statelessSession::close);
+        } catch (RuntimeException e) {
+            statelessSession.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Load the entity by its business id.
+     *
+     * @param businessId the business id
+     * @return the found entities - zero or one if the business id is unique
+     */
+    private List<T> loadByBusinessId(final BusinessId<T> businessId) {
+        String query = "SELECT e FROM " + this.entityName() + " e WHERE e.businessId.businessId = :"
+                + BusinessIdQueryCache.BUSINESS_ID_PARAMETER;
+        return this.doInStatelessSession(statelessSession -> statelessSession.createQuery(query, this.persistentClass)
+                .setParameter(BusinessIdQueryCache.BUSINESS_ID_PARAMETER, businessId.getBusinessId())
+                .list());
+    }
+
+    /**
+     * The entity name used in queries.
+     *
+     * @return the entity name
+     */
+    private String entityName() {
+        return this.entityManager.getMetamodel().entity(this.persistentClass).getName();
+    }
+
+    /**
+     * Build the JPQL {@code ORDER BY} clause for the sort, the properties are prefixed with the alias {@code e}.
+     * The properties must be simple (dot separated) property paths, ignore case is not supported.
+     *
+     * @param sort the sort
+     * @return the clause, with a leading space, or an empty string if unsorted
+     */
+    static String orderByClause(final Sort sort) {
+        if (sort.isUnsorted()) {
+            return "";
+        }
+        return StreamSupport.stream(sort.spliterator(), false).map(order -> {
+            if (!PROPERTY_PATH.matcher(order.getProperty()).matches() || order.isIgnoreCase()) {
+                throw new IllegalArgumentException("unsupported sort order " + order);
+            }
+            return "e." + order.getProperty() + (order.isAscending() ? " ASC" : " DESC");
+        }).collect(Collectors.joining(", ", " ORDER BY ", ""));
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.queomedia.persistence.hibernate.entitymanager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.queomedia.commons.checks.Check;
+
+/**
+ * Split the values of an SQL {@code IN (...)} clause into chunks, because some databases limit the number of
+ * elements of an {@code IN}-list (Oracle: 1000).
+ *
+ * <p>
+ * Every different number of {@code IN}-list elements results in a different SQL statement. To keep the number of
+ * different statements (and so the statement and plan caches) small, the chunks can be padded
+ * ({@link #paddedChunks(List)}) to a few fixed sizes ({@link #PADDED_SIZES}) by repeating the last element.
+ * Repeating an element does not change the result of an {@code IN}-clause.
+ * </p>
+ *
+ * @author Engelmann
+ */
+public final class InListChunker {
+
+    /** The maximal number of elements in an {@code IN}-list that is supported by all databases (Oracle: 1000). */
+    public static final int MAX_IN_LIST_SIZE = 1000;
+
+    /** The sizes used for padded chunks, ascending, the last one is {@link #MAX_IN_LIST_SIZE}. */
+    static final int[] PADDED_SIZES = { 16, 64, 256, MAX_IN_LIST_SIZE };
+
+    /**
+     * Util classes need no constructor.
+     */
+    private InListChunker() {
+        super();
+    }
+
+    /**
+     * Split the elements into chunks of at most {@code maxChunkSize} elements, the order is kept.
+     *
+     * @param <E> the element type
+     * @param elements the elements
+     * @param maxChunkSize the max size of an chunk, must be positive
+     * @return the chunks, views of the {@code elements} list
+     */
+    public static <E> List<List<E>> chunk(final List<E> elements, final int maxChunkSize) {
+        Check.notNullArgument(elements, "elements");
+        if (maxChunkSize <= 0) {
+            throw new IllegalArgumentException("maxChunkSize must be positive, but was " + maxChunkSize);
+        }
+
+        int size = elements.size();
+        List<List<E>> chunks = new ArrayList<>((size + maxChunkSize - 1) / maxChunkSize);
+        for (int from = 0; from < size; from += maxChunkSize) {
+            chunks.add(elements.subList(from, Math.min(from + maxChunkSize, size)));
+        }
+        return chunks;
+    }
+
+    /**
+     * Split the elements into chunks of at most {@link #MAX_IN_LIST_SIZE} elements, and pad every chunk
+     * (by repeating its last element) to the next size of {@link #PADDED_SIZES}.
+     *
+     * @param <E> the element type
+     * @param elements the elements
+     * @return the padded chunks
+     */
+    public static <E> List<List<E>> paddedChunks(final List<E> elements) {
+        Check.notNullArgument(elements, "elements");
+
+        List<List<E>> chunks = chunk(elements, MAX_IN_LIST_SIZE);
+        List<List<E>> padded = new ArrayList<>(chunks.size());
+        for (List<E> chunk : chunks) {
+            padded.add(pad(chunk, paddedSize(chunk.size())));
+        }
+        return padded;
+    }
+
+    /**
+     * The smallest size of {@link #PADDED_SIZES} that is equals or greater than the given size.
+     *
+     * @param size the size, must not be greater than {@link #MAX_IN_LIST_SIZE}
+     * @return the padded size
+     */
+    static int paddedSize(final int size) {
+        for (int paddedSize : PADDED_SIZES) {
+            if (size <= paddedSize) {
+                return paddedSize;
+            }
+        }
+        throw new IllegalArgumentException("size must not be greater than " + MAX_IN_LIST_SIZE + " but was " + size);
+    }
+
+    /**
+     * Pad the (not empty) chunk to the given size by repeating its last element.
+     *
+     * @param <E> the element type
+     * @param chunk the chunk
+     * @param paddedSize the target size
+     * @return the padded chunk
+     */
+    private static <E> List<E> pad(final List<E> chunk, final int paddedSize) {
+        List<E> padded = new ArrayList<>(paddedSize);
+        padded.addAll(chunk);
+        E last = chunk.get(chunk.size() - 1);
+        while (padded.size() < paddedSize) {
+            padded.add(last);
+        }
+        return padded;
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.queomedia.persistence.hibernate.entitymanager;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.Session;
+
+import com.queomedia.commons.checks.Check;
+
+/**
+ * Count the JDBC statements executed by a session, to tell lookups that executed SQL apart from lookups that are
+ * served by the session (persistence context, {@link BusinessIdIdentityMap}) or a cache.
+ *
+ * <p>
+ * Like the {@link BusinessIdIdentityMap}, the count is held by a {@link org.hibernate.SessionEventListener} that is
+ * attached to the session (and registered as session property, to find it again) when it is first requested.
+ * </p>
+ */
+final class JdbcStatementCounter {
+
+    /** The count if the session is not open, so that the executed statements can not be counted. */
+    static final long UNKNOWN = -1;
+
+    /** The name of the session property that refers to the {@link CountingListener} of the session. */
+    private static final String SESSION_PROPERTY = JdbcStatementCounter.class.getName();
+
+    /**
+     * Util classes need no constructor.
+     */
+    private JdbcStatementCounter() {
+        super();
+    }
+
+    /**
+     * The number of JDBC statements executed by the session since it is counted.
+     * The first invocation for a session starts the counting.
+     *
+     * @param session the session
+     * @return the number of executed statements, or {@link #UNKNOWN} if the session is not open
+     */
+    static long executedStatements(final Session session) {
+        Check.notNullArgument(session, "session");
+
+        if (!session.isOpen()) {
+            return UNKNOWN;
+        }
+        Object listener = session.getProperties().get(SESSION_PROPERTY);
+        if (listener instanceof CountingListener) {
+            return ((CountingListener) listener).executedStatements;
+        }
+
+        CountingListener newListener = new CountingListener();
+        session.addEventListeners(newListener);
+        session.setProperty(SESSION_PROPERTY, newListener);
+        return 0;
+    }
+
+    /**
+     * Check if the session executed JDBC statements since the given count.
+     *
+     * @param session the session
+     * @param executedStatementsAtStart the count from {@link #executedStatements(Session)}
+     * @return true, if statements were executed, or if it is unknown
+     */
+    static boolean hasExecutedStatements(final Session session, final long executedStatementsAtStart) {
+        Check.notNullArgument(session, "session");
+
+        if (executedStatementsAtStart == UNKNOWN) {
+            return true;
+        }
+        long executedStatements = executedStatements(session);
+        return (executedStatements == UNKNOWN) || (executedStatements > executedStatementsAtStart);
+    }
+
+    /** Counts the executed JDBC statements of one session. */
+    private static final class CountingListener extends BaseSessionEventListener {
+
+        /** The Constant serialVersionUID. */
+        private static final long serialVersionUID = -1906216532738720147L;
+
+        /** The number of executed statements, a session is used by one thread only. */
+        private long executedStatements;
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            this.executedStatements++;
+        }
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.queomedia.persistence.hibernate.entitymanager;
+
+/**
+ * Thrown by the {@link NPlusOneDetector} (with {@link NPlusOneDetector.Reaction#FAIL}) if an entity class is loaded
+ * one-by-one more often than the threshold allows.
+ */
+public class NPlusOneDetectedException extends RuntimeException {
+
+    /** The Constant serialVersionUID. */
+    private static final long serialVersionUID = 1396427254311578043L;
+
+    /**
+     * Instantiates a new n plus one detected exception.
+     *
+     * @param message the message, including the call site
+     */
+    public NPlusOneDetectedException(final String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,300 @@
+package com.queomedia.persistence.hibernate.entitymanager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.queomedia.commons.checks.Check;
+
+/**
+ * {@link DaoMetrics} that detects N+1 load patterns: the same entity class is loaded one-by-one
+ * (by {@code getByBusinessId}, {@code findByBusinessId}, {@code findByBusinessIdOrNull}, {@code findByPrimaryKey})
+ * more than {@code threshold} times in one scope, where a batch load ({@code getByBusinessIds}) should be used.
+ * Only the lookups that executed SQL are counted ({@link DaoMetrics#recordSingleLoadQuery(Class, String, boolean)}),
+ * resolving an entity again that is already found in the session does not count.
+ *
+ * <p>
+ * The scope is the explicit scope opened by {@link #openScope()} (for example around a web request), or else the
+ * current Spring managed transaction. Loads outside of both are not counted.
+ * </p>
+ *
+ * <p>
+ * If the threshold is exceeded (once per entity class and scope), then the detector logs a warning with the call site
+ * ({@link Reaction#LOG_WARNING}), or throws an {@link NPlusOneDetectedException} ({@link Reaction#FAIL}),
+ * that is intended to let the tests fail. If the load that exceeds the threshold failed itself, then the detection is
+ * only logged, so that the exception of the load is not replaced.
+ * </p>
+ *
+ * <p>
+ * Set it at the daos by {@code setDaoMetrics} (use {@link DaoMetrics#combine(DaoMetrics, DaoMetrics)} to use it
+ * together with other metrics).
+ * </p>
+ */
+public class NPlusOneDetector implements DaoMetrics {
+
+    /** Logger for this class. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(NPlusOneDetector.class);
+
+    /** The stack trace elements of these (class name) prefixes are skipped to find the call site. */
+    private static final String[] SKIPPED_CALL_SITE_PREFIXES = {
+            "java.lang.Thread",
+            NPlusOneDetector.class.getPackage().getName() + ".",
+            "org.springframework.",
+            "java.lang.reflect.",
+            "jdk.internal.reflect.",
+            "sun.reflect.",
+            "com.sun.proxy.",
+            "jdk.proxy" };
+
+    /** What to do if an N+1 load pattern is detected. */
+    public enum Reaction {
+        /** Log a warning. */
+        LOG_WARNING,
+
+        /** Throw an {@link NPlusOneDetectedException}. */
+        FAIL
+    }
+
+    /** The max number of single loads per entity class and scope. */
+    private final int threshold;
+
+    /** The reaction. */
+    private final Reaction reaction;
+
+    /** The max number of stack trace elements of the reported call site. */
+    private final int maxCallSiteElements;
+
+    /** The counts of the explicit scope of the current thread. */
+    private final ThreadLocal<LoadCounts> explicitScope = new ThreadLocal<>();
+
+    /** The number of detected N+1 load patterns. */
+    private final LongAdder detections = new LongAdder();
+
+    /**
+     * Instantiates a new n plus one detector, that reports 8 call site stack trace elements.
+     *
+     * @param threshold the max number of single loads per entity class and scope
+     * @param reaction the reaction
+     */
+    public NPlusOneDetector(final int threshold, final Reaction reaction) {
+        this(threshold, reaction, 8);
+    }
+
+    /**
+     * Instantiates a new n plus one detector.
+     *
+     * @param threshold the max number of single loads per entity class and scope
+     * @param reaction the reaction
+     * @param maxCallSiteElements the max number of stack trace elements of the reported call site
+     */
+    public NPlusOneDetector(final int threshold, final Reaction reaction, final int maxCallSiteElements) {
+        Check.notNegativeArgument(threshold, "threshold");
+        Check.notNullArgument(reaction, "reaction");
+        Check.notNegativeArgument(maxCallSiteElements, "maxCallSiteElements");
+
+        this.threshold = threshold;
+        this.reaction = reaction;
+        this.maxCallSiteElements = maxCallSiteElements;
+    }
+
+    /**
+     * Open an explicit scope for the current thread, it is used instead of the transaction scope until it is closed.
+     * Scopes can be nested, then the inner one hides the outer one.
+     *
+     * @return the scope - must be closed by the same thread
+     */
+    public Scope openScope() {
+        Scope scope = new Scope(this.explicitScope.get());
+        this.explicitScope.set(scope.counts);
+        return scope;
+    }
+
+    /**
+     * The number of detected N+1 load patterns (in all scopes) since this detector was created.
+     *
+     * @return the number of detections
+     */
+    public long getDetectionCount() {
+        return this.detections.sum();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void recordOperation(final Class<?> entityClass, final String operation, final boolean successful,
+            final long durationNanos) {
+    }
+
+    @Override
+    public void recordSingleLoadQuery(final Class<?> entityClass, final String operation,
+            final boolean successful) {
+        /* a failed single load (not found) has executed its query as well */
+        LoadCounts counts = currentCounts();
+        if (counts == null) {
+            return;
+        }
+        int loads = counts.increment(entityClass);
+        if (loads == this.threshold + 1) {
+            detected(entityClass, operation, loads, successful);
+        }
+    }
+
+    @Override
+    public void recordResultSize(final Class<?> entityClass, final String operation, final int resultSize) {
+    }
+
+    @Override
+    public void recordInListSize(final Class<?> entityClass, final int inListSize) {
+    }
+
+    /**
+     * Report the detected N+1 load pattern.
+     *
+     * @param entityClass the entity class
+     * @param operation the last operation
+     * @param loads the number of single loads
+     * @param successful true if the last operation completed normally, else its exception must not be replaced
+     */
+    private void detected(final Class<?> entityClass, final String operation, final int loads,
+            final boolean successful) {
+        this.detections.increment();
+
+        StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
+        String message = "N+1 load pattern detected: " + entityClass.getName() + " was loaded one-by-one " + loads
+                + " times in one scope (threshold=" + this.threshold + ", last operation=" + operation
+                + "), load the entities in one batch instead (getByBusinessIds)." + "\nfrom:\n"
+                + GeneralHibernateLoaderDaoImpl
+                        .topStackTraceElements(stackTrace, callSiteIndex(stackTrace), this.maxCallSiteElements);
+
+        switch (this.reaction) {
+        case LOG_WARNING:
+            LOGGER.warn(message);
+            break;
+        case FAIL:
+            if (!successful) {
+                LOGGER.warn(message);
+                break;
+            }
+            throw new NPlusOneDetectedException(message);
+        default:
+            throw new IllegalStateException("unsupported reaction " + this.reaction);
+        }
+    }
+
+    /**
+     * The index of the first stack trace element outside of the daos, the detector and the (Spring) proxies.
+     *
+     * @param stackTrace the stack trace
+     * @return the index
+     */
+    static int callSiteIndex(final StackTraceElement[] stackTrace) {
+        for (int i = 0; i < stackTrace.length; i++) {
+            if (!isSkippedCallSite(stackTrace[i].getClassName())) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Check if the class is part of the daos, the detector or the proxies.
+     *
+     * @param className the class name
+     * @return true, if skipped
+     */
+    private static boolean isSkippedCallSite(final String className) {
+        for (String prefix : SKIPPED_CALL_SITE_PREFIXES) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The counts of the current scope: the explicit scope, or the transaction scope.
+     *
+     * @return the counts, or null if there is no scope
+     */
+    private LoadCounts currentCounts() {
+        LoadCounts counts = this.explicitScope.get();
+        if (counts != null) {
+            return counts;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+
+        counts = (LoadCounts) TransactionSynchronizationManager.getResource(this);
+        if (counts == null) {
+            counts = new LoadCounts();
+            TransactionSynchronizationManager.bindResource(this, counts);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+                @Override
+                public void afterCompletion(final int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(NPlusOneDetector.this);
+                }
+            });
+        }
+        return counts;
+    }
+
+    /**
+     * The explicit scope, see {@link NPlusOneDetector#openScope()}.
+     */
+    public final class Scope implements AutoCloseable {
+
+        /** The counts of this scope. */
+        private final LoadCounts counts = new LoadCounts();
+
+        /** The counts of the outer scope, restored when this scope is closed. */
+        private final LoadCounts outer;
+
+        /**
+         * Instantiates a new scope.
+         *
+         * @param outer the counts of the outer scope, or null
+         */
+        private Scope(final LoadCounts outer) {
+            this.outer = outer;
+        }
+
+        @Override
+        public void close() {
+            if (this.outer == null) {
+                NPlusOneDetector.this.explicitScope.remove();
+            } else {
+                NPlusOneDetector.this.explicitScope.set(this.outer);
+            }
+        }
+    }
+
+    /**
+     * The number of single loads by entity class of one scope, it is used by only one thread.
+     */
+    private static final class LoadCounts {
+
+        /** The counts, a mutable one element array per entity class. */
+        private final Map<Class<?>, int[]> counts = new HashMap<>();
+
+        /**
+         * Increment the count of the entity class.
+         *
+         * @param entityClass the entity class
+         * @return the new count
+         */
+        int increment(final Class<?> entityClass) {
+            return ++this.counts.computeIfAbsent(entityClass, key -> new int[1])[0];
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.queomedia.persistence.hibernate.entitymanager;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.persistence.criteria.CompoundSelection;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+
+import com.queomedia.commons.checks.Check;
+import com.queomedia.persistence.ProjectionProperties;
+
+/**
+ * The constructor of a projection (DTO) type, used to build a JPA constructor expression
+ * ({@code SELECT NEW Dto(e.a, e.b) FROM ...}).
+ *
+ * <p>
+ * The projection type must have exactly one constructor annotated with {@link ProjectionProperties}, its values
+ * are the (dot separated) entity property paths of the constructor parameters.
+ * The property paths are resolved once per projection type and are then cached.
+ * </p>
+ */
+final class ProjectionConstructor {
+
+    /** The property paths, by projection type. */
+    private static final ConcurrentMap<Class<?>, List<String>> PROPERTY_PATHS = new ConcurrentHashMap<>();
+
+    /**
+     * Util classes need no constructor.
+     */
+    private ProjectionConstructor() {
+        super();
+    }
+
+    /**
+     * Build the constructor expression for the projection type.
+     *
+     * @param <P> the projection type
+     * @param builder the criteria builder
+     * @param root the root of the query
+     * @param projectionType the projection type
+     * @return the selection
+     * @throws IllegalArgumentException if the projection type has not exactly one constructor annotated with
+     *         {@link ProjectionProperties}, or the number of property paths does not match the parameters
+     */
+    static <P> CompoundSelection<P> construct(final CriteriaBuilder builder, final Root<?> root,
+            final Class<P> projectionType) throws IllegalArgumentException {
+        Check.notNullArgument(builder, "builder");
+        Check.notNullArgument(root, "root");
+        Check.notNullArgument(projectionType, "projectionType");
+
+        List<String> propertyPaths = PROPERTY_PATHS.computeIfAbsent(projectionType,
+                ProjectionConstructor::propertyPaths);
+
+        List<Selection<?>> selections = new ArrayList<>(propertyPaths.size());
+        for (String propertyPath : propertyPaths) {
+            selections.add(path(root, propertyPath));
+        }
+        return builder.construct(projectionType, selections.toArray(new Selection<?>[selections.size()]));
+    }
+
+    /**
+     * Determine the property paths of the annotated constructor.
+     *
+     * @param projectionType the projection type
+     * @return the property paths
+     */
+    private static List<String> propertyPaths(final Class<?> projectionType) {
+        Constructor<?> annotated = null;
+        for (Constructor<?> constructor : projectionType.getDeclaredConstructors()) {
+            if (constructor.isAnnotationPresent(ProjectionProperties.class)) {
+                if (annotated != null) {
+                    throw new IllegalArgumentException("the projection type " + projectionType.getName()
+                            + " must have only one constructor annotated with @ProjectionProperties");
+                }
+                annotated = constructor;
+            }
+        }
+        if (annotated == null) {
+            throw new IllegalArgumentException("the projection type " + projectionType.getName()
+                    + " must have a constructor annotated with @ProjectionProperties");
+        }
+        String[] propertyPaths = annotated.getAnnotation(ProjectionProperties.class).value();
+        if (propertyPaths.length != annotated.getParameterCount()) {
+            throw new IllegalArgumentException("the @ProjectionProperties of the projection type "
+                    + projectionType.getName() + " must have one property path for each constructor parameter");
+        }
+        return Arrays.asList(propertyPaths);
+    }
+
+    /**
+     * Resolve an (dot separated) property path.
+     *
+     * @param root the root
+     * @param propertyPath the property path
+     * @return the path
+     */
+    private static Path<?> path(final Root<?> root, final String propertyPath) {
+        Path<?> path = root;
+        for (String segment : propertyPath.split("\\.")) {
+            path = path.get(segment);
+        }
+        return path;
+    }
+
+}
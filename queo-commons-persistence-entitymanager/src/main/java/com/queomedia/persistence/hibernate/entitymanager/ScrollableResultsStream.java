@@ -0,0 +1,132 @@
+package com.queomedia.persistence.hibernate.entitymanager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.query.Query;
+
+import com.queomedia.commons.checks.Check;
+
+/**
+ * Stream the result of an query with a forward only database cursor ({@link ScrollableResults}), instead of loading
+ * the complete result into a list.
+ *
+ * <p>
+ * To keep the memory usage flat, the keys of the entities in the persistence context are recorded when the stream
+ * is opened, and after every {@code fetchSize} entities, every entity of the session that is not in this snapshot
+ * gets evicted. The session is NOT cleared, so:
+ * </p>
+ * <ul>
+ *   <li>the entities that the stream loads are read-only, and become detached (within the next {@code fetchSize}
+ *       entities), changes to them are NOT written to the database,</li>
+ *   <li>entities that are loaded while the stream is consumed (for example the associations of the streamed
+ *       entities, or entities loaded by the consumer) are evicted too, changes to them are NOT written to the
+ *       database unless the session is flushed before the next eviction,</li>
+ *   <li>entities that are already loaded in the session when the stream is opened are returned as they are
+ *       (not read-only), stay attached, and changes to them are written as usual,</li>
+ *   <li>uninitialized proxies are not evicted,</li>
+ *   <li>the stream must be closed (try-with-resources) to close the cursor,</li>
+ *   <li>the stream must be consumed within the transaction.</li>
+ * </ul>
+ */
+final class ScrollableResultsStream {
+
+    /**
+     * Util classes need no constructor.
+     */
+    private ScrollableResultsStream() {
+        super();
+    }
+
+    /**
+     * Create the stream for the query.
+     *
+     * @param <T> the result type
+     * @param session the session used to execute the query
+     * @param query the query, must select one entity per row
+     * @param fetchSize the number of rows fetched from the database at once, and the number of entities after
+     *        the entities loaded since the stream was opened get evicted
+     * @return the stream, must be closed
+     */
+    static <T> Stream<T> stream(final Session session, final Query<T> query, final int fetchSize) {
+        Check.notNullArgument(session, "session");
+        Check.notNullArgument(query, "query");
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("fetchSize must be positive, but was " + fetchSize);
+        }
+
+        PersistenceContext persistenceContext = ((SessionImplementor) session).getPersistenceContext();
+        Set<EntityKey> snapshot = new HashSet<>(persistenceContext.getEntitiesByKey().keySet());
+        ScrollableResults results = query.setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE)
+                .scroll(ScrollMode.FORWARD_ONLY);
+
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+
+            /** Number of entities handed out since the last eviction. */
+            private int count;
+
+            @Override
+            public boolean tryAdvance(final Consumer<? super T> action) {
+                /* evict BEFORE the next row is loaded, else the next entity would be detached immediately */
+                if (this.count == fetchSize) {
+                    evictAllExcept(session, persistenceContext, snapshot);
+                    this.count = 0;
+                }
+                if (!results.next()) {
+                    return false;
+                }
+                this.count++;
+
+                @SuppressWarnings("unchecked")
+                T entity = (T) results.get(0);
+                action.accept(entity);
+                return true;
+            }
+        };
+
+        return StreamSupport.stream(spliterator, false).onClose(results::close);
+    }
+
+    /**
+     * Evict all entities of the session, that are not in the snapshot.
+     *
+     * @param session the session
+     * @param persistenceContext the persistence context of the session
+     * @param snapshot the keys of the entities that must stay in the session
+     */
+    private static void evictAllExcept(final Session session, final PersistenceContext persistenceContext,
+            final Set<EntityKey> snapshot) {
+        /* collect first: evict modifies the persistence context */
+        List<Object> evictable = new ArrayList<>();
+        for (Map.Entry<EntityKey, Object> entry : persistenceContext.getEntitiesByKey().entrySet()) {
+            if (!snapshot.contains(entry.getKey())) {
+                evictable.add(entry.getValue());
+            }
+        }
+        for (Object entity : evictable) {
+            /* the eviction of an entity may have cascaded to this one already */
+            if (session.contains(entity)) {
+                session.evict(entity);
+            }
+        }
+    }
+
+}
@@ -2,7 +2,11 @@ package com.queomedia.persistence.extra.fake;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import org.springframework.data.domain.Sort;
 
@@ -47,6 +51,22 @@ public class GeneralLoaderDaoFake implements GeneralLoaderDao {
         return null;
     }
 
+    @Override
+    public <Clazz extends BusinessEntity<? extends Serializable>> List<Clazz> getByBusinessIds(
+            final Collection<BusinessId<Clazz>> businessIds, final Class<Clazz> entityClass)
+            throws NotFoundRuntimeException {
+        if (businessIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        throw new NotFoundRuntimeException();
+    }
+
+    @Override
+    public <Clazz extends BusinessEntity<? extends Serializable>> Map<BusinessId<Clazz>, Clazz> findByBusinessIds(
+            final Collection<BusinessId<Clazz>> businessIds, final Class<Clazz> entityClass) {
+        return new LinkedHashMap<>();
+    }
+
     @Override
     public <Clazz> List<Clazz> findAll(final Class<Clazz> entityClass) {
         return new ArrayList<>();
@@ -57,4 +77,9 @@ public class GeneralLoaderDaoFake implements GeneralLoaderDao {
         return new ArrayList<>();
     }
 
+    @Override
+    public <Clazz> Stream<Clazz> findAllStream(final Class<Clazz> entityClass, final Sort sort, final int fetchSize) {
+        return Stream.empty();
+    }
+
 }
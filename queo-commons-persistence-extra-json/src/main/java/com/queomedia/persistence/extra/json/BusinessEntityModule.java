@@ -7,6 +7,7 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.Version;
 import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.BeanProperty;
 import com.fasterxml.jackson.databind.DeserializationConfig;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JavaType;
@@ -17,15 +18,18 @@ import com.fasterxml.jackson.databind.KeyDeserializer;
 import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.SerializationConfig;
 import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.deser.CreatorProperty;
 import com.fasterxml.jackson.databind.deser.Deserializers;
 import com.fasterxml.jackson.databind.deser.KeyDeserializers;
+import com.fasterxml.jackson.databind.deser.impl.ObjectIdReader;
 import com.fasterxml.jackson.databind.ser.Serializers;
 import com.queomedia.commons.checks.Check;
 import com.queomedia.persistence.BusinessEntity;
 import com.queomedia.persistence.BusinessId;
 import com.queomedia.persistence.GeneralLoaderDao;
+import com.queomedia.persistence.extra.json.util.BoundedMemorizer;
 import com.queomedia.persistence.extra.json.util.Computable;
-import com.queomedia.persistence.extra.json.util.Memorizer;
 
 /**
  * Jackson {@link com.fasterxml.jackson.databind.Module} that registers BusinessEntity Json Serializer/Deserializers.
@@ -66,12 +70,22 @@ import com.queomedia.persistence.extra.json.util.Memorizer;
  * {@link Deserializers} (do not miss the "s" at the end of the name) which provide {@link JsonSerializer} and
  * {@link JsonDeserializer} for all {@link BusinessEntity} subclasses.
  *
+ * Deferred resolution:
+ * By default every business entity reference is loaded with its own query. If the module is created with
+ * {@code deferredResolution=true} ({@link #BusinessEntityModule(GeneralLoaderDao, boolean)}), then the references
+ * in bean properties, collections and maps are collected while the json is parsed, and are loaded at the end of the
+ * read with one {@code IN}-query per entity class, see {@link DeferredBusinessEntityResolution}.
+ * Example 6: a json array of 500 business ids for a {@code List<User>} is loaded by one query, instead of 500.
+ *
  */
 public class BusinessEntityModule extends Module {
 
     /** The general loader dao. */
     private final GeneralLoaderDao generalLoaderDao;
 
+    /** If true, then the business entity references are loaded in batches at the end of the read. */
+    private final boolean deferredResolution;
+
     /** The version. */
     private final Version version = new Version(1, 0, 0, null, "com.queomedia", null);
 
@@ -81,9 +95,22 @@ public class BusinessEntityModule extends Module {
      * @param generalLoaderDao the general loader dao
      */
     public BusinessEntityModule(final GeneralLoaderDao generalLoaderDao) {
+        this(generalLoaderDao, false);
+    }
+
+    /**
+     * Instantiates a new business id module and register the mapping.
+     *
+     * @param generalLoaderDao the general loader dao
+     * @param deferredResolution if true, then the business entity references are collected while parsing and
+     *        loaded with one query per entity class at the end of the read, see
+     *        {@link DeferredBusinessEntityResolution}
+     */
+    public BusinessEntityModule(final GeneralLoaderDao generalLoaderDao, final boolean deferredResolution) {
         Check.notNullArgument(generalLoaderDao, "generalLoaderDao");
 
         this.generalLoaderDao = generalLoaderDao;
+        this.deferredResolution = deferredResolution;
     }
 
     @Override
@@ -107,7 +134,11 @@ public class BusinessEntityModule extends Module {
         Check.notNullArgument(context, "context");
 
         context.addSerializers(new BusinessEntitySerializers());
-        context.addDeserializers(new BusinessEntityDeserializers(this.generalLoaderDao));
+        context.addDeserializers(new BusinessEntityDeserializers(this.generalLoaderDao, this.deferredResolution));
+        if (this.deferredResolution) {
+            context.addBeanDeserializerModifier(
+                    new DeferredBusinessEntityResolution.ScopeModifier(this.generalLoaderDao));
+        }
 
         context.addKeySerializers(new BusinessEntityKeySerializers());
         context.addKeyDeserializers(new BusinessEntityKeyDeserializers(this.generalLoaderDao));
@@ -216,35 +247,40 @@ public class BusinessEntityModule extends Module {
      * A Jackson {@link Deserializers} that provides {@link TypedBusinessEntityJsonDeserializer}
      * for every class that extends {@link BusinessEntity}.
      *
-     * Provide the same {@link JsonDeserializer} for equal classes.
+     * Provide the same {@link JsonDeserializer} for equal classes (as long as it is cached).
      */
     static class BusinessEntityDeserializers extends Deserializers.Base {
 
+        /** The max number of cached deserializers (business entity classes). */
+        private static final int MAX_CACHED_DESERIALIZERS = 1024;
+
         /**
-         * The {@link com.queomedia.persistence.extra.json.util.Memorizer} that hold and create the {@link TypedBusinessEntityJsonDeserializer}
+         * The {@link BoundedMemorizer} that hold and create the {@link TypedBusinessEntityJsonDeserializer}
          * for {@link BusinessEntity} classes.
+         * The cache is bounded (the least recently used classes are evicted), the classes are weak referenced.
          */
         @SuppressWarnings("rawtypes")
-        private final Memorizer<Class, TypedBusinessEntityJsonDeserializer> deserializerMemorizer;
+        private final BoundedMemorizer<Class, TypedBusinessEntityJsonDeserializer> deserializerMemorizer;
 
         /**
          * Instantiates a new business entity deserializes.
          *
          * @param generalLoaderDao the general loader dao
+         * @param deferredResolution if true, the deserializers defer the loading of the entities
          */
         @SuppressWarnings("rawtypes")
-        BusinessEntityDeserializers(final GeneralLoaderDao generalLoaderDao) {
+        BusinessEntityDeserializers(final GeneralLoaderDao generalLoaderDao, final boolean deferredResolution) {
             Check.notNullArgument(generalLoaderDao, "generalLoaderDao");
 
             // CHECKSTYLE IGNORE LineLength FOR NEXT 1 LINES
-            this.deserializerMemorizer = new Memorizer<>(new Computable<Class, TypedBusinessEntityJsonDeserializer>() {
+            this.deserializerMemorizer = new BoundedMemorizer<>(new Computable<Class, TypedBusinessEntityJsonDeserializer>() {
 
                 @Override
                 @SuppressWarnings("unchecked")
                 public TypedBusinessEntityJsonDeserializer compute(final Class argument) throws InterruptedException {
-                    return new TypedBusinessEntityJsonDeserializer(argument, generalLoaderDao);
+                    return new TypedBusinessEntityJsonDeserializer(argument, generalLoaderDao, deferredResolution);
                 }
-            });
+            }, MAX_CACHED_DESERIALIZERS, (argument, value) -> 1, null, true);
         }
 
         /*
@@ -277,9 +313,13 @@ public class BusinessEntityModule extends Module {
     /**
      * Deserialize a Json String that represent a BusinessID, back to the Business entity, by loading it.
      *
+     * If the deferred resolution is enabled, then the entity is not loaded immediately, if the enclosing
+     * bean property, collection or map support it, see {@link DeferredBusinessEntityResolution}.
+     *
      * @param <T> the generic type that implements {@link BusinessEntity}
      */
-    static class TypedBusinessEntityJsonDeserializer<T extends BusinessEntity<T>> extends JsonDeserializer<T> {
+    static class TypedBusinessEntityJsonDeserializer<T extends BusinessEntity<T>> extends JsonDeserializer<T>
+            implements ContextualDeserializer {
 
         /** The entity class. */
         private final Class<T> entityClass;
@@ -287,18 +327,64 @@ public class BusinessEntityModule extends Module {
         /** The general loader dao. */
         private final GeneralLoaderDao generalLoaderDao;
 
+        /** The object id reader used for deferred references, null if the deferred resolution is disabled. */
+        private final ObjectIdReader objectIdReader;
+
         /**
-         * Instantiates a new typed business entity json deserializer.
+         * Instantiates a new typed business entity json deserializer, that loads the entities immediately.
          *
          * @param entityClass the entity class
          * @param generalLoaderDao the general loader dao
          */
         TypedBusinessEntityJsonDeserializer(final Class<T> entityClass, final GeneralLoaderDao generalLoaderDao) {
+            this(entityClass, generalLoaderDao, false);
+        }
+
+        /**
+         * Instantiates a new typed business entity json deserializer.
+         *
+         * @param entityClass the entity class
+         * @param generalLoaderDao the general loader dao
+         * @param deferredResolution if true, the loading is deferred when possible
+         */
+        TypedBusinessEntityJsonDeserializer(final Class<T> entityClass, final GeneralLoaderDao generalLoaderDao,
+                final boolean deferredResolution) {
             Check.notNullArgument(entityClass, "entityClass");
             Check.notNullArgument(generalLoaderDao, "generalLoaderDao");
 
             this.entityClass = entityClass;
             this.generalLoaderDao = generalLoaderDao;
+            this.objectIdReader = deferredResolution ? DeferredBusinessEntityResolution.objectIdReader(entityClass)
+                    : null;
+        }
+
+        /**
+         * A deserializer for the same entity class that loads the entities immediately.
+         *
+         * @return this, if the deferred resolution is disabled
+         */
+        TypedBusinessEntityJsonDeserializer<T> immediate() {
+            if (this.objectIdReader == null) {
+                return this;
+            }
+            return new TypedBusinessEntityJsonDeserializer<>(this.entityClass, this.generalLoaderDao, false);
+        }
+
+        /**
+         * A constructor (creator) parameter is set before the bean exists, so it can not be patched later.
+         */
+        @Override
+        public JsonDeserializer<?> createContextual(final DeserializationContext ctxt, final BeanProperty property) {
+            if ((this.objectIdReader != null) && (property instanceof CreatorProperty)
+                    && BusinessEntity.class.isAssignableFrom(property.getType().getRawClass())) {
+                return immediate();
+            }
+            return this;
+        }
+
+        @Override
+        public ObjectIdReader getObjectIdReader() {
+            return this.objectIdReader;
         }
 
         /*
@@ -316,6 +402,12 @@ public class BusinessEntityModule extends Module {
                 return null;
             } else {
                 BusinessId<T> businessId = BusinessId.parse(bidString);
+                if (this.objectIdReader != null) {
+                    DeferredBusinessEntityResolution resolution = DeferredBusinessEntityResolution.current(ctxt);
+                    if ((resolution != null) && resolution.isDeferrable()) {
+                        return resolution.defer(jp, ctxt, businessId, this.objectIdReader);
+                    }
+                }
                 return this.generalLoaderDao.getByBusinessId(businessId, this.entityClass);
             }
         }
@@ -0,0 +1,385 @@
+package com.queomedia.persistence.extra.json;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.ObjectIdGenerator;
+import com.fasterxml.jackson.annotation.ObjectIdResolver;
+import com.fasterxml.jackson.annotation.SimpleObjectIdResolver;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.PropertyName;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.SettableBeanProperty;
+import com.fasterxml.jackson.databind.deser.UnresolvedForwardReference;
+import com.fasterxml.jackson.databind.deser.impl.ObjectIdReader;
+import com.fasterxml.jackson.databind.deser.impl.ReadableObjectId;
+import com.fasterxml.jackson.databind.deser.std.DelegatingDeserializer;
+import com.fasterxml.jackson.databind.type.ArrayType;
+import com.fasterxml.jackson.databind.type.CollectionLikeType;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import com.fasterxml.jackson.databind.type.MapLikeType;
+import com.fasterxml.jackson.databind.type.MapType;
+import com.fasterxml.jackson.databind.type.ReferenceType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.databind.util.NameTransformer;
+import com.queomedia.commons.checks.Check;
+import com.queomedia.persistence.BusinessEntity;
+import com.queomedia.persistence.BusinessId;
+import com.queomedia.persistence.GeneralLoaderDao;
+
+/**
+ * The deferred (batch) resolution of business entity references, for one {@code ObjectMapper} read.
+ *
+ * <p>
+ * If enabled in {@link BusinessEntityModule} or {@link SwitchingBusinessEntityModule}, then the business entity
+ * deserializer does not load every referenced entity one-by-one. Instead it registers the business id and
+ * answers with Jacksons {@link UnresolvedForwardReference} (the mechanism used for forward references of
+ * {@code @JsonIdentityInfo}), so the bean property, the collection or the map remembers the position of the
+ * reference. When the outermost bean, collection or map is read completely, all collected business ids are loaded
+ * with one {@link GeneralLoaderDao#getByBusinessIds(java.util.Collection, Class)} invocation per entity class
+ * and the remembered references are patched with the loaded entities.
+ * </p>
+ *
+ * <p>
+ * The scope is maintained by {@link ScopeDeserializer}s that wrap the bean, collection and map deserializers.
+ * References where Jackson can not patch a value later - constructor (creator) parameters, arrays, reference types
+ * like {@code Optional}, map keys and the root value - are loaded immediately, as before.
+ * </p>
+ *
+ * <p>
+ * A business id that does not exist fails the read like the immediate loading: the
+ * {@link com.queomedia.commons.exceptions.NotFoundRuntimeException} of the {@link GeneralLoaderDao} is wrapped
+ * in a {@link JsonMappingException} (unless {@link DeserializationFeature#WRAP_EXCEPTIONS} is disabled).
+ * </p>
+ */
+final class DeferredBusinessEntityResolution {
+
+    /** The name of the {@link DeserializationContext} attribute that holds the resolution of the current read. */
+    private static final String ATTRIBUTE_NAME = DeferredBusinessEntityResolution.class.getName();
+
+    /** The type of the object id resolver, the {@link DeserializationContext} creates one instance per read. */
+    private static final ObjectIdResolver RESOLVER_TYPE = new SimpleObjectIdResolver();
+
+    /** The general loader dao, used to load the collected business ids. */
+    private final GeneralLoaderDao generalLoaderDao;
+
+    /** The currently deserialized containers, true if they support deferred references. */
+    private final Deque<Boolean> containers = new ArrayDeque<>();
+
+    /** The unresolved references by entity class and business id. */
+    private final Map<Class<?>, Map<BusinessId<?>, ReadableObjectId>> unresolved = new LinkedHashMap<>();
+
+    /**
+     * Instantiates a new deferred business entity resolution.
+     *
+     * @param generalLoaderDao the general loader dao
+     */
+    private DeferredBusinessEntityResolution(final GeneralLoaderDao generalLoaderDao) {
+        this.generalLoaderDao = generalLoaderDao;
+    }
+
+    /**
+     * The deferred resolution of the current read.
+     *
+     * @param ctxt the deserialization context
+     * @return the resolution, or null if the deserializer is not invoked within a {@link ScopeDeserializer}
+     */
+    static DeferredBusinessEntityResolution current(final DeserializationContext ctxt) {
+        return (DeferredBusinessEntityResolution) ctxt.getAttribute(ATTRIBUTE_NAME);
+    }
+
+    /**
+     * Create the object id reader for the deferred references of the entity class.
+     * Jackson only support forward references for values whose deserializer has an object id reader.
+     *
+     * @param entityClass the entity class
+     * @return the object id reader
+     */
+    static ObjectIdReader objectIdReader(final Class<?> entityClass) {
+        Check.notNullArgument(entityClass, "entityClass");
+
+        return ObjectIdReader.construct(TypeFactory.defaultInstance().constructType(BusinessId.class),
+                new PropertyName("businessId"),
+                new BusinessIdGenerator(entityClass),
+                new BusinessIdModule.BusinessIdJsonDeserializer(),
+                null,
+                RESOLVER_TYPE);
+    }
+
+    /**
+     * Check if the value that is currently deserialized can be a deferred reference.
+     *
+     * @return true, if the enclosing container supports deferred references
+     */
+    boolean isDeferrable() {
+        Boolean container = this.containers.peek();
+        return (container != null) && container;
+    }
+
+    /**
+     * Defer the loading of the business entity.
+     *
+     * @param <T> the entity type
+     * @param jp the parser
+     * @param ctxt the deserialization context
+     * @param businessId the business id
+     * @param objectIdReader the object id reader of the entity class, see {@link #objectIdReader(Class)}
+     * @return the entity, if it is already resolved
+     * @throws UnresolvedForwardReference if the entity is not resolved yet, this is the normal case
+     */
+    @SuppressWarnings("unchecked")
+    <T> T defer(final JsonParser jp, final DeserializationContext ctxt, final BusinessId<T> businessId,
+            final ObjectIdReader objectIdReader) throws UnresolvedForwardReference {
+        ReadableObjectId reference = ctxt.findObjectId(businessId, objectIdReader.generator, objectIdReader.resolver);
+        Object resolved = reference.resolve();
+        if (resolved != null) {
+            return (T) resolved;
+        }
+
+        Class<?> entityClass = objectIdReader.generator.getScope();
+        this.unresolved.computeIfAbsent(entityClass, key -> new LinkedHashMap<>()).putIfAbsent(businessId, reference);
+        throw new UnresolvedForwardReference(jp,
+                "deferred business entity reference " + entityClass.getName() + " " + businessId,
+                jp.getCurrentLocation(),
+                reference);
+    }
+
+    /**
+     * Load all collected business ids, one query per entity class, and patch the references.
+     *
+     * @param jp the parser
+     * @param ctxt the deserialization context
+     * @throws IOException if a reference can not be patched, or the loading fails
+     *         (if {@link DeserializationFeature#WRAP_EXCEPTIONS} is enabled)
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void resolve(final JsonParser jp, final DeserializationContext ctxt) throws IOException {
+        for (Map.Entry<Class<?>, Map<BusinessId<?>, ReadableObjectId>> entry : this.unresolved.entrySet()) {
+            Map<BusinessId<?>, ReadableObjectId> references = entry.getValue();
+            List<BusinessId<?>> businessIds = new ArrayList<>(references.keySet());
+
+            List<?> entities;
+            try {
+                entities = this.generalLoaderDao.getByBusinessIds((List) businessIds,
+                        (Class<BusinessEntity<? extends Serializable>>) entry.getKey());
+            } catch (RuntimeException e) {
+                /* the same as Jackson does for the exceptions of the immediate loading */
+                if (!ctxt.isEnabled(DeserializationFeature.WRAP_EXCEPTIONS)) {
+                    throw e;
+                }
+                throw JsonMappingException.from(jp, e.getMessage(), e);
+            }
+            for (int i = 0; i < businessIds.size(); i++) {
+                references.get(businessIds.get(i)).bindItem(entities.get(i));
+            }
+        }
+        this.unresolved.clear();
+    }
+
+    /**
+     * The object id "generator" of the deferred references: the id is the business id, the scope is the entity class.
+     * It is only used to build the keys of the references, it does not generate ids.
+     */
+    static final class BusinessIdGenerator extends ObjectIdGenerator<Object> {
+
+        private static final long serialVersionUID = 8313542935498521466L;
+
+        /** The entity class. */
+        private final Class<?> scope;
+
+        /**
+         * Instantiates a new business id generator.
+         *
+         * @param scope the entity class
+         */
+        BusinessIdGenerator(final Class<?> scope) {
+            this.scope = scope;
+        }
+
+        @Override
+        public Class<?> getScope() {
+            return this.scope;
+        }
+
+        @Override
+        public boolean canUseFor(final ObjectIdGenerator<?> gen) {
+            return (gen.getClass() == getClass()) && (gen.getScope() == this.scope);
+        }
+
+        @Override
+        public ObjectIdGenerator<Object> forScope(final Class<?> scope) {
+            return (scope == this.scope) ? this : new BusinessIdGenerator(scope);
+        }
+
+        @Override
+        public ObjectIdGenerator<Object> newForSerialization(final Object context) {
+            return this;
+        }
+
+        @Override
+        public IdKey key(final Object key) {
+            if (key == null) {
+                return null;
+            }
+            return new IdKey(getClass(), this.scope, key);
+        }
+
+        @Override
+        public Object generateId(final Object forPojo) {
+            throw new UnsupportedOperationException("business ids are not generated by jackson");
+        }
+    }
+
+    /**
+     * Wraps the bean, collection and map deserializers with {@link ScopeDeserializer}s,
+     * and the array and reference type deserializers with {@link ScopeDeserializer}s that disable the deferred
+     * resolution for their elements.
+     * The deserializers of the business entities itself are not wrapped.
+     */
+    static class ScopeModifier extends BeanDeserializerModifier {
+
+        /** The general loader dao. */
+        private final GeneralLoaderDao generalLoaderDao;
+
+        /**
+         * Instantiates a new scope modifier.
+         *
+         * @param generalLoaderDao the general loader dao
+         */
+        ScopeModifier(final GeneralLoaderDao generalLoaderDao) {
+            Check.notNullArgument(generalLoaderDao, "generalLoaderDao");
+
+            this.generalLoaderDao = generalLoaderDao;
+        }
+
+        @Override
+        public JsonDeserializer<?> modifyDeserializer(final DeserializationConfig config,
+                final BeanDescription beanDesc, final JsonDeserializer<?> deserializer) {
+            if (BusinessEntity.class.isAssignableFrom(beanDesc.getBeanClass())) {
+                return deserializer;
+            }
+            return new ScopeDeserializer(deserializer, this.generalLoaderDao, true);
+        }
+
+        @Override
+        public JsonDeserializer<?> modifyCollectionDeserializer(final DeserializationConfig config,
+                final CollectionType type, final BeanDescription beanDesc, final JsonDeserializer<?> deserializer) {
+            return new ScopeDeserializer(deserializer, this.generalLoaderDao, true);
+        }
+
+        @Override
+        public JsonDeserializer<?> modifyMapDeserializer(final DeserializationConfig config, final MapType type,
+                final BeanDescription beanDesc, final JsonDeserializer<?> deserializer) {
+            return new ScopeDeserializer(deserializer, this.generalLoaderDao, true);
+        }
+
+        @Override
+        public JsonDeserializer<?> modifyArrayDeserializer(final DeserializationConfig config,
+                final ArrayType valueType, final BeanDescription beanDesc, final JsonDeserializer<?> deserializer) {
+            return new ScopeDeserializer(deserializer, this.generalLoaderDao, false);
+        }
+
+        @Override
+        public JsonDeserializer<?> modifyCollectionLikeDeserializer(final DeserializationConfig config,
+                final CollectionLikeType type, final BeanDescription beanDesc,
+                final JsonDeserializer<?> deserializer) {
+            return new ScopeDeserializer(deserializer, this.generalLoaderDao, false);
+        }
+
+        @Override
+        public JsonDeserializer<?> modifyMapLikeDeserializer(final DeserializationConfig config,
+                final MapLikeType type, final BeanDescription beanDesc, final JsonDeserializer<?> deserializer) {
+            return new ScopeDeserializer(deserializer, this.generalLoaderDao, false);
+        }
+
+        @Override
+        public JsonDeserializer<?> modifyReferenceDeserializer(final DeserializationConfig config,
+                final ReferenceType type, final BeanDescription beanDesc, final JsonDeserializer<?> deserializer) {
+            return new ScopeDeserializer(deserializer, this.generalLoaderDao, false);
+        }
+    }
+
+    /**
+     * Deserializer that marks the scope of the wrapped (container) deserializer.
+     * The outermost one owns the {@link DeferredBusinessEntityResolution} of the read,
+     * and resolves the deferred references when the wrapped deserializer is done.
+     */
+    static class ScopeDeserializer extends DelegatingDeserializer {
+
+        private static final long serialVersionUID = -4281837052474405763L;
+
+        /** The general loader dao. */
+        private final transient GeneralLoaderDao generalLoaderDao;
+
+        /** True if the wrapped deserializer supports deferred references for its values. */
+        private final boolean deferrable;
+
+        /**
+         * Instantiates a new scope deserializer.
+         *
+         * @param delegatee the wrapped deserializer
+         * @param generalLoaderDao the general loader dao
+         * @param deferrable true if the wrapped deserializer supports deferred references for its values
+         */
+        ScopeDeserializer(final JsonDeserializer<?> delegatee, final GeneralLoaderDao generalLoaderDao,
+                final boolean deferrable) {
+            super(delegatee);
+            this.generalLoaderDao = generalLoaderDao;
+            this.deferrable = deferrable;
+        }
+
+        @Override
+        protected JsonDeserializer<?> newDelegatingInstance(final JsonDeserializer<?> newDelegatee) {
+            return new ScopeDeserializer(newDelegatee, this.generalLoaderDao, this.deferrable);
+        }
+
+        @Override
+        public Object deserialize(final JsonParser jp, final DeserializationContext ctxt) throws IOException {
+            DeferredBusinessEntityResolution resolution = current(ctxt);
+            boolean outermost = resolution == null;
+            if (outermost) {
+                resolution = new DeferredBusinessEntityResolution(this.generalLoaderDao);
+                ctxt.setAttribute(ATTRIBUTE_NAME, resolution);
+            }
+
+            resolution.containers.push(this.deferrable);
+            try {
+                Object result = this._delegatee.deserialize(jp, ctxt);
+                if (outermost) {
+                    resolution.resolve(jp, ctxt);
+                }
+                return result;
+            } finally {
+                resolution.containers.pop();
+                if (outermost) {
+                    ctxt.setAttribute(ATTRIBUTE_NAME, null);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public JsonDeserializer<Object> unwrappingDeserializer(final NameTransformer unwrapper) {
+            /* the unwrapped properties are handled by the enclosing bean, that is in scope already */
+            return (JsonDeserializer<Object>) this._delegatee.unwrappingDeserializer(unwrapper);
+        }
+
+        @Override
+        public SettableBeanProperty findBackReference(final String refName) {
+            return this._delegatee.findBackReference(refName);
+        }
+    }
+
+}
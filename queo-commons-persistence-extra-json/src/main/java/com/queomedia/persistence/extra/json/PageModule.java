@@ -1,8 +1,10 @@
 package com.queomedia.persistence.extra.json;
 
 import java.io.IOException;
+import java.util.Iterator;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -10,9 +12,13 @@ import com.fasterxml.jackson.core.Version;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.queomedia.persistence.KeysetPage;
+import com.queomedia.persistence.StreamingPage;
 
 /**
- * A Jackon Module for an Spring Date {@link Page} serializer that only serialize content and pageing information.
+ * A Jackon Module for an Spring Date {@link Page} serializer that only serialize content and pageing information,
+ * for the {@link KeysetPage} serializer with the continuation token,
+ * and for the {@link StreamingPage} serializer that writes the elements while they are streamed.
  * @author engelmann
  *
  */
@@ -21,7 +27,8 @@ public class PageModule extends SimpleModule {
     private static final long serialVersionUID = -2147712840723920450L;
 
     /**
-     * C-tor that register the {@link PageJsonSerializer}.
+     * C-tor that register the {@link PageJsonSerializer}, the {@link KeysetPageJsonSerializer}
+     * and the {@link StreamingPageJsonSerializer}.
      *
      * @param includeDeprecatedFields include the deprecated fields "number" and "size"
      *        ("currentPage" and "pageSize" are always included) 
@@ -30,10 +37,13 @@ public class PageModule extends SimpleModule {
         super("pageModule", new Version(1, 0, 0, null, "com.queomedia", null));
 
         this.addSerializer(Page.class, new PageJsonSerializer(includeDeprecatedFields));
+        this.addSerializer(KeysetPage.class, new KeysetPageJsonSerializer());
+        this.addSerializer(StreamingPage.class, new StreamingPageJsonSerializer());
     }
     
     /**
-     * C-tor that register the {@link PageJsonSerializer} without deprecated fields.
+     * C-tor that register the {@link PageJsonSerializer} without deprecated fields,
+     * the {@link KeysetPageJsonSerializer} and the {@link StreamingPageJsonSerializer}.
      */
     public PageModule() {
         this(false);
@@ -96,4 +106,107 @@ public class PageModule extends SimpleModule {
         }
 
     }
+
+    /**
+     * Serialize a {@link KeysetPage}.
+     *
+     * Serialize the following attributes:
+     * <ul>
+     *  <li>content: {@code page.getContent()}</li>
+     *  <li>pageSize: {@code page.getSize()}</li>
+     *  <li>hasNext: {@code page.hasNext()}</li>
+     *  <li>continuationToken: {@code page.getContinuationToken()} the token to request the next page,
+     *      null if there is no next page</li>
+     * </ul>
+     */
+    @SuppressWarnings("rawtypes")
+    static class KeysetPageJsonSerializer extends JsonSerializer<KeysetPage> {
+
+        @Override
+        public void serialize(final KeysetPage page, final JsonGenerator jsonGenerator,
+                final SerializerProvider provider) throws IOException, JsonProcessingException {
+
+            jsonGenerator.writeStartObject();
+            jsonGenerator.writeObjectField("content", page.getContent());
+            jsonGenerator.writeNumberField("pageSize", page.getSize());
+            jsonGenerator.writeBooleanField("hasNext", page.hasNext());
+            jsonGenerator.writeStringField("continuationToken", page.getContinuationToken());
+            jsonGenerator.writeEndObject();
+        }
+
+    }
+
+    /**
+     * Serialize a {@link StreamingPage}: the elements are written one by one while they are streamed,
+     * and the page is closed afterwards.
+     *
+     * Serialize the following attributes:
+     * <ul>
+     *  <li>content: {@code page.getContent()}</li>
+     *  <li>pageSize: {@code page.getPageable().getPageSize()} only for paged pages</li>
+     *  <li>offset: {@code page.getPageable().getOffset()} only for paged pages</li>
+     *  <li>currentPage: {@code page.getPageable().getPageNumber()} only for paged pages</li>
+     *  <li>totalElements: {@code page.getTotalElements()} only if available, it is computed after the content
+     *      is written</li>
+     *  <li>totalPages: {@code page.getTotalPages()} only if the total elements are available</li>
+     * </ul>
+     */
+    @SuppressWarnings("rawtypes")
+    static class StreamingPageJsonSerializer extends JsonSerializer<StreamingPage> {
+
+        @Override
+        public void serialize(final StreamingPage page, final JsonGenerator jsonGenerator,
+                final SerializerProvider provider) throws IOException, JsonProcessingException {
+
+            try {
+                jsonGenerator.writeStartObject();
+                jsonGenerator.writeFieldName("content");
+                writeContent(page, jsonGenerator, provider);
+
+                Pageable pageable = page.getPageable();
+                if (pageable.isPaged()) {
+                    jsonGenerator.writeNumberField("pageSize", pageable.getPageSize());
+                    jsonGenerator.writeNumberField("offset", pageable.getOffset());
+                    jsonGenerator.writeNumberField("currentPage", pageable.getPageNumber());
+                }
+                if (page.hasTotalElements()) {
+                    jsonGenerator.writeNumberField("totalElements", page.getTotalElements());
+                    jsonGenerator.writeNumberField("totalPages", page.getTotalPages());
+                }
+                jsonGenerator.writeEndObject();
+            } finally {
+                page.close();
+            }
+        }
+
+        /**
+         * Write the content array, the serializer is looked up once per element class in a row.
+         *
+         * @param page the page
+         * @param jsonGenerator the json generator
+         * @param provider the provider
+         * @throws IOException Signals that an I/O exception has occurred.
+         */
+        private void writeContent(final StreamingPage page, final JsonGenerator jsonGenerator,
+                final SerializerProvider provider) throws IOException {
+
+            jsonGenerator.writeStartArray();
+            Class<?> elementClass = null;
+            JsonSerializer<Object> elementSerializer = null;
+            for (Iterator<?> elements = page.getContent().iterator(); elements.hasNext();) {
+                Object element = elements.next();
+                if (element == null) {
+                    provider.defaultSerializeNull(jsonGenerator);
+                    continue;
+                }
+                if (element.getClass() != elementClass) {
+                    elementClass = element.getClass();
+                    elementSerializer = provider.findTypedValueSerializer(elementClass, true, null);
+                }
+                elementSerializer.serialize(element, jsonGenerator, provider);
+            }
+            jsonGenerator.writeEndArray();
+        }
+
+    }
 }
@@ -1,15 +1,20 @@
 package com.queomedia.persistence.extra.json;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Stream;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.core.JsonStreamContext;
 import com.queomedia.commons.checks.Check;
+import com.queomedia.persistence.extra.json.util.BoundedMemorizer;
 
 /**
  * Scan the json-context-path to find a class that is annotated with {@link BusinessEntityJsonSerialization}.
@@ -19,6 +24,11 @@ import com.queomedia.commons.checks.Check;
  * the getter that match the field name and then at the class. If no annotation is found, then the scanner check
  * the parent json context ({@link JsonStreamContext#getParent()}).
  * </p>
+ *
+ * <p>
+ * The reflective lookups are done only once per class, the annotated members are cached,
+ * so scanning the json context of each serialized entity is just a hash lookup per json context level.
+ * </p>
  */
 public class SwitchingAnnotationScanner {
 
@@ -28,6 +38,17 @@ public class SwitchingAnnotationScanner {
     /** The serialization mode returned if no annotation is found. */
     private final BusinessEntitySerializationMode defaultMode;
 
+    /** The max number of classes whose annotation metadata is cached. */
+    private static final int MAX_CACHED_CLASSES = 1024;
+
+    /**
+     * The (lazy populated) annotation metadata per class.
+     * The cache is bounded (the least recently used classes are evicted), the classes are weak referenced
+     * (the metadata does not reference its class, so the entry is removed when the class is unloaded).
+     */
+    private final BoundedMemorizer<Class<?>, ClassSwitchMetadata> classMetadata = new BoundedMemorizer<>(
+            ClassSwitchMetadata::new, MAX_CACHED_CLASSES, (argument, value) -> 1, null, true);
+
     /**
      * Instantiates a new switching annotation scanner with the given {@code defaultMode}
      *
@@ -78,106 +99,89 @@ public class SwitchingAnnotationScanner {
     Optional<BusinessEntityJsonSerialization> findSwitchingBusinessEntityAnnotation(final JsonStreamContext context) {
         Check.notNullArgument(context, "context");
 
-        Object currentValue = context.getCurrentValue();
+        for (JsonStreamContext current = context; current != null; current = current.getParent()) {
+            Object currentValue = current.getCurrentValue();
 
-        if (LOGGER.isTraceEnabled()) {
-            LOGGER.trace("find switching annotation for currentValue: {} ({})",
-                    currentValue,
-                    (currentValue != null ? currentValue.getClass() : null));
-        }
-
-        /*
-         * check getter and fields for annotation before class, because they have higher
-         * priority.
-         */
-        if (currentValue != null) {
-            Class<? extends Object> currentClass = currentValue.getClass();
-
-            if (context.getCurrentName() != null) {
-                String jsonPropertyName = context.getCurrentName();
-
-                Optional<BusinessEntityJsonSerialization> fieldAnnotation = findAnnotationAtField(jsonPropertyName,
-                        currentClass);
-                if (fieldAnnotation.isPresent()) {
-                    return fieldAnnotation;
-                }
+            if (LOGGER.isTraceEnabled()) {
+                LOGGER.trace("find switching annotation for currentValue: {} ({})",
+                        currentValue,
+                        (currentValue != null ? currentValue.getClass() : null));
+            }
 
-                Optional<BusinessEntityJsonSerialization> methodAnnotation = findAnnotationAtGetter(jsonPropertyName,
-                        currentClass);
-                if (methodAnnotation.isPresent()) {
-                    return methodAnnotation;
+            if (currentValue != null) {
+                Optional<BusinessEntityJsonSerialization> annotation = classMetadata(currentValue.getClass())
+                        .findAnnotation(current.getCurrentName());
+                if (annotation.isPresent()) {
+                    return annotation;
                 }
             }
-            Optional<BusinessEntityJsonSerialization> classAnnotation = findAnnotationAtClass(currentClass);
-            if (classAnnotation.isPresent()) {
-                return classAnnotation;
-            }
         }
+        return Optional.empty();
+    }
 
-        /* recursion to json parent */
-        if (context.getParent() != null) {
-            return findSwitchingBusinessEntityAnnotation(context.getParent());
+    /**
+     * Get the cached annotation metadata of the given class.
+     *
+     * @param clazz the class
+     * @return the class metadata
+     */
+    private ClassSwitchMetadata classMetadata(final Class<?> clazz) {
+        try {
+            return this.classMetadata.compute(clazz);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted", e);
         }
-
-        return Optional.empty();
     }
 
     /**
-     * Try to find the {@link BusinessEntityJsonSerialization} at a field named {@code jsonPropertyName} at the
-     * given class.
+     * Collect the {@link BusinessEntityJsonSerialization} annotated fields of the given class, by field name.
      *
      * <p>
-     * If the field is not declared in the given class, then its super class is checked.
-     * This also mean, if a field of one name is declared twice, then only the annotation for field in the child class
-     * is returned. Even if the child class field has no {@link BusinessEntityJsonSerialization} annotation,
-     * then the super class in NOT checked!
+     * If a field of one name is declared in the class and in a super class, then only the field in the child class
+     * is taken into account. Even if the child class field has no {@link BusinessEntityJsonSerialization}
+     * annotation, then the super class field is NOT checked!
      * </p>
      *
-     * @param jsonPropertyName the json property name
      * @param clazz the examined class
-     * @return the found {@link BusinessEntityJsonSerialization}
+     * @return the annotations by field name, only for annotated fields
      */
-    private Optional<BusinessEntityJsonSerialization> findAnnotationAtField(final String jsonPropertyName,
-            final Class<?> clazz) {
-        Check.notEmptyArgument(jsonPropertyName, "jsonPropertyName");
+    private static Map<String, Optional<BusinessEntityJsonSerialization>> findAnnotatedFields(final Class<?> clazz) {
         Check.notNullArgument(clazz, "clazz");
 
-        Class<?> currentClass = clazz;
-        while (currentClass != Object.class) {
-            // @formatter:off
-            Optional<Field> foundField = Stream.of(clazz.getDeclaredFields())
-                    .filter(field -> field.getName().equals(jsonPropertyName))
-                    .findAny();
-            // @formatter:on
-            if (foundField.isPresent()) {
-                return Optional.ofNullable(foundField.get().getAnnotation(BusinessEntityJsonSerialization.class));
+        Set<String> fieldNames = new HashSet<>();
+        Map<String, Optional<BusinessEntityJsonSerialization>> annotations = new HashMap<>();
+        for (Class<?> currentClass = clazz; currentClass != null
+                && currentClass != Object.class; currentClass = currentClass.getSuperclass()) {
+            for (Field field : currentClass.getDeclaredFields()) {
+                BusinessEntityJsonSerialization annotation = field
+                        .getAnnotation(BusinessEntityJsonSerialization.class);
+                if (fieldNames.add(field.getName()) && annotation != null) {
+                    annotations.put(field.getName(), Optional.of(annotation));
+                }
             }
-            currentClass = currentClass.getSuperclass();
         }
-        return Optional.empty();
+        return annotations;
     }
 
     /**
-     * Try to find the {@link BusinessEntityJsonSerialization} at a Getter named after {@code jsonPropertyName} at
-     * the given class.
+     * Collect the {@link BusinessEntityJsonSerialization} annotated (public) methods of the given class,
+     * by method name.
      *
-     * @param jsonPropertyName the json property name
      * @param clazz the examined class
-     * @return the found {@link BusinessEntityJsonSerialization}
+     * @return the annotations by method name, only for annotated methods
      */
-    private Optional<BusinessEntityJsonSerialization> findAnnotationAtGetter(final String jsonPropertyName,
-            final Class<?> clazz) {
-        Check.notEmptyArgument(jsonPropertyName, "jsonPropertyName");
+    private static Map<String, Optional<BusinessEntityJsonSerialization>> findAnnotatedMethods(final Class<?> clazz) {
         Check.notNullArgument(clazz, "clazz");
 
-        String getterName = getterName(jsonPropertyName);
-
-        // @formatter:off
-        return Stream.of(clazz.getMethods())
-                .filter(method -> method.getName().equals(getterName))
-                .findAny()
-                .flatMap(method -> Optional.ofNullable(method.getAnnotation(BusinessEntityJsonSerialization.class)));
-        // @formatter:on
+        Map<String, Optional<BusinessEntityJsonSerialization>> annotations = new HashMap<>();
+        for (Method method : clazz.getMethods()) {
+            BusinessEntityJsonSerialization annotation = method.getAnnotation(BusinessEntityJsonSerialization.class);
+            if (annotation != null) {
+                annotations.putIfAbsent(method.getName(), Optional.of(annotation));
+            }
+        }
+        return annotations;
     }
 
     /**
@@ -186,13 +190,13 @@ public class SwitchingAnnotationScanner {
      * @param clazz the examined class
      * @return the found {@link BusinessEntityJsonSerialization}
      */
-    private Optional<BusinessEntityJsonSerialization> findAnnotationAtClass(final Class<? extends Object> clazz) {
+    private static Optional<BusinessEntityJsonSerialization> findAnnotationAtClass(final Class<? extends Object> clazz) {
         Check.notNullArgument(clazz, "clazz");
 
         Class<?> currentClass = clazz;
-        while (currentClass != Object.class) {
+        while (currentClass != null && currentClass != Object.class) {
             Optional<BusinessEntityJsonSerialization> classAnnotation = Optional
-                    .ofNullable(clazz.getAnnotation(BusinessEntityJsonSerialization.class));
+                    .ofNullable(currentClass.getAnnotation(BusinessEntityJsonSerialization.class));
             if (classAnnotation.isPresent()) {
                 return classAnnotation;
             }
@@ -213,4 +217,66 @@ public class SwitchingAnnotationScanner {
         /* we do not need to check for isser-because there can not be a boolean in its path */
         return "get" + fieldName.substring(0, 1).toUpperCase(Locale.ENGLISH) + fieldName.substring(1);
     }
+
+    /**
+     * The {@link BusinessEntityJsonSerialization} annotations of one class: the class level annotation,
+     * and the annotated fields and getters.
+     *
+     * <p>
+     * Only the annotated members are stored, so the metadata is bounded by the class structure. The json property
+     * names are not cached, because they are not bounded: map keys and {@code @JsonAnyGetter} names are json
+     * property names too.
+     * </p>
+     */
+    private static final class ClassSwitchMetadata {
+
+        /** The annotation at class level. */
+        private final Optional<BusinessEntityJsonSerialization> classAnnotation;
+
+        /** The annotations of the annotated fields, by field name. */
+        private final Map<String, Optional<BusinessEntityJsonSerialization>> fieldAnnotations;
+
+        /** The annotations of the annotated public methods, by method name. */
+        private final Map<String, Optional<BusinessEntityJsonSerialization>> methodAnnotations;
+
+        /**
+         * Instantiates the metadata of the given class.
+         *
+         * @param clazz the class
+         */
+        ClassSwitchMetadata(final Class<?> clazz) {
+            Check.notNullArgument(clazz, "clazz");
+
+            this.classAnnotation = findAnnotationAtClass(clazz);
+            this.fieldAnnotations = findAnnotatedFields(clazz);
+            this.methodAnnotations = findAnnotatedMethods(clazz);
+        }
+
+        /**
+         * Find the annotation for the json property name: at the field, the getter and then at class level.
+         *
+         * @param jsonPropertyName the json property name - null if the json context has no current name
+         * @return the found {@link BusinessEntityJsonSerialization}
+         */
+        Optional<BusinessEntityJsonSerialization> findAnnotation(final String jsonPropertyName) {
+            if (jsonPropertyName == null || jsonPropertyName.isEmpty()) {
+                return this.classAnnotation;
+            }
+
+            Optional<BusinessEntityJsonSerialization> fieldAnnotation = this.fieldAnnotations.get(jsonPropertyName);
+            if (fieldAnnotation != null) {
+                return fieldAnnotation;
+            }
+
+            if (!this.methodAnnotations.isEmpty()) {
+                Optional<BusinessEntityJsonSerialization> methodAnnotation = this.methodAnnotations
+                        .get(getterName(jsonPropertyName));
+                if (methodAnnotation != null) {
+                    return methodAnnotation;
+                }
+            }
+
+            return this.classAnnotation;
+        }
+    }
 }
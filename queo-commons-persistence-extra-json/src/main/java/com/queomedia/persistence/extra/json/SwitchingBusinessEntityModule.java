@@ -9,6 +9,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.Version;
 import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.BeanProperty;
 import com.fasterxml.jackson.databind.DeserializationConfig;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
@@ -18,9 +19,13 @@ import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.SerializationConfig;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
 import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;
+import com.fasterxml.jackson.databind.deser.impl.ObjectIdReader;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import com.fasterxml.jackson.databind.util.NameTransformer;
 import com.queomedia.commons.checks.Check;
@@ -54,6 +59,9 @@ import com.queomedia.persistence.extra.json.BusinessIdModule.BusinessIdJsonSeria
  * {@link com.queomedia.persistence.extra.json.SwitchingAnnotationScanner} which is invoked by
  * the serializers and deserializers when they needs to serialize/deserialize an
  * {@link com.queomedia.persistence.BusinessEntity}.
+ * If the annotation is placed at the (field or getter of the) property itself, then the mode is bound once
+ * when the serializer/deserializer for this property is contextualized, so the json context is only scanned
+ * for properties without annotation (for example in untyped containers).
  * </p>
  * 
  * <p>
@@ -64,6 +72,13 @@ import com.queomedia.persistence.extra.json.BusinessIdModule.BusinessIdJsonSeria
  * to true, or use the simple constructor {@link #SwitchingBusinessEntityModule(GeneralLoaderDao)}
  * that enable them both.
  * </p>
+ *
+ * <p>
+ * The business entities that are deserialized from their business id can be loaded in batches at the end of the
+ * read, instead of one-by-one, by enabling {@code deferredResolution}
+ * ({@link #SwitchingBusinessEntityModule(GeneralLoaderDao, SwitchingAnnotationScanner, boolean, boolean, boolean)}),
+ * see {@link DeferredBusinessEntityResolution}.
+ * </p>
  */
 public class SwitchingBusinessEntityModule extends Module {
 
@@ -94,6 +109,12 @@ public class SwitchingBusinessEntityModule extends Module {
      */
     private final boolean omitBusinessEnitityIds;
 
+    /**
+     * If set to true, then the business entities deserialized from their business id are collected
+     * and loaded with one query per entity class at the end of the read, see {@link DeferredBusinessEntityResolution}.
+     */
+    private final boolean deferredResolution;
+
     /**
      * Instantiates a new business id module and register the mapping.
      *
@@ -106,6 +127,23 @@ public class SwitchingBusinessEntityModule extends Module {
     public SwitchingBusinessEntityModule(final GeneralLoaderDao generalLoaderDao,
             final SwitchingAnnotationScanner switchingAnnotationScanner, final boolean enableBusinessIdModule,
             final boolean omitBusinessEnitityIds) {
+        this(generalLoaderDao, switchingAnnotationScanner, enableBusinessIdModule, omitBusinessEnitityIds, false);
+    }
+
+    /**
+     * Instantiates a new business id module and register the mapping.
+     *
+     * @param generalLoaderDao the general loader dao
+     * @param switchingAnnotationScanner the switching annotation scanner
+     * @param enableBusinessIdModule if true, then the {@link BusinessIdModule} become enabled too
+     * @param omitBusinessEnitityIds if true, then the fields id, hibernateId, businessIdValue and isNew are omitted
+     *        from ALL {@link BusinessEntity}s.
+     * @param deferredResolution if true, then the business entities deserialized from their business id are loaded
+     *        with one query per entity class at the end of the read
+     */
+    public SwitchingBusinessEntityModule(final GeneralLoaderDao generalLoaderDao,
+            final SwitchingAnnotationScanner switchingAnnotationScanner, final boolean enableBusinessIdModule,
+            final boolean omitBusinessEnitityIds, final boolean deferredResolution) {
         Check.notNullArgument(generalLoaderDao, "generalLoaderDao");
         Check.notNullArgument(switchingAnnotationScanner, "switchingAnnotationScanner");
 
@@ -113,6 +151,7 @@ public class SwitchingBusinessEntityModule extends Module {
         this.switchingAnnotationScanner = switchingAnnotationScanner;
         this.enableBusinessIdModule = enableBusinessIdModule;
         this.omitBusinessEnitityIds = omitBusinessEnitityIds;
+        this.deferredResolution = deferredResolution;
     }
 
     /**
@@ -144,6 +183,20 @@ public class SwitchingBusinessEntityModule extends Module {
         this(generalLoaderDao, BusinessEntitySerializationMode.ENTITY, true, true);
     }
 
+    /**
+     * The mode defined by the {@link BusinessEntityJsonSerialization} annotation at the given property.
+     *
+     * @param property the property - can be null
+     * @return the annotated mode, or null if the property is null or not annotated
+     */
+    static BusinessEntitySerializationMode annotatedMode(final BeanProperty property) {
+        if (property == null) {
+            return null;
+        }
+        BusinessEntityJsonSerialization annotation = property.getAnnotation(BusinessEntityJsonSerialization.class);
+        return annotation != null ? annotation.value() : null;
+    }
+
     @Override
     public String getModuleName() {
         return "SwitchingBusinessEntityModule";
@@ -166,8 +219,14 @@ public class SwitchingBusinessEntityModule extends Module {
 
         context.addBeanSerializerModifier(new SwitchingBusinessEntitySerializerModifier(this.switchingAnnotationScanner,
                 new BusinessEntityModule.BusinessEntityJsonSerializer()));
-        context.addBeanDeserializerModifier(
-                new SwitchingBusinessEntityDeserializerModfier(this.switchingAnnotationScanner, this.generalLoaderDao));
+        context.addBeanDeserializerModifier(new SwitchingBusinessEntityDeserializerModfier(
+                this.switchingAnnotationScanner,
+                this.generalLoaderDao,
+                this.deferredResolution));
+        if (this.deferredResolution) {
+            context.addBeanDeserializerModifier(
+                    new DeferredBusinessEntityResolution.ScopeModifier(this.generalLoaderDao));
+        }
 
         context.addKeySerializers(new BusinessEntityModule.BusinessEntityKeySerializers());
         context.addKeyDeserializers(new BusinessEntityModule.BusinessEntityKeyDeserializers(this.generalLoaderDao));
@@ -232,7 +291,8 @@ public class SwitchingBusinessEntityModule extends Module {
      * Jackson Serializer that switch between BusinessEntityJsonSerializer to serialize just the business ids,
      * and the normal {@code defaultSerializer} that serialize the complete entity.
      */
-    static class SwitchingBusinessEntityJsonSerializer<T extends BusinessEntity<T>> extends StdSerializer<T> {
+    static class SwitchingBusinessEntityJsonSerializer<T extends BusinessEntity<T>> extends StdSerializer<T>
+            implements ContextualSerializer, ResolvableSerializer {
 
         private static final long serialVersionUID = -6539439448441519263L;
 
@@ -245,6 +305,9 @@ public class SwitchingBusinessEntityModule extends Module {
         /** Serializer used for {@link BusinessEntitySerializationMode#ENTITY} to serialize the complete entity. */
         private final JsonSerializer<Object> defaultSerializer;
 
+        /** The mode bound by the annotation at the serialized property, or null if the mode is scanned per value. */
+        private final BusinessEntitySerializationMode propertyMode;
+
         /**
          * Instantiates a new switching business entity json serializer.
          *
@@ -257,6 +320,22 @@ public class SwitchingBusinessEntityModule extends Module {
                 final SwitchingAnnotationScanner switchingAnnotationScanner,
                 final BusinessEntityJsonSerializer businessEntityJsonSerializer,
                 final JsonSerializer<Object> defaultSerializer) {
+            this(beanClazz, switchingAnnotationScanner, businessEntityJsonSerializer, defaultSerializer, null);
+        }
+
+        /**
+         * Instantiates a new switching business entity json serializer.
+         *
+         * @param beanClazz   Nominal type supported, usually declared type of property for which serializer is used.
+         * @param switchingAnnotationScanner the switching annotation scanner
+         * @param businessEntityJsonSerializer the business entity json serializer
+         * @param defaultSerializer the default serializer
+         * @param propertyMode the mode bound to the property - null if the mode is scanned per value
+         */
+        SwitchingBusinessEntityJsonSerializer(final Class<T> beanClazz,
+                final SwitchingAnnotationScanner switchingAnnotationScanner,
+                final BusinessEntityJsonSerializer businessEntityJsonSerializer,
+                final JsonSerializer<Object> defaultSerializer, final BusinessEntitySerializationMode propertyMode) {
             super(beanClazz);
             Check.notNullArgument(switchingAnnotationScanner, "switchingAnnotationScanner");
             Check.notNullArgument(businessEntityJsonSerializer, "businessEntityJsonSerializer");
@@ -265,6 +344,47 @@ public class SwitchingBusinessEntityModule extends Module {
             this.switchingAnnotationScanner = switchingAnnotationScanner;
             this.businessEntityJsonSerializer = businessEntityJsonSerializer;
             this.defaultSerializer = defaultSerializer;
+            this.propertyMode = propertyMode;
+        }
+
+        /**
+         * The mode for the current value: the {@link #propertyMode} or else the mode scanned from the json context.
+         *
+         * @param jgen the generator
+         * @return the mode
+         */
+        private BusinessEntitySerializationMode mode(final JsonGenerator jgen) {
+            if (this.propertyMode != null) {
+                return this.propertyMode;
+            }
+            return this.switchingAnnotationScanner.getSwitchDefinition(jgen.getOutputContext());
+        }
+
+        @Override
+        public void resolve(final SerializerProvider provider) throws JsonMappingException {
+            if (this.defaultSerializer instanceof ResolvableSerializer) {
+                ((ResolvableSerializer) this.defaultSerializer).resolve(provider);
+            }
+        }
+
+        /**
+         * Bind the mode of the property annotation and contextualize the {@link #defaultSerializer}.
+         */
+        @SuppressWarnings("unchecked")
+        @Override
+        public JsonSerializer<?> createContextual(final SerializerProvider provider, final BeanProperty property)
+                throws JsonMappingException {
+            JsonSerializer<Object> contextualDefault = (JsonSerializer<Object>) provider
+                    .handleSecondaryContextualization(this.defaultSerializer, property);
+            BusinessEntitySerializationMode contextualMode = annotatedMode(property);
+            if ((contextualDefault == this.defaultSerializer) && (contextualMode == this.propertyMode)) {
+                return this;
+            }
+            return new SwitchingBusinessEntityJsonSerializer<>(handledType(),
+                    this.switchingAnnotationScanner,
+                    this.businessEntityJsonSerializer,
+                    contextualDefault,
+                    contextualMode);
         }
 
         /**
@@ -278,8 +398,7 @@ public class SwitchingBusinessEntityModule extends Module {
         public void serialize(final T businessEntity, final JsonGenerator jgen, final SerializerProvider provider)
                 throws IOException {
 
-            BusinessEntitySerializationMode mode = this.switchingAnnotationScanner
-                    .getSwitchDefinition(jgen.getOutputContext());
+            BusinessEntitySerializationMode mode = mode(jgen);
             switch (mode) {
             case BUSINESS_ID:
                 this.businessEntityJsonSerializer.serialize(businessEntity, jgen, provider);
@@ -306,6 +425,7 @@ public class SwitchingBusinessEntityModule extends Module {
         public JsonSerializer<T> unwrappingSerializer(final NameTransformer unwrapper) {
             Check.notNullArgument(unwrapper, "unwrapper");
 
+            JsonSerializer<Object> unwrappingDefaultSerializer = this.defaultSerializer.unwrappingSerializer(unwrapper);
             return new JsonSerializer<T>() {
                 @Override
                 public boolean isUnwrappingSerializer() {
@@ -316,8 +436,7 @@ public class SwitchingBusinessEntityModule extends Module {
                 public void serialize(final T businessEntity, final JsonGenerator jgen,
                         final SerializerProvider providers)
                         throws IOException {
-                    BusinessEntitySerializationMode mode = SwitchingBusinessEntityJsonSerializer.this.switchingAnnotationScanner
-                            .getSwitchDefinition(jgen.getOutputContext());
+                    BusinessEntitySerializationMode mode = SwitchingBusinessEntityJsonSerializer.this.mode(jgen);
                     switch (mode) {
                     case BUSINESS_ID:
                         jgen.writeFieldName("businessId");
@@ -325,8 +444,7 @@ public class SwitchingBusinessEntityModule extends Module {
                                 .serialize(businessEntity, jgen, providers);
                         return;
                     case ENTITY:
-                        SwitchingBusinessEntityJsonSerializer.this.defaultSerializer.unwrappingSerializer(unwrapper)
-                                .serialize(businessEntity, jgen, providers);
+                        unwrappingDefaultSerializer.serialize(businessEntity, jgen, providers);
                         return;
                     default:
                         throw new NotImplementedCaseException(mode);
@@ -351,13 +469,16 @@ public class SwitchingBusinessEntityModule extends Module {
 
         private final GeneralLoaderDao generalLoaderDao;
 
+        private final boolean deferredResolution;
+
         public SwitchingBusinessEntityDeserializerModfier(final SwitchingAnnotationScanner switchingAnnotationScanner,
-                final GeneralLoaderDao generalLoaderDao) {
+                final GeneralLoaderDao generalLoaderDao, final boolean deferredResolution) {
             Check.notNullArgument(generalLoaderDao, "generalLoaderDao");
             Check.notNullArgument(switchingAnnotationScanner, "switchingAnnotationScanner");
 
             this.switchingAnnotationScanner = switchingAnnotationScanner;
             this.generalLoaderDao = generalLoaderDao;
+            this.deferredResolution = deferredResolution;
         }
 
         @SuppressWarnings({ "rawtypes", "unchecked" })
@@ -368,7 +489,8 @@ public class SwitchingBusinessEntityModule extends Module {
                 return new SwitchingBusinessEntityDeserializer(beanDesc.getBeanClass(),
                         this.switchingAnnotationScanner,
                         new BusinessEntityModule.TypedBusinessEntityJsonDeserializer(beanDesc.getBeanClass(),
-                                this.generalLoaderDao),
+                                this.generalLoaderDao,
+                                this.deferredResolution),
                         deserializer);
             } else {
                 return deserializer;
@@ -381,7 +503,7 @@ public class SwitchingBusinessEntityModule extends Module {
      * and the normal {@code defaultSerializer} that deserialize the complete entity.
      */
     public static class SwitchingBusinessEntityDeserializer<T extends BusinessEntity<T>> extends StdDeserializer<T>
-            implements ResolvableDeserializer {
+            implements ResolvableDeserializer, ContextualDeserializer {
 
         private static final long serialVersionUID = 2217533520312959119L;
 
@@ -394,10 +516,20 @@ public class SwitchingBusinessEntityModule extends Module {
         /** Deerializer used for {@link BusinessEntitySerializationMode#ENTITY} to deserialize the complete entity. */
         private final JsonDeserializer<T> defaultDeserializer;
 
+        /** The mode bound by the annotation at the deserialized property, or null if the mode is scanned per value. */
+        private final BusinessEntitySerializationMode propertyMode;
+
         public SwitchingBusinessEntityDeserializer(final Class<T> beanClazz,
                 final SwitchingAnnotationScanner switchingAnnotationScanner,
                 final BusinessEntityModule.TypedBusinessEntityJsonDeserializer<T> typedBusinessEntityJsonDeserializer,
                 final JsonDeserializer<T> defaultDeserializer) {
+            this(beanClazz, switchingAnnotationScanner, typedBusinessEntityJsonDeserializer, defaultDeserializer, null);
+        }
+
+        SwitchingBusinessEntityDeserializer(final Class<T> beanClazz,
+                final SwitchingAnnotationScanner switchingAnnotationScanner,
+                final BusinessEntityModule.TypedBusinessEntityJsonDeserializer<T> typedBusinessEntityJsonDeserializer,
+                final JsonDeserializer<T> defaultDeserializer, final BusinessEntitySerializationMode propertyMode) {
             super(beanClazz);
             Check.notNullArgument(switchingAnnotationScanner, "switchingAnnotationScanner");
             Check.notNullArgument(typedBusinessEntityJsonDeserializer, "typedBusinessEntityJsonDeserializer");
@@ -406,6 +538,20 @@ public class SwitchingBusinessEntityModule extends Module {
             this.switchingAnnotationScanner = switchingAnnotationScanner;
             this.typedBusinessEntityJsonDeserializer = typedBusinessEntityJsonDeserializer;
             this.defaultDeserializer = defaultDeserializer;
+            this.propertyMode = propertyMode;
+        }
+
+        /**
+         * The mode for the current value: the {@link #propertyMode} or else the mode scanned from the json context.
+         *
+         * @param jp the parser
+         * @return the mode
+         */
+        private BusinessEntitySerializationMode mode(final JsonParser jp) {
+            if (this.propertyMode != null) {
+                return this.propertyMode;
+            }
+            return this.switchingAnnotationScanner.getSwitchDefinition(jp.getParsingContext());
         }
 
         /**
@@ -420,8 +566,7 @@ public class SwitchingBusinessEntityModule extends Module {
         public T deserialize(final JsonParser jp, final DeserializationContext ctxt)
                 throws IOException, JsonProcessingException {
 
-            BusinessEntitySerializationMode mode = this.switchingAnnotationScanner
-                    .getSwitchDefinition(jp.getParsingContext());
+            BusinessEntitySerializationMode mode = mode(jp);
             switch (mode) {
             case BUSINESS_ID: {
                 return this.typedBusinessEntityJsonDeserializer.deserialize(jp, ctxt);
@@ -449,13 +594,14 @@ public class SwitchingBusinessEntityModule extends Module {
         public JsonDeserializer<T> unwrappingDeserializer(final NameTransformer unwrapper) {
             Check.notNullArgument(unwrapper, "unwrapper");
 
+            JsonDeserializer<T> unwrappingDefaultDeserializer = this.defaultDeserializer
+                    .unwrappingDeserializer(unwrapper);
             return new JsonDeserializer<T>() {
                 @Override
                 public T deserialize(final JsonParser jp, final DeserializationContext ctxt)
                         throws IOException, JsonProcessingException {
 
-                    BusinessEntitySerializationMode mode = SwitchingBusinessEntityDeserializer.this.switchingAnnotationScanner
-                            .getSwitchDefinition(jp.getParsingContext());
+                    BusinessEntitySerializationMode mode = SwitchingBusinessEntityDeserializer.this.mode(jp);
                     switch (mode) {
                     case BUSINESS_ID:
                         if (!jp.hasToken(JsonToken.START_OBJECT)) {
@@ -464,14 +610,14 @@ public class SwitchingBusinessEntityModule extends Module {
                         for (String fieldName = jp.nextFieldName(); fieldName != null; fieldName = jp.nextFieldName()) {
                             if (fieldName.equals("businessId")) {
                                 jp.nextToken();
+                                /* the unwrapped value can not be patched later, so it is loaded immediately */
                                 return SwitchingBusinessEntityDeserializer.this.typedBusinessEntityJsonDeserializer
-                                        .deserialize(jp, ctxt);
+                                        .immediate().deserialize(jp, ctxt);
                             }
                         }
                         return null;
                     case ENTITY:
-                        return SwitchingBusinessEntityDeserializer.this.defaultDeserializer
-                                .unwrappingDeserializer(unwrapper).deserialize(jp, ctxt);
+                        return unwrappingDefaultDeserializer.deserialize(jp, ctxt);
                     default:
                         throw new NotImplementedCaseException(mode);
                     }
@@ -484,6 +630,43 @@ public class SwitchingBusinessEntityModule extends Module {
             ((ResolvableDeserializer) this.defaultDeserializer).resolve(ctxt);
         }
 
+        /**
+         * Bind the mode of the property annotation and contextualize the {@link #defaultDeserializer} and the
+         * {@link #typedBusinessEntityJsonDeserializer} (it loads constructor parameters immediately,
+         * when the deferred resolution is enabled).
+         */
+        @SuppressWarnings("unchecked")
+        @Override
+        public JsonDeserializer<?> createContextual(final DeserializationContext ctxt, final BeanProperty property)
+                throws JsonMappingException {
+            TypedBusinessEntityJsonDeserializer<T> contextualTyped =
+                    (TypedBusinessEntityJsonDeserializer<T>) this.typedBusinessEntityJsonDeserializer
+                            .createContextual(ctxt, property);
+            JsonDeserializer<T> contextualDefault = (JsonDeserializer<T>) ctxt.handleSecondaryContextualization(
+                    this.defaultDeserializer,
+                    property,
+                    ctxt.constructType(handledType()));
+            BusinessEntitySerializationMode contextualMode = annotatedMode(property);
+            if ((contextualTyped == this.typedBusinessEntityJsonDeserializer)
+                    && (contextualDefault == this.defaultDeserializer) && (contextualMode == this.propertyMode)) {
+                return this;
+            }
+            return new SwitchingBusinessEntityDeserializer<>((Class<T>) handledType(),
+                    this.switchingAnnotationScanner,
+                    contextualTyped,
+                    contextualDefault,
+                    contextualMode);
+        }
+
+        /**
+         * The object id reader of the {@link #typedBusinessEntityJsonDeserializer}, that is needed for the deferred
+         * resolution.
+         */
+        @Override
+        public ObjectIdReader getObjectIdReader() {
+            return this.typedBusinessEntityJsonDeserializer.getObjectIdReader();
+        }
+
     }
 
 }
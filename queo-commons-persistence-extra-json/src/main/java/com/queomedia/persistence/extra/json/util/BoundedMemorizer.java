@@ -0,0 +1,537 @@
+package com.queomedia.persistence.extra.json.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import com.queomedia.commons.checks.Check;
+
+/**
+ * A {@link Memorizer} with a bounded cache.
+ *
+ * <p>
+ * Like the {@link Memorizer} every value is computed only once (concurrent requests for the same argument wait for
+ * the one computation), but:
+ * </p>
+ * <ul>
+ * <li>the cache is limited by a maximum size, or by a maximum weight (computed by a {@link Weigher}).
+ * If the limit is exceeded, then the least recently used entries are evicted,</li>
+ * <li>the entries can expire a fixed duration after they are computed,</li>
+ * <li>the arguments can be hold by weak references (compared by identity, like {@link Class} instances),
+ * so that the entries are removed when the argument is garbage collected
+ * (as long as the value does not reference its argument - like in a {@link java.util.WeakHashMap}),</li>
+ * <li>failed computations are not cached, the next request for that argument starts a new computation,</li>
+ * <li>hit, miss, load time and eviction statistics are recorded ({@link #stats()}).</li>
+ * </ul>
+ *
+ * <p>
+ * The eviction scans the cache for the least recently used entry, so it is intended for caches with a moderate
+ * size and a high hit rate (like class keyed metadata).
+ * </p>
+ *
+ * @param <A> the generic type for the argument
+ * @param <V> the generic type for the calculated value.
+ */
+public class BoundedMemorizer<A, V> implements Computable<A, V> {
+
+    /**
+     * Calculate the weight of a cache entry.
+     *
+     * @param <A> the generic type for the argument
+     * @param <V> the generic type for the calculated value.
+     */
+    @FunctionalInterface
+    public interface Weigher<A, V> {
+
+        /**
+         * The weight of the entry.
+         *
+         * @param argument the argument
+         * @param value the computed value
+         * @return the weight - must not be negative
+         */
+        int weigh(A argument, V value);
+    }
+
+    /** The cache, the keys are the arguments, or {@link WeakKey}s if the arguments are weak referenced. */
+    private final ConcurrentMap<Object, Entry<V>> cache = new ConcurrentHashMap<>();
+
+    /** The computable. */
+    private final Computable<A, V> computable;
+
+    /** The max weight (or size) of all entries. */
+    private final long maximumWeight;
+
+    /** The weigher. */
+    private final Weigher<? super A, ? super V> weigher;
+
+    /** The time after which an entry expires, in nanoseconds - 0 if the entries do not expire. */
+    private final long expireAfterWriteNanos;
+
+    /** The queue of collected arguments - null if the arguments are not weak referenced. */
+    private final ReferenceQueue<A> collectedKeys;
+
+    /** The nano time source. */
+    private final LongSupplier ticker;
+
+    /** The weight of all computed entries. */
+    private final AtomicLong totalWeight = new AtomicLong();
+
+    /** Lock to let only one thread evict entries. */
+    private final Object evictionLock = new Object();
+
+    /** The hit count. */
+    private final LongAdder hitCount = new LongAdder();
+
+    /** The miss count. */
+    private final LongAdder missCount = new LongAdder();
+
+    /** The load success count. */
+    private final LongAdder loadSuccessCount = new LongAdder();
+
+    /** The load failure count. */
+    private final LongAdder loadFailureCount = new LongAdder();
+
+    /** The total load time nanos. */
+    private final LongAdder totalLoadTimeNanos = new LongAdder();
+
+    /** The eviction count. */
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Instantiates a new bounded memorizer with a maximum number of entries, without expiration and strong
+     * referenced arguments.
+     *
+     * @param computable the computable
+     * @param maximumSize the max number of entries
+     */
+    public BoundedMemorizer(final Computable<A, V> computable, final long maximumSize) {
+        this(computable, maximumSize, (argument, value) -> 1, null, false);
+    }
+
+    /**
+     * Instantiates a new bounded memorizer.
+     *
+     * @param computable the computable
+     * @param maximumWeight the max weight of all entries
+     * @param weigher the weigher that calculate the weight of each entry
+     * @param expireAfterWrite the time after which an entry expires - null if the entries do not expire
+     * @param weakKeys if true, then the arguments are weak referenced and compared by identity
+     */
+    public BoundedMemorizer(final Computable<A, V> computable, final long maximumWeight,
+            final Weigher<? super A, ? super V> weigher, final Duration expireAfterWrite, final boolean weakKeys) {
+        this(computable, maximumWeight, weigher, expireAfterWrite, weakKeys, System::nanoTime);
+    }
+
+    /**
+     * Instantiates a new bounded memorizer with a custom nano time source.
+     *
+     * @param computable the computable
+     * @param maximumWeight the max weight of all entries
+     * @param weigher the weigher that calculate the weight of each entry
+     * @param expireAfterWrite the time after which an entry expires - null if the entries do not expire
+     * @param weakKeys if true, then the arguments are weak referenced and compared by identity
+     * @param ticker the nano time source
+     */
+    BoundedMemorizer(final Computable<A, V> computable, final long maximumWeight,
+            final Weigher<? super A, ? super V> weigher, final Duration expireAfterWrite, final boolean weakKeys,
+            final LongSupplier ticker) {
+        Check.notNullArgument(computable, "computable");
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("maximumWeight must not be negative, but is " + maximumWeight);
+        }
+        Check.notNullArgument(weigher, "weigher");
+        if (expireAfterWrite != null && (expireAfterWrite.isNegative() || expireAfterWrite.isZero())) {
+            throw new IllegalArgumentException("expireAfterWrite must be positive, but is " + expireAfterWrite);
+        }
+        Check.notNullArgument(ticker, "ticker");
+
+        this.computable = computable;
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        this.expireAfterWriteNanos = (expireAfterWrite != null) ? expireAfterWrite.toNanos() : 0;
+        this.collectedKeys = weakKeys ? new ReferenceQueue<>() : null;
+        this.ticker = ticker;
+    }
+
+    @Override
+    public V compute(final A argument) throws InterruptedException {
+        Check.notNullArgument(argument, "argument");
+
+        removeCollectedKeys();
+        while (true) {
+            Entry<V> entry = this.cache.get(lookupKey(argument));
+            if (entry != null && isExpired(entry)) {
+                if (remove(entry)) {
+                    this.evictionCount.increment();
+                }
+                entry = null;
+            }
+
+            if (entry == null) {
+                Entry<V> newEntry = new Entry<>(storeKey(argument),
+                        new FutureTask<>(() -> this.computable.compute(argument)),
+                        this.ticker.getAsLong());
+                entry = this.cache.putIfAbsent(newEntry.key, newEntry);
+                if (entry == null) {
+                    entry = newEntry;
+                    this.missCount.increment();
+                    load(argument, newEntry);
+                } else {
+                    this.hitCount.increment();
+                }
+            } else {
+                this.hitCount.increment();
+            }
+
+            try {
+                V value = entry.future.get();
+                entry.lastAccess = this.ticker.getAsLong();
+                return value;
+            } catch (CancellationException e) {
+                remove(entry);
+            } catch (ExecutionException e) {
+                throw launderThrowable(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Run the computation of the new entry, and then account its weight or remove it if the computation failed.
+     *
+     * @param argument the argument
+     * @param entry the new entry
+     * @throws InterruptedException because of threading.
+     */
+    private void load(final A argument, final Entry<V> entry) throws InterruptedException {
+        long start = this.ticker.getAsLong();
+        entry.future.run();
+        long end = this.ticker.getAsLong();
+        this.totalLoadTimeNanos.add(end - start);
+
+        V value;
+        try {
+            value = entry.future.get();
+        } catch (ExecutionException | CancellationException e) {
+            this.loadFailureCount.increment();
+            remove(entry);
+            return;
+        }
+        this.loadSuccessCount.increment();
+
+        int weight = this.weigher.weigh(argument, value);
+        if (weight < 0) {
+            remove(entry);
+            throw new IllegalStateException("negative weight " + weight + " for argument " + argument);
+        }
+        entry.writeTime = end;
+        entry.loaded(weight, this.totalWeight);
+        evictIfNeeded();
+    }
+
+    /**
+     * Evict the least recently used entries (expired entries first) until the total weight is below the limit.
+     */
+    private void evictIfNeeded() {
+        if (this.totalWeight.get() <= this.maximumWeight) {
+            return;
+        }
+        synchronized (this.evictionLock) {
+            while (this.totalWeight.get() > this.maximumWeight) {
+                Entry<V> victim = null;
+                for (Entry<V> entry : this.cache.values()) {
+                    if (entry.isLoaded()) {
+                        if (isExpired(entry)) {
+                            victim = entry;
+                            break;
+                        }
+                        if (victim == null || entry.lastAccess < victim.lastAccess) {
+                            victim = entry;
+                        }
+                    }
+                }
+                if (victim == null) {
+                    return;
+                }
+                if (remove(victim)) {
+                    this.evictionCount.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove the entries whose arguments are garbage collected.
+     */
+    private void removeCollectedKeys() {
+        if (this.collectedKeys == null) {
+            return;
+        }
+        Reference<? extends A> collected;
+        while ((collected = this.collectedKeys.poll()) != null) {
+            Entry<V> entry = this.cache.get(collected);
+            if (entry != null && remove(entry)) {
+                this.evictionCount.increment();
+            }
+        }
+    }
+
+    /**
+     * Check if the entry is expired.
+     *
+     * @param entry the entry
+     * @return true, if expired
+     */
+    private boolean isExpired(final Entry<V> entry) {
+        return (this.expireAfterWriteNanos > 0) && entry.isLoaded()
+                && (this.ticker.getAsLong() - entry.writeTime >= this.expireAfterWriteNanos);
+    }
+
+    /**
+     * Remove the entry from the cache (if it is still cached) and release its weight.
+     *
+     * @param entry the entry
+     * @return true, if removed by this invocation
+     */
+    private boolean remove(final Entry<V> entry) {
+        if (this.cache.remove(entry.key, entry)) {
+            entry.removed(this.totalWeight);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * The key used to find the entry of the argument.
+     *
+     * @param argument the argument
+     * @return the key
+     */
+    private Object lookupKey(final A argument) {
+        return (this.collectedKeys != null) ? new LookupKey(argument) : argument;
+    }
+
+    /**
+     * The key used to store the entry of the argument.
+     *
+     * @param argument the argument
+     * @return the key
+     */
+    private Object storeKey(final A argument) {
+        return (this.collectedKeys != null) ? new WeakKey<>(argument, this.collectedKeys) : argument;
+    }
+
+    /**
+     * If the Throwable (parameter) is an Error, throw it; if it is a RuntimeException return it,
+     * otherwise throw an IllegalArgumentException.
+     * @param throwable the Throwable
+     * @return the given Throwable if it is a {@link RuntimeException}.
+     */
+    private static RuntimeException launderThrowable(final Throwable throwable) {
+        Check.notNullArgument(throwable, "throwable");
+
+        if (throwable instanceof RuntimeException) {
+            return (RuntimeException) throwable;
+        } else if (throwable instanceof Error) {
+            throw (Error) throwable;
+        } else {
+            throw new IllegalArgumentException("Not checked", throwable);
+        }
+    }
+
+    /**
+     * The number of items in the cache (including the currently computed ones).
+     * @return cache size.
+     */
+    public int size() {
+        return this.cache.size();
+    }
+
+    /**
+     * The weight of all computed items in the cache.
+     * @return the total weight.
+     */
+    public long weight() {
+        return this.totalWeight.get();
+    }
+
+    /**
+     * A snapshot of the statistics.
+     * @return the statistics.
+     */
+    public MemorizerStats stats() {
+        return new MemorizerStats(this.hitCount.sum(),
+                this.missCount.sum(),
+                this.loadSuccessCount.sum(),
+                this.loadFailureCount.sum(),
+                this.totalLoadTimeNanos.sum(),
+                this.evictionCount.sum());
+    }
+
+    /**
+     * A cache entry.
+     *
+     * @param <V> the generic type for the calculated value.
+     */
+    private static final class Entry<V> {
+
+        /** The key of this entry in the cache. */
+        private final Object key;
+
+        /** The computation. */
+        private final FutureTask<V> future;
+
+        /** The (nano) time of the last access. */
+        private volatile long lastAccess;
+
+        /** The (nano) time when the computation was finished. */
+        private volatile long writeTime;
+
+        /** The weight, valid if {@link #counted}. */
+        private int weight;
+
+        /** True if the weight is added to the total weight. */
+        private boolean counted;
+
+        /** True if the entry is removed from the cache. */
+        private boolean removed;
+
+        /**
+         * Instantiates a new entry.
+         *
+         * @param key the key
+         * @param future the computation
+         * @param now the current nano time
+         */
+        Entry(final Object key, final FutureTask<V> future, final long now) {
+            this.key = key;
+            this.future = future;
+            this.lastAccess = now;
+        }
+
+        /**
+         * Check if the computation is finished successful and the entry is still cached.
+         *
+         * @return true, if loaded
+         */
+        synchronized boolean isLoaded() {
+            return this.counted;
+        }
+
+        /**
+         * Add the weight of the computed entry to the total weight, if it is not already removed.
+         *
+         * @param entryWeight the weight
+         * @param totalWeight the total weight
+         */
+        synchronized void loaded(final int entryWeight, final AtomicLong totalWeight) {
+            if (!this.removed) {
+                this.weight = entryWeight;
+                this.counted = true;
+                totalWeight.addAndGet(entryWeight);
+            }
+        }
+
+        /**
+         * Mark the entry as removed and subtract its weight from the total weight.
+         *
+         * @param totalWeight the total weight
+         */
+        synchronized void removed(final AtomicLong totalWeight) {
+            this.removed = true;
+            if (this.counted) {
+                this.counted = false;
+                totalWeight.addAndGet(-this.weight);
+            }
+        }
+    }
+
+    /**
+     * The stored key for weak referenced arguments, it is compared by identity of the argument.
+     *
+     * @param <A> the generic type for the argument
+     */
+    private static final class WeakKey<A> extends WeakReference<A> {
+
+        /** The identity hash code of the argument. */
+        private final int hash;
+
+        /**
+         * Instantiates a new weak key.
+         *
+         * @param argument the argument
+         * @param queue the queue of collected arguments
+         */
+        WeakKey(final A argument, final ReferenceQueue<A> queue) {
+            super(argument, queue);
+            this.hash = System.identityHashCode(argument);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            Object argument = get();
+            if (argument == null) {
+                return false;
+            }
+            if (obj instanceof WeakKey) {
+                return ((WeakKey<?>) obj).get() == argument;
+            }
+            if (obj instanceof LookupKey) {
+                return ((LookupKey) obj).argument == argument;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The key to find the entry of a weak referenced argument, it is compared by identity of the argument.
+     */
+    private static final class LookupKey {
+
+        /** The argument. */
+        private final Object argument;
+
+        /**
+         * Instantiates a new lookup key.
+         *
+         * @param argument the argument
+         */
+        LookupKey(final Object argument) {
+            this.argument = argument;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this.argument);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (obj instanceof WeakKey) {
+                return ((WeakKey<?>) obj).get() == this.argument;
+            }
+            if (obj instanceof LookupKey) {
+                return ((LookupKey) obj).argument == this.argument;
+            }
+            return false;
+        }
+    }
+
+}
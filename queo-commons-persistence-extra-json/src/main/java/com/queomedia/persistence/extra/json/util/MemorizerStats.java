@@ -0,0 +1,97 @@
+package com.queomedia.persistence.extra.json.util;
+
+/**
+ * Immutable snapshot of the statistics of a {@link BoundedMemorizer}.
+ */
+public final class MemorizerStats {
+
+    /** The number of computations that returned a cached (or currently computed) value. */
+    private final long hitCount;
+
+    /** The number of computations that started a new computation. */
+    private final long missCount;
+
+    /** The number of successful computations. */
+    private final long loadSuccessCount;
+
+    /** The number of failed computations. */
+    private final long loadFailureCount;
+
+    /** The total time spent in computations, in nanoseconds. */
+    private final long totalLoadTimeNanos;
+
+    /** The number of evicted entries (because of size, weight, expiration or collected keys). */
+    private final long evictionCount;
+
+    /**
+     * Instantiates a new memorizer stats.
+     *
+     * @param hitCount the hit count
+     * @param missCount the miss count
+     * @param loadSuccessCount the load success count
+     * @param loadFailureCount the load failure count
+     * @param totalLoadTimeNanos the total load time in nanoseconds
+     * @param evictionCount the eviction count
+     */
+    public MemorizerStats(final long hitCount, final long missCount, final long loadSuccessCount,
+            final long loadFailureCount, final long totalLoadTimeNanos, final long evictionCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTimeNanos = totalLoadTimeNanos;
+        this.evictionCount = evictionCount;
+    }
+
+    public long getHitCount() {
+        return this.hitCount;
+    }
+
+    public long getMissCount() {
+        return this.missCount;
+    }
+
+    public long getLoadSuccessCount() {
+        return this.loadSuccessCount;
+    }
+
+    public long getLoadFailureCount() {
+        return this.loadFailureCount;
+    }
+
+    public long getTotalLoadTimeNanos() {
+        return this.totalLoadTimeNanos;
+    }
+
+    public long getEvictionCount() {
+        return this.evictionCount;
+    }
+
+    /**
+     * The ratio of hits to all requests.
+     *
+     * @return the hit rate - 1.0 if there was no request
+     */
+    public double getHitRate() {
+        long requestCount = this.hitCount + this.missCount;
+        return (requestCount == 0) ? 1.0 : (double) this.hitCount / requestCount;
+    }
+
+    /**
+     * The average time spent in one computation.
+     *
+     * @return the average load penalty in nanoseconds - 0 if there was no computation
+     */
+    public double getAverageLoadPenaltyNanos() {
+        long loadCount = this.loadSuccessCount + this.loadFailureCount;
+        return (loadCount == 0) ? 0.0 : (double) this.totalLoadTimeNanos / loadCount;
+    }
+
+    @Override
+    public String toString() {
+        return "MemorizerStats [hitCount=" + this.hitCount + ", missCount=" + this.missCount + ", loadSuccessCount="
+                + this.loadSuccessCount + ", loadFailureCount=" + this.loadFailureCount + ", totalLoadTimeNanos="
+                + this.totalLoadTimeNanos + ", evictionCount=" + this.evictionCount + "]";
+    }
+
+}
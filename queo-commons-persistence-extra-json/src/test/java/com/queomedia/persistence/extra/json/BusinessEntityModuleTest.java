@@ -2,8 +2,10 @@ package com.queomedia.persistence.extra.json;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,9 +18,13 @@ import org.junit.Test;
 import org.skyscreamer.jsonassert.JSONAssert;
 import org.skyscreamer.jsonassert.JSONCompareMode;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.queomedia.commons.exceptions.NotFoundRuntimeException;
 import com.queomedia.persistence.BusinessEntity;
 import com.queomedia.persistence.BusinessId;
 import com.queomedia.persistence.GeneralLoaderDao;
@@ -342,4 +348,325 @@ public class BusinessEntityModuleTest {
         assertThat(result).containsExactly(element1, element2);
     }
 
+    /**
+     * Scenario: deserialize a list of business ids with deferred resolution,
+     * all entities are loaded with one batch query instead of one query per entity.
+     *
+     * @throws Exception - no exception should not been thrown in this test case
+     */
+    @Test
+    public void testDeserializerForCollection_deferredResolution() throws Exception {
+        DemoBusinessEntity element1 = new DemoBusinessEntity(new BusinessId<>(123));
+        DemoBusinessEntity element2 = new DemoBusinessEntity(new BusinessId<>(456));
+
+        // @formatter:off
+        final String jsonString =
+                   "{'list': ['123', '456', '123']}".replace('\'', '"');
+        // @formatter:on
+
+        final GeneralLoaderDao generalLoaderDao = this.context.mock(GeneralLoaderDao.class);
+        ObjectMapper mapper = new ObjectMapper();
+        this.context.checking(new Expectations() {
+            {
+                oneOf(generalLoaderDao).getByBusinessIds(
+                        Arrays.asList(element1.getBusinessId(), element2.getBusinessId()),
+                        DemoBusinessEntity.class);
+                will(returnValue(Arrays.asList(element1, element2)));
+            }
+        });
+        mapper.registerModule(new BusinessEntityModule(generalLoaderDao, true));
+
+        /* when: using jackson with the BussinessEntiyModule to deserialize to a list of Business entity */
+        ListEntityKeyContainer result = mapper.readValue(jsonString, ListEntityKeyContainer.class);
+
+        /* then: the references are patched in the original order */
+        assertThat(result.getList()).containsExactly(element1, element2, element1);
+    }
+
+    public static class NestedContainer {
+        private DemoBusinessEntity entity;
+
+        private ListEntityKeyContainer nested;
+
+        public DemoBusinessEntity getEntity() {
+            return this.entity;
+        }
+
+        public void setEntity(final DemoBusinessEntity entity) {
+            this.entity = entity;
+        }
+
+        public ListEntityKeyContainer getNested() {
+            return this.nested;
+        }
+
+        public void setNested(final ListEntityKeyContainer nested) {
+            this.nested = nested;
+        }
+
+    }
+
+    /**
+     * Scenario: deserialize business ids in nested beans with deferred resolution,
+     * the references of all nesting levels are loaded with one batch query.
+     *
+     * @throws Exception - no exception should not been thrown in this test case
+     */
+    @Test
+    public void testDeserializerForNestedBean_deferredResolution() throws Exception {
+        DemoBusinessEntity element1 = new DemoBusinessEntity(new BusinessId<>(123));
+        DemoBusinessEntity element2 = new DemoBusinessEntity(new BusinessId<>(456));
+
+        // @formatter:off
+        final String jsonString =
+                   "{'entity': '123', 'nested': {'list': ['456', '123']}}".replace('\'', '"');
+        // @formatter:on
+
+        final GeneralLoaderDao generalLoaderDao = this.context.mock(GeneralLoaderDao.class);
+        ObjectMapper mapper = new ObjectMapper();
+        this.context.checking(new Expectations() {
+            {
+                oneOf(generalLoaderDao).getByBusinessIds(
+                        Arrays.asList(element1.getBusinessId(), element2.getBusinessId()),
+                        DemoBusinessEntity.class);
+                will(returnValue(Arrays.asList(element1, element2)));
+            }
+        });
+        mapper.registerModule(new BusinessEntityModule(generalLoaderDao, true));
+
+        NestedContainer result = mapper.readValue(jsonString, NestedContainer.class);
+
+        assertThat(result.getEntity()).isSameAs(element1);
+        assertThat(result.getNested().getList()).containsExactly(element2, element1);
+    }
+
+    public static class MapEntityValueContainer {
+        private Map<String, DemoBusinessEntity> map = new HashMap<>();
+
+        public Map<String, DemoBusinessEntity> getMap() {
+            return this.map;
+        }
+
+        public void setMap(final Map<String, DemoBusinessEntity> map) {
+            this.map = map;
+        }
+
+    }
+
+    /**
+     * Scenario: deserialize a map with business entity values with deferred resolution,
+     * the values are loaded with one batch query.
+     *
+     * @throws Exception - no exception should not been thrown in this test case
+     */
+    @Test
+    public void testDeserializerForBusinessEntityValue_deferredResolution() throws Exception {
+        DemoBusinessEntity element1 = new DemoBusinessEntity(new BusinessId<>(123));
+        DemoBusinessEntity element2 = new DemoBusinessEntity(new BusinessId<>(456));
+
+        // @formatter:off
+        final String jsonString =
+                   "{'map': {'a': '123', 'b': '456'}}".replace('\'', '"');
+        // @formatter:on
+
+        final GeneralLoaderDao generalLoaderDao = this.context.mock(GeneralLoaderDao.class);
+        ObjectMapper mapper = new ObjectMapper();
+        this.context.checking(new Expectations() {
+            {
+                oneOf(generalLoaderDao).getByBusinessIds(
+                        Arrays.asList(element1.getBusinessId(), element2.getBusinessId()),
+                        DemoBusinessEntity.class);
+                will(returnValue(Arrays.asList(element1, element2)));
+            }
+        });
+        mapper.registerModule(new BusinessEntityModule(generalLoaderDao, true));
+
+        MapEntityValueContainer result = mapper.readValue(jsonString, MapEntityValueContainer.class);
+
+        assertThat(result.getMap()).containsEntry("a", element1).containsEntry("b", element2).hasSize(2);
+    }
+
+    /**
+     * Scenario: deserialize a map with business entity keys with deferred resolution,
+     * the keys are loaded immediately, because a map key can not be patched afterwards.
+     *
+     * @throws Exception - no exception should not been thrown in this test case
+     */
+    @Test
+    public void testDeserializerForBusinessEntityKey_deferredResolution() throws Exception {
+        DemoBusinessEntity element1 = new DemoBusinessEntity(new BusinessId<>(123));
+        DemoBusinessEntity element2 = new DemoBusinessEntity(new BusinessId<>(456));
+
+        // @formatter:off
+        final String jsonString =
+                   "{'map': {'123': 1, '456': 2}}".replace('\'', '"');
+        // @formatter:on
+
+        final GeneralLoaderDao generalLoaderDao = this.context.mock(GeneralLoaderDao.class);
+        ObjectMapper mapper = new ObjectMapper();
+        this.context.checking(new Expectations() {
+            {
+                oneOf(generalLoaderDao).getByBusinessId(element1.getBusinessId(), DemoBusinessEntity.class);
+                will(returnValue(element1));
+
+                oneOf(generalLoaderDao).getByBusinessId(element2.getBusinessId(), DemoBusinessEntity.class);
+                will(returnValue(element2));
+            }
+        });
+        mapper.registerModule(new BusinessEntityModule(generalLoaderDao, true));
+
+        MapEntityKeyContainer result = mapper.readValue(jsonString, MapEntityKeyContainer.class);
+
+        assertThat(result.getMap()).containsEntry(element1, 1).containsEntry(element2, 2).hasSize(2);
+    }
+
+    public static class CreatorContainer {
+        private final DemoBusinessEntity entity;
+
+        private final List<DemoBusinessEntity> list;
+
+        @JsonCreator
+        public CreatorContainer(@JsonProperty("entity") final DemoBusinessEntity entity,
+                @JsonProperty("list") final List<DemoBusinessEntity> list) {
+            this.entity = entity;
+            this.list = list;
+        }
+
+        public DemoBusinessEntity getEntity() {
+            return this.entity;
+        }
+
+        public List<DemoBusinessEntity> getList() {
+            return this.list;
+        }
+
+    }
+
+    /**
+     * Scenario: deserialize a bean with creator parameters with deferred resolution,
+     * a business entity creator parameter is loaded immediately (the creator needs the entity),
+     * the elements of a list creator parameter are still loaded with one batch query.
+     *
+     * @throws Exception - no exception should not been thrown in this test case
+     */
+    @Test
+    public void testDeserializerForCreatorParameter_deferredResolution() throws Exception {
+        DemoBusinessEntity element1 = new DemoBusinessEntity(new BusinessId<>(123));
+        DemoBusinessEntity element2 = new DemoBusinessEntity(new BusinessId<>(456));
+        DemoBusinessEntity element3 = new DemoBusinessEntity(new BusinessId<>(789));
+
+        // @formatter:off
+        final String jsonString =
+                   "{'entity': '123', 'list': ['456', '789']}".replace('\'', '"');
+        // @formatter:on
+
+        final GeneralLoaderDao generalLoaderDao = this.context.mock(GeneralLoaderDao.class);
+        ObjectMapper mapper = new ObjectMapper();
+        this.context.checking(new Expectations() {
+            {
+                oneOf(generalLoaderDao).getByBusinessId(element1.getBusinessId(), DemoBusinessEntity.class);
+                will(returnValue(element1));
+
+                oneOf(generalLoaderDao).getByBusinessIds(
+                        Arrays.asList(element2.getBusinessId(), element3.getBusinessId()),
+                        DemoBusinessEntity.class);
+                will(returnValue(Arrays.asList(element2, element3)));
+            }
+        });
+        mapper.registerModule(new BusinessEntityModule(generalLoaderDao, true));
+
+        CreatorContainer result = mapper.readValue(jsonString, CreatorContainer.class);
+
+        assertThat(result.getEntity()).isSameAs(element1);
+        assertThat(result.getList()).containsExactly(element2, element3);
+    }
+
+    public static class ArrayContainer {
+        private DemoBusinessEntity[] array;
+
+        public DemoBusinessEntity[] getArray() {
+            return this.array;
+        }
+
+        public void setArray(final DemoBusinessEntity[] array) {
+            this.array = array;
+        }
+
+    }
+
+    /**
+     * Scenario: deserialize an array of business ids with deferred resolution,
+     * the elements are loaded immediately, because Jackson copies the elements into the array.
+     *
+     * @throws Exception - no exception should not been thrown in this test case
+     */
+    @Test
+    public void testDeserializerForArray_deferredResolution() throws Exception {
+        DemoBusinessEntity element1 = new DemoBusinessEntity(new BusinessId<>(123));
+        DemoBusinessEntity element2 = new DemoBusinessEntity(new BusinessId<>(456));
+
+        // @formatter:off
+        final String jsonString =
+                   "{'array': ['123', '456']}".replace('\'', '"');
+        // @formatter:on
+
+        final GeneralLoaderDao generalLoaderDao = this.context.mock(GeneralLoaderDao.class);
+        ObjectMapper mapper = new ObjectMapper();
+        this.context.checking(new Expectations() {
+            {
+                oneOf(generalLoaderDao).getByBusinessId(element1.getBusinessId(), DemoBusinessEntity.class);
+                will(returnValue(element1));
+
+                oneOf(generalLoaderDao).getByBusinessId(element2.getBusinessId(), DemoBusinessEntity.class);
+                will(returnValue(element2));
+            }
+        });
+        mapper.registerModule(new BusinessEntityModule(generalLoaderDao, true));
+
+        ArrayContainer result = mapper.readValue(jsonString, ArrayContainer.class);
+
+        assertThat(result.getArray()).containsExactly(element1, element2);
+    }
+
+    /**
+     * Scenario: deserialize a not existing business id with and without deferred resolution,
+     * both fail the same way: with a {@link JsonMappingException} caused by the {@link NotFoundRuntimeException}.
+     *
+     * @throws Exception - only the expected exceptions should be thrown in this test case
+     */
+    @Test
+    public void testDeserializerForCollection_notFound() throws Exception {
+        final BusinessId<DemoBusinessEntity> businessId = new BusinessId<>(123);
+
+        // @formatter:off
+        final String jsonString =
+                   "{'list': ['123']}".replace('\'', '"');
+        // @formatter:on
+
+        final GeneralLoaderDao immediateLoaderDao = this.context.mock(GeneralLoaderDao.class, "immediate");
+        final GeneralLoaderDao deferredLoaderDao = this.context.mock(GeneralLoaderDao.class, "deferred");
+        this.context.checking(new Expectations() {
+            {
+                oneOf(immediateLoaderDao).getByBusinessId(businessId, DemoBusinessEntity.class);
+                will(throwException(new NotFoundRuntimeException("not found")));
+
+                oneOf(deferredLoaderDao).getByBusinessIds(Arrays.asList(businessId), DemoBusinessEntity.class);
+                will(throwException(new NotFoundRuntimeException("not found")));
+            }
+        });
+        ObjectMapper immediateMapper = new ObjectMapper();
+        immediateMapper.registerModule(new BusinessEntityModule(immediateLoaderDao));
+        ObjectMapper deferredMapper = new ObjectMapper();
+        deferredMapper.registerModule(new BusinessEntityModule(deferredLoaderDao, true));
+
+        for (ObjectMapper mapper : Arrays.asList(immediateMapper, deferredMapper)) {
+            try {
+                mapper.readValue(jsonString, ListEntityKeyContainer.class);
+                fail("JsonMappingException expected");
+            } catch (JsonMappingException e) {
+                assertThat(e.getCause()).isInstanceOf(NotFoundRuntimeException.class);
+            }
+        }
+    }
+
 }
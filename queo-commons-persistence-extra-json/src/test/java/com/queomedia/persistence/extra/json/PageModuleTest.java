@@ -1,7 +1,12 @@
 package com.queomedia.persistence.extra.json;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import org.json.JSONException;
 import org.junit.Test;
@@ -9,11 +14,15 @@ import org.skyscreamer.jsonassert.JSONAssert;
 import org.skyscreamer.jsonassert.JSONCompareMode;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 
 import com.fasterxml.jackson.core.JsonGenerationException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.queomedia.persistence.BusinessId;
+import com.queomedia.persistence.KeysetPage;
+import com.queomedia.persistence.StreamingPage;
 
 public class PageModuleTest {
 
@@ -59,4 +68,76 @@ public class PageModuleTest {
         JSONAssert.assertEquals(expected, result, JSONCompareMode.NON_EXTENSIBLE);
     }
 
+    @Test
+    public void testSerialize_keysetPage() throws JsonGenerationException, JsonMappingException, IOException, JSONException {
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new PageModule());
+
+        String result = objectMapper.writeValueAsString(
+                new KeysetPage<>(Arrays.asList(1, 2), 2, Sort.by("test"), true, new BusinessId<Object>(4711)));
+
+        String expected = ("{                         "
+                + "  'content' :[1,2],                "
+                + "  'pageSize' : 2,                  "
+                + "  'hasNext' : true,                "
+                + "  'continuationToken' : '4711'     "
+                + "}                                  ").replaceAll("'", "\"");
+        JSONAssert.assertEquals(expected, result, JSONCompareMode.NON_EXTENSIBLE);
+        assertEquals(new BusinessId<Object>(4711), KeysetPage.parseContinuationToken("4711"));
+    }
+
+    @Test
+    public void testSerialize_keysetPageLast() throws JsonGenerationException, JsonMappingException, IOException, JSONException {
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new PageModule());
+
+        String result = objectMapper.writeValueAsString(
+                new KeysetPage<>(Arrays.asList(1), 2, Sort.by("test"), false, new BusinessId<Object>(4711)));
+
+        String expected = ("{                         "
+                + "  'content' :[1],                  "
+                + "  'pageSize' : 2,                  "
+                + "  'hasNext' : false,               "
+                + "  'continuationToken' : null       "
+                + "}                                  ").replaceAll("'", "\"");
+        JSONAssert.assertEquals(expected, result, JSONCompareMode.NON_EXTENSIBLE);
+    }
+
+    @Test
+    public void testSerialize_streamingPage() throws JsonGenerationException, JsonMappingException, IOException, JSONException {
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new PageModule());
+
+        AtomicBoolean closed = new AtomicBoolean();
+        String result = objectMapper.writeValueAsString(new StreamingPage<>(
+                Stream.of(3, 4).onClose(() -> closed.set(true)), PageRequest.of(1, 2), () -> 5));
+
+        String expected = ("{                         "
+                + "  'content' :[3,4],                "
+                + "  'pageSize' : 2,                  "
+                + "  'offset' : 2,                    "
+                + "  'currentPage' : 1,               "
+                + "  'totalElements' : 5,             "
+                + "  'totalPages' : 3                 "
+                + "}                                  ").replaceAll("'", "\"");
+        JSONAssert.assertEquals(expected, result, JSONCompareMode.NON_EXTENSIBLE);
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void testSerialize_streamingPageUnpaged() throws JsonGenerationException, JsonMappingException, IOException, JSONException {
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new PageModule());
+
+        String result = objectMapper
+                .writeValueAsString(new StreamingPage<>(Stream.of(1, 2), Pageable.unpaged()));
+
+        String expected = "{'content' :[1,2]}".replaceAll("'", "\"");
+        JSONAssert.assertEquals(expected, result, JSONCompareMode.NON_EXTENSIBLE);
+    }
+
 }
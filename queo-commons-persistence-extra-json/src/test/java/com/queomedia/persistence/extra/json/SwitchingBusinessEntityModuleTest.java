@@ -20,12 +20,16 @@ import org.junit.Test;
 import org.skyscreamer.jsonassert.JSONAssert;
 import org.skyscreamer.jsonassert.JSONCompareMode;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonUnwrapped;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.queomedia.commons.checks.Check;
+import com.queomedia.commons.exceptions.NotFoundRuntimeException;
 import com.queomedia.persistence.BusinessEntity;
 import com.queomedia.persistence.BusinessId;
 import com.queomedia.persistence.GeneralLoaderDao;
@@ -50,6 +54,24 @@ public class SwitchingBusinessEntityModuleTest {
         return mapper;
     }
 
+    /**
+     * Build a Jackson Object Mapper with {@link SwitchingBusinessEntityModule} that resolves the business ids
+     * deferred (with one {@link GeneralLoaderDao#getByBusinessIds(java.util.Collection, Class)} per type).
+     *
+     * @param generalLoaderDao the general loader dao
+     * @return a Jackson Object mapper with {@link SwitchingBusinessEntityModule}
+     */
+    public static ObjectMapper configuredDeferredObjectMapper(final GeneralLoaderDao generalLoaderDao) {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModules(new Jdk8Module(),
+                new SwitchingBusinessEntityModule(generalLoaderDao,
+                        new SwitchingAnnotationScanner(BusinessEntitySerializationMode.ENTITY),
+                        true,
+                        true,
+                        true));
+        return mapper;
+    }
+
     private int generalLoaderDaoMockCounter = 0;
 
     /**
@@ -466,6 +488,57 @@ public class SwitchingBusinessEntityModuleTest {
         assertBidWrapperDeserialization(bidJsonString, entity, entity);
     }
 
+    /** The field annotation is inherited from the super class, also when the class metadata is already cached. */
+    static class GenericBusinessIdWrapperFieldSubclass<T> extends GenericBusinessIdWrapperField<T> {
+
+        public GenericBusinessIdWrapperFieldSubclass(final T content) {
+            super(content);
+        }
+    }
+
+    @Test
+    public void testSuperClassFieldAnnotation() throws IOException {
+        DemoBusinessEntity entity = new DemoBusinessEntity(new BusinessId<>(123), "Hello World");
+        ObjectMapper jacksonMapper = configuredObjectMapper();
+
+        for (int i = 0; i < 2; i++) {
+            String jsonResult = jacksonMapper.writeValueAsString(new GenericBusinessIdWrapperFieldSubclass<>(entity));
+            assertThat(jsonResult).isEqualTo("{\"content\":\"123\"}");
+        }
+    }
+
+    /**
+     * A container that set the entity by constructor, so there is no current value to scan while the entity
+     * is deserialized: the mode is taken from the property annotation.
+     */
+    static class CreatorContainer {
+
+        @BusinessEntityJsonSerialization(BusinessEntitySerializationMode.BUSINESS_ID)
+        private final DemoBusinessEntity demoBusinessEntity;
+
+        @JsonCreator
+        public CreatorContainer(@JsonProperty("demoBusinessEntity") final DemoBusinessEntity demoBusinessEntity) {
+            this.demoBusinessEntity = demoBusinessEntity;
+        }
+
+        public DemoBusinessEntity getDemoBusinessEntity() {
+            return this.demoBusinessEntity;
+        }
+    }
+
+    @Test
+    public void testCreatorPropertyAnnotation() throws IOException {
+        DemoBusinessEntity entity = new DemoBusinessEntity(new BusinessId<>(123), "Hello World");
+        ObjectMapper jacksonMapper = configuredObjectMapper(entity);
+
+        String json = jacksonMapper.writeValueAsString(new CreatorContainer(entity));
+        assertThat(json).isEqualTo("{\"demoBusinessEntity\":\"123\"}");
+
+        CreatorContainer result = jacksonMapper.readValue(json, CreatorContainer.class);
+        assertThat(result.getDemoBusinessEntity()).isSameAs(entity);
+        this.context.assertIsSatisfied();
+    }
+
     @Test
     public void testNull() {
         DemoBusinessEntity nullEntity = null;
@@ -636,6 +709,137 @@ public class SwitchingBusinessEntityModuleTest {
         assertBidWrapperDeserialization(bidJsonString, mapContainer, element1, element2);
     }
 
+    /** With deferred resolution the list elements are loaded with one batch query. */
+    @Test
+    public void testList_deferredResolution() throws IOException {
+        DemoBusinessEntity element1 = new DemoBusinessEntity(new BusinessId<>(123), "Hello World1");
+        DemoBusinessEntity element2 = new DemoBusinessEntity(new BusinessId<>(456), "Hello World2");
+
+        final String bidJsonString = "{'content':{'demoBusinessEntitys':['123', '456', '123']}}".replace('\'', '"');
+
+        GeneralLoaderDao generalLoaderDao = this.context.mock(GeneralLoaderDao.class, "deferredLoaderDao");
+        this.context.checking(new Expectations() {
+            {
+                oneOf(generalLoaderDao).getByBusinessIds(
+                        Arrays.asList(element1.getBusinessId(), element2.getBusinessId()),
+                        DemoBusinessEntity.class);
+                will(returnValue(Arrays.asList(element1, element2)));
+            }
+        });
+        ObjectMapper jacksonMapper = configuredDeferredObjectMapper(generalLoaderDao);
+
+        JavaType type = jacksonMapper.getTypeFactory()
+                .constructParametricType(GenericBusinessIdWrapper.class, ListContainer.class);
+        GenericBusinessIdWrapper<ListContainer> result = jacksonMapper.readValue(bidJsonString, type);
+
+        assertThat(result.getContent().getDemoBusinessEntitys()).containsExactly(element1, element2, element1);
+        this.context.assertIsSatisfied();
+    }
+
+    /** With deferred resolution the map values are loaded with one batch query. */
+    @Test
+    public void testMapEntityValue_deferredResolution() throws IOException {
+        DemoBusinessEntity element1 = new DemoBusinessEntity(new BusinessId<>(123), "Hello World1");
+        DemoBusinessEntity element2 = new DemoBusinessEntity(new BusinessId<>(456), "Hello World2");
+
+        final String bidJsonString = "{'content':{'demoBusinessEntitys':{'1':'123', '2':'456'}}}".replace('\'', '"');
+
+        GeneralLoaderDao generalLoaderDao = this.context.mock(GeneralLoaderDao.class, "deferredLoaderDao");
+        this.context.checking(new Expectations() {
+            {
+                oneOf(generalLoaderDao).getByBusinessIds(
+                        Arrays.asList(element1.getBusinessId(), element2.getBusinessId()),
+                        DemoBusinessEntity.class);
+                will(returnValue(Arrays.asList(element1, element2)));
+            }
+        });
+        ObjectMapper jacksonMapper = configuredDeferredObjectMapper(generalLoaderDao);
+
+        JavaType type = jacksonMapper.getTypeFactory()
+                .constructParametricType(GenericBusinessIdWrapper.class, MapEntityValueContainer.class);
+        GenericBusinessIdWrapper<MapEntityValueContainer> result = jacksonMapper.readValue(bidJsonString, type);
+
+        assertThat(result.getContent().getDemoBusinessEntitys()).containsEntry(1, element1)
+                .containsEntry(2, element2)
+                .hasSize(2);
+        this.context.assertIsSatisfied();
+    }
+
+    /** With deferred resolution an optional is still loaded immediately, because it can not be patched. */
+    @Test
+    public void testOptional_deferredResolution() throws IOException {
+        DemoBusinessEntity entity = new DemoBusinessEntity(new BusinessId<>(123), "Hello World");
+
+        final String bidJsonString = "{'content':{'demoBusinessEntity':'123'}}".replace('\'', '"');
+
+        GeneralLoaderDao generalLoaderDao = this.context.mock(GeneralLoaderDao.class, "deferredLoaderDao");
+        this.context.checking(new Expectations() {
+            {
+                oneOf(generalLoaderDao).getByBusinessId(entity.getBusinessId(), DemoBusinessEntity.class);
+                will(returnValue(entity));
+            }
+        });
+        ObjectMapper jacksonMapper = configuredDeferredObjectMapper(generalLoaderDao);
+
+        JavaType type = jacksonMapper.getTypeFactory()
+                .constructParametricType(GenericBusinessIdWrapper.class, OptionalContainer.class);
+        GenericBusinessIdWrapper<OptionalContainer> result = jacksonMapper.readValue(bidJsonString, type);
+
+        assertThat(result.getContent().getDemoBusinessEntity()).containsSame(entity);
+        this.context.assertIsSatisfied();
+    }
+
+    /** With deferred resolution the entity mode still deserializes the entities without loading them. */
+    @Test
+    public void testList_deferredResolution_entityMode() throws IOException {
+        // @formatter:off
+        final String entityJsonString =
+                ("{'content':{'demoBusinessEntitys':["
+                        + "{'businessId':'123', 'content':'Hello World1'},"
+                        + "{'businessId':'456', 'content':'Hello World2'}"
+                 + "]}}").replace('\'', '"');
+        // @formatter:on
+
+        GeneralLoaderDao generalLoaderDao = this.context.mock(GeneralLoaderDao.class, "deferredLoaderDao");
+        ObjectMapper jacksonMapper = configuredDeferredObjectMapper(generalLoaderDao);
+
+        JavaType type = jacksonMapper.getTypeFactory()
+                .constructParametricType(GenericEntityWrapper.class, ListContainer.class);
+        GenericEntityWrapper<ListContainer> result = jacksonMapper.readValue(entityJsonString, type);
+
+        assertThat(result.getContent().getDemoBusinessEntitys()).extracting(DemoBusinessEntity::getContent)
+                .containsExactly("Hello World1", "Hello World2");
+    }
+
+    /** With deferred resolution a not existing business id fails like with immediate resolution. */
+    @Test
+    public void testList_deferredResolution_notFound() throws IOException {
+        DemoBusinessEntity element1 = new DemoBusinessEntity(new BusinessId<>(123), "Hello World1");
+        BusinessId<DemoBusinessEntity> notExisting = new BusinessId<>(456);
+
+        final String bidJsonString = "{'content':{'demoBusinessEntitys':['123', '456']}}".replace('\'', '"');
+
+        GeneralLoaderDao generalLoaderDao = this.context.mock(GeneralLoaderDao.class, "deferredLoaderDao");
+        this.context.checking(new Expectations() {
+            {
+                oneOf(generalLoaderDao).getByBusinessIds(Arrays.asList(element1.getBusinessId(), notExisting),
+                        DemoBusinessEntity.class);
+                will(throwException(new NotFoundRuntimeException("not found")));
+            }
+        });
+        ObjectMapper jacksonMapper = configuredDeferredObjectMapper(generalLoaderDao);
+
+        JavaType type = jacksonMapper.getTypeFactory()
+                .constructParametricType(GenericBusinessIdWrapper.class, ListContainer.class);
+        try {
+            jacksonMapper.readValue(bidJsonString, type);
+            fail("JsonMappingException expected");
+        } catch (JsonMappingException e) {
+            assertThat(e.getCause()).isInstanceOf(NotFoundRuntimeException.class);
+        }
+        this.context.assertIsSatisfied();
+    }
+
     @Test
     public void testJsonUnwrappedContainer() {
         DemoBusinessEntity entity = new DemoBusinessEntity(new BusinessId<>(123), "Hello World");
@@ -0,0 +1,133 @@
+package com.queomedia.persistence.extra.json.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class BoundedMemorizerTest {
+
+    /** The fake nano time. */
+    private final AtomicLong ticker = new AtomicLong();
+
+    /** The number of computations. */
+    private final AtomicInteger computations = new AtomicInteger();
+
+    private BoundedMemorizer<Integer, String> memorizer(final long maximumSize, final Duration expireAfterWrite) {
+        return new BoundedMemorizer<>(argument -> {
+            this.computations.incrementAndGet();
+            return "value" + argument;
+        }, maximumSize, (argument, value) -> 1, expireAfterWrite, false, this.ticker::get);
+    }
+
+    @Test
+    public void testCompute() throws InterruptedException {
+        BoundedMemorizer<Integer, String> memorizer = memorizer(10, null);
+
+        assertEquals("value1", memorizer.compute(1));
+        assertEquals("value1", memorizer.compute(1));
+        assertEquals("value2", memorizer.compute(2));
+
+        assertEquals(2, this.computations.get());
+        assertEquals(2, memorizer.size());
+        MemorizerStats stats = memorizer.stats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+        assertEquals(2, stats.getLoadSuccessCount());
+    }
+
+    /** The least recently used entry is evicted. */
+    @Test
+    public void testEvictLeastRecentlyUsed() throws InterruptedException {
+        BoundedMemorizer<Integer, String> memorizer = memorizer(2, null);
+
+        memorizer.compute(1);
+        this.ticker.incrementAndGet();
+        memorizer.compute(2);
+        this.ticker.incrementAndGet();
+        memorizer.compute(1);
+        this.ticker.incrementAndGet();
+        memorizer.compute(3);
+
+        assertEquals(2, memorizer.size());
+        assertEquals(1, memorizer.stats().getEvictionCount());
+
+        memorizer.compute(1);
+        assertEquals(3, this.computations.get());
+        memorizer.compute(2);
+        assertEquals(4, this.computations.get());
+    }
+
+    @Test
+    public void testExpireAfterWrite() throws InterruptedException {
+        BoundedMemorizer<Integer, String> memorizer = memorizer(10, Duration.ofNanos(100));
+
+        memorizer.compute(1);
+        this.ticker.addAndGet(99);
+        memorizer.compute(1);
+        assertEquals(1, this.computations.get());
+
+        this.ticker.addAndGet(1);
+        memorizer.compute(1);
+        assertEquals(2, this.computations.get());
+    }
+
+    /** Failed computations are not cached. */
+    @Test
+    public void testFailedComputation() throws InterruptedException {
+        BoundedMemorizer<Integer, String> memorizer = new BoundedMemorizer<>(argument -> {
+            if (this.computations.incrementAndGet() == 1) {
+                throw new IllegalStateException("first computation fails");
+            }
+            return "value" + argument;
+        }, 10);
+
+        try {
+            memorizer.compute(1);
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertEquals("first computation fails", e.getMessage());
+        }
+        assertEquals(0, memorizer.size());
+
+        assertEquals("value1", memorizer.compute(1));
+        assertEquals(1, memorizer.stats().getLoadFailureCount());
+    }
+
+    /** Concurrent requests for the same argument wait for one computation. */
+    @Test
+    public void testSingleComputation() throws Exception {
+        CountDownLatch computationStarted = new CountDownLatch(1);
+        CountDownLatch finishComputation = new CountDownLatch(1);
+        BoundedMemorizer<Integer, String> memorizer = new BoundedMemorizer<>(argument -> {
+            this.computations.incrementAndGet();
+            computationStarted.countDown();
+            finishComputation.await();
+            return "value" + argument;
+        }, 10);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> memorizer.compute(1));
+            computationStarted.await();
+            Future<String> second = executor.submit(() -> memorizer.compute(1));
+            finishComputation.countDown();
+
+            assertEquals("value1", first.get(10, TimeUnit.SECONDS));
+            assertEquals("value1", second.get(10, TimeUnit.SECONDS));
+            assertEquals(1, this.computations.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.queomedia.persistence.extra.micrometer;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import com.queomedia.commons.checks.Check;
+import com.queomedia.persistence.hibernate.entitymanager.DaoMetrics;
+import com.queomedia.persistence.hibernate.entitymanager.GeneralHibernateLoaderDaoImpl;
+import com.queomedia.persistence.hibernate.entitymanager.GenericHibernateDaoImpl;
+import com.queomedia.persistence.hibernate.entitymanager.GenericHibernateStatelessDaoImpl;
+
+/**
+ * Set the {@link DaoMetrics} at all {@link GenericHibernateDaoImpl} (and so all business DAOs),
+ * {@link GenericHibernateStatelessDaoImpl} and {@link GeneralHibernateLoaderDaoImpl} beans, before they are
+ * initialized.
+ *
+ * <p>
+ * Example:
+ * </p>
+ * <pre>
+ * &#64;Bean
+ * public static DaoMetricsBeanPostProcessor daoMetricsBeanPostProcessor(final MeterRegistry registry) {
+ *     return new DaoMetricsBeanPostProcessor(new MicrometerDaoMetrics(registry));
+ * }
+ * </pre>
+ */
+public class DaoMetricsBeanPostProcessor implements BeanPostProcessor {
+
+    /** The dao metrics. */
+    private final DaoMetrics daoMetrics;
+
+    /**
+     * Instantiates a new dao metrics bean post processor.
+     *
+     * @param daoMetrics the dao metrics set at the daos
+     */
+    public DaoMetricsBeanPostProcessor(final DaoMetrics daoMetrics) {
+        Check.notNullArgument(daoMetrics, "daoMetrics");
+
+        this.daoMetrics = daoMetrics;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(final Object bean, final String beanName) throws BeansException {
+        if (bean instanceof GenericHibernateDaoImpl) {
+            ((GenericHibernateDaoImpl<?>) bean).setDaoMetrics(this.daoMetrics);
+        } else if (bean instanceof GenericHibernateStatelessDaoImpl) {
+            ((GenericHibernateStatelessDaoImpl<?>) bean).setDaoMetrics(this.daoMetrics);
+        } else if (bean instanceof GeneralHibernateLoaderDaoImpl) {
+            ((GeneralHibernateLoaderDaoImpl) bean).setDaoMetrics(this.daoMetrics);
+        }
+        return bean;
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.queomedia.persistence.extra.micrometer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import com.queomedia.commons.checks.Check;
+import com.queomedia.persistence.hibernate.entitymanager.DaoMetrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * {@link DaoMetrics} that records the DAO operations in a Micrometer {@link MeterRegistry}.
+ *
+ * <p>
+ * Meters (all tagged with {@code entity} - the simple name of the entity class):
+ * </p>
+ * <ul>
+ *   <li>{@value #OPERATION_TIMER} - timer per {@code operation} and {@code outcome} ({@value #OUTCOME_SUCCESS} or
+ *   {@value #OUTCOME_FAILURE}, the timer count is the invocation count)</li>
+ *   <li>{@value #RESULT_SIZE_SUMMARY} - distribution (histogram) of the result sizes per {@code operation}</li>
+ *   <li>{@value #IN_LIST_SIZE_SUMMARY} - distribution of the sizes of the executed {@code IN}-lists</li>
+ * </ul>
+ *
+ * <p>
+ * The meters are registered on first use and then cached per entity class and operation,
+ * so recording does not build tags.
+ * </p>
+ */
+public class MicrometerDaoMetrics implements DaoMetrics {
+
+    /** Name of the operation timer. */
+    public static final String OPERATION_TIMER = "queo.persistence.dao.operation";
+
+    /** Value of the {@code outcome} tag for operations that completed normally. */
+    public static final String OUTCOME_SUCCESS = "success";
+
+    /** Value of the {@code outcome} tag for operations that threw an exception. */
+    public static final String OUTCOME_FAILURE = "failure";
+
+    /** Name of the result size distribution summary. */
+    public static final String RESULT_SIZE_SUMMARY = "queo.persistence.dao.result.size";
+
+    /** Name of the in-list size distribution summary. */
+    public static final String IN_LIST_SIZE_SUMMARY = "queo.persistence.dao.inlist.size";
+
+    /** The registry. */
+    private final MeterRegistry registry;
+
+    /** The timers of the successful operations by entity class and operation. */
+    private final ConcurrentMap<Class<?>, ConcurrentMap<String, Timer>> successTimers = new ConcurrentHashMap<>();
+
+    /** The timers of the failed operations by entity class and operation. */
+    private final ConcurrentMap<Class<?>, ConcurrentMap<String, Timer>> failureTimers = new ConcurrentHashMap<>();
+
+    /** The result size summaries by entity class and operation. */
+    private final ConcurrentMap<Class<?>, ConcurrentMap<String, DistributionSummary>> resultSizes =
+            new ConcurrentHashMap<>();
+
+    /** The in-list size summaries by entity class. */
+    private final ConcurrentMap<Class<?>, DistributionSummary> inListSizes = new ConcurrentHashMap<>();
+
+    /**
+     * Instantiates a new micrometer dao metrics.
+     *
+     * @param registry the registry where the meters are registered
+     */
+    public MicrometerDaoMetrics(final MeterRegistry registry) {
+        Check.notNullArgument(registry, "registry");
+
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void recordOperation(final Class<?> entityClass, final String operation, final boolean successful,
+            final long durationNanos) {
+        ConcurrentMap<Class<?>, ConcurrentMap<String, Timer>> timers = successful ? this.successTimers
+                : this.failureTimers;
+        String outcome = successful ? OUTCOME_SUCCESS : OUTCOME_FAILURE;
+        timers.computeIfAbsent(entityClass, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(operation,
+                        key -> Timer.builder(OPERATION_TIMER)
+                                .description("duration of the dao operations")
+                                .tag("entity", entityClass.getSimpleName())
+                                .tag("operation", operation)
+                                .tag("outcome", outcome)
+                                .register(this.registry))
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordResultSize(final Class<?> entityClass, final String operation, final int resultSize) {
+        this.resultSizes.computeIfAbsent(entityClass, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(operation,
+                        key -> DistributionSummary.builder(RESULT_SIZE_SUMMARY)
+                                .description("number of entities returned or processed by the dao operations")
+                                .baseUnit("entities")
+                                .tag("entity", entityClass.getSimpleName())
+                                .tag("operation", operation)
+                                .publishPercentileHistogram()
+                                .register(this.registry))
+                .record(resultSize);
+    }
+
+    @Override
+    public void recordInListSize(final Class<?> entityClass, final int inListSize) {
+        this.inListSizes.computeIfAbsent(entityClass,
+                key -> DistributionSummary.builder(IN_LIST_SIZE_SUMMARY)
+                        .description("number of values of the executed IN-list queries")
+                        .baseUnit("values")
+                        .tag("entity", entityClass.getSimpleName())
+                        .publishPercentileHistogram()
+                        .register(this.registry))
+                .record(inListSize);
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.queomedia.persistence.extra.micrometer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class MicrometerDaoMetricsTest {
+
+    @Test
+    public void testRecordOperation() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MicrometerDaoMetrics daoMetrics = new MicrometerDaoMetrics(registry);
+
+        daoMetrics.recordOperation(String.class, "getByBusinessId", true, 1000);
+        daoMetrics.recordOperation(String.class, "getByBusinessId", true, 3000);
+        daoMetrics.recordOperation(Integer.class, "getByBusinessId", true, 5000);
+
+        Timer timer = registry.get(MicrometerDaoMetrics.OPERATION_TIMER)
+                .tag("entity", "String")
+                .tag("operation", "getByBusinessId")
+                .tag("outcome", MicrometerDaoMetrics.OUTCOME_SUCCESS)
+                .timer();
+        assertEquals(2, timer.count());
+        assertEquals(4000, timer.totalTime(TimeUnit.NANOSECONDS), 0.1);
+        assertEquals(2, registry.find(MicrometerDaoMetrics.OPERATION_TIMER).timers().size());
+    }
+
+    @Test
+    public void testRecordFailedOperation() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MicrometerDaoMetrics daoMetrics = new MicrometerDaoMetrics(registry);
+
+        daoMetrics.recordOperation(String.class, "getByBusinessId", true, 1000);
+        daoMetrics.recordOperation(String.class, "getByBusinessId", false, 2000);
+
+        Timer failureTimer = registry.get(MicrometerDaoMetrics.OPERATION_TIMER)
+                .tag("entity", "String")
+                .tag("operation", "getByBusinessId")
+                .tag("outcome", MicrometerDaoMetrics.OUTCOME_FAILURE)
+                .timer();
+        assertEquals(1, failureTimer.count());
+        assertEquals(2000, failureTimer.totalTime(TimeUnit.NANOSECONDS), 0.1);
+        assertEquals(2, registry.find(MicrometerDaoMetrics.OPERATION_TIMER).timers().size());
+    }
+
+    @Test
+    public void testRecordSizes() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MicrometerDaoMetrics daoMetrics = new MicrometerDaoMetrics(registry);
+
+        daoMetrics.recordResultSize(String.class, "findAll", 10);
+        daoMetrics.recordResultSize(String.class, "findAll", 20);
+        daoMetrics.recordInListSize(String.class, 16);
+
+        DistributionSummary resultSize = registry.get(MicrometerDaoMetrics.RESULT_SIZE_SUMMARY)
+                .tag("entity", "String")
+                .tag("operation", "findAll")
+                .summary();
+        assertEquals(2, resultSize.count());
+        assertEquals(30, resultSize.totalAmount(), 0.1);
+
+        DistributionSummary inListSize = registry.get(MicrometerDaoMetrics.IN_LIST_SIZE_SUMMARY)
+                .tag("entity", "String")
+                .summary();
+        assertEquals(1, inListSize.count());
+        assertSame(inListSize, registry.get(MicrometerDaoMetrics.IN_LIST_SIZE_SUMMARY).summary());
+    }
+
+}
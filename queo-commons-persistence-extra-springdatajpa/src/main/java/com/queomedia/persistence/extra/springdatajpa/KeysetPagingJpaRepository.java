@@ -0,0 +1,86 @@
+package com.queomedia.persistence.extra.springdatajpa;
+
+import java.io.Serializable;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+
+import com.queomedia.commons.checks.Check;
+import com.queomedia.commons.exceptions.NotFoundRuntimeException;
+import com.queomedia.persistence.BusinessEntity;
+import com.queomedia.persistence.BusinessId;
+import com.queomedia.persistence.KeysetPage;
+import com.queomedia.persistence.util.KeysetPredicates;
+
+/**
+ * Spring Data JPA repository base class that implements {@link KeysetPagingRepository}.
+ *
+ * <p>
+ * Configure it with {@code @EnableJpaRepositories(repositoryBaseClass = KeysetPagingJpaRepository.class)}.
+ * For repositories that do not extend {@link KeysetPagingRepository}, it behaves exactly like
+ * {@link SimpleJpaRepository}.
+ * </p>
+ *
+ * @param <T> the type of the entity
+ * @param <ID> the type of the id of the entity
+ */
+public class KeysetPagingJpaRepository<T, ID extends Serializable> extends SimpleJpaRepository<T, ID> {
+
+    /**
+     * Instantiates a new keyset paging jpa repository.
+     *
+     * @param entityInformation the entity information
+     * @param entityManager the entity manager
+     */
+    public KeysetPagingJpaRepository(final JpaEntityInformation<T, ?> entityInformation,
+            final EntityManager entityManager) {
+        super(entityInformation, entityManager);
+    }
+
+    /**
+     * Find the page of entities after the entity with the given business id.
+     * Implementation of {@link KeysetPagingRepository#findPageAfter(BusinessId, int, Sort)}.
+     *
+     * @param lastBusinessId the business id of the last entity of the previous page, or null for the first page
+     * @param size the page size, must be positive
+     * @param sort the sort order
+     * @return the page
+     * @throws NotFoundRuntimeException if the sort is not only by business id and there is no entity with the
+     *         given last business id (anymore)
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public KeysetPage<T> findPageAfter(final BusinessId<T> lastBusinessId, final int size, final Sort sort)
+            throws NotFoundRuntimeException {
+        Check.notNullArgument(sort, "sort");
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive, but was " + size);
+        }
+        if (!BusinessEntity.class.isAssignableFrom(getDomainClass())) {
+            throw new UnsupportedOperationException(
+                    "keyset pagination requires a business entity, but " + getDomainClass() + " is not");
+        }
+
+        Sort keysetSort = KeysetPredicates.keysetSort(sort);
+        if ((lastBusinessId != null) && KeysetPredicates.requiresLastElement(keysetSort)
+                && (count((root, query, builder) -> KeysetPredicates.isLastElement(root, builder,
+                        lastBusinessId)) == 0)) {
+            throw new NotFoundRuntimeException("the last element of the previous page does not exist (anymore): "
+                    + "businessId=" + lastBusinessId);
+        }
+        Specification<T> afterLast = null;
+        if (lastBusinessId != null) {
+            afterLast = (root, query, builder) -> KeysetPredicates
+                    .after(root, query, builder, getDomainClass(), keysetSort, lastBusinessId);
+        }
+
+        /* one more than requested, to determine if there is a next page - and no count query */
+        List<T> rows = getQuery(afterLast, keysetSort).setMaxResults(size + 1).getResultList();
+        return (KeysetPage<T>) KeysetPage.fromRows((List) rows, size, sort);
+    }
+
+}
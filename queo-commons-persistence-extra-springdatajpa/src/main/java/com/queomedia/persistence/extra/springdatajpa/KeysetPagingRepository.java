@@ -0,0 +1,51 @@
+package com.queomedia.persistence.extra.springdatajpa;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.NoRepositoryBean;
+
+import com.queomedia.commons.exceptions.NotFoundRuntimeException;
+import com.queomedia.persistence.BusinessEntity;
+import com.queomedia.persistence.BusinessId;
+import com.queomedia.persistence.KeysetPage;
+
+/**
+ * Repository extension for keyset (seek) pagination of {@link BusinessEntity}s.
+ *
+ * <p>
+ * The method can not be derived by Spring Data, it is implemented by {@link KeysetPagingJpaRepository}.
+ * Therefore a repository extending this interface requires that {@link KeysetPagingJpaRepository} is configured
+ * as repository base class:
+ * </p>
+ * <pre>
+ * &#64;EnableJpaRepositories(repositoryBaseClass = KeysetPagingJpaRepository.class)
+ *
+ * public interface CustomerRepository
+ *         extends BusinessEntityRepository&lt;Customer, Long&gt;, KeysetPagingRepository&lt;Customer&gt; {...}
+ * </pre>
+ *
+ * @param <T> the generic type for the concrete {@link BusinessEntity}
+ */
+@NoRepositoryBean
+public interface KeysetPagingRepository<T extends BusinessEntity<T>> {
+
+    /**
+     * Find the page of entities after the entity with the given business id - keyset (seek) pagination.
+     *
+     * <p>
+     * In contrast to offset pagination every page costs the same, because the page is selected by an
+     * (indexed) position and not by skipping rows. The business id is used as tiebreaker for the sort order.
+     * The sort properties must not be null.
+     * If the sort is not only by business id, then the last entity of the previous page must still exist.
+     * </p>
+     *
+     * @param lastBusinessId the business id of the last entity of the previous page
+     *        ({@link KeysetPage#getLastBusinessId()}), or null for the first page
+     * @param size the page size, must be positive
+     * @param sort the sort order, use {@link Sort#unsorted()} to sort by business id only
+     * @return the page
+     * @throws NotFoundRuntimeException if the sort is not only by business id and there is no entity with the
+     *         given last business id (anymore)
+     */
+    KeysetPage<T> findPageAfter(BusinessId<T> lastBusinessId, int size, Sort sort) throws NotFoundRuntimeException;
+
+}
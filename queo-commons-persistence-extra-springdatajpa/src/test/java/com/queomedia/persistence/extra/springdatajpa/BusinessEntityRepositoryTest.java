@@ -1,11 +1,17 @@
 package com.queomedia.persistence.extra.springdatajpa;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
@@ -14,6 +20,7 @@ import org.springframework.transaction.annotation.Transactional;
 import com.queomedia.commons.exceptions.NotFoundRuntimeException;
 import com.queomedia.persistence.BusinessId;
 import com.queomedia.persistence.BusinessIdGenerator;
+import com.queomedia.persistence.KeysetPage;
 import com.queomedia.persistence.extra.springdatajpa.scenario.PersistenceTestContext;
 import com.queomedia.persistence.extra.springdatajpa.scenario.SomeEntity;
 import com.queomedia.persistence.extra.springdatajpa.scenario.SomeEntityRepository;
@@ -85,6 +92,30 @@ public class BusinessEntityRepositoryTest {
         assertNull(result);
     }
 
+    /** Scenario: read all entities page by page with keyset pagination. */
+    @Test
+    public void testFindPageAfter() {
+        /** given: 5 persisted entities. */
+        List<SomeEntity> entities = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            entities.add(this.createPersistedEntity());
+        }
+        entities.sort(Comparator.comparing(SomeEntity::getBusinessId));
+
+        /** when: read them in pages of size 2. */
+        KeysetPage<SomeEntity> first = this.someEntityRepository.findPageAfter(null, 2, Sort.unsorted());
+        KeysetPage<SomeEntity> second = this.someEntityRepository
+                .findPageAfter(KeysetPage.parseContinuationToken(first.getContinuationToken()), 2, Sort.unsorted());
+        KeysetPage<SomeEntity> third = this.someEntityRepository
+                .findPageAfter(KeysetPage.parseContinuationToken(second.getContinuationToken()), 2, Sort.unsorted());
+
+        /** then: the pages contain the entities ordered by business id. */
+        assertEquals(entities.subList(0, 2), first.getContent());
+        assertEquals(entities.subList(2, 4), second.getContent());
+        assertEquals(entities.subList(4, 5), third.getContent());
+        assertFalse(third.hasNext());
+    }
+
     /** Helper to create a persited {@link SomeEntity}. */
     private SomeEntity createPersistedEntity() {
         SomeEntity someEntity = new SomeEntity(this.businessIdGenerator.<SomeEntity> generateBusinessId());
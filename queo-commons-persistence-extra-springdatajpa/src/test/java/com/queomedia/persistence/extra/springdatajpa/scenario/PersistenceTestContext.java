@@ -22,12 +22,13 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import com.queomedia.persistence.BusinessIdGenerator;
 import com.queomedia.persistence.extra.nullaware.NullawareNameControlledJpaRepositoryFactoryBean;
+import com.queomedia.persistence.extra.springdatajpa.KeysetPagingJpaRepository;
 import com.queomedia.persistence.impl.BusinessIdGeneratorImpl;
 import com.queomedia.persistence.impl.UniqueIdGenerator;
 
 /** A Spring Configuration with JPA, TransactionManagement, SpringDataJpa and Nullware */
 @Configuration
-@EnableJpaRepositories(basePackages = "com.queomedia.persistence.extra.springdatajpa.scenario", repositoryFactoryBeanClass = NullawareNameControlledJpaRepositoryFactoryBean.class)
+@EnableJpaRepositories(basePackages = "com.queomedia.persistence.extra.springdatajpa.scenario", repositoryFactoryBeanClass = NullawareNameControlledJpaRepositoryFactoryBean.class, repositoryBaseClass = KeysetPagingJpaRepository.class)
 @EnableTransactionManagement
 public class PersistenceTestContext {
 
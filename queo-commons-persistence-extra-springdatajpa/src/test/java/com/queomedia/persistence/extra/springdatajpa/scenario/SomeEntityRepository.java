@@ -1,8 +1,13 @@
 package com.queomedia.persistence.extra.springdatajpa.scenario;
 
 import com.queomedia.persistence.extra.springdatajpa.BusinessEntityRepository;
+import com.queomedia.persistence.extra.springdatajpa.KeysetPagingRepository;
 
-/** We only need to test the methods from {@link BusinessEntityRepository}, so this interface is almost empty.*/
-public interface SomeEntityRepository extends BusinessEntityRepository<SomeEntity, Long> {
+/**
+ * We only need to test the methods from {@link BusinessEntityRepository} and {@link KeysetPagingRepository},
+ * so this interface is almost empty.
+ */
+public interface SomeEntityRepository
+        extends BusinessEntityRepository<SomeEntity, Long>, KeysetPagingRepository<SomeEntity> {
 
 }
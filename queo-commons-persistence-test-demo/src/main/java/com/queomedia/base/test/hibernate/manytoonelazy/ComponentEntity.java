@@ -32,6 +32,10 @@ public class ComponentEntity extends BusinessEntity<ComponentEntity> {
        super(bid);
        this.compositeEntity = compositeEntity;
     }
+
+    public CompositeEntity getCompositeEntity() {
+        return this.compositeEntity;
+    }
     
     
 }
@@ -0,0 +1,10 @@
+package com.queomedia.base.test.hibernate.manytoonelazy;
+
+import org.springframework.stereotype.Repository;
+
+import com.queomedia.persistence.hibernate.entitymanager.GenericHibernateBusinessDaoImpl;
+
+@Repository
+public class ComponentEntityDao extends GenericHibernateBusinessDaoImpl<ComponentEntity> {
+
+}
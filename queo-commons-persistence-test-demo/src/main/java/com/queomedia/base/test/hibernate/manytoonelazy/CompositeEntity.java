@@ -11,6 +11,9 @@ public class CompositeEntity extends BusinessEntity<CompositeEntity> {
     /**  The Constant serialVersionUID. */
     private static final long serialVersionUID = -5329256340896677605L;
 
+    /** A modifiable property. */
+    private String name;
+
     /**
      * Constructor used by Hibernate only.
      * 
@@ -25,4 +28,12 @@ public class CompositeEntity extends BusinessEntity<CompositeEntity> {
     public CompositeEntity(final BusinessId<CompositeEntity> bid) {
        super(bid);
     }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
 }
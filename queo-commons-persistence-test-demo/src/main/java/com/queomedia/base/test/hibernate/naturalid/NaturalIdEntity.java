@@ -0,0 +1,30 @@
+package com.queomedia.base.test.hibernate.naturalid;
+
+import javax.persistence.Entity;
+
+import com.queomedia.persistence.BusinessEntity;
+import com.queomedia.persistence.BusinessId;
+import com.queomedia.persistence.BusinessIdNaturalId;
+
+@Entity
+@BusinessIdNaturalId
+public class NaturalIdEntity extends BusinessEntity<NaturalIdEntity> {
+
+    /**  The Constant serialVersionUID. */
+    private static final long serialVersionUID = -3209457720826354195L;
+
+    /**
+     * Constructor used by Hibernate only.
+     * 
+     * @deprecated This constructor must be only used by Hibernate.
+     * It is not really depreciated, but this marker prevents programmers from using the constructor by mistake.
+     */
+    @Deprecated
+    NaturalIdEntity() {
+        super();
+    }
+
+    public NaturalIdEntity(final BusinessId<NaturalIdEntity> bid) {
+        super(bid);
+    }
+}
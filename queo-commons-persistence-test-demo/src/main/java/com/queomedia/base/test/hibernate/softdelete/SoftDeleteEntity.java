@@ -0,0 +1,51 @@
+package com.queomedia.base.test.hibernate.softdelete;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import org.hibernate.annotations.SQLDelete;
+import org.hibernate.annotations.Where;
+
+/**
+ * Entity with a soft delete: the delete only marks the row as deleted, and deleted rows are not loaded.
+ */
+@Entity
+@SQLDelete(sql = "UPDATE soft_delete_entity SET deleted = true WHERE id = ?")
+@Where(clause = "deleted = false")
+public class SoftDeleteEntity implements Serializable {
+
+    /**  The Constant serialVersionUID. */
+    private static final long serialVersionUID = -3316298204937046371L;
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private boolean deleted;
+
+    /**
+     * Constructor used by Hibernate only.
+     * 
+     * @deprecated This constructor must be only used by Hibernate.
+     * It is not really depreciated, but this marker prevents programmers from using the constructor by mistake.
+     */
+    @Deprecated
+    SoftDeleteEntity() {
+        super();
+    }
+
+    public SoftDeleteEntity(final long id) {
+        this.id = id;
+    }
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public boolean isDeleted() {
+        return this.deleted;
+    }
+}
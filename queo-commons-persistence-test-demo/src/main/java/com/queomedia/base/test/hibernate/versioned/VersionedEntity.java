@@ -0,0 +1,50 @@
+package com.queomedia.base.test.hibernate.versioned;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Version;
+
+/**
+ * Entity with an assigned id (no identity generator, so the inserts can be JDBC batched)
+ * and an optimistic lock version.
+ */
+@Entity
+public class VersionedEntity implements Serializable {
+
+    /**  The Constant serialVersionUID. */
+    private static final long serialVersionUID = 2817342361937262711L;
+
+    @Id
+    private Long id;
+
+    /** Null for a new entity, so Hibernate can tell new and detached entities apart without a select. */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    /**
+     * Constructor used by Hibernate only.
+     * 
+     * @deprecated This constructor must be only used by Hibernate.
+     * It is not really depreciated, but this marker prevents programmers from using the constructor by mistake.
+     */
+    @Deprecated
+    VersionedEntity() {
+        super();
+    }
+
+    public VersionedEntity(final long id) {
+        this.id = id;
+    }
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public Long getVersion() {
+        return this.version;
+    }
+}
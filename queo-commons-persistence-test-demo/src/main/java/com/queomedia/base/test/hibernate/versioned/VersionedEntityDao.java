@@ -0,0 +1,10 @@
+package com.queomedia.base.test.hibernate.versioned;
+
+import org.springframework.stereotype.Repository;
+
+import com.queomedia.persistence.hibernate.entitymanager.GenericHibernateDaoImpl;
+
+@Repository
+public class VersionedEntityDao extends GenericHibernateDaoImpl<VersionedEntity> {
+
+}
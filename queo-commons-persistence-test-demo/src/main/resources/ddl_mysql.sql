@@ -10,6 +10,9 @@ drop table if exists document_file_content;
 drop table if exists component_entity;
 drop table if exists composite_entity;
 drop table if exists constraint_entity;
+drop table if exists natural_id_entity;
+drop table if exists soft_delete_entity;
+drop table if exists versioned_entity;
 
 create table component_entity (
     id bigint not null auto_increment,
@@ -21,6 +24,7 @@ create table component_entity (
 create table composite_entity (
     id bigint not null auto_increment,
     businessId bigint not null,
+    name varchar(255),
     primary key (id)
 ) engine=InnoDB;
 
@@ -35,12 +39,32 @@ create table constraint_entity (
     primary key (id)
 ) engine=InnoDB;
 
+create table natural_id_entity (
+    id bigint not null auto_increment,
+    businessId bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table soft_delete_entity (
+    id bigint not null,
+    deleted bit not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table versioned_entity (
+    id bigint not null,
+    version bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
 alter table component_entity add constraint UK_2f0v2xxs9iu5nk584p7x085cm unique (businessId);
 
 alter table composite_entity add constraint UK_co3qq81v4wqru1l1l14ypuwtb unique (businessId);
 
 alter table constraint_entity add constraint UK_4bar7hjr6vc0yomhga21l1nmn unique (businessId);
 
+alter table natural_id_entity add constraint UK_dnrxa5exkb6x3vct40gee0k0s unique (businessId);
+
 alter table component_entity add constraint FKdcoa02w8efxks7e9rqwk7ecwc foreign key (compositeEntity_fk) references composite_entity (id);
 
 
@@ -0,0 +1,97 @@
+package com.queomedia;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.queomedia.base.test.hibernate.manytoonelazy.CompositeEntity;
+import com.queomedia.base.test.hibernate.manytoonelazy.CompositeEntityDao;
+import com.queomedia.persistence.BusinessId;
+
+/**
+ * Test that the lookup by business id with the cached query
+ * ({@link CompositeEntityDao#getByBusinessId(BusinessId)}) finds the same entities as a criteria query,
+ * and that the second lookup reuses the cached query.
+ * (The performance of the lookup is measured by the JMH {@code DaoLookupBenchmark}.)
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@Transactional
+@ContextConfiguration(SpringTestContext.APPLICATION)
+public class BusinessIdQueryCacheTest {
+
+    /** The query that the cache builds for {@link CompositeEntity}. */
+    private static final String COMPOSITE_ENTITY_QUERY = "SELECT e FROM CompositeEntity e WHERE e.businessId.businessId = :businessId";
+
+    @Autowired
+    private CompositeEntityDao compositeEntityDao;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    public void testGetByBusinessId_cachedQuery() {
+        BusinessId<CompositeEntity> businessIdA = new BusinessId<CompositeEntity>(4711);
+        BusinessId<CompositeEntity> businessIdB = new BusinessId<CompositeEntity>(4712);
+        this.compositeEntityDao.makePersistent(new CompositeEntity(businessIdA));
+        this.compositeEntityDao.makePersistent(new CompositeEntity(businessIdB));
+        this.compositeEntityDao.emptySession();
+
+        Statistics statistics = this.entityManager.unwrap(Session.class).getSessionFactory().getStatistics();
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+        try {
+            /** call method under test */
+            CompositeEntity foundA = this.compositeEntityDao.getByBusinessId(businessIdA);
+            long planCacheMisses = statistics.getQueryPlanCacheMissCount();
+            long planCacheHits = statistics.getQueryPlanCacheHitCount();
+
+            /** call method under test - second call with an other business id */
+            CompositeEntity foundB = this.compositeEntityDao.getByBusinessId(businessIdB);
+
+            assertEquals(businessIdA, foundA.getBusinessId());
+            assertEquals(businessIdB, foundB.getBusinessId());
+            assertSame(foundA, criteriaLookup(businessIdA));
+            assertSame(foundB, criteriaLookup(businessIdB));
+
+            /* both lookups executed the same cached query, the second one found its plan in the cache */
+            assertEquals(2, statistics.getQueryStatistics(COMPOSITE_ENTITY_QUERY).getExecutionCount());
+            assertEquals(planCacheHits + 1, statistics.getQueryPlanCacheHitCount());
+            assertEquals(planCacheMisses, statistics.getQueryPlanCacheMissCount());
+        } finally {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+        }
+    }
+
+    /**
+     * The lookup with a criteria query, to compare the results.
+     *
+     * @param businessId the business id
+     * @return the entity
+     */
+    private CompositeEntity criteriaLookup(final BusinessId<CompositeEntity> businessId) {
+        CriteriaBuilder builder = this.entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<CompositeEntity> selectByBidQuery = builder.createQuery(CompositeEntity.class);
+        Root<CompositeEntity> root = selectByBidQuery.from(CompositeEntity.class);
+        selectByBidQuery.where(builder.equal(root.get("businessId"), businessId));
+        selectByBidQuery.select(root);
+
+        return this.entityManager.createQuery(selectByBidQuery).getSingleResult();
+    }
+
+}
@@ -0,0 +1,215 @@
+package com.queomedia;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.queomedia.base.test.hibernate.manytoonelazy.CompositeEntity;
+import com.queomedia.base.test.hibernate.manytoonelazy.CompositeEntityDao;
+import com.queomedia.base.test.hibernate.manytoonelazy.CompositeEntityStatelessDao;
+import com.queomedia.base.test.hibernate.versioned.VersionedEntity;
+import com.queomedia.base.test.hibernate.versioned.VersionedEntityDao;
+import com.queomedia.commons.exceptions.NotFoundRuntimeException;
+import com.queomedia.persistence.BusinessId;
+import com.queomedia.persistence.BusinessIdList;
+import com.queomedia.persistence.GeneralLoaderDao;
+import com.queomedia.persistence.hibernate.entitymanager.DaoMetrics;
+import com.queomedia.persistence.hibernate.entitymanager.GeneralHibernateLoaderDaoImpl;
+
+/**
+ * Test that the DAOs ({@link com.queomedia.persistence.hibernate.entitymanager.GenericHibernateDaoImpl},
+ * {@link com.queomedia.persistence.hibernate.entitymanager.GenericHibernateAbstractBusinessDaoImpl},
+ * {@link com.queomedia.persistence.hibernate.entitymanager.GenericHibernateStatelessDaoImpl} and
+ * {@link GeneralHibernateLoaderDaoImpl}) report their operations to the {@link DaoMetrics}.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@Transactional
+@ContextConfiguration(SpringTestContext.APPLICATION)
+public class DaoMetricsTest {
+
+    @Autowired
+    private GeneralLoaderDao generalLoaderDao;
+
+    @Autowired
+    private CompositeEntityDao compositeEntityDao;
+
+    @Autowired
+    private CompositeEntityStatelessDao compositeEntityStatelessDao;
+
+    @Autowired
+    private VersionedEntityDao versionedEntityDao;
+
+    private RecordingDaoMetrics daoMetrics;
+
+    @Before
+    public void enableMetrics() {
+        this.daoMetrics = new RecordingDaoMetrics();
+        ((GeneralHibernateLoaderDaoImpl) this.generalLoaderDao).setDaoMetrics(this.daoMetrics);
+        this.compositeEntityDao.setDaoMetrics(this.daoMetrics);
+        this.compositeEntityStatelessDao.setDaoMetrics(this.daoMetrics);
+        this.versionedEntityDao.setDaoMetrics(this.daoMetrics);
+    }
+
+    @After
+    public void disableMetrics() {
+        ((GeneralHibernateLoaderDaoImpl) this.generalLoaderDao).setDaoMetrics(DaoMetrics.DISABLED);
+        this.compositeEntityDao.setDaoMetrics(DaoMetrics.DISABLED);
+        this.compositeEntityStatelessDao.setDaoMetrics(DaoMetrics.DISABLED);
+        this.versionedEntityDao.setDaoMetrics(DaoMetrics.DISABLED);
+    }
+
+    /**
+     * Persist the entities and clear the session.
+     *
+     * @param count the number of entities
+     * @return the business ids
+     */
+    private List<BusinessId<CompositeEntity>> persistEntities(final int count) {
+        List<BusinessId<CompositeEntity>> businessIds = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            CompositeEntity compositeEntity = new CompositeEntity(new BusinessId<CompositeEntity>(i));
+            this.compositeEntityDao.makePersistent(compositeEntity);
+            businessIds.add(compositeEntity.getBusinessId());
+        }
+        this.compositeEntityDao.emptySession();
+        this.daoMetrics.records.clear();
+        return businessIds;
+    }
+
+    @Test
+    public void testGenericDao() {
+        this.compositeEntityDao.makePersistent(new CompositeEntity(new BusinessId<CompositeEntity>(1)));
+        this.compositeEntityDao.makePersistent(new CompositeEntity(new BusinessId<CompositeEntity>(2)));
+        this.compositeEntityDao.findAll();
+        this.compositeEntityDao.count();
+
+        assertEquals(Arrays.asList("CompositeEntity.makePersistent success",
+                "CompositeEntity.makePersistent success",
+                "CompositeEntity.findAll resultSize=2",
+                "CompositeEntity.findAll success",
+                "CompositeEntity.count success"), this.daoMetrics.records);
+    }
+
+    @Test
+    public void testBusinessDao() {
+        List<BusinessId<CompositeEntity>> businessIds = persistEntities(20);
+
+        this.compositeEntityDao.getByBusinessId(businessIds.get(0));
+        this.compositeEntityDao.getByBusinessIds(BusinessIdList.of(businessIds));
+
+        /* the 20 business ids are loaded with one IN-list, padded to 64 values */
+        assertEquals(Arrays.asList("CompositeEntity.getByBusinessId success",
+                "CompositeEntity inListSize=64",
+                "CompositeEntity.getByBusinessIds resultSize=20",
+                "CompositeEntity.getByBusinessIds success"), this.daoMetrics.records);
+    }
+
+    @Test
+    public void testStatelessDao() {
+        List<BusinessId<CompositeEntity>> businessIds = persistEntities(20);
+
+        this.compositeEntityStatelessDao.getByBusinessId(businessIds.get(0));
+        this.compositeEntityStatelessDao.getByBusinessIds(BusinessIdList.of(businessIds));
+
+        assertEquals(Arrays.asList("CompositeEntity.getByBusinessId success",
+                "CompositeEntity inListSize=64",
+                "CompositeEntity.getByBusinessIds resultSize=20",
+                "CompositeEntity.getByBusinessIds success"), this.daoMetrics.records);
+    }
+
+    @Test
+    public void testGeneralLoaderDao() {
+        List<BusinessId<CompositeEntity>> businessIds = persistEntities(3);
+
+        this.generalLoaderDao.findByBusinessIds(businessIds, CompositeEntity.class);
+        this.generalLoaderDao.findAll(CompositeEntity.class);
+
+        assertEquals(Arrays.asList("CompositeEntity inListSize=16",
+                "CompositeEntity.findByBusinessIds resultSize=3",
+                "CompositeEntity.findByBusinessIds success",
+                "CompositeEntity.findAll resultSize=3",
+                "CompositeEntity.findAll success"), this.daoMetrics.records);
+    }
+
+    /** Failed operations are recorded with the failure outcome and without result size. */
+    @Test
+    public void testFailedOperation() {
+        List<BusinessId<CompositeEntity>> businessIds = persistEntities(1);
+        BusinessId<CompositeEntity> notExisting = new BusinessId<CompositeEntity>(4711);
+
+        try {
+            this.compositeEntityDao.getByBusinessId(notExisting);
+            fail("NotFoundRuntimeException expected");
+        } catch (NotFoundRuntimeException e) {
+            // expected
+        }
+        try {
+            this.generalLoaderDao.getByBusinessIds(Arrays.asList(businessIds.get(0), notExisting),
+                    CompositeEntity.class);
+            fail("NotFoundRuntimeException expected");
+        } catch (NotFoundRuntimeException e) {
+            // expected
+        }
+
+        assertEquals(Arrays.asList("CompositeEntity.getByBusinessId failure",
+                "CompositeEntity inListSize=16",
+                "CompositeEntity.getByBusinessIds resultSize=1",
+                "CompositeEntity.getByBusinessIds failure"), this.daoMetrics.records);
+    }
+
+    /** The non bulk delete is recorded once, not as findAll and makeTransient operations. */
+    @Test
+    public void testMakeAllTransient_notBulkDeletable() {
+        this.versionedEntityDao.makePersistent(new VersionedEntity(1));
+        this.versionedEntityDao.makePersistent(new VersionedEntity(2));
+        this.versionedEntityDao.flushSession();
+        this.daoMetrics.records.clear();
+
+        this.versionedEntityDao.makeAllTransient();
+
+        assertEquals(Arrays.asList("VersionedEntity.makeAllTransient resultSize=2",
+                "VersionedEntity.makeAllTransient success"), this.daoMetrics.records);
+    }
+
+    /** Dao metrics that remember all records as strings, in the order they are recorded. */
+    private static class RecordingDaoMetrics implements DaoMetrics {
+
+        /** The records. */
+        private final List<String> records = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public void recordOperation(final Class<?> entityClass, final String operation, final boolean successful,
+                final long durationNanos) {
+            this.records.add(entityClass.getSimpleName() + "." + operation + (successful ? " success" : " failure"));
+        }
+
+        @Override
+        public void recordResultSize(final Class<?> entityClass, final String operation, final int resultSize) {
+            this.records.add(entityClass.getSimpleName() + "." + operation + " resultSize=" + resultSize);
+        }
+
+        @Override
+        public void recordInListSize(final Class<?> entityClass, final int inListSize) {
+            this.records.add(entityClass.getSimpleName() + " inListSize=" + inListSize);
+        }
+    }
+
+}
@@ -1,10 +1,16 @@
 package com.queomedia;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.hamcrest.Matchers;
 import org.junit.Test;
@@ -20,6 +26,7 @@ import org.springframework.transaction.annotation.Transactional;
 import com.queomedia.base.test.hibernate.manytoonelazy.CompositeEntity;
 import com.queomedia.base.test.hibernate.manytoonelazy.CompositeEntityDao;
 import com.queomedia.commons.asserts.AssertUtil;
+import com.queomedia.commons.exceptions.NotFoundRuntimeException;
 import com.queomedia.persistence.BusinessId;
 import com.queomedia.persistence.GeneralLoaderDao;
 import com.queomedia.persistence.hibernate.entitymanager.GeneralHibernateLoaderDaoImpl;
@@ -112,4 +119,126 @@ public class GeneralLoaderDaoTest {
         AssertUtil.hasSize(1, warnLogs);
         assertThat(warnLogs.get(0).getFormattedMessage(), Matchers.containsString("Sort=null is deprecated"));
     }
+
+    @Test
+    public void testGetByBusinessIds() {
+        CompositeEntity compositeEntityA = new CompositeEntity(new BusinessId<CompositeEntity>(123));
+        this.compositeEntityDao.makePersistent(compositeEntityA);
+        CompositeEntity compositeEntityB = new CompositeEntity(new BusinessId<CompositeEntity>(456));
+        this.compositeEntityDao.makePersistent(compositeEntityB);
+
+        List<CompositeEntity> result = this.generalLoaderDao.getByBusinessIds(
+                Arrays.asList(compositeEntityB.getBusinessId(),
+                        compositeEntityA.getBusinessId(),
+                        compositeEntityB.getBusinessId()),
+                CompositeEntity.class);
+
+        AssertUtil.sameOrder(Arrays.asList(compositeEntityB, compositeEntityA, compositeEntityB), result);
+    }
+
+    @Test(expected = NotFoundRuntimeException.class)
+    public void testGetByBusinessIds_notFound() {
+        CompositeEntity compositeEntityA = new CompositeEntity(new BusinessId<CompositeEntity>(123));
+        this.compositeEntityDao.makePersistent(compositeEntityA);
+
+        this.generalLoaderDao.getByBusinessIds(
+                Arrays.asList(compositeEntityA.getBusinessId(), new BusinessId<CompositeEntity>(789)),
+                CompositeEntity.class);
+    }
+
+    @Test
+    public void testFindByBusinessIds() {
+        CompositeEntity compositeEntityA = new CompositeEntity(new BusinessId<CompositeEntity>(123));
+        this.compositeEntityDao.makePersistent(compositeEntityA);
+        CompositeEntity compositeEntityB = new CompositeEntity(new BusinessId<CompositeEntity>(456));
+        this.compositeEntityDao.makePersistent(compositeEntityB);
+
+        BusinessId<CompositeEntity> notExisting = new BusinessId<CompositeEntity>(789);
+        Map<BusinessId<CompositeEntity>, CompositeEntity> result = this.generalLoaderDao.findByBusinessIds(
+                Arrays.asList(compositeEntityB.getBusinessId(), notExisting, compositeEntityA.getBusinessId()),
+                CompositeEntity.class);
+
+        AssertUtil.sameOrder(Arrays.asList(compositeEntityB.getBusinessId(), compositeEntityA.getBusinessId()),
+                new ArrayList<>(result.keySet()));
+        assertSame(compositeEntityA, result.get(compositeEntityA.getBusinessId()));
+        assertSame(compositeEntityB, result.get(compositeEntityB.getBusinessId()));
+    }
+
+    /** More business ids than the Oracle IN-list limit of 1000, so the query must be split. */
+    @Test
+    public void testGetByBusinessIds_moreThanInListLimit() {
+        List<BusinessId<CompositeEntity>> businessIds = new ArrayList<>();
+        for (int i = 1; i <= 2500; i++) {
+            CompositeEntity compositeEntity = new CompositeEntity(new BusinessId<CompositeEntity>(i));
+            this.compositeEntityDao.makePersistent(compositeEntity);
+            businessIds.add(compositeEntity.getBusinessId());
+        }
+        this.compositeEntityDao.emptySession();
+
+        List<CompositeEntity> result = this.generalLoaderDao.getByBusinessIds(businessIds, CompositeEntity.class);
+
+        assertEquals(businessIds.size(), result.size());
+        for (int i = 0; i < businessIds.size(); i++) {
+            assertEquals(businessIds.get(i), result.get(i).getBusinessId());
+        }
+    }
+
+    /** The second lookup of the same business id is served by the session scoped identity map. */
+    @Test
+    public void testGetByBusinessId_identityMap() {
+        GeneralHibernateLoaderDaoImpl loaderDao = (GeneralHibernateLoaderDaoImpl) this.generalLoaderDao;
+
+        CompositeEntity compositeEntity = new CompositeEntity(new BusinessId<CompositeEntity>(123));
+        this.compositeEntityDao.makePersistent(compositeEntity);
+
+        long hits = loaderDao.getIdentityMapHitCount();
+        long misses = loaderDao.getIdentityMapMissCount();
+
+        assertSame(compositeEntity,
+                this.generalLoaderDao.getByBusinessId(compositeEntity.getBusinessId(), CompositeEntity.class));
+        assertSame(compositeEntity,
+                this.generalLoaderDao.getByBusinessId(compositeEntity.getBusinessId(), CompositeEntity.class));
+        assertSame(compositeEntity,
+                this.generalLoaderDao.findByBusinessId(compositeEntity.getBusinessId(), CompositeEntity.class));
+
+        assertEquals(misses + 1, loaderDao.getIdentityMapMissCount());
+        assertEquals(hits + 2, loaderDao.getIdentityMapHitCount());
+    }
+
+    /** After the session is cleared, the entity must be loaded again. */
+    @Test
+    public void testGetByBusinessId_identityMapCleared() {
+        GeneralHibernateLoaderDaoImpl loaderDao = (GeneralHibernateLoaderDaoImpl) this.generalLoaderDao;
+
+        CompositeEntity compositeEntity = new CompositeEntity(new BusinessId<CompositeEntity>(123));
+        this.compositeEntityDao.makePersistent(compositeEntity);
+        this.generalLoaderDao.getByBusinessId(compositeEntity.getBusinessId(), CompositeEntity.class);
+
+        this.compositeEntityDao.emptySession();
+
+        long hits = loaderDao.getIdentityMapHitCount();
+        CompositeEntity reloaded = this.generalLoaderDao.getByBusinessId(compositeEntity.getBusinessId(),
+                CompositeEntity.class);
+
+        assertNotSame(compositeEntity, reloaded);
+        assertEquals(compositeEntity, reloaded);
+        assertEquals(hits, loaderDao.getIdentityMapHitCount());
+    }
+
+    @Test
+    public void testFindAllStream() {
+        CompositeEntity compositeEntityA = new CompositeEntity(new BusinessId<CompositeEntity>(123));
+        this.compositeEntityDao.makePersistent(compositeEntityA);
+        CompositeEntity compositeEntityB = new CompositeEntity(new BusinessId<CompositeEntity>(456));
+        this.compositeEntityDao.makePersistent(compositeEntityB);
+
+        List<BusinessId<CompositeEntity>> streamed;
+        try (Stream<CompositeEntity> stream = this.generalLoaderDao.findAllStream(CompositeEntity.class,
+                Sort.by(Direction.DESC, "businessId"),
+                1)) {
+            streamed = stream.map(CompositeEntity::getBusinessId).collect(Collectors.toList());
+        }
+
+        assertEquals(Arrays.asList(compositeEntityB.getBusinessId(), compositeEntityA.getBusinessId()), streamed);
+    }
 }
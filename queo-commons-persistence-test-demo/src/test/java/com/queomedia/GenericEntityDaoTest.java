@@ -1,20 +1,51 @@
 package com.queomedia;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.PersistenceContext;
 
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.queomedia.base.test.hibernate.manytoonelazy.ComponentEntity;
+import com.queomedia.base.test.hibernate.manytoonelazy.ComponentEntityDao;
 import com.queomedia.base.test.hibernate.manytoonelazy.CompositeEntity;
 import com.queomedia.base.test.hibernate.manytoonelazy.CompositeEntityDao;
+import com.queomedia.base.test.hibernate.softdelete.SoftDeleteEntity;
+import com.queomedia.base.test.hibernate.softdelete.SoftDeleteEntityDao;
+import com.queomedia.base.test.hibernate.versioned.VersionedEntity;
+import com.queomedia.base.test.hibernate.versioned.VersionedEntityDao;
 import com.queomedia.commons.asserts.AssertUtil;
+import com.queomedia.commons.exceptions.NotFoundRuntimeException;
+import com.queomedia.persistence.BatchPersistStatistics;
 import com.queomedia.persistence.BusinessId;
+import com.queomedia.persistence.BusinessIdList;
+import com.queomedia.persistence.BusinessIdSet;
+import com.queomedia.persistence.KeysetPage;
+import com.queomedia.persistence.ProjectionProperties;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @Transactional
@@ -24,6 +55,18 @@ public class GenericEntityDaoTest {
     @Autowired
     private CompositeEntityDao compositeEntityDao;
 
+    @Autowired
+    private ComponentEntityDao componentEntityDao;
+
+    @Autowired
+    private VersionedEntityDao versionedEntityDao;
+
+    @Autowired
+    private SoftDeleteEntityDao softDeleteEntityDao;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Test
     public void testFindAll_empty() {
         AssertUtil.isEmpty(compositeEntityDao.findAll());
@@ -65,4 +108,415 @@ public class GenericEntityDaoTest {
 
         AssertUtil.containsExact(Arrays.asList(compositeEntityA, compositeEntityB), compositeEntityDao.findAll(null));
     }
+
+    @Test
+    public void testGetByBusinessIdList() {
+        List<BusinessId<CompositeEntity>> businessIds = new ArrayList<>();
+        for (int i = 1; i <= 1500; i++) {
+            CompositeEntity compositeEntity = new CompositeEntity(new BusinessId<CompositeEntity>(i));
+            compositeEntityDao.makePersistent(compositeEntity);
+            businessIds.add(compositeEntity.getBusinessId());
+        }
+        compositeEntityDao.emptySession();
+        Collections.reverse(businessIds);
+
+        List<CompositeEntity> result = compositeEntityDao.getByBusinessId(businessIds);
+
+        assertEquals(businessIds.size(), result.size());
+        for (int i = 0; i < businessIds.size(); i++) {
+            assertEquals(businessIds.get(i), result.get(i).getBusinessId());
+        }
+    }
+
+    @Test(expected = EmptyResultDataAccessException.class)
+    public void testGetByBusinessIdList_noneFound() {
+        compositeEntityDao.getByBusinessId(Arrays.asList(new BusinessId<CompositeEntity>(123)));
+    }
+
+    @Test(expected = IncorrectResultSizeDataAccessException.class)
+    public void testGetByBusinessIdList_notAllFound() {
+        CompositeEntity compositeEntityA = new CompositeEntity(new BusinessId<CompositeEntity>(123));
+        compositeEntityDao.makePersistent(compositeEntityA);
+
+        compositeEntityDao.getByBusinessId(
+                Arrays.asList(compositeEntityA.getBusinessId(), new BusinessId<CompositeEntity>(456)));
+    }
+
+    /** Stream more entities than the fetch size, so the session gets cleared while streaming. */
+    @Test
+    public void testFindAllStream() {
+        List<BusinessId<CompositeEntity>> businessIds = new ArrayList<>();
+        for (int i = 1; i <= 250; i++) {
+            CompositeEntity compositeEntity = new CompositeEntity(new BusinessId<CompositeEntity>(i));
+            compositeEntityDao.makePersistent(compositeEntity);
+            businessIds.add(compositeEntity.getBusinessId());
+        }
+
+        List<BusinessId<CompositeEntity>> streamed;
+        try (Stream<CompositeEntity> stream = compositeEntityDao.findAllStream(Sort.by(Direction.ASC, "businessId"),
+                100)) {
+            streamed = stream.map(CompositeEntity::getBusinessId).collect(Collectors.toList());
+        }
+
+        assertEquals(businessIds, streamed);
+    }
+
+    /**
+     * Stream more entities than the fetch size, while an entity that was loaded before is modified:
+     * only the streamed entities are evicted, the modification is written.
+     */
+    @Test
+    public void testFindAllStream_modifyLoadedEntity() {
+        for (int i = 1; i <= 5; i++) {
+            compositeEntityDao.makePersistent(new CompositeEntity(new BusinessId<CompositeEntity>(i)));
+        }
+        compositeEntityDao.emptySession();
+        CompositeEntity loaded = compositeEntityDao.getByBusinessId(new BusinessId<CompositeEntity>(5));
+
+        List<CompositeEntity> streamed;
+        try (Stream<CompositeEntity> stream = compositeEntityDao.findAllStream(Sort.by(Direction.ASC, "businessId"),
+                2)) {
+            streamed = stream.peek(entity -> {
+                if (entity.getBusinessIdValue() == 3) {
+                    loaded.setName("modified while streaming");
+                }
+            }).collect(Collectors.toList());
+        }
+
+        assertEquals(5, streamed.size());
+        assertFalse(entityManager.contains(streamed.get(0)));
+        assertSame(loaded, streamed.get(4));
+        assertTrue(entityManager.contains(loaded));
+
+        compositeEntityDao.emptySession();
+        assertEquals("modified while streaming",
+                compositeEntityDao.getByBusinessId(new BusinessId<CompositeEntity>(5)).getName());
+    }
+
+    /**
+     * Stream entities with a many-to-one association: the associated entities that are loaded while the stream is
+     * consumed are evicted too, so the persistence context does not grow with the result.
+     */
+    @Test
+    public void testFindAllStream_manyToOne() {
+        for (int i = 1; i <= 50; i++) {
+            CompositeEntity compositeEntity = new CompositeEntity(new BusinessId<CompositeEntity>(i));
+            compositeEntityDao.makePersistent(compositeEntity);
+            componentEntityDao.makePersistent(new ComponentEntity(compositeEntity, new BusinessId<ComponentEntity>(i)));
+        }
+        compositeEntityDao.emptySession();
+        CompositeEntity loaded = compositeEntityDao.getByBusinessId(new BusinessId<CompositeEntity>(1));
+        Session session = entityManager.unwrap(Session.class);
+
+        AtomicInteger maxEntityCount = new AtomicInteger();
+        List<ComponentEntity> streamed;
+        try (Stream<ComponentEntity> stream = componentEntityDao.findAllStream(Sort.by(Direction.ASC, "businessId"),
+                10)) {
+            streamed = stream.peek(component -> {
+                /* initialize the lazy association */
+                component.getCompositeEntity().getName();
+                maxEntityCount.accumulateAndGet(session.getStatistics().getEntityCount(), Math::max);
+            }).collect(Collectors.toList());
+        }
+
+        assertEquals(50, streamed.size());
+        /* the entity loaded before, and the components and composites of at most one fetch */
+        assertTrue("max entity count " + maxEntityCount.get(), maxEntityCount.get() <= 1 + 2 * 10);
+        assertEquals(1, session.getStatistics().getEntityCount());
+        assertTrue(entityManager.contains(loaded));
+    }
+
+    /** Persist the entities in batches, the session is cleared after every batch. */
+    @Test
+    public void testMakePersistentInBatches() {
+        List<CompositeEntity> entities = new ArrayList<>();
+        for (int i = 1; i <= 25; i++) {
+            entities.add(new CompositeEntity(new BusinessId<CompositeEntity>(i)));
+        }
+
+        BatchPersistStatistics statistics = compositeEntityDao.makePersistentInBatches(entities, 10);
+
+        assertEquals(25, statistics.getEntityCount());
+        assertEquals(3, statistics.getBatchCount());
+        assertEquals(10, statistics.getBatchSize());
+        assertEquals(25, compositeEntityDao.count());
+        assertFalse(entityManager.contains(entities.get(0)));
+        /* composite entities have an identity id */
+        assertFalse(statistics.isJdbcBatched());
+    }
+
+    /** Persist entities with assigned ids in batches: the inserts of every batch are sent as one JDBC batch. */
+    @Test
+    public void testMakePersistentInBatches_jdbcBatched() {
+        List<VersionedEntity> entities = new ArrayList<>();
+        for (int i = 1; i <= 25; i++) {
+            entities.add(new VersionedEntity(i));
+        }
+
+        Statistics hibernateStatistics = entityManager.unwrap(Session.class).getSessionFactory().getStatistics();
+        boolean statisticsEnabled = hibernateStatistics.isStatisticsEnabled();
+        hibernateStatistics.clear();
+        hibernateStatistics.setStatisticsEnabled(true);
+        BatchPersistStatistics statistics;
+        try {
+            statistics = versionedEntityDao.makePersistentInBatches(entities, 10);
+
+            assertEquals(25, hibernateStatistics.getEntityInsertCount());
+            /* one prepared insert statement per batch, instead of one per entity */
+            assertEquals(3, hibernateStatistics.getPrepareStatementCount());
+        } finally {
+            hibernateStatistics.setStatisticsEnabled(statisticsEnabled);
+        }
+
+        assertTrue(statistics.isJdbcBatched());
+        assertEquals(3, statistics.getBatchCount());
+        assertEquals(25, versionedEntityDao.count());
+    }
+
+    /** Delete some entities with a bulk delete, they get evicted from the session. */
+    @Test
+    public void testMakeTransient_collection() {
+        CompositeEntity entity1 = new CompositeEntity(new BusinessId<CompositeEntity>(1));
+        compositeEntityDao.makePersistent(entity1);
+        CompositeEntity entity2 = new CompositeEntity(new BusinessId<CompositeEntity>(2));
+        compositeEntityDao.makePersistent(entity2);
+        CompositeEntity entity3 = new CompositeEntity(new BusinessId<CompositeEntity>(3));
+        compositeEntityDao.makePersistent(entity3);
+
+        compositeEntityDao.makeTransient(Arrays.asList(entity1, entity3));
+
+        assertFalse(entityManager.contains(entity1));
+        assertFalse(entityManager.contains(entity3));
+        AssertUtil.containsExact(Arrays.asList(entity2), compositeEntityDao.findAll());
+    }
+
+    /**
+     * Versioned entities are not deleted by a bulk delete, because it would not check the version:
+     * deleting an entity that was modified concurrently fails.
+     */
+    @Test(expected = OptimisticLockException.class)
+    public void testMakeTransient_collectionVersioned() {
+        VersionedEntity entity1 = versionedEntityDao.makePersistent(new VersionedEntity(1));
+        VersionedEntity entity2 = versionedEntityDao.makePersistent(new VersionedEntity(2));
+        versionedEntityDao.flushSession();
+
+        /* concurrent modification of entity 1 */
+        entityManager.createQuery("UPDATE VersionedEntity e SET e.version = e.version + 1 WHERE e.id = :id")
+                .setParameter("id", entity1.getId())
+                .executeUpdate();
+
+        versionedEntityDao.makeTransient(Arrays.asList(entity1, entity2));
+        versionedEntityDao.flushSession();
+    }
+
+    /**
+     * A bulk delete fails like the one by one delete, if a row does not exist anymore:
+     * deleting an entity that was deleted concurrently fails.
+     */
+    @Test(expected = OptimisticLockException.class)
+    public void testMakeTransient_collectionDeletedConcurrently() {
+        CompositeEntity entity1 = new CompositeEntity(new BusinessId<CompositeEntity>(1));
+        compositeEntityDao.makePersistent(entity1);
+        CompositeEntity entity2 = new CompositeEntity(new BusinessId<CompositeEntity>(2));
+        compositeEntityDao.makePersistent(entity2);
+        compositeEntityDao.flushSession();
+
+        /* concurrent delete of entity 1 */
+        entityManager.createQuery("DELETE FROM CompositeEntity e WHERE e.id = :id")
+                .setParameter("id", entity1.getId())
+                .executeUpdate();
+
+        compositeEntityDao.makeTransient(Arrays.asList(entity1, entity2));
+    }
+
+    /**
+     * Entities with a soft delete ({@code @SQLDelete}) are not deleted by a bulk delete, because it would remove
+     * their rows: they are deleted one by one, so the rows are only marked as deleted.
+     */
+    @Test
+    public void testMakeTransient_collectionSoftDelete() {
+        SoftDeleteEntity entity1 = softDeleteEntityDao.makePersistent(new SoftDeleteEntity(1));
+        SoftDeleteEntity entity2 = softDeleteEntityDao.makePersistent(new SoftDeleteEntity(2));
+        softDeleteEntityDao.makePersistent(new SoftDeleteEntity(3));
+        softDeleteEntityDao.flushSession();
+
+        softDeleteEntityDao.makeTransient(Arrays.asList(entity1, entity2));
+        softDeleteEntityDao.flushSession();
+
+        assertEquals(1, softDeleteEntityDao.count());
+        assertEquals(3, countSoftDeleteRows());
+    }
+
+    /** All entities with a soft delete ({@code @SQLDelete}) are deleted one by one, the rows are kept. */
+    @Test
+    public void testMakeAllTransient_softDelete() {
+        softDeleteEntityDao.makePersistent(new SoftDeleteEntity(1));
+        softDeleteEntityDao.makePersistent(new SoftDeleteEntity(2));
+        softDeleteEntityDao.flushSession();
+
+        softDeleteEntityDao.makeAllTransient();
+        softDeleteEntityDao.flushSession();
+
+        assertEquals(0, softDeleteEntityDao.count());
+        assertEquals(2, countSoftDeleteRows());
+    }
+
+    /**
+     * Count the rows of the soft delete entity table, including the rows that are marked as deleted.
+     *
+     * @return the number of rows
+     */
+    private long countSoftDeleteRows() {
+        return ((Number) entityManager.createNativeQuery("SELECT COUNT(*) FROM soft_delete_entity")
+                .getSingleResult()).longValue();
+    }
+
+    /** Delete all entities with a bulk delete, they get evicted from the session. */
+    @Test
+    public void testMakeAllTransient() {
+        CompositeEntity entity1 = new CompositeEntity(new BusinessId<CompositeEntity>(1));
+        compositeEntityDao.makePersistent(entity1);
+        compositeEntityDao.makePersistent(new CompositeEntity(new BusinessId<CompositeEntity>(2)));
+
+        compositeEntityDao.makeAllTransient();
+
+        assertFalse(entityManager.contains(entity1));
+        assertEquals(0, compositeEntityDao.count());
+    }
+
+    @Test
+    public void testFindAllBusinessIds() {
+        compositeEntityDao.makePersistent(new CompositeEntity(new BusinessId<CompositeEntity>(456)));
+        compositeEntityDao.makePersistent(new CompositeEntity(new BusinessId<CompositeEntity>(123)));
+
+        assertEquals(BusinessIdSet.of(123, 456), compositeEntityDao.findAllBusinessIds());
+    }
+
+    @Test
+    public void testFindProjection() {
+        compositeEntityDao.makePersistent(new CompositeEntity(new BusinessId<CompositeEntity>(456)));
+        compositeEntityDao.makePersistent(new CompositeEntity(new BusinessId<CompositeEntity>(123)));
+
+        List<CompositeEntityView> views = compositeEntityDao.findProjection(CompositeEntityView.class,
+                Sort.by(Direction.DESC, "businessId"));
+
+        assertEquals(2, views.size());
+        assertEquals(Long.valueOf(456), views.get(0).getBusinessId());
+        assertEquals(Long.valueOf(123), views.get(1).getBusinessId());
+    }
+
+    @Test
+    public void testGetByBusinessId_projection() {
+        CompositeEntity compositeEntity = new CompositeEntity(new BusinessId<CompositeEntity>(123));
+        compositeEntityDao.makePersistent(compositeEntity);
+
+        CompositeEntityView view = compositeEntityDao.getByBusinessId(compositeEntity.getBusinessId(),
+                CompositeEntityView.class);
+
+        assertEquals(compositeEntity.getId(), view.getId());
+        assertEquals(Long.valueOf(123), view.getBusinessId());
+    }
+
+    @Test(expected = NotFoundRuntimeException.class)
+    public void testGetByBusinessId_projectionNotFound() {
+        compositeEntityDao.getByBusinessId(new BusinessId<CompositeEntity>(123), CompositeEntityView.class);
+    }
+
+    @Test
+    public void testGetByBusinessIds_businessIdList() {
+        CompositeEntity compositeEntityA = new CompositeEntity(new BusinessId<CompositeEntity>(123));
+        compositeEntityDao.makePersistent(compositeEntityA);
+        CompositeEntity compositeEntityB = new CompositeEntity(new BusinessId<CompositeEntity>(456));
+        compositeEntityDao.makePersistent(compositeEntityB);
+
+        AssertUtil.sameOrder(Arrays.asList(compositeEntityB, compositeEntityA),
+                compositeEntityDao.getByBusinessIds(BusinessIdList.<CompositeEntity> of(456, 123)));
+    }
+
+    /** Read all entities page by page, sorted by business id. */
+    @Test
+    public void testFindPageAfter() {
+        List<CompositeEntity> entities = new ArrayList<>();
+        for (int i = 1; i <= 25; i++) {
+            CompositeEntity compositeEntity = new CompositeEntity(new BusinessId<CompositeEntity>(i));
+            entities.add(compositeEntityDao.makePersistent(compositeEntity));
+        }
+        Collections.reverse(entities);
+
+        List<CompositeEntity> read = new ArrayList<>();
+        Sort sort = Sort.by(Direction.DESC, "businessId");
+        KeysetPage<CompositeEntity> page = compositeEntityDao.findPageAfter(null, 10, sort);
+        read.addAll(page.getContent());
+        while (page.hasNext()) {
+            BusinessId<CompositeEntity> last = KeysetPage.parseContinuationToken(page.getContinuationToken());
+            page = compositeEntityDao.findPageAfter(last, 10, sort);
+            read.addAll(page.getContent());
+        }
+
+        AssertUtil.sameOrder(entities, read);
+        assertEquals(5, page.getContent().size());
+    }
+
+    /** Sort by an other property than the business id, so the keyset is resolved by subqueries. */
+    @Test
+    public void testFindPageAfter_sortedByOtherProperty() {
+        List<CompositeEntity> entities = new ArrayList<>();
+        for (int i = 1; i <= 7; i++) {
+            CompositeEntity compositeEntity = new CompositeEntity(new BusinessId<CompositeEntity>(100 - i));
+            entities.add(compositeEntityDao.makePersistent(compositeEntity));
+        }
+        compositeEntityDao.flushSession();
+
+        KeysetPage<CompositeEntity> first = compositeEntityDao.findPageAfter(null, 4, Sort.by(Direction.ASC, "id"));
+        KeysetPage<CompositeEntity> second = compositeEntityDao.findPageAfter(
+                new BusinessId<CompositeEntity>(first.getLastBusinessId().getBusinessId()),
+                4,
+                Sort.by(Direction.ASC, "id"));
+
+        AssertUtil.sameOrder(entities.subList(0, 4), first.getContent());
+        AssertUtil.sameOrder(entities.subList(4, 7), second.getContent());
+        assertFalse(second.hasNext());
+    }
+
+    /**
+     * Sort by an other property than the business id, and delete the last element of the first page
+     * before the second page is requested: fail instead of returning an empty page.
+     */
+    @Test(expected = NotFoundRuntimeException.class)
+    public void testFindPageAfter_deletedLastElement() {
+        for (int i = 1; i <= 7; i++) {
+            compositeEntityDao.makePersistent(new CompositeEntity(new BusinessId<CompositeEntity>(100 - i)));
+        }
+        compositeEntityDao.flushSession();
+
+        KeysetPage<CompositeEntity> first = compositeEntityDao.findPageAfter(null, 4, Sort.by(Direction.ASC, "id"));
+        BusinessId<CompositeEntity> last = KeysetPage.parseContinuationToken(first.getContinuationToken());
+        compositeEntityDao.makeTransient(compositeEntityDao.getByBusinessId(last));
+        compositeEntityDao.flushSession();
+
+        compositeEntityDao.findPageAfter(last, 4, Sort.by(Direction.ASC, "id"));
+    }
+
+    /** Projection of {@link CompositeEntity} used by the projection tests. */
+    public static class CompositeEntityView {
+
+        private final Long id;
+
+        private final Long businessId;
+
+        @ProjectionProperties({ "id", "businessId.businessId" })
+        public CompositeEntityView(final Long id, final Long businessId) {
+            this.id = id;
+            this.businessId = businessId;
+        }
+
+        public Long getId() {
+            return this.id;
+        }
+
+        public Long getBusinessId() {
+            return this.businessId;
+        }
+    }
+
 }
@@ -0,0 +1,128 @@
+package com.queomedia;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.queomedia.base.test.hibernate.manytoonelazy.CompositeEntity;
+import com.queomedia.base.test.hibernate.manytoonelazy.CompositeEntityDao;
+import com.queomedia.base.test.hibernate.manytoonelazy.CompositeEntityStatelessDao;
+import com.queomedia.commons.exceptions.NotFoundRuntimeException;
+import com.queomedia.persistence.BusinessId;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@Transactional
+@ContextConfiguration(SpringTestContext.APPLICATION)
+public class GenericStatelessDaoTest {
+
+    @Autowired
+    private CompositeEntityStatelessDao compositeEntityStatelessDao;
+
+    @Autowired
+    private CompositeEntityDao compositeEntityDao;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    public void testInsertAndGetByBusinessId() {
+        BusinessId<CompositeEntity> businessId = new BusinessId<CompositeEntity>(123);
+        CompositeEntity compositeEntity = new CompositeEntity(businessId);
+
+        compositeEntityStatelessDao.insert(compositeEntity);
+
+        CompositeEntity loaded = compositeEntityStatelessDao.getByBusinessId(businessId);
+        assertEquals(compositeEntity, loaded);
+        assertFalse("stateless loaded entities are detached", entityManager.contains(loaded));
+
+        /* the stateful session use the same transaction */
+        assertEquals(compositeEntity, compositeEntityDao.getByBusinessId(businessId));
+    }
+
+    /** All operations within a call chain use the same stateless session. */
+    @Test
+    public void testDoInStatelessSession_callChain() {
+        BusinessId<CompositeEntity> businessId = new BusinessId<CompositeEntity>(123);
+
+        CompositeEntity loaded = compositeEntityStatelessDao.doInStatelessSession(statelessSession -> {
+            compositeEntityStatelessDao.insert(new CompositeEntity(businessId));
+            compositeEntityStatelessDao.doInStatelessSession(nested -> {
+                assertSame(statelessSession, nested);
+                return null;
+            });
+            return compositeEntityStatelessDao.getByBusinessId(businessId);
+        });
+
+        assertEquals(businessId, loaded.getBusinessId());
+        assertEquals(loaded, compositeEntityDao.getByBusinessId(businessId));
+    }
+
+    @Test
+    public void testGetByBusinessId_list() {
+        compositeEntityStatelessDao.insert(Arrays.asList(new CompositeEntity(new BusinessId<CompositeEntity>(1)),
+                new CompositeEntity(new BusinessId<CompositeEntity>(2)),
+                new CompositeEntity(new BusinessId<CompositeEntity>(3))));
+
+        List<BusinessId<CompositeEntity>> businessIds = Arrays.asList(new BusinessId<CompositeEntity>(3),
+                new BusinessId<CompositeEntity>(1));
+        List<CompositeEntity> loaded = compositeEntityStatelessDao.getByBusinessId(businessIds);
+
+        assertEquals(businessIds, loaded.stream().map(CompositeEntity::getBusinessId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testFindByBusinessIdOrNull_notFound() {
+        assertNull(compositeEntityStatelessDao.findByBusinessIdOrNull(new BusinessId<CompositeEntity>(123)));
+    }
+
+    @Test(expected = NotFoundRuntimeException.class)
+    public void testGetByBusinessId_notFound() {
+        compositeEntityStatelessDao.getByBusinessId(new BusinessId<CompositeEntity>(123));
+    }
+
+    @Test
+    public void testDelete() {
+        BusinessId<CompositeEntity> businessId = new BusinessId<CompositeEntity>(123);
+        CompositeEntity compositeEntity = compositeEntityStatelessDao.insert(new CompositeEntity(businessId));
+
+        compositeEntityStatelessDao.delete(compositeEntity);
+
+        assertNull(compositeEntityStatelessDao.findByBusinessIdOrNull(businessId));
+    }
+
+    @Test
+    public void testFindAllStream() {
+        compositeEntityStatelessDao.insert(Arrays.asList(new CompositeEntity(new BusinessId<CompositeEntity>(2)),
+                new CompositeEntity(new BusinessId<CompositeEntity>(3)),
+                new CompositeEntity(new BusinessId<CompositeEntity>(1))));
+
+        List<BusinessId<CompositeEntity>> streamed;
+        try (Stream<CompositeEntity> stream = compositeEntityStatelessDao
+                .findAllStream(Sort.by(Direction.DESC, "businessId.businessId"), 2)) {
+            streamed = stream.map(CompositeEntity::getBusinessId).collect(Collectors.toList());
+        }
+
+        assertEquals(Arrays.asList(new BusinessId<CompositeEntity>(3),
+                new BusinessId<CompositeEntity>(2),
+                new BusinessId<CompositeEntity>(1)), streamed);
+    }
+
+}
@@ -0,0 +1,183 @@
+package com.queomedia;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.queomedia.base.test.hibernate.manytoonelazy.CompositeEntity;
+import com.queomedia.base.test.hibernate.manytoonelazy.CompositeEntityDao;
+import com.queomedia.commons.exceptions.NotFoundRuntimeException;
+import com.queomedia.persistence.BusinessId;
+import com.queomedia.persistence.GeneralLoaderDao;
+import com.queomedia.persistence.hibernate.entitymanager.DaoMetrics;
+import com.queomedia.persistence.hibernate.entitymanager.GeneralHibernateLoaderDaoImpl;
+import com.queomedia.persistence.hibernate.entitymanager.NPlusOneDetectedException;
+import com.queomedia.persistence.hibernate.entitymanager.NPlusOneDetector;
+import com.queomedia.persistence.hibernate.entitymanager.NPlusOneDetector.Reaction;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@Transactional
+@ContextConfiguration(SpringTestContext.APPLICATION)
+public class NPlusOneDetectorTest {
+
+    @Autowired
+    private GeneralLoaderDao generalLoaderDao;
+
+    @Autowired
+    private CompositeEntityDao compositeEntityDao;
+
+    @After
+    public void disableDetector() {
+        ((GeneralHibernateLoaderDaoImpl) this.generalLoaderDao).setDaoMetrics(DaoMetrics.DISABLED);
+        this.compositeEntityDao.setDaoMetrics(DaoMetrics.DISABLED);
+    }
+
+    /**
+     * Persist the entities and clear the session, so that every lookup must load the entity.
+     *
+     * @param count the number of entities
+     * @return the business ids
+     */
+    private List<BusinessId<CompositeEntity>> persistEntities(final int count) {
+        List<BusinessId<CompositeEntity>> businessIds = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            CompositeEntity compositeEntity = new CompositeEntity(new BusinessId<CompositeEntity>(i));
+            this.compositeEntityDao.makePersistent(compositeEntity);
+            businessIds.add(compositeEntity.getBusinessId());
+        }
+        this.compositeEntityDao.emptySession();
+        return businessIds;
+    }
+
+    @Test
+    public void testFail() {
+        NPlusOneDetector detector = new NPlusOneDetector(3, Reaction.FAIL);
+        ((GeneralHibernateLoaderDaoImpl) this.generalLoaderDao).setDaoMetrics(detector);
+        List<BusinessId<CompositeEntity>> businessIds = persistEntities(5);
+
+        for (int i = 0; i < 3; i++) {
+            this.generalLoaderDao.getByBusinessId(businessIds.get(i), CompositeEntity.class);
+        }
+        try {
+            this.generalLoaderDao.getByBusinessId(businessIds.get(3), CompositeEntity.class);
+            fail("NPlusOneDetectedException expected");
+        } catch (NPlusOneDetectedException e) {
+            assertThat(e.getMessage(), Matchers.containsString(CompositeEntity.class.getName()));
+            assertThat(e.getMessage(), Matchers.containsString(NPlusOneDetectorTest.class.getName() + ".testFail"));
+        }
+        assertEquals(1, detector.getDetectionCount());
+    }
+
+    /** Batch loads are not counted. */
+    @Test
+    public void testBatchLoad() {
+        NPlusOneDetector detector = new NPlusOneDetector(1, Reaction.FAIL);
+        ((GeneralHibernateLoaderDaoImpl) this.generalLoaderDao).setDaoMetrics(detector);
+        List<BusinessId<CompositeEntity>> businessIds = persistEntities(5);
+
+        this.generalLoaderDao.getByBusinessIds(businessIds, CompositeEntity.class);
+        this.generalLoaderDao.getByBusinessIds(businessIds, CompositeEntity.class);
+
+        assertEquals(0, detector.getDetectionCount());
+    }
+
+    /**
+     * Resolving the same entity again is served by the session without SQL, so it is not counted.
+     */
+    @Test
+    public void testSameBusinessIdRepeatedly() {
+        NPlusOneDetector detector = new NPlusOneDetector(1, Reaction.FAIL);
+        ((GeneralHibernateLoaderDaoImpl) this.generalLoaderDao).setDaoMetrics(detector);
+        this.compositeEntityDao.setDaoMetrics(detector);
+        List<BusinessId<CompositeEntity>> businessIds = persistEntities(1);
+
+        CompositeEntity entity = null;
+        for (int i = 0; i < 10; i++) {
+            entity = this.generalLoaderDao.getByBusinessId(businessIds.get(0), CompositeEntity.class);
+            this.generalLoaderDao.findByBusinessId(businessIds.get(0), CompositeEntity.class);
+        }
+        for (int i = 0; i < 10; i++) {
+            this.compositeEntityDao.findByPrimaryKey(entity.getId(), false);
+        }
+
+        assertEquals(0, detector.getDetectionCount());
+    }
+
+    /** If the load that exceeds the threshold fails, then its exception is not replaced by the detection. */
+    @Test
+    public void testFailedLoad() {
+        NPlusOneDetector detector = new NPlusOneDetector(0, Reaction.FAIL);
+        ((GeneralHibernateLoaderDaoImpl) this.generalLoaderDao).setDaoMetrics(detector);
+        persistEntities(1);
+
+        try {
+            this.generalLoaderDao.getByBusinessId(new BusinessId<CompositeEntity>(4711), CompositeEntity.class);
+            fail("NotFoundRuntimeException expected");
+        } catch (NotFoundRuntimeException e) {
+            // expected
+        }
+        assertEquals(1, detector.getDetectionCount());
+    }
+
+    /** The explicit scope hides the transaction scope, so the loads are counted per scope. */
+    @Test
+    public void testExplicitScope() {
+        NPlusOneDetector detector = new NPlusOneDetector(2, Reaction.FAIL);
+        this.compositeEntityDao.setDaoMetrics(detector);
+        List<BusinessId<CompositeEntity>> businessIds = persistEntities(4);
+
+        for (BusinessId<CompositeEntity> businessId : businessIds) {
+            try (NPlusOneDetector.Scope scope = detector.openScope()) {
+                this.compositeEntityDao.getByBusinessId(businessId);
+            }
+        }
+
+        assertEquals(0, detector.getDetectionCount());
+    }
+
+    @Test
+    public void testLogWarning() {
+        ch.qos.logback.classic.Logger logger = (ch.qos.logback.classic.Logger) LoggerFactory
+                .getLogger(NPlusOneDetector.class);
+
+        ListAppender<ILoggingEvent> testAppender = new ListAppender<>();
+        logger.addAppender(testAppender);
+        testAppender.start();
+
+        NPlusOneDetector detector = new NPlusOneDetector(2, Reaction.LOG_WARNING);
+        this.compositeEntityDao.setDaoMetrics(detector);
+        try {
+            for (BusinessId<CompositeEntity> businessId : persistEntities(5)) {
+                this.compositeEntityDao.findByBusinessIdOrNull(businessId);
+            }
+        } finally {
+            logger.detachAppender(testAppender);
+        }
+
+        /* only one warning per entity class and scope */
+        List<ILoggingEvent> warnLogs = testAppender.list.stream().filter(logEvent -> logEvent.getLevel() == Level.WARN)
+                .collect(Collectors.toList());
+        assertEquals(1, warnLogs.size());
+        assertThat(warnLogs.get(0).getFormattedMessage(), Matchers.containsString("N+1 load pattern detected"));
+        assertEquals(1, detector.getDetectionCount());
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.queomedia;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.queomedia.base.test.hibernate.naturalid.NaturalIdEntity;
+import com.queomedia.base.test.hibernate.naturalid.NaturalIdEntityDao;
+import com.queomedia.commons.exceptions.NotFoundRuntimeException;
+import com.queomedia.persistence.BusinessId;
+import com.queomedia.persistence.GeneralLoaderDao;
+
+/**
+ * Test the business id lookups for an entity whose business id is registered as natural id
+ * ({@link com.queomedia.persistence.BusinessIdNaturalId}).
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@Transactional
+@ContextConfiguration(SpringTestContext.APPLICATION)
+public class NaturalIdEntityDaoTest {
+
+    @Autowired
+    private NaturalIdEntityDao naturalIdEntityDao;
+
+    @Autowired
+    private GeneralLoaderDao generalLoaderDao;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    public void testBusinessIdIsNaturalId() {
+        EntityPersister persister = ((SessionFactoryImplementor) this.entityManager.unwrap(Session.class)
+                .getSessionFactory()).getMetamodel().entityPersister(NaturalIdEntity.class);
+
+        assertTrue(persister.hasNaturalIdentifier());
+        assertEquals(1, persister.getNaturalIdentifierProperties().length);
+        assertEquals("businessId", persister.getPropertyNames()[persister.getNaturalIdentifierProperties()[0]]);
+    }
+
+    @Test
+    public void testGetByBusinessId_fromPersistenceContext() {
+        BusinessId<NaturalIdEntity> businessId = new BusinessId<NaturalIdEntity>(123);
+        NaturalIdEntity entity = new NaturalIdEntity(businessId);
+        this.naturalIdEntityDao.makePersistent(entity);
+
+        assertSame(entity, this.naturalIdEntityDao.getByBusinessId(businessId));
+        assertSame(entity, this.naturalIdEntityDao.findByBusinessIdOrNull(businessId));
+        assertSame(entity, this.generalLoaderDao.getByBusinessId(businessId, NaturalIdEntity.class));
+        assertSame(entity, this.generalLoaderDao.findByBusinessId(businessId, NaturalIdEntity.class));
+    }
+
+    @Test
+    public void testGetByBusinessId_fromDatabase() {
+        BusinessId<NaturalIdEntity> businessId = new BusinessId<NaturalIdEntity>(123);
+        NaturalIdEntity entity = new NaturalIdEntity(businessId);
+        this.naturalIdEntityDao.makePersistent(entity);
+        this.entityManager.flush();
+        this.entityManager.clear();
+
+        NaturalIdEntity loaded = this.naturalIdEntityDao.getByBusinessId(businessId);
+        assertNotSame(entity, loaded);
+        assertEquals(entity, loaded);
+
+        assertSame(loaded, this.generalLoaderDao.getByBusinessId(businessId, NaturalIdEntity.class));
+    }
+
+    @Test
+    public void testFindByBusinessId_notFound() {
+        BusinessId<NaturalIdEntity> businessId = new BusinessId<NaturalIdEntity>(123);
+
+        assertNull(this.naturalIdEntityDao.findByBusinessIdOrNull(businessId));
+        assertNull(this.generalLoaderDao.findByBusinessId(businessId, NaturalIdEntity.class));
+    }
+
+    /**
+     * Outside of a transaction the entity manager unwraps to a closed session,
+     * so the lookup must use the query instead of the natural id resolution.
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testFindByBusinessId_withoutTransaction() {
+        BusinessId<NaturalIdEntity> businessId = new BusinessId<NaturalIdEntity>(123);
+
+        assertNull(this.naturalIdEntityDao.findByBusinessIdOrNull(businessId));
+        assertNull(this.generalLoaderDao.findByBusinessId(businessId, NaturalIdEntity.class));
+    }
+
+    @Test(expected = NotFoundRuntimeException.class)
+    public void testGetByBusinessId_notFound() {
+        this.naturalIdEntityDao.getByBusinessId(new BusinessId<NaturalIdEntity>(123));
+    }
+
+}